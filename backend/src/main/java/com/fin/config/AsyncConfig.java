@@ -0,0 +1,176 @@
+package com.fin.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class AsyncConfig {
+
+    @Value("${ai.batch.pool-size:8}")
+    private int aiBatchPoolSize;
+
+    @Value("${ai.batch.queue-capacity:500}")
+    private int aiBatchQueueCapacity;
+
+    @Value("${ai.training.parallelism:4}")
+    private int aiTrainingParallelism;
+
+    @Value("${automation.backtest.pool-size:4}")
+    private int ruleBacktestPoolSize;
+
+    @Value("${recurring.scheduler.parallelism:4}")
+    private int recurringSchedulerParallelism;
+
+    @Value("${notifications.stream.push-pool-size:4}")
+    private int notificationPushPoolSize;
+
+    @Value("${budget.scenarios.parallelism:4}")
+    private int scenarioSimulationParallelism;
+
+    @Value("${import.pool-size:2}")
+    private int statementImportPoolSize;
+
+    @Value("${import.queue-capacity:20}")
+    private int statementImportQueueCapacity;
+
+    @Value("${storage.pool-size:4}")
+    private int storagePoolSize;
+
+    @Value("${storage.queue-capacity:1000}")
+    private int storageQueueCapacity;
+
+    /**
+     * Executor limitado para o processamento em lote de textos da IA.
+     * Quando a fila enche, a própria thread da requisição executa a tarefa (backpressure).
+     */
+    @Bean(name = "aiBatchExecutor")
+    public Executor aiBatchExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(aiBatchPoolSize);
+        executor.setMaxPoolSize(aiBatchPoolSize);
+        executor.setQueueCapacity(aiBatchQueueCapacity);
+        executor.setThreadNamePrefix("ai-batch-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Thread única que conduz os jobs de treino da IA (um job por vez).
+     */
+    @Bean(name = "aiTrainingJobExecutor")
+    public Executor aiTrainingJobExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(10);
+        executor.setThreadNamePrefix("ai-training-job-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Workers que executam as chamadas à OpenAI de um bloco do treino, com paralelismo limitado.
+     */
+    @Bean(name = "aiTrainingWorkerExecutor")
+    public Executor aiTrainingWorkerExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(aiTrainingParallelism);
+        executor.setMaxPoolSize(aiTrainingParallelism);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("ai-training-worker-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Avaliação paralela dos blocos do histórico no backtest de regras de automação.
+     */
+    @Bean(name = "ruleBacktestExecutor")
+    public Executor ruleBacktestExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(ruleBacktestPoolSize);
+        executor.setMaxPoolSize(ruleBacktestPoolSize);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("rule-backtest-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Workers do processamento diário de recorrências (um worker por thread, cada um reivindicando blocos).
+     */
+    @Bean(name = "recurringSchedulerExecutor")
+    public Executor recurringSchedulerExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(recurringSchedulerParallelism);
+        executor.setMaxPoolSize(recurringSchedulerParallelism);
+        executor.setQueueCapacity(recurringSchedulerParallelism);
+        executor.setThreadNamePrefix("recurring-worker-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Entrega dos eventos recebidos do canal Redis às conexões SSE desta instância
+     * (evita uma thread nova por mensagem e não bloqueia a conexão do Redis com clientes lentos).
+     */
+    @Bean(name = "notificationPushExecutor")
+    public Executor notificationPushExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(notificationPushPoolSize);
+        executor.setMaxPoolSize(notificationPushPoolSize);
+        executor.setQueueCapacity(10000);
+        executor.setThreadNamePrefix("notification-push-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Pool dedicado às simulações de Monte Carlo dos cenários (não disputa o commonPool com streams paralelos).
+     */
+    @Bean(name = "scenarioSimulationPool", destroyMethod = "shutdown")
+    public ForkJoinPool scenarioSimulationPool() {
+        return new ForkJoinPool(scenarioSimulationParallelism);
+    }
+
+    /**
+     * Leitura dos extratos importados (uma thread por arquivo). Fila cheia recusa a importação em vez de
+     * rodar na thread da requisição.
+     */
+    @Bean(name = "statementImportExecutor")
+    public Executor statementImportExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(statementImportPoolSize);
+        executor.setMaxPoolSize(statementImportPoolSize);
+        executor.setQueueCapacity(statementImportQueueCapacity);
+        executor.setThreadNamePrefix("statement-import-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Operações no MinIO fora da thread da requisição (remoção de arquivos após o commit).
+     * Fila cheia rejeita a tarefa: o MinioService faz a remoção na thread chamadora, sem perder as chaves.
+     */
+    @Bean(name = "storageExecutor")
+    public Executor storageExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(storagePoolSize);
+        executor.setMaxPoolSize(storagePoolSize);
+        executor.setQueueCapacity(storageQueueCapacity);
+        executor.setThreadNamePrefix("storage-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+}
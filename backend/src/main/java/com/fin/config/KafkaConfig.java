@@ -17,6 +17,12 @@ public class KafkaConfig {
     @Value("${kafka.topic.transactions:transactions}")
     private String transactionsTopic;
     
+    @Value("${kafka.topic.automation-rules:automation-rule-changes}")
+    private String automationRulesTopic;
+    
+    @Value("${kafka.topic.statement-imports:statement-imports}")
+    private String statementImportsTopic;
+    
     @Value("${spring.kafka.bootstrap-servers:localhost:9092}")
     private String bootstrapServers;
     
@@ -34,5 +40,23 @@ public class KafkaConfig {
                 .replicas(1) // 1 réplica (para desenvolvimento - em produção usar mais)
                 .build();
     }
+    
+    @Bean
+    public NewTopic automationRulesTopic() {
+        // Compactado: o Kafka mantém apenas o último aviso por usuário (chave = userId)
+        return TopicBuilder.name(automationRulesTopic)
+                .partitions(1)
+                .replicas(1)
+                .compact()
+                .build();
+    }
+    
+    @Bean
+    public NewTopic statementImportsTopic() {
+        // Lotes de importação de extratos (chave = userId)
+        return TopicBuilder.name(statementImportsTopic)
+                .partitions(3)
+                .replicas(1)
+                .build();
+    }
 }
-
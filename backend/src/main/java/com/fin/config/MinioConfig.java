@@ -0,0 +1,77 @@
+package com.fin.config;
+
+import io.minio.MinioClient;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class MinioConfig {
+    
+    @Value("${minio.endpoint:http://localhost:9000}")
+    private String minioEndpoint;
+    
+    @Value("${minio.access-key:minioadmin}")
+    private String minioAccessKey;
+    
+    @Value("${minio.secret-key:minioadmin123}")
+    private String minioSecretKey;
+    
+    @Value("${minio.http.max-idle-connections:16}")
+    private int maxIdleConnections;
+    
+    @Value("${minio.http.keep-alive-seconds:300}")
+    private long keepAliveSeconds;
+    
+    @Value("${minio.http.max-requests:64}")
+    private int maxRequests;
+    
+    @Value("${minio.http.max-requests-per-host:32}")
+    private int maxRequestsPerHost;
+    
+    @Value("${minio.http.connect-timeout-ms:5000}")
+    private long connectTimeoutMs;
+    
+    @Value("${minio.http.read-timeout-ms:60000}")
+    private long readTimeoutMs;
+    
+    @Value("${minio.http.write-timeout-ms:60000}")
+    private long writeTimeoutMs;
+    
+    /**
+     * Cliente HTTP compartilhado por todo acesso ao MinIO. O SDK 8.5 executa as chamadas pelo Dispatcher
+     * do OkHttp (enqueue), cujo padrão é de apenas 5 requisições simultâneas por host.
+     */
+    @Bean(name = "minioHttpClient")
+    public OkHttpClient minioHttpClient() {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(maxRequests);
+        dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+        
+        return new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectionPool(new ConnectionPool(maxIdleConnections, keepAliveSeconds, TimeUnit.SECONDS))
+                .connectTimeout(connectTimeoutMs, TimeUnit.MILLISECONDS)
+                .readTimeout(readTimeoutMs, TimeUnit.MILLISECONDS)
+                .writeTimeout(writeTimeoutMs, TimeUnit.MILLISECONDS)
+                .retryOnConnectionFailure(true)
+                .build();
+    }
+    
+    /**
+     * Único MinioClient da aplicação (anexos e comprovantes de saque)
+     */
+    @Bean
+    public MinioClient minioClient(OkHttpClient minioHttpClient) {
+        return MinioClient.builder()
+                .endpoint(minioEndpoint)
+                .credentials(minioAccessKey, minioSecretKey)
+                .httpClient(minioHttpClient)
+                .build();
+    }
+}
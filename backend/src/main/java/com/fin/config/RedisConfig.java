@@ -1,5 +1,8 @@
 package com.fin.config;
 
+import com.fin.service.NotificationStreamService;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -7,11 +10,14 @@ import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.time.Duration;
+import java.util.concurrent.Executor;
 
 @Configuration
 @EnableCaching
@@ -42,5 +48,18 @@ public class RedisConfig {
                 .transactionAware()
                 .build();
     }
+    
+    // Assinatura do canal de notificações em tempo real (fan-out entre as instâncias do backend)
+    @Bean
+    public RedisMessageListenerContainer notificationListenerContainer(
+            RedisConnectionFactory connectionFactory,
+            NotificationStreamService notificationStreamService,
+            @Qualifier("notificationPushExecutor") Executor notificationPushExecutor,
+            @Value("${notifications.stream.channel:notifications:events}") String channel) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.setTaskExecutor(notificationPushExecutor);
+        container.addMessageListener(notificationStreamService, new ChannelTopic(channel));
+        return container;
+    }
 }
-
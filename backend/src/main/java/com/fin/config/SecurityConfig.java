@@ -1,7 +1,9 @@
 package com.fin.config;
 
 import com.fin.security.JwtAuthenticationFilter;
+import com.fin.security.RateLimitFilter;
 import com.fin.security.CustomUserDetailsService;
+import com.fin.service.RateLimitService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -37,6 +39,9 @@ public class SecurityConfig {
     @Autowired
     private JwtAuthenticationFilter jwtAuthenticationFilter;
     
+    @Autowired
+    private RateLimitService rateLimitService;
+    
     @Bean
     public PasswordEncoder passwordEncoder() {
         return new BCryptPasswordEncoder();
@@ -93,7 +98,8 @@ public class SecurityConfig {
                 .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
             )
             .authenticationProvider(authenticationProvider())
-            .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+            .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+            .addFilterAfter(new RateLimitFilter(rateLimitService), JwtAuthenticationFilter.class);
         
         System.out.println("=== SecurityConfig: SecurityFilterChain configurado com sucesso ===");
         return http.build();
@@ -5,6 +5,9 @@ import com.fin.dto.UserDto;
 import com.fin.model.Subscription;
 import com.fin.security.SecurityUtil;
 import com.fin.service.AdminService;
+import com.fin.service.MinioService;
+import com.fin.service.RateLimitService;
+import com.fin.service.SchedulerCoordinator;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -22,6 +25,15 @@ public class AdminController {
     @Autowired
     private AdminService adminService;
     
+    @Autowired
+    private SchedulerCoordinator schedulerCoordinator;
+    
+    @Autowired
+    private RateLimitService rateLimitService;
+    
+    @Autowired
+    private MinioService minioService;
+    
     @Autowired
     private SecurityUtil securityUtil;
     
@@ -91,6 +103,36 @@ public class AdminController {
         return ResponseEntity.ok(stats);
     }
     
+    /**
+     * Métricas dos jobs agendados nesta instância e histórico recente de execuções de todas as instâncias
+     */
+    @GetMapping("/scheduler/jobs")
+    public ResponseEntity<Map<String, Object>> getScheduledJobs() {
+        checkAdminAccess();
+        Map<String, Object> response = new HashMap<>();
+        response.put("instanceId", schedulerCoordinator.getInstanceId());
+        response.put("jobs", schedulerCoordinator.getJobStatuses());
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Requisições liberadas e recusadas pelo limite de taxa da IA nesta instância
+     */
+    @GetMapping("/rate-limit/stats")
+    public ResponseEntity<Map<String, Map<String, Long>>> getRateLimitStats() {
+        checkAdminAccess();
+        return ResponseEntity.ok(rateLimitService.getStats());
+    }
+    
+    /**
+     * Chamadas, erros e latência das operações no MinIO nesta instância
+     */
+    @GetMapping("/storage/stats")
+    public ResponseEntity<Map<String, Map<String, Long>>> getStorageStats() {
+        checkAdminAccess();
+        return ResponseEntity.ok(minioService.getStats());
+    }
+    
     @PostMapping("/create-admin")
     public ResponseEntity<UserDto> createAdmin(@RequestBody UserDto userDto) {
         checkAdminAccess();
@@ -2,7 +2,9 @@ package com.fin.controller;
 
 import com.fin.dto.AutomationRuleDto;
 import com.fin.security.SecurityUtil;
+import com.fin.dto.RuleBacktestResultDto;
 import com.fin.service.AutomationRuleService;
+import com.fin.service.RuleBacktestService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -17,6 +19,9 @@ public class AutomationRuleController {
     @Autowired
     private AutomationRuleService automationRuleService;
     
+    @Autowired
+    private RuleBacktestService ruleBacktestService;
+    
     @Autowired
     private SecurityUtil securityUtil;
     
@@ -44,6 +49,24 @@ public class AutomationRuleController {
         return ResponseEntity.ok(automationRuleService.updateRule(id, userId, dto));
     }
     
+    /**
+     * Simula a regra sobre as transações já existentes, sem alterá-las
+     */
+    @PostMapping("/{id}/backtest")
+    public ResponseEntity<RuleBacktestResultDto> backtestRule(@PathVariable Long id) {
+        Long userId = securityUtil.getCurrentUserId();
+        return ResponseEntity.ok(ruleBacktestService.preview(id, userId));
+    }
+    
+    /**
+     * Aplica a ação da regra às transações já existentes que atendem à condição
+     */
+    @PostMapping("/{id}/apply-retroactively")
+    public ResponseEntity<RuleBacktestResultDto> applyRuleRetroactively(@PathVariable Long id) {
+        Long userId = securityUtil.getCurrentUserId();
+        return ResponseEntity.ok(ruleBacktestService.applyRetroactively(id, userId));
+    }
+    
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteRule(@PathVariable Long id) {
         Long userId = securityUtil.getCurrentUserId();
@@ -91,10 +91,12 @@ public class BudgetController {
             ? new BigDecimal(request.get("expenseAdjustment").toString()) : null;
         Long accountId = request.get("accountId") != null 
             ? Long.parseLong(request.get("accountId").toString()) : null;
+        Integer simulations = request.get("simulations") != null 
+            ? Integer.parseInt(request.get("simulations").toString()) : null;
         
         ScenarioDto scenario = budgetService.simulateScenario(
             userId, name, description, startDate, endDate,
-            incomeAdjustment, expenseAdjustment, accountId
+            incomeAdjustment, expenseAdjustment, accountId, simulations
         );
         return ResponseEntity.ok(scenario);
     }
@@ -5,8 +5,10 @@ import com.fin.dto.PageResponse;
 import com.fin.security.SecurityUtil;
 import com.fin.service.NotificationService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -60,6 +62,13 @@ public class NotificationController {
         return ResponseEntity.ok(count);
     }
     
+    // Canal SSE: eventos "notification" e "unread-count" em tempo real, substituindo o polling
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream() {
+        Long userId = securityUtil.getCurrentUserId();
+        return notificationService.subscribe(userId);
+    }
+    
     @PutMapping("/{id}/read")
     public ResponseEntity<NotificationDto> markAsRead(@PathVariable Long id) {
         Long userId = securityUtil.getCurrentUserId();
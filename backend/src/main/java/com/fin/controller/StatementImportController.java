@@ -0,0 +1,45 @@
+package com.fin.controller;
+
+import com.fin.dto.StatementImportJobDto;
+import com.fin.security.SecurityUtil;
+import com.fin.service.StatementImportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/transactions/import")
+@CrossOrigin(origins = "http://localhost:3000")
+public class StatementImportController {
+    
+    @Autowired
+    private StatementImportService statementImportService;
+    
+    @Autowired
+    private SecurityUtil securityUtil;
+    
+    /**
+     * Importa um extrato OFX ou CSV. Responde assim que o arquivo é recebido; o progresso fica em GET /{jobId}
+     */
+    @PostMapping
+    public ResponseEntity<StatementImportJobDto> importStatement(@RequestParam("file") MultipartFile file) {
+        Long userId = securityUtil.getCurrentUserId();
+        StatementImportJobDto job = statementImportService.startImport(userId, file);
+        return ResponseEntity.accepted().body(job);
+    }
+    
+    @GetMapping
+    public ResponseEntity<List<StatementImportJobDto>> getRecentImports() {
+        Long userId = securityUtil.getCurrentUserId();
+        return ResponseEntity.ok(statementImportService.getRecentJobs(userId));
+    }
+    
+    @GetMapping("/{jobId}")
+    public ResponseEntity<StatementImportJobDto> getImport(@PathVariable Long jobId) {
+        Long userId = securityUtil.getCurrentUserId();
+        return ResponseEntity.ok(statementImportService.getJob(userId, jobId));
+    }
+}
@@ -1,19 +1,26 @@
 package com.fin.controller;
 
+import com.fin.dto.AttachmentUploadConfirmRequest;
+import com.fin.dto.AttachmentUploadRequest;
+import com.fin.dto.AttachmentUploadUrlDto;
 import com.fin.dto.TransactionAttachmentDto;
 import com.fin.security.SecurityUtil;
 import com.fin.service.TransactionAttachmentService;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.InputStreamResource;
-import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/attachments")
@@ -40,6 +47,25 @@ public class TransactionAttachmentController {
         }
     }
     
+    /**
+     * Formulário pré-assinado para o cliente enviar o arquivo direto ao MinIO; depois chamar /confirm
+     */
+    @PostMapping("/transaction/{transactionId}/upload-url")
+    public ResponseEntity<AttachmentUploadUrlDto> createUploadUrl(
+            @PathVariable Long transactionId,
+            @RequestBody AttachmentUploadRequest request) {
+        Long userId = securityUtil.getCurrentUserId();
+        return ResponseEntity.ok(attachmentService.createUploadUrl(transactionId, request, userId));
+    }
+    
+    @PostMapping("/transaction/{transactionId}/confirm")
+    public ResponseEntity<TransactionAttachmentDto> confirmUpload(
+            @PathVariable Long transactionId,
+            @RequestBody AttachmentUploadConfirmRequest request) {
+        Long userId = securityUtil.getCurrentUserId();
+        return ResponseEntity.ok(attachmentService.confirmUpload(transactionId, request, userId));
+    }
+    
     @GetMapping("/transaction/{transactionId}")
     public ResponseEntity<List<TransactionAttachmentDto>> getTransactionAttachments(@PathVariable Long transactionId) {
         Long userId = securityUtil.getCurrentUserId();
@@ -47,23 +73,62 @@ public class TransactionAttachmentController {
         return ResponseEntity.ok(attachments);
     }
     
+    /**
+     * URL pré-assinada de curta duração: o download sai direto do MinIO
+     */
+    @GetMapping("/{attachmentId}/download-url")
+    public ResponseEntity<Map<String, String>> getDownloadUrl(@PathVariable Long attachmentId) {
+        Long userId = securityUtil.getCurrentUserId();
+        String url = attachmentService.getDownloadUrl(attachmentId, userId);
+        
+        Map<String, String> response = new HashMap<>();
+        response.put("url", url);
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Copia o arquivo do MinIO para a resposta em blocos, sem carregá-lo na memória.
+     * Aceita um único intervalo no header Range (206 Partial Content).
+     */
     @GetMapping("/{attachmentId}/download")
-    public ResponseEntity<Resource> downloadAttachment(@PathVariable Long attachmentId) {
-        try {
-            Long userId = securityUtil.getCurrentUserId();
-            InputStream inputStream = attachmentService.getAttachmentFile(attachmentId, userId);
-            
-            // Obter nome do arquivo do anexo
-            TransactionAttachmentDto attachment = attachmentService.getAttachment(attachmentId, userId);
-            
-            Resource resource = new InputStreamResource(inputStream);
-            
-            return ResponseEntity.ok()
-                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + attachment.getFileName() + "\"")
-                    .body(resource);
-        } catch (Exception e) {
-            throw new RuntimeException("Erro ao baixar anexo: " + e.getMessage());
+    public void downloadAttachment(
+            @PathVariable Long attachmentId,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String rangeHeader,
+            HttpServletResponse response) throws IOException {
+        Long userId = securityUtil.getCurrentUserId();
+        TransactionAttachmentDto attachment = attachmentService.getAttachment(attachmentId, userId);
+        
+        long size = attachment.getFileSize();
+        long start = 0;
+        long end = size - 1;
+        
+        List<HttpRange> ranges = parseRanges(rangeHeader);
+        // Vários intervalos (multipart/byteranges) não são suportados: responde o arquivo inteiro
+        if (ranges.size() == 1) {
+            try {
+                start = ranges.get(0).getRangeStart(size);
+                end = ranges.get(0).getRangeEnd(size);
+            } catch (IllegalArgumentException e) {
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                return;
+            }
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+        }
+        
+        long length = end - start + 1;
+        response.setContentType(attachment.getFileType() != null ? attachment.getFileType() : MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + attachment.getFileName() + "\"");
+        response.setContentLengthLong(length);
+        if (length <= 0) {
+            return;
+        }
+        
+        try (InputStream inputStream = attachmentService.getAttachmentFile(attachmentId, userId, start, length)) {
+            inputStream.transferTo(response.getOutputStream());
         }
     }
     
@@ -77,5 +142,16 @@ public class TransactionAttachmentController {
             throw new RuntimeException("Erro ao deletar anexo: " + e.getMessage());
         }
     }
+    
+    private List<HttpRange> parseRanges(String rangeHeader) {
+        if (rangeHeader == null) {
+            return List.of();
+        }
+        try {
+            return HttpRange.parseRanges(rangeHeader);
+        } catch (IllegalArgumentException e) {
+            return List.of(); // Header inválido é ignorado, como manda a RFC 9110
+        }
+    }
 }
 
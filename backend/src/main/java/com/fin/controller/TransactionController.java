@@ -1,19 +1,25 @@
 package com.fin.controller;
 
+import com.fin.dto.AiBatchTransactionResponse;
+import com.fin.dto.AiTrainingJobDto;
 import com.fin.dto.AiTransactionResponse;
 import com.fin.dto.FinancialAnalysisDto;
 import com.fin.dto.PageResponse;
 import com.fin.dto.TransactionDto;
 import com.fin.security.SecurityUtil;
-import com.fin.service.AiLearningService;
+import com.fin.service.AiTrainingJobService;
 import com.fin.service.AiTransactionService;
 import com.fin.service.FinancialAnalysisService;
+import com.fin.service.TransactionExportService;
 import com.fin.service.TransactionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
@@ -34,7 +40,10 @@ public class TransactionController {
     private FinancialAnalysisService financialAnalysisService;
     
     @Autowired
-    private AiLearningService aiLearningService;
+    private AiTrainingJobService aiTrainingJobService;
+    
+    @Autowired
+    private TransactionExportService transactionExportService;
     
     @Autowired
     private SecurityUtil securityUtil;
@@ -62,6 +71,31 @@ public class TransactionController {
         return ResponseEntity.ok(transactions);
     }
     
+    /**
+     * Exporta as transações em CSV ou XLSX, escrevendo direto na resposta (chunked) conforme as linhas chegam do banco
+     */
+    @GetMapping("/export")
+    public void exportTransactions(
+            @RequestParam(defaultValue = "CSV") TransactionExportService.Format format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) Long categoryId,
+            HttpServletResponse response) throws IOException {
+        Long userId = securityUtil.getCurrentUserId();
+        transactionExportService.acquire(userId);
+        try {
+            String fileName = "transacoes-" + LocalDate.now() + (format == TransactionExportService.Format.XLSX ? ".xlsx" : ".csv");
+            response.setContentType(format == TransactionExportService.Format.XLSX
+                ? "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"
+                : "text/csv; charset=UTF-8");
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
+            
+            transactionExportService.export(userId, format, startDate, endDate, categoryId, response.getOutputStream());
+        } finally {
+            transactionExportService.release();
+        }
+    }
+    
     @GetMapping("/installments")
     public ResponseEntity<List<TransactionDto>> getInstallmentTransactions() {
         Long userId = securityUtil.getCurrentUserId();
@@ -220,6 +254,27 @@ public class TransactionController {
         }
     }
     
+    @PostMapping("/ai/batch")
+    public ResponseEntity<AiBatchTransactionResponse> createTransactionsFromTextBatch(@RequestBody AiBatchTransactionRequest request) {
+        if (request == null || request.getLines() == null || request.getLines().isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        Long userId = securityUtil.getCurrentUserId();
+        AiBatchTransactionResponse response = aiTransactionService.processBatch(request.getLines(), userId);
+        return ResponseEntity.ok(response);
+    }
+    
+    @PostMapping("/ai/batch/confirm")
+    public ResponseEntity<Map<String, Object>> confirmTransactionsBatch(@RequestBody List<TransactionDto> dtos) {
+        Long userId = securityUtil.getCurrentUserId();
+        List<TransactionDto> created = transactionService.createTransactionsBatch(dtos, userId);
+        return ResponseEntity.ok(Map.of(
+            "success", true,
+            "count", created.size(),
+            "message", created.size() + " transações enviadas para processamento"
+        ));
+    }
+    
     @PostMapping("/ai/confirm")
     public ResponseEntity<AiTransactionResponse> confirmTransaction(@RequestBody TransactionDto dto) {
         System.out.println("=== POST /api/transactions/ai/confirm ===");
@@ -280,19 +335,25 @@ public class TransactionController {
     }
     
     @PostMapping("/ai/train")
-    public ResponseEntity<Map<String, Object>> trainLearningSystem() {
-        try {
-            aiLearningService.trainWithHistoricalPatterns();
-            return ResponseEntity.ok(Map.of(
-                "success", true,
-                "message", "Sistema de aprendizado treinado com sucesso"
-            ));
-        } catch (Exception e) {
-            return ResponseEntity.status(500).body(Map.of(
-                "success", false,
-                "message", "Erro ao treinar sistema: " + e.getMessage()
-            ));
+    public ResponseEntity<AiTrainingJobDto> trainLearningSystem() {
+        Long userId = securityUtil.getCurrentUserId();
+        AiTrainingJobDto job = aiTrainingJobService.startJob(userId);
+        return ResponseEntity.accepted().body(job);
+    }
+    
+    @GetMapping("/ai/train/latest")
+    public ResponseEntity<AiTrainingJobDto> getLatestTrainingJob() {
+        AiTrainingJobDto job = aiTrainingJobService.getLatestJob();
+        if (job == null) {
+            return ResponseEntity.noContent().build();
         }
+        return ResponseEntity.ok(job);
+    }
+    
+    @GetMapping("/ai/train/{jobId}")
+    public ResponseEntity<AiTrainingJobDto> getTrainingJob(@PathVariable Long jobId) {
+        Long userId = securityUtil.getCurrentUserId();
+        return ResponseEntity.ok(aiTrainingJobService.getJob(jobId, userId, securityUtil.isAdmin()));
     }
     
     public static class CategoryStatsDto {
@@ -365,5 +426,17 @@ public class TransactionController {
             this.text = text;
         }
     }
+    
+    public static class AiBatchTransactionRequest {
+        private List<String> lines;
+        
+        public List<String> getLines() {
+            return lines;
+        }
+        
+        public void setLines(List<String> lines) {
+            this.lines = lines;
+        }
+    }
 }
 
@@ -0,0 +1,29 @@
+package com.fin.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AiBatchTransactionResponse {
+    private int totalLines; // Linhas recebidas (incluindo vazias e duplicadas)
+    private int uniqueLines; // Linhas efetivamente processadas após deduplicação
+    private int learnedPatternHits; // Linhas resolvidas por padrões já aprendidos (sem OpenAI)
+    private int aiProcessed; // Linhas enviadas à OpenAI no prompt em lote
+    private long elapsedMillis;
+    private List<LineResult> results; // Um resultado por linha não vazia, na ordem original
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class LineResult {
+        private int lineNumber; // Índice da linha na requisição (0-based)
+        private String text;
+        private boolean duplicate; // true se a linha repete uma linha anterior do mesmo lote
+        private AiTransactionResponse response;
+    }
+}
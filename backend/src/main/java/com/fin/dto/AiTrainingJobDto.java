@@ -0,0 +1,23 @@
+package com.fin.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AiTrainingJobDto {
+    private Long id;
+    private String status;
+    private Long totalPatterns;
+    private Long processedCount;
+    private Long failedCount;
+    private Double progressPercentage; // (processados + falhas) / total * 100
+    private String errorMessage;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,17 @@
+package com.fin.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Confirmação de um upload feito pela URL pré-assinada: cria o registro do anexo
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttachmentUploadConfirmRequest {
+    private String objectName; // Devolvido junto com a URL de upload
+    private String fileName;
+    private String description;
+}
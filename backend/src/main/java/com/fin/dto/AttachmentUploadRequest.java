@@ -0,0 +1,17 @@
+package com.fin.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Pedido de URL pré-assinada para enviar um anexo direto ao MinIO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttachmentUploadRequest {
+    private String fileName;
+    private String contentType;
+    private Long fileSize; // Tamanho declarado; conferido no MinIO na confirmação
+}
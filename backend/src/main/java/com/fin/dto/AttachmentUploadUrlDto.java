@@ -0,0 +1,21 @@
+package com.fin.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Formulário pré-assinado de upload. O cliente envia um POST multipart para uploadUrl com os campos de formData
+ * seguidos do arquivo no campo "file" e depois confirma com objectName.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttachmentUploadUrlDto {
+    private String objectName;
+    private String uploadUrl;
+    private Map<String, String> formData;
+    private Integer expiresInSeconds;
+}
@@ -0,0 +1,21 @@
+package com.fin.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Aviso de alteração nas regras de automação de um usuário (tópico compactado, chave = userId).
+ * O transaction-consumer usa para invalidar o cache de regras compiladas.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AutomationRuleChangeMessage {
+    private Long userId;
+    private Long ruleId;
+    private String operation; // CREATE, UPDATE, DELETE
+    private LocalDateTime timestamp;
+}
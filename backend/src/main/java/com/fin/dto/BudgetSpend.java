@@ -0,0 +1,18 @@
+package com.fin.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Total de despesas no período (e na categoria, se houver) de um orçamento
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BudgetSpend {
+    private Long budgetId;
+    private BigDecimal spent;
+}
@@ -0,0 +1,20 @@
+package com.fin.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Total de despesas de uma categoria em um mês (categoryId null = sem categoria)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoryMonthlySpend {
+    private Long categoryId;
+    private Integer year;
+    private Integer month;
+    private BigDecimal total;
+}
@@ -0,0 +1,28 @@
+package com.fin.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Projeção enxuta de uma meta ativa usada no job diário de metas desviando (evita carregar a entidade e o usuário)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GoalOffTrackCandidate {
+    private Long id;
+    private Long userId;
+    private String name;
+    private BigDecimal targetAmount;
+    private BigDecimal currentAmount;
+    private LocalDate targetDate;
+    private LocalDateTime createdAt;
+    private BigDecimal alertThreshold;
+    private LocalDate lastAlertDate;
+    private Boolean isOffTrack;
+}
@@ -0,0 +1,21 @@
+package com.fin.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Evento de notificação distribuído entre as instâncias via Redis pub/sub e entregue ao cliente por SSE
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationPushMessage {
+    public static final String EVENT_NOTIFICATION = "notification";
+    public static final String EVENT_UNREAD_COUNT = "unread-count";
+    
+    private Long userId;
+    private String event; // "notification" ou "unread-count"
+    private NotificationDto notification; // null no evento de contagem
+    private Long unreadCount; // null quando a contagem não é conhecida (o cliente deve consultar /unread/count)
+}
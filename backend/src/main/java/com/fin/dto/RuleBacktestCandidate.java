@@ -0,0 +1,23 @@
+package com.fin.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Projeção enxuta de uma transação usada no backtest de regras (evita carregar a entidade completa)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RuleBacktestCandidate {
+    private Long id;
+    private String description;
+    private BigDecimal amount;
+    private LocalDate transactionDate;
+    private Boolean isPaid;
+    private Long categoryId;
+}
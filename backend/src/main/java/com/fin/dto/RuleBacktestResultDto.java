@@ -0,0 +1,25 @@
+package com.fin.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RuleBacktestResultDto {
+    private Long ruleId;
+    private String ruleName;
+    private String actionType;
+    private boolean applied; // false = apenas simulação (preview)
+    private long scannedCount; // Transações históricas avaliadas
+    private long matchedCount; // Transações que atendem à condição da regra
+    private long alreadyAppliedCount; // Atendem à condição mas já estão no estado que a ação produziria
+    private long updatedCount; // Transações alteradas (apenas quando applied = true)
+    private long scanMillis;
+    private long updateMillis;
+    private long elapsedMillis;
+    private List<RuleBacktestCandidate> sampleMatches; // Primeiras transações que seriam alteradas
+}
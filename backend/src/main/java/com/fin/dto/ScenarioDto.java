@@ -18,6 +18,7 @@ public class ScenarioDto {
     private BigDecimal incomeAdjustment; // Ajuste percentual na receita (ex: 0.1 = +10%)
     private BigDecimal expenseAdjustment; // Ajuste percentual nas despesas (ex: -0.2 = -20%)
     private CashFlowForecastDto forecast;
+    private ScenarioSimulationDto simulation; // Faixas P10/P50/P90 com variação das despesas pelo histórico
 }
 
 
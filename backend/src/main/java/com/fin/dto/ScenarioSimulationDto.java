@@ -0,0 +1,38 @@
+package com.fin.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Resultado da simulação de Monte Carlo de um cenário: faixas de percentis do saldo ao longo do período
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScenarioSimulationDto {
+    private int simulations;
+    private BigDecimal probabilityNegative; // Fração das simulações em que o saldo fica negativo em algum dia (0 a 1)
+    private BigDecimal endingBalanceP10;
+    private BigDecimal endingBalanceP50;
+    private BigDecimal endingBalanceP90;
+    private BigDecimal lowestBalanceP10;
+    private BigDecimal lowestBalanceP50;
+    private BigDecimal lowestBalanceP90;
+    private List<BalanceBand> bands; // Amostradas em até N datas do período (inclui a última)
+    private long elapsedMillis;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BalanceBand {
+        private LocalDate date;
+        private BigDecimal p10;
+        private BigDecimal p50;
+        private BigDecimal p90;
+    }
+}
@@ -0,0 +1,27 @@
+package com.fin.dto;
+
+import com.fin.model.ScheduledJobRun;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScheduledJobStatusDto {
+    private String jobName;
+    // Métricas desta instância desde o início da aplicação
+    private long runs; // Execuções (ou partições) feitas por esta instância
+    private long failures;
+    private long skippedLockHeld; // Disparos ignorados porque outra instância detinha o lease
+    private long skippedOverrun; // Disparos ignorados porque a execução anterior ainda não terminou
+    private Long lastDurationMillis;
+    private Long averageDurationMillis;
+    private LocalDateTime lastRunAt;
+    private String lastStatus;
+    // Histórico compartilhado entre todas as instâncias
+    private List<ScheduledJobRun> recentRuns;
+}
@@ -0,0 +1,25 @@
+package com.fin.dto;
+
+import com.fin.model.SpendingAnomaly;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Anomalia de gasto com o nome da categoria, lida pelo dashboard executivo
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SpendingAnomalyView {
+    private SpendingAnomaly.Scope scope;
+    private String categoryName;
+    private BigDecimal amount;
+    private BigDecimal expected;
+    private Double zScore;
+    private String severity;
+    private LocalDateTime detectedAt;
+}
@@ -0,0 +1,32 @@
+package com.fin.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Perfil de gastos do usuário (médias mensais por categoria e totais do mês corrente),
+ * calculado em uma única consulta agrupada e mantido em cache
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SpendingProfile {
+    private String month; // Mês de referência (yyyy-MM); o perfil é recalculado na virada do mês
+    private Integer months; // Janela, em meses, das médias por categoria
+    private List<CategoryAverage> categoryAverages; // Despesas pagas, da maior para a menor média
+    private BigDecimal currentMonthIncome;
+    private BigDecimal currentMonthExpense;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CategoryAverage {
+        private Long categoryId;
+        private String categoryName;
+        private BigDecimal monthlyAverage;
+    }
+}
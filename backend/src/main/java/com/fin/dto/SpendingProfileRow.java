@@ -0,0 +1,23 @@
+package com.fin.dto;
+
+import com.fin.model.Transaction;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Linha da consulta agrupada do perfil de gastos: totais pagos por tipo e categoria
+ * na janela do perfil e no mês corrente (categoryId null = sem categoria)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SpendingProfileRow {
+    private Transaction.TransactionType type;
+    private Long categoryId;
+    private String categoryName;
+    private BigDecimal windowTotal;
+    private BigDecimal currentMonthTotal;
+}
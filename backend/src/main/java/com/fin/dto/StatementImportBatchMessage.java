@@ -0,0 +1,32 @@
+package com.fin.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Lote de lançamentos de um extrato importado, já deduplicado, enviado ao transaction-consumer
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatementImportBatchMessage {
+    private Long jobId;
+    private Long userId;
+    private Integer batchNumber; // Sequencial a partir de 1 dentro da importação
+    private List<Line> lines;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Line {
+        private LocalDate transactionDate;
+        private String description;
+        private BigDecimal amount; // Sempre positivo; o sentido vem de type
+        private String type; // INCOME ou EXPENSE
+    }
+}
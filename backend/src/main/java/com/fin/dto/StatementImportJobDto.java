@@ -0,0 +1,30 @@
+package com.fin.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatementImportJobDto {
+    private Long id;
+    private String fileName;
+    private String format;
+    private String status;
+    private Long totalLines;
+    private Long invalidCount;
+    private Long duplicateCount;
+    private Long publishedCount;
+    private Long importedCount;
+    private Integer publishedBatches;
+    private Integer processedBatches;
+    private Integer totalBatches;
+    private Double progressPercentage; // Lotes gravados / lotes publicados * 100 (100 quando concluída)
+    private String errorMessage;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private LocalDateTime createdAt;
+}
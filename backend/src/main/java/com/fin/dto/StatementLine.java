@@ -0,0 +1,20 @@
+package com.fin.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Lançamento lido de um extrato (OFX ou CSV). O valor vem com sinal: negativo é débito.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatementLine {
+    private LocalDate date;
+    private BigDecimal amount;
+    private String description;
+}
@@ -0,0 +1,67 @@
+package com.fin.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "ai_training_jobs", indexes = {
+    @Index(name = "idx_ai_training_job_status", columnList = "status")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AiTrainingJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private JobStatus status = JobStatus.PENDING;
+    
+    @Column(name = "total_patterns")
+    private Long totalPatterns = 0L; // Padrões não processados no início do job
+    
+    @Column(name = "processed_count")
+    private Long processedCount = 0L; // Padrões processados com sucesso
+    
+    @Column(name = "failed_count")
+    private Long failedCount = 0L; // Padrões que falharam na OpenAI
+    
+    @Column(name = "last_processed_id")
+    private Long lastProcessedId = 0L; // Checkpoint: maior ID de padrão já tratado
+    
+    @Column(name = "requested_by")
+    private Long requestedBy; // ID do usuário que disparou o treino
+    
+    @Column(name = "owner_instance")
+    private String ownerInstance; // Instância do backend que está executando o job
+    
+    @Column(name = "heartbeat_at")
+    private LocalDateTime heartbeatAt; // Renovado a cada checkpoint; parado há muito tempo = instância caiu
+    
+    @Column(name = "error_message", columnDefinition = "TEXT")
+    private String errorMessage;
+    
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+    
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+    
+    @Column(name = "created_at")
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+    
+    public enum JobStatus {
+        PENDING,   // Aguardando execução
+        RUNNING,   // Em execução
+        COMPLETED, // Concluído
+        FAILED     // Interrompido por erro
+    }
+}
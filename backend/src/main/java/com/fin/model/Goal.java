@@ -12,7 +12,9 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "goals")
+@Table(name = "goals", indexes = {
+    @Index(name = "idx_goal_active_id", columnList = "is_completed,id,target_date")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -101,11 +103,27 @@ public class Goal {
     
     // Calcula o valor esperado até hoje baseado no progresso linear
     public BigDecimal getExpectedAmount() {
+        return calculateExpectedAmount(targetAmount, targetDate, createdAt, LocalDate.now());
+    }
+    
+    // Verifica se está desviando do objetivo
+    public Boolean checkIfOffTrack() {
+        if (isCompleted || targetDate == null) {
+            isOffTrack = false;
+            return false;
+        }
+        
+        isOffTrack = isBelowThreshold(currentAmount, getExpectedAmount(), alertThreshold);
+        return isOffTrack;
+    }
+    
+    // Versões estáticas dos cálculos acima, usadas também pelo job diário sobre projeções (sem carregar a entidade)
+    public static BigDecimal calculateExpectedAmount(BigDecimal targetAmount, LocalDate targetDate,
+                                                     LocalDateTime createdAt, LocalDate today) {
         if (targetDate == null || createdAt == null) {
             return BigDecimal.ZERO;
         }
         
-        LocalDate today = LocalDate.now();
         LocalDate startDate = createdAt.toLocalDate();
         
         if (today.isBefore(startDate)) {
@@ -130,16 +148,8 @@ public class Goal {
         return targetAmount.multiply(progressRatio);
     }
     
-    // Verifica se está desviando do objetivo
-    public Boolean checkIfOffTrack() {
-        if (isCompleted || targetDate == null) {
-            isOffTrack = false;
-            return false;
-        }
-        
-        BigDecimal expectedAmount = getExpectedAmount();
+    public static boolean isBelowThreshold(BigDecimal currentAmount, BigDecimal expectedAmount, BigDecimal alertThreshold) {
         if (expectedAmount.compareTo(BigDecimal.ZERO) == 0) {
-            isOffTrack = false;
             return false;
         }
         
@@ -149,9 +159,7 @@ public class Goal {
                 .multiply(BigDecimal.valueOf(100));
         
         // Se o progresso atual é menor que o threshold do esperado, está desviando
-        isOffTrack = progressRatio.compareTo(alertThreshold) < 0;
-        
-        return isOffTrack;
+        return progressRatio.compareTo(alertThreshold) < 0;
     }
 }
 
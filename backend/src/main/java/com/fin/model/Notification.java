@@ -14,7 +14,10 @@ import java.time.LocalDateTime;
     @Index(name = "idx_notification_is_read", columnList = "is_read"),
     @Index(name = "idx_notification_related_transaction", columnList = "related_transaction_id"),
     @Index(name = "idx_notification_created_at", columnList = "created_at"),
-    @Index(name = "idx_notification_user_read", columnList = "user_id,is_read")
+    @Index(name = "idx_notification_user_read_created", columnList = "user_id,is_read,created_at"),
+    @Index(name = "idx_notification_user_created", columnList = "user_id,created_at")
+}, uniqueConstraints = {
+    @UniqueConstraint(name = "uk_notification_dedup_key", columnNames = "dedup_key")
 })
 @Data
 @NoArgsConstructor
@@ -47,6 +50,9 @@ public class Notification {
     @Column(name = "related_transaction_id")
     private Long relatedTransactionId;
     
+    @Column(name = "dedup_key", length = 100)
+    private String dedupKey; // Ex.: "BILL_REMINDER:<transação>:<data>" - impede lembretes duplicados no mesmo dia
+    
     @Column(name = "created_at")
     @CreationTimestamp
     private LocalDateTime createdAt;
@@ -0,0 +1,56 @@
+package com.fin.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Notificações antigas movidas para fora da tabela quente pelo job de retenção.
+ * Sem FK para users: as linhas são gravadas e removidas em lote via JDBC.
+ */
+@Entity
+@Table(name = "notifications_archive", indexes = {
+    @Index(name = "idx_notification_archive_user_created", columnList = "user_id,created_at"),
+    @Index(name = "idx_notification_archive_created_at", columnList = "created_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationArchive {
+    @Id
+    private Long id; // Mesmo id da notificação original
+    
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    
+    @Column(nullable = false)
+    private String title;
+    
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String message;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Notification.NotificationType type;
+    
+    @Column(name = "is_read", nullable = false)
+    private Boolean isRead;
+    
+    @Column(name = "read_at")
+    private LocalDateTime readAt;
+    
+    @Column(name = "related_transaction_id")
+    private Long relatedTransactionId;
+    
+    @Column(name = "dedup_key", length = 100)
+    private String dedupKey;
+    
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+    
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+}
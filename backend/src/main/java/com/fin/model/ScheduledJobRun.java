@@ -0,0 +1,53 @@
+package com.fin.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "scheduled_job_runs", indexes = {
+    @Index(name = "idx_job_run_name_started", columnList = "job_name,started_at"),
+    @Index(name = "idx_job_run_started", columnList = "started_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScheduledJobRun {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "job_name", nullable = false, length = 100)
+    private String jobName;
+    
+    @Column(name = "partition_index")
+    private Integer partitionIndex; // null quando o job não é particionado
+    
+    @Column(name = "instance_id", nullable = false)
+    private String instanceId;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private RunStatus status = RunStatus.RUNNING;
+    
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+    
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+    
+    @Column(name = "duration_millis")
+    private Long durationMillis;
+    
+    @Column(name = "error_message", columnDefinition = "TEXT")
+    private String errorMessage;
+    
+    public enum RunStatus {
+        RUNNING,   // Em execução
+        SUCCEEDED, // Concluído
+        FAILED     // Terminou com erro
+    }
+}
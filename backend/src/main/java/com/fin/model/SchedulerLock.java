@@ -0,0 +1,31 @@
+package com.fin.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lease de execução de um job agendado (ou de uma partição dele) compartilhado entre as réplicas do backend
+ */
+@Entity
+@Table(name = "scheduler_locks")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SchedulerLock {
+    @Id
+    @Column(name = "lock_name", length = 100)
+    private String lockName; // Nome do job ou "job#partição"
+    
+    @Column(name = "locked_by")
+    private String lockedBy; // Instância que detém (ou deteve por último) o lease
+    
+    @Column(name = "locked_at")
+    private LocalDateTime lockedAt;
+    
+    @Column(name = "locked_until", nullable = false)
+    private LocalDateTime lockedUntil; // Lease livre quando locked_until <= agora
+}
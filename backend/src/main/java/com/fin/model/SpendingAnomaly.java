@@ -0,0 +1,69 @@
+package com.fin.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Anomalia de gasto detectada na ingestão (z-score sobre a média exponencial da categoria).
+ * Escopo TRANSACTION: uma despesa atípica; escopo MONTH: total do mês da categoria acima do normal
+ * (uma linha por mês, atualizada enquanto o total cresce).
+ */
+@Entity
+@Table(name = "spending_anomalies", indexes = {
+    @Index(name = "idx_anomaly_user_month_detected", columnList = "user_id,month_key,detected_at")
+}, uniqueConstraints = {
+    @UniqueConstraint(name = "uk_anomaly_dedup_key", columnNames = "dedup_key")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SpendingAnomaly {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    
+    @Column(name = "category_id", nullable = false)
+    private Long categoryId;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Scope scope;
+    
+    @Column(name = "transaction_id")
+    private Long transactionId;
+    
+    @Column(name = "month_key", nullable = false)
+    private Integer monthKey; // yyyyMM
+    
+    @Column(nullable = false, precision = 15, scale = 2)
+    private BigDecimal amount;
+    
+    @Column(nullable = false, precision = 15, scale = 2)
+    private BigDecimal expected; // Média esperada no momento da detecção
+    
+    @Column(name = "z_score", nullable = false)
+    private Double zScore;
+    
+    @Column(nullable = false)
+    private String severity; // "MEDIUM", "HIGH"
+    
+    // Só anomalias mensais têm chave (uma por usuário, categoria e mês)
+    @Column(name = "dedup_key", length = 100)
+    private String dedupKey;
+    
+    @Column(name = "detected_at", nullable = false)
+    private LocalDateTime detectedAt;
+    
+    public enum Scope {
+        TRANSACTION,
+        MONTH
+    }
+}
@@ -0,0 +1,60 @@
+package com.fin.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Estado do detector de anomalias por usuário e categoria: média e variância com peso exponencial
+ * do valor das despesas e do total mensal, atualizadas pelo transaction-consumer a cada despesa.
+ * Sem FK: as linhas são gravadas via JDBC e removidas junto com o usuário.
+ */
+@Entity
+@Table(name = "spending_anomaly_stats", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_anomaly_stats_user_category", columnNames = {"user_id", "category_id"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SpendingAnomalyStats {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    
+    @Column(name = "category_id", nullable = false)
+    private Long categoryId;
+    
+    @Column(name = "tx_count", nullable = false)
+    private Long txCount = 0L;
+    
+    @Column(name = "tx_mean", nullable = false)
+    private Double txMean = 0.0;
+    
+    @Column(name = "tx_variance", nullable = false)
+    private Double txVariance = 0.0;
+    
+    @Column(name = "month_key", nullable = false)
+    private Integer monthKey; // Mês em acumulação (yyyyMM)
+    
+    @Column(name = "month_total", nullable = false, precision = 15, scale = 2)
+    private BigDecimal monthTotal = BigDecimal.ZERO;
+    
+    @Column(name = "months_observed", nullable = false)
+    private Integer monthsObserved = 0; // Meses fechados incorporados à média mensal
+    
+    @Column(name = "monthly_mean", nullable = false)
+    private Double monthlyMean = 0.0;
+    
+    @Column(name = "monthly_variance", nullable = false)
+    private Double monthlyVariance = 0.0;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
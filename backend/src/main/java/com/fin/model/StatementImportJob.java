@@ -0,0 +1,95 @@
+package com.fin.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Importação de extrato bancário (OFX/CSV). O backend lê o arquivo e publica os lotes no Kafka;
+ * o transaction-consumer grava cada lote e soma processed_batches/imported_count. Os contadores são
+ * atualizados por UPDATEs pontuais dos dois lados, nunca salvando a entidade inteira.
+ * Sem FK: removida junto com o usuário.
+ */
+@Entity
+@Table(name = "statement_import_jobs", indexes = {
+    @Index(name = "idx_statement_import_user_created", columnList = "user_id,created_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatementImportJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    
+    @Column(name = "file_name")
+    private String fileName;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Format format;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private JobStatus status = JobStatus.PENDING;
+    
+    @Column(name = "total_lines")
+    private Long totalLines = 0L; // Lançamentos lidos do arquivo (válidos ou não)
+    
+    @Column(name = "invalid_count")
+    private Long invalidCount = 0L; // Lançamentos ignorados por data/valor ilegível
+    
+    @Column(name = "duplicate_count")
+    private Long duplicateCount = 0L; // Lançamentos que já existiam (mesma data, valor e descrição)
+    
+    @Column(name = "published_count")
+    private Long publishedCount = 0L; // Lançamentos enviados ao Kafka
+    
+    @Column(name = "published_batches")
+    private Integer publishedBatches = 0;
+    
+    @Column(name = "total_batches")
+    private Integer totalBatches; // Conhecido apenas ao final da leitura do arquivo
+    
+    @Column(name = "processed_batches")
+    private Integer processedBatches = 0; // Lotes gravados pelo transaction-consumer
+    
+    @Column(name = "imported_count")
+    private Long importedCount = 0L; // Transações gravadas pelo transaction-consumer
+    
+    @Column(name = "error_message", columnDefinition = "TEXT")
+    private String errorMessage;
+    
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+    
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+    
+    @Column(name = "created_at")
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    public enum Format {
+        OFX,
+        CSV
+    }
+    
+    public enum JobStatus {
+        PENDING,    // Aguardando leitura
+        PARSING,    // Lendo o arquivo e publicando lotes
+        PROCESSING, // Arquivo lido; aguardando o consumer gravar os lotes restantes
+        COMPLETED,  // Todos os lotes gravados
+        FAILED      // Interrompido por erro
+    }
+}
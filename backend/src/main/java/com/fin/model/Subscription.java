@@ -11,7 +11,9 @@ import org.hibernate.annotations.UpdateTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "subscriptions")
+@Table(name = "subscriptions", indexes = {
+    @Index(name = "idx_subscription_active_end", columnList = "is_active,end_date")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -21,7 +21,9 @@ import java.util.List;
     @Index(name = "idx_type", columnList = "type"),
     @Index(name = "idx_parent_transaction_id", columnList = "parent_transaction_id"),
     @Index(name = "idx_user_due_date", columnList = "user_id,due_date"),
-    @Index(name = "idx_user_type_paid", columnList = "user_id,type,is_paid")
+    @Index(name = "idx_user_type_paid", columnList = "user_id,type,is_paid"),
+    @Index(name = "idx_user_type_date", columnList = "user_id,type,transaction_date"),
+    @Index(name = "idx_user_transaction_date", columnList = "user_id,transaction_date")
 })
 @Data
 @NoArgsConstructor
@@ -78,6 +80,9 @@ public class Transaction {
     @Column(name = "paid_date")
     private LocalDate paidDate; // Data em que foi paga/recebida
     
+    @Column(name = "import_job_id")
+    private Long importJobId; // Importação de extrato que criou a transação (null quando criada manualmente)
+    
     @OneToMany(mappedBy = "transaction", cascade = CascadeType.ALL, orphanRemoval = true)
     @JsonIgnore
     private List<Installment> installments;
@@ -2,6 +2,7 @@ package com.fin.repository;
 
 import com.fin.model.AiLearningPattern;
 import com.fin.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -17,6 +18,12 @@ public interface AiLearningPatternRepository extends JpaRepository<AiLearningPat
     // Buscar padrões não processados
     List<AiLearningPattern> findByIsProcessedFalse();
     
+    long countByIsProcessedFalse();
+    
+    // Próximo bloco de padrões não processados após o checkpoint (paginação por chave, sem OFFSET)
+    @Query("SELECT p FROM AiLearningPattern p WHERE p.isProcessed = false AND p.id > :lastId ORDER BY p.id ASC")
+    List<AiLearningPattern> findUnprocessedAfterId(@Param("lastId") Long lastId, Pageable pageable);
+    
     // Buscar padrões similares (para encontrar padrões relacionados)
     @Query("SELECT p FROM AiLearningPattern p WHERE p.user = :user AND p.normalizedText LIKE %:keyword%")
     List<AiLearningPattern> findSimilarPatterns(@Param("user") User user, @Param("keyword") String keyword);
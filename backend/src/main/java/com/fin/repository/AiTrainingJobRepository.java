@@ -0,0 +1,45 @@
+package com.fin.repository;
+
+import com.fin.model.AiTrainingJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Claim, checkpoint e término do job só valem para a instância dona (owner_instance):
+ * uma instância que perdeu o job para outra por heartbeat vencido recebe 0 linhas e para.
+ */
+@Repository
+public interface AiTrainingJobRepository extends JpaRepository<AiTrainingJob, Long> {
+    Optional<AiTrainingJob> findTopByOrderByCreatedAtDesc();
+    
+    List<AiTrainingJob> findByStatusIn(Collection<AiTrainingJob.JobStatus> statuses);
+    
+    @Modifying
+    @Query("UPDATE AiTrainingJob j SET j.status = com.fin.model.AiTrainingJob.JobStatus.RUNNING, " +
+           "j.ownerInstance = :owner, j.heartbeatAt = :now, j.startedAt = COALESCE(j.startedAt, :now) " +
+           "WHERE j.id = :id AND j.status IN :statuses " +
+           "AND (j.ownerInstance IS NULL OR j.ownerInstance = :owner OR j.heartbeatAt IS NULL OR j.heartbeatAt < :staleBefore)")
+    int claim(@Param("id") Long id, @Param("owner") String owner, @Param("statuses") Collection<AiTrainingJob.JobStatus> statuses,
+              @Param("now") LocalDateTime now, @Param("staleBefore") LocalDateTime staleBefore);
+    
+    @Modifying
+    @Query("UPDATE AiTrainingJob j SET j.processedCount = :processed, j.failedCount = :failed, " +
+           "j.lastProcessedId = :lastProcessedId, j.heartbeatAt = :now " +
+           "WHERE j.id = :id AND j.ownerInstance = :owner")
+    int checkpoint(@Param("id") Long id, @Param("owner") String owner, @Param("processed") Long processed,
+                   @Param("failed") Long failed, @Param("lastProcessedId") Long lastProcessedId, @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Query("UPDATE AiTrainingJob j SET j.status = :status, j.errorMessage = :errorMessage, j.finishedAt = :now, " +
+           "j.heartbeatAt = :now WHERE j.id = :id AND j.ownerInstance = :owner")
+    int finish(@Param("id") Long id, @Param("owner") String owner, @Param("status") AiTrainingJob.JobStatus status,
+               @Param("errorMessage") String errorMessage, @Param("now") LocalDateTime now);
+}
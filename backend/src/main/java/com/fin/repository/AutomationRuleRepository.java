@@ -2,14 +2,22 @@ package com.fin.repository;
 
 import com.fin.model.AutomationRule;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface AutomationRuleRepository extends JpaRepository<AutomationRule, Long> {
     List<AutomationRule> findByUserIdAndIsActiveTrueOrderByPriorityDesc(Long userId);
     List<AutomationRule> findByUserIdOrderByPriorityDesc(Long userId);
+    
+    @Modifying
+    @Query("UPDATE AutomationRule r SET r.executionCount = COALESCE(r.executionCount, 0) + :delta, r.lastExecution = :lastExecution WHERE r.id = :ruleId")
+    int addExecutions(@Param("ruleId") Long ruleId, @Param("delta") int delta, @Param("lastExecution") LocalDateTime lastExecution);
 }
 
 
@@ -1,7 +1,9 @@
 package com.fin.repository;
 
+import com.fin.dto.BudgetSpend;
 import com.fin.model.Budget;
 import com.fin.model.Category;
+import com.fin.model.Transaction;
 import com.fin.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -9,6 +11,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -21,6 +24,18 @@ public interface BudgetRepository extends JpaRepository<Budget, Long> {
     List<Budget> findActiveBudgetsByUserAndDate(@Param("user") User user, @Param("date") LocalDate date);
     
     List<Budget> findByCategory(Category category);
+    
+    // Gasto de vários orçamentos (de um ou mais usuários) em uma única consulta agrupada
+    // Orçamento sem categoria soma todas as despesas do período
+    @Query("SELECT new com.fin.dto.BudgetSpend(b.id, SUM(t.amount)) FROM Budget b, Transaction t " +
+           "WHERE b.id IN :budgetIds AND t.user = b.user AND t.type = :type " +
+           "AND t.transactionDate BETWEEN b.startDate AND b.endDate " +
+           "AND (b.category IS NULL OR t.category = b.category) " +
+           "GROUP BY b.id")
+    List<BudgetSpend> sumSpentByBudgetIds(
+        @Param("budgetIds") Collection<Long> budgetIds,
+        @Param("type") Transaction.TransactionType type
+    );
 }
 
 
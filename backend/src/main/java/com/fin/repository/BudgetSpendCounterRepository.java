@@ -0,0 +1,17 @@
+package com.fin.repository;
+
+import com.fin.model.BudgetSpendCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface BudgetSpendCounterRepository extends JpaRepository<BudgetSpendCounter, Long> {
+    
+    // Descarta o contador: o consumer recalcula o gasto do período na próxima despesa do orçamento
+    @Modifying
+    @Query("DELETE FROM BudgetSpendCounter c WHERE c.budgetId = :budgetId")
+    int deleteByBudgetId(@Param("budgetId") Long budgetId);
+}
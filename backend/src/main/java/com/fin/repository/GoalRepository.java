@@ -1,9 +1,16 @@
 package com.fin.repository;
 
+import com.fin.dto.GoalOffTrackCandidate;
 import com.fin.model.Goal;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,6 +19,20 @@ public interface GoalRepository extends JpaRepository<Goal, Long> {
     List<Goal> findByUserId(Long userId);
     List<Goal> findByUserIdAndIsCompleted(Long userId, Boolean isCompleted);
     Optional<Goal> findByIdAndUserId(Long id, Long userId);
+    
+    // Página (keyset por id) de metas ativas com data alvo, em projeção; usa idx_goal_active_id (faixa em id, sem filesort)
+    @Query("SELECT new com.fin.dto.GoalOffTrackCandidate(g.id, g.user.id, g.name, g.targetAmount, g.currentAmount, " +
+           "g.targetDate, g.createdAt, g.alertThreshold, g.lastAlertDate, g.isOffTrack) " +
+           "FROM Goal g WHERE g.isCompleted = false AND g.targetDate IS NOT NULL AND g.id > :afterId ORDER BY g.id")
+    List<GoalOffTrackCandidate> findActiveOffTrackCandidates(@Param("afterId") Long afterId, Pageable pageable);
+    
+    @Modifying
+    @Query("UPDATE Goal g SET g.isOffTrack = :offTrack WHERE g.id IN :ids")
+    int bulkUpdateOffTrack(@Param("ids") Collection<Long> ids, @Param("offTrack") Boolean offTrack);
+    
+    @Modifying
+    @Query("UPDATE Goal g SET g.lastAlertDate = :alertDate WHERE g.id IN :ids")
+    int bulkUpdateLastAlertDate(@Param("ids") Collection<Long> ids, @Param("alertDate") LocalDate alertDate);
 }
 
 
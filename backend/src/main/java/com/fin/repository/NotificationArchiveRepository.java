@@ -0,0 +1,15 @@
+package com.fin.repository;
+
+import com.fin.model.NotificationArchive;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface NotificationArchiveRepository extends JpaRepository<NotificationArchive, Long> {
+    @Modifying
+    @Query("DELETE FROM NotificationArchive a WHERE a.userId = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+}
@@ -0,0 +1,214 @@
+package com.fin.repository;
+
+import com.fin.model.Notification;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Operações em lote de notificações via JDBC (jobs agendados).
+ * Leitura por cursor (forward-only, streaming no driver MySQL) e INSERT IGNORE em lote:
+ * a constraint única em dedup_key torna a geração idempotente.
+ */
+@Repository
+public class NotificationBatchRepository {
+    
+    private static final String INSERT_SQL =
+        "INSERT IGNORE INTO notifications (user_id, title, message, type, is_read, related_transaction_id, dedup_key, created_at) " +
+        "VALUES (?, ?, ?, ?, false, ?, ?, ?)";
+    
+    private static final int[] INSERT_TYPES = {
+        Types.BIGINT, Types.VARCHAR, Types.LONGVARCHAR, Types.VARCHAR, Types.BIGINT, Types.VARCHAR, Types.TIMESTAMP
+    };
+    
+    // Linhas deste lote que entraram de fato: as ignoradas pelo INSERT IGNORE mantêm o created_at original
+    private static final String INSERTED_SQL =
+        "SELECT id, dedup_key FROM notifications WHERE created_at = ? AND dedup_key IN (%s)";
+    
+    // Despesas não pagas vencendo no intervalo que ainda não têm lembrete do dia (anti-join)
+    private static final String BILL_REMINDER_CANDIDATES_SQL =
+        "SELECT t.id, t.user_id, t.description, t.amount, t.due_date FROM transactions t " +
+        "LEFT JOIN notifications n ON n.related_transaction_id = t.id AND n.type = 'BILL_REMINDER' " +
+        "AND n.created_at >= ? AND n.created_at < ? " +
+        "WHERE t.type = 'EXPENSE' AND t.is_paid = false AND t.due_date BETWEEN ? AND ? AND n.id IS NULL";
+    
+    // Maior id elegível para arquivamento: limita a varredura por id à parte antiga da tabela (idx_notification_created_at)
+    private static final String MAX_ARCHIVABLE_ID_SQL =
+        "SELECT MAX(id) FROM notifications WHERE created_at < ?";
+    
+    // Lidas antes do corte de lidas, ou qualquer uma antes do corte geral
+    private static final String ARCHIVE_CANDIDATES_SQL =
+        "SELECT id FROM notifications WHERE id > ? AND id <= ? " +
+        "AND ((is_read = true AND created_at < ?) OR created_at < ?) ORDER BY id LIMIT ?";
+    
+    private static final String ARCHIVE_COPY_SQL =
+        "INSERT IGNORE INTO notifications_archive " +
+        "(id, user_id, title, message, type, is_read, read_at, related_transaction_id, dedup_key, created_at, archived_at) " +
+        "SELECT id, user_id, title, message, type, is_read, read_at, related_transaction_id, dedup_key, created_at, ? " +
+        "FROM notifications WHERE id IN (%s)";
+    
+    private static final String ARCHIVE_DELETE_SQL =
+        "DELETE FROM notifications WHERE id IN (%s)";
+    
+    private static final String ARCHIVE_PURGE_SQL =
+        "DELETE FROM notifications_archive WHERE created_at < ? LIMIT ?";
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    /**
+     * Percorre as contas a pagar sem lembrete no dia, linha a linha, sem carregar o resultado inteiro em memória.
+     * Deve ser chamado fora de transação: o cursor ocupa a conexão até o fim da leitura.
+     */
+    public void forEachBillReminderCandidate(LocalDate today, LocalDate endDate, Consumer<BillReminderCandidate> consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(BILL_REMINDER_CANDIDATES_SQL,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(Integer.MIN_VALUE); // Streaming no driver MySQL
+            statement.setTimestamp(1, Timestamp.valueOf(today.atStartOfDay()));
+            statement.setTimestamp(2, Timestamp.valueOf(today.plusDays(1).atStartOfDay()));
+            statement.setDate(3, Date.valueOf(today));
+            statement.setDate(4, Date.valueOf(endDate));
+            return statement;
+        }, rs -> {
+            consumer.accept(new BillReminderCandidate(
+                rs.getLong("id"),
+                rs.getLong("user_id"),
+                rs.getString("description"),
+                rs.getBigDecimal("amount"),
+                rs.getDate("due_date").toLocalDate()
+            ));
+        });
+    }
+    
+    /**
+     * Insere as notificações em lote; linhas com dedup_key já existente são ignoradas.
+     * Com rewriteBatchedStatements o driver não informa quais linhas entraram, então elas são relidas pela
+     * dedup_key e pelo created_at gravado neste lote (truncado ao segundo, para bater com qualquer precisão da coluna).
+     * @return notificações efetivamente inseridas, com os ids gerados
+     */
+    public List<InsertedNotification> insertIgnoreAll(List<NewNotification> notifications) {
+        if (notifications.isEmpty()) {
+            return Collections.emptyList();
+        }
+        
+        LocalDateTime createdAt = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        Timestamp now = Timestamp.valueOf(createdAt);
+        List<Object[]> rows = new ArrayList<>(notifications.size());
+        for (NewNotification n : notifications) {
+            rows.add(new Object[] {
+                n.getUserId(), n.getTitle(), n.getMessage(), n.getType().name(), n.getRelatedTransactionId(), n.getDedupKey(), now
+            });
+        }
+        
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows, INSERT_TYPES);
+        
+        // Sem dedup_key não há conflito possível: a linha sempre entra (sem id conhecido)
+        Map<String, NewNotification> byDedupKey = new LinkedHashMap<>();
+        List<InsertedNotification> inserted = new ArrayList<>(notifications.size());
+        for (NewNotification n : notifications) {
+            if (n.getDedupKey() == null) {
+                inserted.add(new InsertedNotification(null, createdAt, n));
+            } else {
+                byDedupKey.putIfAbsent(n.getDedupKey(), n);
+            }
+        }
+        if (byDedupKey.isEmpty()) {
+            return inserted;
+        }
+        
+        List<Object> args = new ArrayList<>(byDedupKey.size() + 1);
+        args.add(now);
+        args.addAll(byDedupKey.keySet());
+        String placeholders = String.join(",", Collections.nCopies(byDedupKey.size(), "?"));
+        jdbcTemplate.query(String.format(INSERTED_SQL, placeholders), rs -> {
+            inserted.add(new InsertedNotification(rs.getLong("id"), createdAt, byDedupKey.get(rs.getString("dedup_key"))));
+        }, args.toArray());
+        return inserted;
+    }
+    
+    public Long findMaxArchivableId(LocalDateTime createdBefore) {
+        return jdbcTemplate.queryForObject(MAX_ARCHIVABLE_ID_SQL, Long.class, Timestamp.valueOf(createdBefore));
+    }
+    
+    public List<Long> findArchiveCandidateIds(long afterId, long maxId, LocalDateTime readBefore,
+                                              LocalDateTime anyBefore, int limit) {
+        return jdbcTemplate.queryForList(ARCHIVE_CANDIDATES_SQL, Long.class,
+            afterId, maxId, Timestamp.valueOf(readBefore), Timestamp.valueOf(anyBefore), limit);
+    }
+    
+    /**
+     * Copia as notificações para notifications_archive e as remove da tabela quente.
+     * Deve rodar dentro de uma transação para que cópia e exclusão sejam atômicas.
+     * @return número de notificações removidas da tabela quente
+     */
+    public int moveToArchive(List<Long> ids, LocalDateTime archivedAt) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        
+        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+        List<Object> copyArgs = new ArrayList<>(ids.size() + 1);
+        copyArgs.add(Timestamp.valueOf(archivedAt));
+        copyArgs.addAll(ids);
+        
+        jdbcTemplate.update(String.format(ARCHIVE_COPY_SQL, placeholders), copyArgs.toArray());
+        return jdbcTemplate.update(String.format(ARCHIVE_DELETE_SQL, placeholders), ids.toArray());
+    }
+    
+    // Remove um bloco do arquivo morto (DELETE ... LIMIT mantém cada comando curto)
+    public int purgeArchive(LocalDateTime createdBefore, int limit) {
+        return jdbcTemplate.update(ARCHIVE_PURGE_SQL, Timestamp.valueOf(createdBefore), limit);
+    }
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BillReminderCandidate {
+        private Long transactionId;
+        private Long userId;
+        private String description;
+        private BigDecimal amount;
+        private LocalDate dueDate;
+    }
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class NewNotification {
+        private Long userId;
+        private String title;
+        private String message;
+        private Notification.NotificationType type;
+        private Long relatedTransactionId;
+        private String dedupKey; // Chave de idempotência (única); null quando não se aplica
+    }
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class InsertedNotification {
+        private Long id; // null quando a notificação não tem dedup_key
+        private LocalDateTime createdAt;
+        private NewNotification notification;
+    }
+}
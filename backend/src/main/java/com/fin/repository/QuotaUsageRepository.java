@@ -0,0 +1,41 @@
+package com.fin.repository;
+
+import com.fin.service.QuotaService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Contagem real dos recursos do usuário usada para (re)carregar os contadores de cota.
+ * Uma única ida ao banco com um COUNT(*) por tabela, cada um pelo índice de user_id.
+ */
+@Repository
+public class QuotaUsageRepository {
+    
+    private static final String COUNT_SQL =
+        "SELECT (SELECT COUNT(*) FROM transactions WHERE user_id = ?) AS transactions, " +
+        "(SELECT COUNT(*) FROM categories WHERE user_id = ?) AS categories, " +
+        "(SELECT COUNT(*) FROM accounts WHERE user_id = ? AND is_active = true) AS accounts, " +
+        "(SELECT COUNT(*) FROM transaction_attachments WHERE user_id = ?) AS attachments, " +
+        "(SELECT COUNT(*) FROM goals WHERE user_id = ?) AS goals, " +
+        "(SELECT COUNT(*) FROM budgets WHERE user_id = ?) AS budgets";
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    public Map<QuotaService.Resource, Long> countAll(Long userId) {
+        return jdbcTemplate.queryForObject(COUNT_SQL, (rs, rowNum) -> {
+            Map<QuotaService.Resource, Long> counts = new EnumMap<>(QuotaService.Resource.class);
+            counts.put(QuotaService.Resource.TRANSACTIONS, rs.getLong("transactions"));
+            counts.put(QuotaService.Resource.CATEGORIES, rs.getLong("categories"));
+            counts.put(QuotaService.Resource.ACCOUNTS, rs.getLong("accounts"));
+            counts.put(QuotaService.Resource.ATTACHMENTS, rs.getLong("attachments"));
+            counts.put(QuotaService.Resource.GOALS, rs.getLong("goals"));
+            counts.put(QuotaService.Resource.BUDGETS, rs.getLong("budgets"));
+            return counts;
+        }, userId, userId, userId, userId, userId, userId);
+    }
+}
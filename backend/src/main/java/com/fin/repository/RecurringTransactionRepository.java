@@ -8,6 +8,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -19,6 +20,24 @@ public interface RecurringTransactionRepository extends JpaRepository<RecurringT
     // Buscar recorrências que precisam ser processadas
     @Query("SELECT r FROM RecurringTransaction r WHERE r.user.id = :userId AND r.isActive = true AND r.autoCreate = true AND (r.nextOccurrenceDate <= :date OR r.nextOccurrenceDate IS NULL) AND (r.endDate IS NULL OR r.endDate >= :date)")
     List<RecurringTransaction> findRecurringTransactionsToProcess(@Param("userId") Long userId, @Param("date") LocalDate date);
+    
+    // Reivindica um bloco de recorrências vencidas de usuários com assinatura ativa (subscription no JOIN),
+    // restrito a uma partição de usuários (user_id % partitions) do SchedulerCoordinator.
+    // FOR UPDATE SKIP LOCKED: outras réplicas/workers pulam as linhas já reivindicadas até o commit do bloco.
+    @Query(value = "SELECT r.id FROM recurring_transactions r " +
+                   "JOIN subscriptions s ON s.user_id = r.user_id " +
+                   "WHERE r.id > :afterId AND r.is_active = true AND r.auto_create = true " +
+                   "AND r.next_occurrence_date <= :date AND (r.end_date IS NULL OR r.end_date >= :date) " +
+                   "AND s.is_active = true AND (s.end_date IS NULL OR s.end_date >= :now) " +
+                   "AND MOD(r.user_id, :partitions) = :partition " +
+                   "ORDER BY r.id LIMIT :limit FOR UPDATE OF r SKIP LOCKED",
+           nativeQuery = true)
+    List<Long> claimDueRecurrenceIds(@Param("afterId") Long afterId, @Param("date") LocalDate date,
+                                     @Param("now") LocalDateTime now, @Param("partitions") int partitions,
+                                     @Param("partition") int partition, @Param("limit") int limit);
+    
+    @Query("SELECT r FROM RecurringTransaction r JOIN FETCH r.user LEFT JOIN FETCH r.category LEFT JOIN FETCH r.account WHERE r.id IN :ids")
+    List<RecurringTransaction> findAllByIdWithAssociations(@Param("ids") List<Long> ids);
 }
 
 
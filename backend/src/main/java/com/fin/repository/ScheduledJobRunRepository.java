@@ -0,0 +1,24 @@
+package com.fin.repository;
+
+import com.fin.model.ScheduledJobRun;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ScheduledJobRunRepository extends JpaRepository<ScheduledJobRun, Long> {
+    List<ScheduledJobRun> findByJobNameOrderByStartedAtDesc(String jobName, Pageable pageable);
+    
+    /**
+     * Remove até limit execuções iniciadas antes do corte (em blocos, para não segurar locks longos)
+     */
+    @Modifying
+    @Query(value = "DELETE FROM scheduled_job_runs WHERE started_at < :before LIMIT :limit", nativeQuery = true)
+    int deleteStartedBefore(@Param("before") LocalDateTime before, @Param("limit") int limit);
+}
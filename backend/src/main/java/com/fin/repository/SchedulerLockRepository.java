@@ -0,0 +1,32 @@
+package com.fin.repository;
+
+import com.fin.model.SchedulerLock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface SchedulerLockRepository extends JpaRepository<SchedulerLock, String> {
+    
+    // Garante que a linha do lease existe (livre); não faz nada se já existir
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO scheduler_locks (lock_name, locked_until) VALUES (:lockName, :now)", nativeQuery = true)
+    int insertIfAbsent(@Param("lockName") String lockName, @Param("now") LocalDateTime now);
+    
+    // Tenta adquirir o lease de forma atômica: só afeta a linha se ele estiver livre
+    @Modifying
+    @Query("UPDATE SchedulerLock l SET l.lockedBy = :instanceId, l.lockedAt = :now, l.lockedUntil = :until " +
+           "WHERE l.lockName = :lockName AND l.lockedUntil <= :now")
+    int tryAcquire(@Param("lockName") String lockName, @Param("instanceId") String instanceId,
+                   @Param("now") LocalDateTime now, @Param("until") LocalDateTime until);
+    
+    // Renova ou encerra o lease; só vale para a instância que o detém
+    @Modifying
+    @Query("UPDATE SchedulerLock l SET l.lockedUntil = :until WHERE l.lockName = :lockName AND l.lockedBy = :instanceId")
+    int updateLease(@Param("lockName") String lockName, @Param("instanceId") String instanceId,
+                    @Param("until") LocalDateTime until);
+}
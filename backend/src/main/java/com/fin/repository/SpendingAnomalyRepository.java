@@ -0,0 +1,30 @@
+package com.fin.repository;
+
+import com.fin.dto.SpendingAnomalyView;
+import com.fin.model.SpendingAnomaly;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface SpendingAnomalyRepository extends JpaRepository<SpendingAnomaly, Long> {
+    
+    // Anomalias já detectadas pelo consumer no mês (índice user_id, month_key, detected_at)
+    @Query("SELECT new com.fin.dto.SpendingAnomalyView(a.scope, c.name, a.amount, a.expected, a.zScore, a.severity, a.detectedAt) " +
+           "FROM SpendingAnomaly a, Category c WHERE c.id = a.categoryId " +
+           "AND a.userId = :userId AND a.monthKey = :monthKey ORDER BY a.detectedAt DESC")
+    List<SpendingAnomalyView> findByUserAndMonth(
+        @Param("userId") Long userId,
+        @Param("monthKey") Integer monthKey,
+        Pageable pageable
+    );
+    
+    @Modifying
+    @Query("DELETE FROM SpendingAnomaly a WHERE a.userId = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+}
@@ -0,0 +1,16 @@
+package com.fin.repository;
+
+import com.fin.model.StatementImportBatch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface StatementImportBatchRepository extends JpaRepository<StatementImportBatch, Long> {
+    @Modifying
+    @Query("DELETE FROM StatementImportBatch b WHERE b.jobId IN " +
+           "(SELECT j.id FROM StatementImportJob j WHERE j.userId = :userId)")
+    int deleteByUserId(@Param("userId") Long userId);
+}
@@ -0,0 +1,77 @@
+package com.fin.repository;
+
+import com.fin.model.StatementImportJob;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * O transaction-consumer atualiza processed_batches/imported_count da mesma linha enquanto o arquivo é lido,
+ * por isso o progresso da leitura é gravado com UPDATEs que só tocam as colunas do backend.
+ */
+@Repository
+public interface StatementImportJobRepository extends JpaRepository<StatementImportJob, Long> {
+    Optional<StatementImportJob> findByIdAndUserId(Long id, Long userId);
+    
+    List<StatementImportJob> findByUserIdOrderByCreatedAtDesc(Long userId, Pageable pageable);
+    
+    @Modifying
+    @Query("UPDATE StatementImportJob j SET j.status = com.fin.model.StatementImportJob.JobStatus.PARSING, " +
+           "j.startedAt = :now, j.updatedAt = :now " +
+           "WHERE j.id = :id AND j.status = com.fin.model.StatementImportJob.JobStatus.PENDING")
+    int markParsing(@Param("id") Long id, @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Query("UPDATE StatementImportJob j SET j.totalLines = :totalLines, j.invalidCount = :invalidCount, " +
+           "j.duplicateCount = :duplicateCount, j.publishedCount = :publishedCount, " +
+           "j.publishedBatches = :publishedBatches, j.updatedAt = :now WHERE j.id = :id")
+    int updateParseProgress(
+        @Param("id") Long id,
+        @Param("totalLines") Long totalLines,
+        @Param("invalidCount") Long invalidCount,
+        @Param("duplicateCount") Long duplicateCount,
+        @Param("publishedCount") Long publishedCount,
+        @Param("publishedBatches") Integer publishedBatches,
+        @Param("now") LocalDateTime now
+    );
+    
+    // O consumer pode ter gravado todos os lotes antes de total_batches ser conhecido: nesse caso conclui aqui
+    @Modifying
+    @Query("UPDATE StatementImportJob j SET " +
+           "j.status = CASE WHEN j.processedBatches >= :totalBatches " +
+           "THEN com.fin.model.StatementImportJob.JobStatus.COMPLETED " +
+           "ELSE com.fin.model.StatementImportJob.JobStatus.PROCESSING END, " +
+           "j.finishedAt = CASE WHEN j.processedBatches >= :totalBatches THEN :now ELSE j.finishedAt END, " +
+           "j.totalBatches = :totalBatches, j.updatedAt = :now WHERE j.id = :id")
+    int finishParsing(@Param("id") Long id, @Param("totalBatches") Integer totalBatches, @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Query("UPDATE StatementImportJob j SET j.status = com.fin.model.StatementImportJob.JobStatus.FAILED, " +
+           "j.errorMessage = :errorMessage, j.finishedAt = :now, j.updatedAt = :now WHERE j.id = :id")
+    int markFailed(@Param("id") Long id, @Param("errorMessage") String errorMessage, @Param("now") LocalDateTime now);
+    
+    // Leituras interrompidas por reinício da instância (o arquivo temporário se perdeu) ou lotes descartados pelo consumer
+    @Modifying
+    @Query("UPDATE StatementImportJob j SET j.status = com.fin.model.StatementImportJob.JobStatus.FAILED, " +
+           "j.errorMessage = :errorMessage, j.finishedAt = :now, j.updatedAt = :now " +
+           "WHERE j.userId = :userId AND j.status IN :statuses AND j.updatedAt < :staleBefore")
+    int failStale(
+        @Param("userId") Long userId,
+        @Param("statuses") Collection<StatementImportJob.JobStatus> statuses,
+        @Param("staleBefore") LocalDateTime staleBefore,
+        @Param("errorMessage") String errorMessage,
+        @Param("now") LocalDateTime now
+    );
+    
+    @Modifying
+    @Query("DELETE FROM StatementImportJob j WHERE j.userId = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+}
@@ -3,8 +3,12 @@ package com.fin.repository;
 import com.fin.model.Subscription;
 import com.fin.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,6 +17,11 @@ public interface SubscriptionRepository extends JpaRepository<Subscription, Long
     Optional<Subscription> findByUser(User user);
     Optional<Subscription> findByUserId(Long userId);
     List<Subscription> findByUserIdIn(List<Long> userIds);
+    
+    // Expira em um único comando todas as assinaturas vencidas; usa idx_subscription_active_end
+    @Modifying
+    @Query("UPDATE Subscription s SET s.isActive = false WHERE s.isActive = true AND s.endDate < :now")
+    int expireEndedBefore(@Param("now") LocalDateTime now);
 }
 
 
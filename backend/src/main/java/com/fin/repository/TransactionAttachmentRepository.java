@@ -4,6 +4,9 @@ import com.fin.model.TransactionAttachment;
 import com.fin.model.Transaction;
 import com.fin.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -15,6 +18,21 @@ public interface TransactionAttachmentRepository extends JpaRepository<Transacti
     List<TransactionAttachment> findByUser(User user);
     List<TransactionAttachment> findByUserId(Long userId);
     void deleteByTransactionId(Long transactionId);
+    boolean existsByFilePath(String filePath);
+    
+    @Query("SELECT a.filePath FROM TransactionAttachment a WHERE a.transaction.id = :transactionId")
+    List<String> findFilePathsByTransactionId(@Param("transactionId") Long transactionId);
+    
+    @Query("SELECT a.filePath FROM TransactionAttachment a WHERE a.user.id = :userId")
+    List<String> findFilePathsByUserId(@Param("userId") Long userId);
+    
+    @Modifying
+    @Query("DELETE FROM TransactionAttachment a WHERE a.transaction.id = :transactionId")
+    int deleteAllByTransactionId(@Param("transactionId") Long transactionId);
+    
+    @Modifying
+    @Query("DELETE FROM TransactionAttachment a WHERE a.user.id = :userId")
+    int deleteAllByUserId(@Param("userId") Long userId);
 }
 
 
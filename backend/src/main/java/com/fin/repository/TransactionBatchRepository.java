@@ -0,0 +1,67 @@
+package com.fin.repository;
+
+import com.fin.model.Transaction;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Inserção em lote de transações via JDBC.
+ * Com IDENTITY o Hibernate não agrupa INSERTs; aqui um único batchUpdate vira
+ * um INSERT multi-linhas no MySQL (rewriteBatchedStatements=true na URL).
+ */
+@Repository
+public class TransactionBatchRepository {
+    
+    private static final String INSERT_SQL =
+        "INSERT INTO transactions (description, amount, type, transaction_date, due_date, user_id, category_id, " +
+        "account_id, is_paid, is_installment, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    
+    private static final int[] INSERT_TYPES = {
+        Types.VARCHAR, Types.DECIMAL, Types.VARCHAR, Types.DATE, Types.DATE, Types.BIGINT, Types.BIGINT,
+        Types.BIGINT, Types.BOOLEAN, Types.BOOLEAN, Types.TIMESTAMP, Types.TIMESTAMP
+    };
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    /**
+     * Insere as transações (ainda não persistidas) em um único lote.
+     * As entidades não recebem o ID gerado; usar apenas quando o chamador não precisa dele.
+     * @return número de transações inseridas
+     */
+    public int insertAll(List<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return 0;
+        }
+        
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(transactions.size());
+        for (Transaction t : transactions) {
+            rows.add(new Object[] {
+                t.getDescription(),
+                t.getAmount(),
+                t.getType().name(),
+                t.getTransactionDate() != null ? Date.valueOf(t.getTransactionDate()) : null,
+                t.getDueDate() != null ? Date.valueOf(t.getDueDate()) : null,
+                t.getUser().getId(),
+                t.getCategory() != null ? t.getCategory().getId() : null,
+                t.getAccount() != null ? t.getAccount().getId() : null,
+                t.getIsPaid(),
+                t.getIsInstallment(),
+                now,
+                now
+            });
+        }
+        
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows, INSERT_TYPES);
+        return rows.size();
+    }
+}
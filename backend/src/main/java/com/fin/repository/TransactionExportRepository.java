@@ -0,0 +1,81 @@
+package com.fin.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Leitura das transações do usuário para exportação, linha a linha e sem montar entidades.
+ * O PreparedStatement é forward-only/read-only com fetch size Integer.MIN_VALUE, que faz o driver
+ * do MySQL entregar as linhas em streaming em vez de carregar o resultado inteiro na memória.
+ */
+@Repository
+public class TransactionExportRepository {
+    
+    public static final int COL_DATE = 1;
+    public static final int COL_DESCRIPTION = 2;
+    public static final int COL_TYPE = 3;
+    public static final int COL_AMOUNT = 4;
+    public static final int COL_CATEGORY = 5;
+    public static final int COL_ACCOUNT = 6;
+    public static final int COL_PAID = 7;
+    public static final int COL_DUE_DATE = 8;
+    public static final int COL_PAID_DATE = 9;
+    public static final int COL_INSTALLMENT = 10;
+    public static final int COL_TOTAL_INSTALLMENTS = 11;
+    
+    private static final String SELECT_SQL =
+        "SELECT t.transaction_date, t.description, t.type, t.amount, c.name, a.name, t.is_paid, t.due_date, " +
+        "t.paid_date, t.installment_number, t.total_installments " +
+        "FROM transactions t " +
+        "LEFT JOIN categories c ON c.id = t.category_id " +
+        "LEFT JOIN accounts a ON a.id = t.account_id " +
+        "WHERE t.user_id = ?";
+    
+    // Percorre idx_user_transaction_date na ordem, sem filesort
+    private static final String ORDER_BY = " ORDER BY t.transaction_date, t.id";
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    /**
+     * Entrega cada linha ao handler conforme chega do banco (nada é acumulado)
+     */
+    public void streamByUser(Long userId, LocalDate startDate, LocalDate endDate, Long categoryId,
+                             RowCallbackHandler handler) {
+        StringBuilder sql = new StringBuilder(SELECT_SQL);
+        List<Object> params = new ArrayList<>();
+        params.add(userId);
+        if (startDate != null) {
+            sql.append(" AND t.transaction_date >= ?");
+            params.add(Date.valueOf(startDate));
+        }
+        if (endDate != null) {
+            sql.append(" AND t.transaction_date <= ?");
+            params.add(Date.valueOf(endDate));
+        }
+        if (categoryId != null) {
+            sql.append(" AND t.category_id = ?");
+            params.add(categoryId);
+        }
+        sql.append(ORDER_BY);
+        
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql.toString(),
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(Integer.MIN_VALUE);
+            for (int i = 0; i < params.size(); i++) {
+                ps.setObject(i + 1, params.get(i));
+            }
+            return ps;
+        }, handler);
+    }
+}
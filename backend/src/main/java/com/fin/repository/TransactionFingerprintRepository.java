@@ -0,0 +1,30 @@
+package com.fin.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+
+/**
+ * Leitura das transações existentes de um período para a deduplicação da importação de extratos.
+ * Só as colunas que entram na impressão digital (data, tipo, valor, descrição), pelo índice user_id + transaction_date.
+ */
+@Repository
+public class TransactionFingerprintRepository {
+    
+    // Transações gravadas pela própria importação não contam: duas compras iguais no mesmo dia são legítimas
+    private static final String SELECT_SQL =
+        "SELECT transaction_date, type, amount, description FROM transactions " +
+        "WHERE user_id = ? AND transaction_date BETWEEN ? AND ? " +
+        "AND (import_job_id IS NULL OR import_job_id <> ?) AND amount <> 0";
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    public void streamByPeriod(Long userId, LocalDate from, LocalDate to, Long excludedJobId, RowCallbackHandler handler) {
+        jdbcTemplate.query(SELECT_SQL, handler, userId, Date.valueOf(from), Date.valueOf(to), excludedJobId);
+    }
+}
@@ -1,17 +1,27 @@
 package com.fin.repository;
 
 import com.fin.model.Transaction;
+import com.fin.dto.CategoryMonthlySpend;
+import com.fin.dto.RuleBacktestCandidate;
+import com.fin.dto.SpendingProfileRow;
+import com.fin.model.Category;
 import com.fin.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
@@ -67,5 +77,51 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
     // Exclui transações pai parceladas (isInstallment = true E parentTransactionId = null)
     @Query("SELECT DISTINCT t FROM Transaction t LEFT JOIN FETCH t.category WHERE t.user.id = :userId AND (t.isPaid IS NULL OR t.isPaid = false) AND t.dueDate < :date AND NOT (t.isInstallment = true AND t.parentTransactionId IS NULL)")
     List<Transaction> findOverdueTransactionsByUserId(@Param("userId") Long userId, @Param("date") LocalDate date);
+    
+    // Cursor para o backtest de regras: projeção enxuta lida em streaming (fetch size MIN_VALUE = streaming no driver MySQL)
+    // Exclui transações pai parceladas, que são apenas agrupadoras com valor zero
+    @Query("SELECT new com.fin.dto.RuleBacktestCandidate(t.id, t.description, t.amount, t.transactionDate, t.isPaid, c.id) " +
+           "FROM Transaction t LEFT JOIN t.category c WHERE t.user.id = :userId " +
+           "AND NOT (t.isInstallment = true AND t.parentTransactionId IS NULL)")
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<RuleBacktestCandidate> streamRuleBacktestCandidates(@Param("userId") Long userId);
+    
+    // Despesas por categoria e mês no período (base da distribuição histórica usada na simulação de cenários)
+    @Query("SELECT new com.fin.dto.CategoryMonthlySpend(c.id, YEAR(t.transactionDate), MONTH(t.transactionDate), SUM(t.amount)) " +
+           "FROM Transaction t LEFT JOIN t.category c WHERE t.user.id = :userId AND t.type = :type " +
+           "AND t.transactionDate BETWEEN :startDate AND :endDate " +
+           "AND NOT (t.isInstallment = true AND t.parentTransactionId IS NULL) " +
+           "GROUP BY c.id, YEAR(t.transactionDate), MONTH(t.transactionDate)")
+    List<CategoryMonthlySpend> sumMonthlyByCategory(
+        @Param("userId") Long userId,
+        @Param("type") Transaction.TransactionType type,
+        @Param("startDate") LocalDate startDate,
+        @Param("endDate") LocalDate endDate
+    );
+    
+    // Perfil de gastos: totais pagos por tipo e categoria na janela e no mês corrente, em uma única passada
+    @Query("SELECT new com.fin.dto.SpendingProfileRow(t.type, c.id, c.name, SUM(t.amount), " +
+           "SUM(CASE WHEN COALESCE(t.dueDate, t.transactionDate) BETWEEN :monthStart AND :monthEnd THEN t.amount ELSE 0 END)) " +
+           "FROM Transaction t LEFT JOIN t.category c WHERE t.user.id = :userId AND t.isPaid = true " +
+           "AND COALESCE(t.dueDate, t.transactionDate) >= :since " +
+           "GROUP BY t.type, c.id, c.name")
+    List<SpendingProfileRow> aggregateSpendingProfile(
+        @Param("userId") Long userId,
+        @Param("since") LocalDate since,
+        @Param("monthStart") LocalDate monthStart,
+        @Param("monthEnd") LocalDate monthEnd
+    );
+    
+    @Modifying
+    @Query("UPDATE Transaction t SET t.category = :category, t.updatedAt = CURRENT_TIMESTAMP WHERE t.user.id = :userId AND t.id IN :ids")
+    int bulkUpdateCategory(@Param("userId") Long userId, @Param("category") Category category, @Param("ids") Collection<Long> ids);
+    
+    @Modifying
+    @Query("UPDATE Transaction t SET t.isPaid = true, t.updatedAt = CURRENT_TIMESTAMP WHERE t.user.id = :userId AND t.id IN :ids")
+    int bulkMarkAsPaid(@Param("userId") Long userId, @Param("ids") Collection<Long> ids);
 }
 
+
@@ -0,0 +1,81 @@
+package com.fin.security;
+
+import com.fin.service.RateLimitService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Aplica o limite de taxa por usuário nos endpoints que chamam a OpenAI. Roda depois do filtro JWT
+ * (precisa do usuário autenticado) e responde 429 com Retry-After quando o balde do usuário está vazio.
+ * Não é um @Component para não ser registrado também como filtro do servlet, fora da cadeia de segurança.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+    
+    private static final String AI_PREFIX = "/api/transactions/ai/";
+    
+    private final RateLimitService rateLimitService;
+    
+    public RateLimitFilter(RateLimitService rateLimitService) {
+        this.rateLimitService = rateLimitService;
+    }
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        return path == null || !path.startsWith(AI_PREFIX);
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        
+        RateLimitService.Bucket bucket = bucketFor(request.getMethod(), request.getRequestURI());
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (bucket == null || auth == null || !auth.isAuthenticated()) {
+            chain.doFilter(request, response);
+            return;
+        }
+        
+        RateLimitService.Decision decision = rateLimitService.tryAcquire(auth.getName(), bucket);
+        if (decision.isAllowed()) {
+            if (decision.getRemaining() >= 0) {
+                response.setHeader("X-RateLimit-Remaining", String.valueOf(decision.getRemaining()));
+            }
+            chain.doFilter(request, response);
+            return;
+        }
+        
+        long retryAfterSeconds = Math.max(1, (decision.getRetryAfterMillis() + 999) / 1000);
+        response.setStatus(429);
+        response.setHeader("Retry-After", String.valueOf(retryAfterSeconds));
+        response.setHeader("X-RateLimit-Remaining", "0");
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        response.getWriter().write("{\"message\":\"Limite de requisições da IA atingido. Tente novamente em "
+            + retryAfterSeconds + " segundos.\",\"retryAfterSeconds\":" + retryAfterSeconds + "}");
+    }
+    
+    // Só as rotas que chamam a OpenAI; confirmações e consultas de jobs não consomem tokens.
+    // No lote, este token paga o primeiro prompt; os prompts seguintes são cobrados por AiTransactionService.processBatch
+    private RateLimitService.Bucket bucketFor(String method, String path) {
+        String endpoint = path.substring(AI_PREFIX.length());
+        if ("POST".equals(method)) {
+            if (endpoint.equals("create") || endpoint.equals("batch")) {
+                return RateLimitService.Bucket.AI;
+            }
+            if (endpoint.equals("train")) {
+                return RateLimitService.Bucket.AI_TRAINING;
+            }
+        } else if ("GET".equals(method) && endpoint.equals("analysis")) {
+            return RateLimitService.Bucket.AI;
+        }
+        return null;
+    }
+}
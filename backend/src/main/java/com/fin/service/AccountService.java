@@ -28,6 +28,9 @@ public class AccountService {
     @Autowired
     private PlanLimitsService planLimitsService;
     
+    @Autowired
+    private QuotaService quotaService;
+    
     /**
      * Lista todas as contas do usuário
      */
@@ -81,6 +84,7 @@ public class AccountService {
         account.setUser(user);
         
         account = accountRepository.save(account);
+        quotaService.recordCreated(userId, QuotaService.Resource.ACCOUNTS);
         return convertToDto(account);
     }
     
@@ -105,7 +109,13 @@ public class AccountService {
         account.setAccountNumber(dto.getAccountNumber());
         account.setAgency(dto.getAgency());
         account.setDescription(dto.getDescription());
-        if (dto.getIsActive() != null) {
+        if (dto.getIsActive() != null && !dto.getIsActive().equals(account.getIsActive())) {
+            // Apenas contas ativas contam na cota do plano
+            if (dto.getIsActive()) {
+                quotaService.recordCreated(userId, QuotaService.Resource.ACCOUNTS);
+            } else {
+                quotaService.recordDeleted(userId, QuotaService.Resource.ACCOUNTS);
+            }
             account.setIsActive(dto.getIsActive());
         }
         
@@ -125,6 +135,9 @@ public class AccountService {
             throw new RuntimeException("Acesso negado");
         }
         
+        if (Boolean.TRUE.equals(account.getIsActive())) {
+            quotaService.recordDeleted(userId, QuotaService.Resource.ACCOUNTS);
+        }
         account.setIsActive(false);
         accountRepository.save(account);
     }
@@ -148,8 +161,8 @@ public class AccountService {
             return false;
         }
         
-        // Contar contas ativas
-        long activeAccountsCount = accountRepository.findByUserIdAndIsActiveTrue(userId).size();
+        // Contar contas ativas (contador em cache das cotas, sem carregar as contas)
+        long activeAccountsCount = quotaService.count(userId, QuotaService.Resource.ACCOUNTS);
         
         // Limites por plano (pode ser melhorado consultando o plano real)
         // FREE: 1 conta, BASIC: 3 contas, PREMIUM: ilimitado, ENTERPRISE: ilimitado
@@ -4,9 +4,15 @@ import com.fin.dto.SubscriptionDto;
 import com.fin.dto.UserDto;
 import com.fin.model.Subscription;
 import com.fin.model.User;
+import com.fin.repository.NotificationArchiveRepository;
+import com.fin.repository.SpendingAnomalyRepository;
+import com.fin.repository.SpendingAnomalyStatsRepository;
+import com.fin.repository.StatementImportBatchRepository;
+import com.fin.repository.StatementImportJobRepository;
 import com.fin.repository.SubscriptionRepository;
 import com.fin.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -28,6 +34,27 @@ public class AdminService {
     @Autowired
     private SubscriptionRepository subscriptionRepository;
     
+    @Autowired
+    private NotificationArchiveRepository notificationArchiveRepository;
+    
+    @Autowired
+    private SpendingAnomalyRepository spendingAnomalyRepository;
+    
+    @Autowired
+    private SpendingAnomalyStatsRepository spendingAnomalyStatsRepository;
+    
+    @Autowired
+    private StatementImportJobRepository statementImportJobRepository;
+    
+    @Autowired
+    private TransactionAttachmentService transactionAttachmentService;
+    
+    @Autowired
+    private StatementImportBatchRepository statementImportBatchRepository;
+    
+    @Autowired
+    private QuotaService quotaService;
+    
     @Autowired
     private PasswordEncoder passwordEncoder;
     
@@ -47,6 +74,7 @@ public class AdminService {
     }
     
     @Transactional
+    @CacheEvict(value = SubscriptionService.SUBSCRIPTION_STATUS_CACHE, key = "#userId")
     public SubscriptionDto updateUserSubscription(Long userId, Subscription.SubscriptionPlan plan) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("Usuário não encontrado"));
@@ -73,10 +101,12 @@ public class AdminService {
         subscription.setEndDate(LocalDateTime.now().plusDays(plan.getDays()));
         
         subscription = subscriptionRepository.save(subscription);
+        quotaService.evict(userId);
         return convertSubscriptionToDto(subscription);
     }
     
     @Transactional
+    @CacheEvict(value = SubscriptionService.SUBSCRIPTION_STATUS_CACHE, key = "#userId")
     public void deactivateUserSubscription(Long userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("Usuário não encontrado"));
@@ -95,9 +125,11 @@ public class AdminService {
         
         subscription.setIsActive(false);
         subscriptionRepository.save(subscription);
+        quotaService.evict(userId);
     }
     
     @Transactional
+    @CacheEvict(value = SubscriptionService.SUBSCRIPTION_STATUS_CACHE, key = "#userId")
     public void extendUserSubscription(Long userId, Integer days) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("Usuário não encontrado"));
@@ -122,13 +154,22 @@ public class AdminService {
         
         subscription.setIsActive(true);
         subscriptionRepository.save(subscription);
+        quotaService.evict(userId);
     }
     
     @Transactional
+    @CacheEvict(value = SubscriptionService.SUBSCRIPTION_STATUS_CACHE, key = "#userId")
     public void deleteUser(Long userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("Usuário não encontrado"));
+        notificationArchiveRepository.deleteByUserId(userId); // Arquivo morto não tem FK para users
+        spendingAnomalyRepository.deleteByUserId(userId); // Estado e anomalias do detector também não têm FK
+        spendingAnomalyStatsRepository.deleteByUserId(userId);
+        statementImportBatchRepository.deleteByUserId(userId); // Importações de extrato: sem FK, lotes antes dos jobs
+        statementImportJobRepository.deleteByUserId(userId);
+        transactionAttachmentService.deleteUserAttachments(userId); // Arquivos removidos do MinIO após o commit
         userRepository.delete(user);
+        quotaService.evict(userId);
     }
     
     public Long getTotalUsers() {
@@ -35,6 +35,9 @@ public class AiLearningService {
     @Value("${openai.api.url:https://api.openai.com/v1/chat/completions}")
     private String openAiApiUrl;
     
+    @Value("${ai.batch.prompt-size:20}")
+    private int batchPromptSize;
+    
     private final WebClient webClient;
     private final ObjectMapper objectMapper;
     
@@ -194,48 +197,7 @@ public class AiLearningService {
             Map<String, Object> extractedData = parseAIResponse(aiResponse);
             
             // Criar e salvar padrão
-            AiLearningPattern pattern = new AiLearningPattern();
-            pattern.setOriginalText(originalText);
-            pattern.setNormalizedText(normalizedText);
-            pattern.setUser(new User());
-            pattern.getUser().setId(userId);
-            
-            // Preencher dados extraídos
-            if (extractedData.containsKey("type")) {
-                pattern.setTransactionType(extractedData.get("type").toString());
-            }
-            if (extractedData.containsKey("amount")) {
-                pattern.setAmount(new BigDecimal(extractedData.get("amount").toString()));
-            }
-            if (extractedData.containsKey("amountPerInstallment")) {
-                pattern.setAmountPerInstallment(new BigDecimal(extractedData.get("amountPerInstallment").toString()));
-            }
-            if (extractedData.containsKey("installments")) {
-                pattern.setInstallments(Integer.parseInt(extractedData.get("installments").toString()));
-            }
-            if (extractedData.containsKey("description")) {
-                pattern.setDescription(extractedData.get("description").toString());
-            }
-            if (extractedData.containsKey("date")) {
-                pattern.setTransactionDate(LocalDate.parse(extractedData.get("date").toString()));
-            }
-            if (extractedData.containsKey("categoryId")) {
-                pattern.setCategoryId(Long.parseLong(extractedData.get("categoryId").toString()));
-            }
-            if (extractedData.containsKey("categoryName")) {
-                pattern.setCategoryName(extractedData.get("categoryName").toString());
-            }
-            if (extractedData.containsKey("confidence")) {
-                pattern.setConfidenceScore(Double.parseDouble(extractedData.get("confidence").toString()));
-            }
-            if (extractedData.containsKey("patterns")) {
-                pattern.setLearnedPatterns(objectMapper.writeValueAsString(extractedData.get("patterns")));
-            }
-            if (extractedData.containsKey("notes")) {
-                pattern.setProcessingNotes(extractedData.get("notes").toString());
-            }
-            
-            pattern.setIsProcessed(true);
+            AiLearningPattern pattern = buildPattern(originalText, normalizedText, userId, extractedData);
             
             return patternRepository.save(pattern);
             
@@ -244,31 +206,175 @@ public class AiLearningService {
             e.printStackTrace();
             
             // Em caso de erro, salvar padrão sem processamento
-            AiLearningPattern pattern = new AiLearningPattern();
-            pattern.setOriginalText(originalText);
-            pattern.setNormalizedText(normalizeText(originalText));
-            pattern.setUser(new User());
-            pattern.getUser().setId(userId);
-            pattern.setIsProcessed(false);
-            pattern.setProcessingNotes("Erro ao processar: " + e.getMessage());
-            return patternRepository.save(pattern);
+            return patternRepository.save(buildUnprocessedPattern(originalText, userId, e));
         }
     }
     
     /**
-     * Treina o modelo com padrões históricos não processados
+     * Processa vários textos do usuário com uma única chamada à OpenAI por bloco
+     * (em vez de uma chamada por texto). O contexto histórico e as categorias são
+     * montados uma só vez.
+     * @return Padrões na mesma ordem dos textos recebidos
      */
-    public void trainWithHistoricalPatterns() {
-        List<AiLearningPattern> unprocessed = patternRepository.findByIsProcessedFalse();
-        System.out.println("Processando " + unprocessed.size() + " padrões não processados...");
-        
-        for (AiLearningPattern pattern : unprocessed) {
-            try {
-                processTextWithAI(pattern.getOriginalText(), pattern.getUser().getId());
-            } catch (Exception e) {
-                System.err.println("Erro ao processar padrão " + pattern.getId() + ": " + e.getMessage());
+    public List<AiLearningPattern> processTextsWithAI(List<String> originalTexts, Long userId) {
+        if (originalTexts.isEmpty()) {
+            return new ArrayList<>();
+        }
+        
+        List<AiLearningPattern> historicalPatterns = patternRepository
+            .findByUserIdOrderByCreatedAtDesc(userId)
+            .stream()
+            .limit(20)
+            .collect(Collectors.toList());
+        
+        List<Category> userCategories = categoryRepository.findByUserId(userId);
+        String categoriesContext = userCategories.stream()
+            .map(c -> String.format("- %s (%s)", c.getName(), c.getType().name()))
+            .collect(Collectors.joining("\n"));
+        
+        List<AiLearningPattern> result = new ArrayList<>(originalTexts.size());
+        for (int start = 0; start < originalTexts.size(); start += batchPromptSize) {
+            List<String> chunk = originalTexts.subList(start, Math.min(start + batchPromptSize, originalTexts.size()));
+            result.addAll(processChunkWithAI(chunk, userId, historicalPatterns, categoriesContext));
+        }
+        return result;
+    }
+    
+    private List<AiLearningPattern> processChunkWithAI(List<String> originalTexts, Long userId,
+                                                      List<AiLearningPattern> historicalPatterns,
+                                                      String categoriesContext) {
+        List<AiLearningPattern> patterns = new ArrayList<>(originalTexts.size());
+        try {
+            String prompt = buildBatchLearningPrompt(originalTexts, historicalPatterns, categoriesContext);
+            String aiResponse = callOpenAI(prompt, Math.min(4000, 300 * originalTexts.size()));
+            Map<Integer, Map<String, Object>> extractedByIndex = parseBatchAIResponse(aiResponse);
+            
+            for (int i = 0; i < originalTexts.size(); i++) {
+                String originalText = originalTexts.get(i);
+                Map<String, Object> extractedData = extractedByIndex.get(i);
+                if (extractedData == null || extractedData.isEmpty()) {
+                    AiLearningPattern pattern = buildUnprocessedPattern(originalText, userId, null);
+                    pattern.setProcessingNotes("Item ausente na resposta em lote da IA");
+                    patterns.add(pattern);
+                    continue;
+                }
+                try {
+                    patterns.add(buildPattern(originalText, normalizeText(originalText), userId, extractedData));
+                } catch (Exception e) {
+                    patterns.add(buildUnprocessedPattern(originalText, userId, e));
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("Erro ao processar lote de textos com IA: " + e.getMessage());
+            patterns.clear();
+            for (String originalText : originalTexts) {
+                patterns.add(buildUnprocessedPattern(originalText, userId, e));
             }
         }
+        return patternRepository.saveAll(patterns);
+    }
+    
+    private AiLearningPattern buildPattern(String originalText, String normalizedText, Long userId,
+                                           Map<String, Object> extractedData) throws Exception {
+        AiLearningPattern pattern = new AiLearningPattern();
+        pattern.setOriginalText(originalText);
+        pattern.setNormalizedText(normalizedText);
+        pattern.setUser(new User());
+        pattern.getUser().setId(userId);
+        applyExtractedData(pattern, extractedData);
+        return pattern;
+    }
+    
+    private void applyExtractedData(AiLearningPattern pattern, Map<String, Object> extractedData) throws Exception {
+        // Preencher dados extraídos
+        if (extractedData.containsKey("type")) {
+            pattern.setTransactionType(extractedData.get("type").toString());
+        }
+        if (extractedData.containsKey("amount")) {
+            pattern.setAmount(new BigDecimal(extractedData.get("amount").toString()));
+        }
+        if (extractedData.containsKey("amountPerInstallment")) {
+            pattern.setAmountPerInstallment(new BigDecimal(extractedData.get("amountPerInstallment").toString()));
+        }
+        if (extractedData.containsKey("installments")) {
+            pattern.setInstallments(Integer.parseInt(extractedData.get("installments").toString()));
+        }
+        if (extractedData.containsKey("description")) {
+            pattern.setDescription(extractedData.get("description").toString());
+        }
+        if (extractedData.containsKey("date")) {
+            pattern.setTransactionDate(LocalDate.parse(extractedData.get("date").toString()));
+        }
+        if (extractedData.containsKey("categoryId")) {
+            pattern.setCategoryId(Long.parseLong(extractedData.get("categoryId").toString()));
+        }
+        if (extractedData.containsKey("categoryName")) {
+            pattern.setCategoryName(extractedData.get("categoryName").toString());
+        }
+        if (extractedData.containsKey("confidence")) {
+            pattern.setConfidenceScore(Double.parseDouble(extractedData.get("confidence").toString()));
+        }
+        if (extractedData.containsKey("patterns")) {
+            pattern.setLearnedPatterns(objectMapper.writeValueAsString(extractedData.get("patterns")));
+        }
+        if (extractedData.containsKey("notes")) {
+            pattern.setProcessingNotes(extractedData.get("notes").toString());
+        }
+        
+        pattern.setIsProcessed(true);
+    }
+    
+    private AiLearningPattern buildUnprocessedPattern(String originalText, Long userId, Exception error) {
+        AiLearningPattern pattern = new AiLearningPattern();
+        pattern.setOriginalText(originalText);
+        pattern.setNormalizedText(normalizeText(originalText));
+        pattern.setUser(new User());
+        pattern.getUser().setId(userId);
+        pattern.setIsProcessed(false);
+        if (error != null) {
+            pattern.setProcessingNotes("Erro ao processar: " + error.getMessage());
+        }
+        return pattern;
+    }
+    
+    /**
+     * Reprocessa um padrão salvo sem processamento, atualizando o próprio registro
+     * (usado pelo job de treino em segundo plano)
+     * @return true se a OpenAI processou o padrão com sucesso
+     */
+    public boolean reprocessPattern(AiLearningPattern pattern) {
+        Long userId = pattern.getUser().getId();
+        try {
+            String normalizedText = normalizeText(pattern.getOriginalText());
+            
+            List<AiLearningPattern> historicalPatterns = patternRepository
+                .findByUserIdOrderByCreatedAtDesc(userId)
+                .stream()
+                .filter(p -> Boolean.TRUE.equals(p.getIsProcessed()))
+                .limit(20)
+                .collect(Collectors.toList());
+            
+            List<Category> userCategories = categoryRepository.findByUserId(userId);
+            String categoriesContext = userCategories.stream()
+                .map(c -> String.format("- %s (%s)", c.getName(), c.getType().name()))
+                .collect(Collectors.joining("\n"));
+            
+            String prompt = buildLearningPrompt(pattern.getOriginalText(), normalizedText, historicalPatterns, categoriesContext);
+            Map<String, Object> extractedData = parseAIResponse(callOpenAI(prompt));
+            if (extractedData.isEmpty()) {
+                throw new RuntimeException("Resposta da IA vazia ou inválida");
+            }
+            
+            pattern.setNormalizedText(normalizedText);
+            applyExtractedData(pattern, extractedData);
+            patternRepository.save(pattern);
+            return true;
+        } catch (Exception e) {
+            System.err.println("Erro ao reprocessar padrão " + pattern.getId() + ": " + e.getMessage());
+            pattern.setProcessingNotes("Erro ao processar: " + e.getMessage());
+            patternRepository.save(pattern);
+            return false;
+        }
     }
     
     /**
@@ -356,7 +462,55 @@ public class AiLearningService {
         return prompt.toString();
     }
     
+    private String buildBatchLearningPrompt(List<String> originalTexts,
+                                            List<AiLearningPattern> historicalPatterns,
+                                            String categoriesContext) {
+        StringBuilder prompt = new StringBuilder();
+        
+        prompt.append("Você é um assistente especializado em extrair informações financeiras de textos em português brasileiro.\n\n");
+        prompt.append("TAREFA: Cada linha abaixo descreve UMA transação financeira. Analise cada linha separadamente.\n\n");
+        
+        prompt.append("LINHAS:\n");
+        for (int i = 0; i < originalTexts.size(); i++) {
+            prompt.append(i).append(": ").append(originalTexts.get(i)).append("\n");
+        }
+        prompt.append("\n");
+        
+        if (!historicalPatterns.isEmpty()) {
+            prompt.append("PADRÕES HISTÓRICOS DO USUÁRIO (aprenda com estes exemplos):\n");
+            for (AiLearningPattern p : historicalPatterns) {
+                prompt.append(String.format("- Texto: \"%s\" → Tipo: %s, Valor: %s, Descrição: %s\n",
+                    p.getOriginalText(),
+                    p.getTransactionType(),
+                    p.getAmount(),
+                    p.getDescription()
+                ));
+            }
+            prompt.append("\n");
+        }
+        
+        prompt.append("CATEGORIAS DISPONÍVEIS:\n").append(categoriesContext).append("\n\n");
+        
+        prompt.append("Para cada linha siga as mesmas regras: TIPO (EXPENSE/INCOME), VALOR, PARCELAS, DATA, ");
+        prompt.append("CATEGORIA (ID), DESCRIÇÃO concisa, SCORE de confiança (0.0 a 1.0) e PADRÕES reutilizáveis.\n\n");
+        
+        prompt.append("RESPONDA APENAS EM JSON com este formato (um item por linha, usando o número da linha em \"index\"):\n");
+        prompt.append("{\n");
+        prompt.append("  \"results\": [\n");
+        prompt.append("    {\"index\": 0, \"type\": \"EXPENSE\", \"amount\": 0.0, \"amountPerInstallment\": null, ");
+        prompt.append("\"installments\": null, \"description\": \"...\", \"date\": \"YYYY-MM-DD\", \"categoryId\": null, ");
+        prompt.append("\"categoryName\": \"...\", \"confidence\": 0.0, \"patterns\": [], \"notes\": \"...\"}\n");
+        prompt.append("  ]\n");
+        prompt.append("}\n");
+        
+        return prompt.toString();
+    }
+    
     private String callOpenAI(String prompt) {
+        return callOpenAI(prompt, 1000);
+    }
+    
+    private String callOpenAI(String prompt, int maxTokens) {
         if (openAiApiKey == null || openAiApiKey.isEmpty()) {
             throw new RuntimeException("OpenAI API key não configurada");
         }
@@ -364,7 +518,7 @@ public class AiLearningService {
         Map<String, Object> requestBody = new HashMap<>();
         requestBody.put("model", "gpt-4o-mini");
         requestBody.put("temperature", 0.3);
-        requestBody.put("max_tokens", 1000);
+        requestBody.put("max_tokens", maxTokens);
         
         List<Map<String, String>> messages = new ArrayList<>();
         Map<String, String> systemMessage = new HashMap<>();
@@ -401,59 +555,8 @@ public class AiLearningService {
     
     private Map<String, Object> parseAIResponse(String aiResponse) {
         try {
-            // Limpar resposta (remover markdown code blocks se houver)
-            String cleanedResponse = aiResponse.trim();
-            if (cleanedResponse.startsWith("```json")) {
-                cleanedResponse = cleanedResponse.substring(7);
-            }
-            if (cleanedResponse.startsWith("```")) {
-                cleanedResponse = cleanedResponse.substring(3);
-            }
-            if (cleanedResponse.endsWith("```")) {
-                cleanedResponse = cleanedResponse.substring(0, cleanedResponse.length() - 3);
-            }
-            cleanedResponse = cleanedResponse.trim();
-            
-            JsonNode jsonNode = objectMapper.readTree(cleanedResponse);
-            Map<String, Object> result = new HashMap<>();
-            
-            if (jsonNode.has("type")) {
-                result.put("type", jsonNode.get("type").asText());
-            }
-            if (jsonNode.has("amount")) {
-                result.put("amount", jsonNode.get("amount").asDouble());
-            }
-            if (jsonNode.has("amountPerInstallment")) {
-                result.put("amountPerInstallment", jsonNode.get("amountPerInstallment").asDouble());
-            }
-            if (jsonNode.has("installments")) {
-                result.put("installments", jsonNode.get("installments").asInt());
-            }
-            if (jsonNode.has("description")) {
-                result.put("description", jsonNode.get("description").asText());
-            }
-            if (jsonNode.has("date")) {
-                result.put("date", jsonNode.get("date").asText());
-            }
-            if (jsonNode.has("categoryId")) {
-                result.put("categoryId", jsonNode.get("categoryId").asLong());
-            }
-            if (jsonNode.has("categoryName")) {
-                result.put("categoryName", jsonNode.get("categoryName").asText());
-            }
-            if (jsonNode.has("confidence")) {
-                result.put("confidence", jsonNode.get("confidence").asDouble());
-            }
-            if (jsonNode.has("patterns")) {
-                List<String> patterns = new ArrayList<>();
-                jsonNode.get("patterns").forEach(p -> patterns.add(p.asText()));
-                result.put("patterns", patterns);
-            }
-            if (jsonNode.has("notes")) {
-                result.put("notes", jsonNode.get("notes").asText());
-            }
-            
-            return result;
+            JsonNode jsonNode = objectMapper.readTree(cleanAIResponse(aiResponse));
+            return extractFields(jsonNode);
         } catch (Exception e) {
             System.err.println("Erro ao parsear resposta da IA: " + e.getMessage());
             System.err.println("Resposta recebida: " + aiResponse);
@@ -461,6 +564,86 @@ public class AiLearningService {
         }
     }
     
+    /**
+     * Parseia a resposta de um prompt em lote, indexando os campos extraídos pelo número da linha
+     */
+    private Map<Integer, Map<String, Object>> parseBatchAIResponse(String aiResponse) {
+        Map<Integer, Map<String, Object>> result = new HashMap<>();
+        try {
+            JsonNode root = objectMapper.readTree(cleanAIResponse(aiResponse));
+            JsonNode items = root.isArray() ? root : root.get("results");
+            if (items == null || !items.isArray()) {
+                return result;
+            }
+            for (JsonNode item : items) {
+                if (item.has("index")) {
+                    result.put(item.get("index").asInt(), extractFields(item));
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("Erro ao parsear resposta em lote da IA: " + e.getMessage());
+            System.err.println("Resposta recebida: " + aiResponse);
+        }
+        return result;
+    }
+    
+    private String cleanAIResponse(String aiResponse) {
+        // Limpar resposta (remover markdown code blocks se houver)
+        String cleanedResponse = aiResponse.trim();
+        if (cleanedResponse.startsWith("```json")) {
+            cleanedResponse = cleanedResponse.substring(7);
+        }
+        if (cleanedResponse.startsWith("```")) {
+            cleanedResponse = cleanedResponse.substring(3);
+        }
+        if (cleanedResponse.endsWith("```")) {
+            cleanedResponse = cleanedResponse.substring(0, cleanedResponse.length() - 3);
+        }
+        return cleanedResponse.trim();
+    }
+    
+    private Map<String, Object> extractFields(JsonNode jsonNode) {
+        Map<String, Object> result = new HashMap<>();
+        
+        if (jsonNode.hasNonNull("type")) {
+            result.put("type", jsonNode.get("type").asText());
+        }
+        if (jsonNode.hasNonNull("amount")) {
+            result.put("amount", jsonNode.get("amount").asDouble());
+        }
+        if (jsonNode.hasNonNull("amountPerInstallment")) {
+            result.put("amountPerInstallment", jsonNode.get("amountPerInstallment").asDouble());
+        }
+        if (jsonNode.hasNonNull("installments")) {
+            result.put("installments", jsonNode.get("installments").asInt());
+        }
+        if (jsonNode.hasNonNull("description")) {
+            result.put("description", jsonNode.get("description").asText());
+        }
+        if (jsonNode.hasNonNull("date")) {
+            result.put("date", jsonNode.get("date").asText());
+        }
+        if (jsonNode.hasNonNull("categoryId")) {
+            result.put("categoryId", jsonNode.get("categoryId").asLong());
+        }
+        if (jsonNode.hasNonNull("categoryName")) {
+            result.put("categoryName", jsonNode.get("categoryName").asText());
+        }
+        if (jsonNode.hasNonNull("confidence")) {
+            result.put("confidence", jsonNode.get("confidence").asDouble());
+        }
+        if (jsonNode.hasNonNull("patterns")) {
+            List<String> patterns = new ArrayList<>();
+            jsonNode.get("patterns").forEach(p -> patterns.add(p.asText()));
+            result.put("patterns", patterns);
+        }
+        if (jsonNode.hasNonNull("notes")) {
+            result.put("notes", jsonNode.get("notes").asText());
+        }
+        
+        return result;
+    }
+    
     private String normalizeText(String text) {
         if (text == null) return "";
         return text.toLowerCase()
@@ -0,0 +1,294 @@
+package com.fin.service;
+
+import com.fin.dto.AiTrainingJobDto;
+import com.fin.model.AiLearningPattern;
+import com.fin.model.AiTrainingJob;
+import com.fin.repository.AiLearningPatternRepository;
+import com.fin.repository.AiTrainingJobRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Treino da IA em segundo plano.
+ * Os padrões não processados são lidos em blocos (paginação por ID), cada bloco é enviado à OpenAI
+ * com paralelismo e taxa limitados, e o progresso é gravado no job ao final de cada bloco.
+ * Se a aplicação reiniciar no meio do treino, o job continua a partir do último checkpoint.
+ * Com várias réplicas, o job pertence à instância que o reivindicou (owner_instance) e só é
+ * retomado por outra quando o heartbeat, renovado a cada checkpoint, passa de ai.training.stale-after.
+ */
+@Service
+public class AiTrainingJobService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AiTrainingJobService.class);
+    
+    private static final List<AiTrainingJob.JobStatus> ACTIVE_STATUSES =
+        List.of(AiTrainingJob.JobStatus.PENDING, AiTrainingJob.JobStatus.RUNNING);
+    
+    @Autowired
+    private AiTrainingJobRepository jobRepository;
+    
+    @Autowired
+    private AiLearningPatternRepository patternRepository;
+    
+    @Autowired
+    private AiLearningService aiLearningService;
+    
+    @Autowired
+    @Qualifier("aiTrainingJobExecutor")
+    private Executor jobExecutor;
+    
+    @Autowired
+    @Qualifier("aiTrainingWorkerExecutor")
+    private Executor workerExecutor;
+    
+    @Value("${ai.training.chunk-size:100}")
+    private int chunkSize;
+    
+    @Value("${ai.training.max-requests-per-second:3}")
+    private double maxRequestsPerSecond;
+    
+    @Value("${ai.training.stale-after:PT10M}")
+    private Duration staleAfter;
+    
+    @Autowired
+    private SchedulerCoordinator schedulerCoordinator;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    private TransactionTemplate transactionTemplate;
+    
+    private final Object rateLock = new Object();
+    private long nextRequestAtMillis = 0;
+    
+    // Jobs em execução nesta instância (o claim aceita o próprio dono, então a repetição local é barrada aqui)
+    private final Set<Long> localJobs = ConcurrentHashMap.newKeySet();
+    
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+    
+    /**
+     * Inicia um novo job de treino, ou devolve o job que já está em andamento.
+     * A criação roda sob lease para que duas réplicas não criem jobs ao mesmo tempo.
+     */
+    public AiTrainingJobDto startJob(Long requestedBy) {
+        AiTrainingJob[] started = new AiTrainingJob[1];
+        boolean ran = schedulerCoordinator.runExclusive("ai-training-start", Duration.ofMinutes(1), Duration.ZERO, () -> {
+            List<AiTrainingJob> active = jobRepository.findByStatusIn(ACTIVE_STATUSES);
+            if (!active.isEmpty()) {
+                started[0] = active.get(0);
+                return;
+            }
+            
+            AiTrainingJob job = new AiTrainingJob();
+            job.setStatus(AiTrainingJob.JobStatus.PENDING);
+            job.setRequestedBy(requestedBy);
+            job.setTotalPatterns(patternRepository.countByIsProcessedFalse());
+            job.setOwnerInstance(schedulerCoordinator.getInstanceId());
+            job.setHeartbeatAt(LocalDateTime.now());
+            job = jobRepository.save(job);
+            started[0] = job;
+            
+            Long jobId = job.getId();
+            jobExecutor.execute(() -> runJob(jobId));
+        });
+        
+        if (!ran || started[0] == null) {
+            // Outra instância está criando o job neste momento
+            return jobRepository.findByStatusIn(ACTIVE_STATUSES).stream()
+                .findFirst()
+                .map(this::convertToDto)
+                .orElseThrow(() -> new RuntimeException("Treino sendo iniciado. Tente novamente em alguns instantes."));
+        }
+        return convertToDto(started[0]);
+    }
+    
+    /**
+     * Job pelo ID: visível para quem o disparou, para administradores e, enquanto ativo, para qualquer
+     * usuário (o treino é global e startJob devolve o job em andamento a quem pedir)
+     */
+    public AiTrainingJobDto getJob(Long jobId, Long userId, boolean isAdmin) {
+        AiTrainingJob job = jobRepository.findById(jobId)
+            .orElseThrow(() -> new RuntimeException("Job de treino não encontrado"));
+        if (!isAdmin && !userId.equals(job.getRequestedBy()) && !ACTIVE_STATUSES.contains(job.getStatus())) {
+            throw new RuntimeException("Acesso negado");
+        }
+        return convertToDto(job);
+    }
+    
+    public AiTrainingJobDto getLatestJob() {
+        return jobRepository.findTopByOrderByCreatedAtDesc()
+            .map(this::convertToDto)
+            .orElse(null);
+    }
+    
+    /**
+     * Retoma jobs sem dono ou cuja instância parou de renovar o heartbeat (na subida e periodicamente,
+     * para cobrir a queda de uma réplica enquanto as outras seguem no ar). O claim condicional decide
+     * qual instância fica com o job.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${ai.training.resume-check-interval-ms:300000}",
+               initialDelayString = "${ai.training.resume-check-interval-ms:300000}")
+    public void resumeInterruptedJobs() {
+        LocalDateTime staleBefore = LocalDateTime.now().minus(staleAfter);
+        for (AiTrainingJob job : jobRepository.findByStatusIn(ACTIVE_STATUSES)) {
+            boolean orphaned = job.getOwnerInstance() == null || job.getHeartbeatAt() == null
+                || job.getHeartbeatAt().isBefore(staleBefore);
+            if (!orphaned || localJobs.contains(job.getId())) {
+                continue;
+            }
+            logger.info("Retomando job de treino {} a partir do padrão {}", job.getId(), job.getLastProcessedId());
+            Long jobId = job.getId();
+            jobExecutor.execute(() -> runJob(jobId));
+        }
+    }
+    
+    private void runJob(Long jobId) {
+        if (!localJobs.add(jobId)) {
+            return;
+        }
+        try {
+            runClaimedJob(jobId);
+        } finally {
+            localJobs.remove(jobId);
+        }
+    }
+    
+    private void runClaimedJob(Long jobId) {
+        String owner = schedulerCoordinator.getInstanceId();
+        LocalDateTime now = LocalDateTime.now();
+        Integer claimed = transactionTemplate.execute(status ->
+            jobRepository.claim(jobId, owner, ACTIVE_STATUSES, now, now.minus(staleAfter)));
+        if (claimed == null || claimed == 0) {
+            logger.info("Job de treino {} já está em execução em outra instância", jobId);
+            return;
+        }
+        
+        AiTrainingJob job = jobRepository.findById(jobId).orElse(null);
+        if (job == null) {
+            return;
+        }
+        logger.info("Job de treino {} iniciado: {} padrões não processados", jobId, job.getTotalPatterns());
+        
+        long processedCount = job.getProcessedCount();
+        long failedCount = job.getFailedCount();
+        long lastProcessedId = job.getLastProcessedId();
+        AiTrainingJob.JobStatus finalStatus;
+        String errorMessage = null;
+        try {
+            while (true) {
+                List<AiLearningPattern> chunk = patternRepository.findUnprocessedAfterId(
+                    lastProcessedId, PageRequest.of(0, chunkSize));
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                
+                List<CompletableFuture<Boolean>> futures = new ArrayList<>(chunk.size());
+                for (AiLearningPattern pattern : chunk) {
+                    futures.add(CompletableFuture.supplyAsync(() -> processWithRateLimit(pattern), workerExecutor));
+                }
+                
+                for (CompletableFuture<Boolean> future : futures) {
+                    if (Boolean.TRUE.equals(future.join())) {
+                        processedCount++;
+                    } else {
+                        failedCount++;
+                    }
+                }
+                
+                // Checkpoint ao final do bloco (também renova o heartbeat)
+                lastProcessedId = chunk.get(chunk.size() - 1).getId();
+                long processed = processedCount;
+                long failed = failedCount;
+                long checkpointId = lastProcessedId;
+                Integer updated = transactionTemplate.execute(status -> jobRepository.checkpoint(
+                    jobId, owner, processed, failed, checkpointId, LocalDateTime.now()));
+                if (updated == null || updated == 0) {
+                    logger.warn("Job de treino {} assumido por outra instância; interrompendo aqui", jobId);
+                    return;
+                }
+                logger.info("Job de treino {}: checkpoint no padrão {} ({} ok, {} falhas)",
+                    jobId, lastProcessedId, processedCount, failedCount);
+            }
+            
+            finalStatus = AiTrainingJob.JobStatus.COMPLETED;
+        } catch (Exception e) {
+            logger.error("Job de treino {} interrompido", jobId, e);
+            finalStatus = AiTrainingJob.JobStatus.FAILED;
+            errorMessage = e.getMessage();
+        }
+        
+        AiTrainingJob.JobStatus status = finalStatus;
+        String error = errorMessage;
+        transactionTemplate.executeWithoutResult(tx ->
+            jobRepository.finish(jobId, owner, status, error, LocalDateTime.now()));
+    }
+    
+    private boolean processWithRateLimit(AiLearningPattern pattern) {
+        try {
+            awaitRateLimit();
+            return aiLearningService.reprocessPattern(pattern);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+    
+    /**
+     * Espaça as chamadas à OpenAI para no máximo maxRequestsPerSecond, somando todas as threads
+     */
+    private void awaitRateLimit() throws InterruptedException {
+        long intervalMillis = (long) (1000 / maxRequestsPerSecond);
+        long waitMillis;
+        synchronized (rateLock) {
+            long now = System.currentTimeMillis();
+            long slot = Math.max(now, nextRequestAtMillis);
+            nextRequestAtMillis = slot + intervalMillis;
+            waitMillis = slot - now;
+        }
+        if (waitMillis > 0) {
+            Thread.sleep(waitMillis);
+        }
+    }
+    
+    private AiTrainingJobDto convertToDto(AiTrainingJob job) {
+        AiTrainingJobDto dto = new AiTrainingJobDto();
+        dto.setId(job.getId());
+        dto.setStatus(job.getStatus().name());
+        dto.setTotalPatterns(job.getTotalPatterns());
+        dto.setProcessedCount(job.getProcessedCount());
+        dto.setFailedCount(job.getFailedCount());
+        long done = job.getProcessedCount() + job.getFailedCount();
+        dto.setProgressPercentage(job.getTotalPatterns() != null && job.getTotalPatterns() > 0
+            ? Math.min(100.0, done * 100.0 / job.getTotalPatterns())
+            : (job.getStatus() == AiTrainingJob.JobStatus.COMPLETED ? 100.0 : 0.0));
+        dto.setErrorMessage(job.getErrorMessage());
+        dto.setStartedAt(job.getStartedAt());
+        dto.setFinishedAt(job.getFinishedAt());
+        dto.setCreatedAt(job.getCreatedAt());
+        return dto;
+    }
+}
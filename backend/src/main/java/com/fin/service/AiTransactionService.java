@@ -1,11 +1,13 @@
 package com.fin.service;
 
+import com.fin.dto.AiBatchTransactionResponse;
 import com.fin.dto.AiTransactionResponse;
 import com.fin.dto.TransactionDto;
 import com.fin.model.Category;
 import com.fin.model.TransactionType;
 import com.fin.repository.CategoryRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
@@ -19,8 +21,11 @@ import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -45,6 +50,19 @@ public class AiTransactionService {
     @Value("${ai.use-learning:true}")
     private Boolean useLearning;
     
+    @Value("${ai.batch.max-lines:200}")
+    private int batchMaxLines;
+    
+    @Value("${ai.batch.prompt-size:20}")
+    private int batchPromptSize;
+    
+    @Autowired
+    private RateLimitService rateLimitService;
+    
+    @Autowired
+    @Qualifier("aiBatchExecutor")
+    private Executor aiBatchExecutor;
+    
     private final WebClient webClient;
     private final ObjectMapper objectMapper;
     
@@ -110,6 +128,163 @@ public class AiTransactionService {
         return processWithHardcodedPatterns(originalText, normalizedText, userId);
     }
     
+    /**
+     * Processa várias linhas de texto (ex: extrato colado ou conversa exportada) em uma única chamada.
+     * - Linhas idênticas (após normalização) são processadas uma única vez
+     * - A busca por padrões aprendidos roda em paralelo no executor limitado
+     * - As linhas sem padrão aprendido são enviadas à OpenAI em um único prompt em lote
+     * Cada linha recebe a mesma resposta que teria no endpoint individual (confirmação, dados faltantes, etc.)
+     */
+    public AiBatchTransactionResponse processBatch(List<String> lines, Long userId) {
+        if (lines == null || lines.isEmpty()) {
+            throw new RuntimeException("Nenhuma linha informada");
+        }
+        if (lines.size() > batchMaxLines) {
+            throw new RuntimeException("Máximo de " + batchMaxLines + " linhas por lote");
+        }
+        
+        long start = System.currentTimeMillis();
+        
+        // Deduplicar linhas mantendo a ordem de primeira ocorrência
+        Map<String, List<Integer>> lineNumbersByKey = new LinkedHashMap<>();
+        Map<String, String> originalByKey = new HashMap<>();
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            if (line == null || line.trim().isEmpty()) {
+                continue;
+            }
+            String originalText = line.trim();
+            String key = normalizeText(originalText).replaceAll("\\s+", " ");
+            lineNumbersByKey.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
+            originalByKey.putIfAbsent(key, originalText);
+        }
+        
+        // ETAPA 1: Padrões aprendidos no banco, em paralelo
+        Map<String, CompletableFuture<AiTransactionResponse>> learnedFutures = new LinkedHashMap<>();
+        for (String key : lineNumbersByKey.keySet()) {
+            String originalText = originalByKey.get(key);
+            learnedFutures.put(key, CompletableFuture.supplyAsync(
+                () -> processWithLearnedPattern(originalText, normalizeText(originalText), userId), aiBatchExecutor));
+        }
+        
+        Map<String, AiTransactionResponse> responses = new HashMap<>();
+        List<String> pendingKeys = new ArrayList<>();
+        for (Map.Entry<String, CompletableFuture<AiTransactionResponse>> entry : learnedFutures.entrySet()) {
+            AiTransactionResponse response = joinQuietly(entry.getValue());
+            if (response != null) {
+                responses.put(entry.getKey(), response);
+            } else {
+                pendingKeys.add(entry.getKey());
+            }
+        }
+        int learnedPatternHits = responses.size();
+        
+        // ETAPA 2: Linhas restantes em um único prompt em lote para a OpenAI
+        Map<String, CompletableFuture<AiTransactionResponse>> pendingFutures = new LinkedHashMap<>();
+        int aiProcessed = 0;
+        if (!pendingKeys.isEmpty() && useLearning && openAiApiKey != null && !openAiApiKey.isEmpty()
+                && acquireBatchPrompts(pendingKeys.size(), userId)) {
+            List<String> pendingTexts = new ArrayList<>();
+            for (String key : pendingKeys) {
+                pendingTexts.add(originalByKey.get(key));
+            }
+            
+            List<com.fin.model.AiLearningPattern> patterns;
+            try {
+                patterns = aiLearningService.processTextsWithAI(pendingTexts, userId);
+                aiProcessed = pendingTexts.size();
+            } catch (Exception e) {
+                System.err.println("Erro ao processar lote com OpenAI: " + e.getMessage());
+                patterns = new ArrayList<>();
+            }
+            
+            for (int i = 0; i < pendingKeys.size(); i++) {
+                String originalText = pendingTexts.get(i);
+                com.fin.model.AiLearningPattern pattern = i < patterns.size() ? patterns.get(i) : null;
+                pendingFutures.put(pendingKeys.get(i), CompletableFuture.supplyAsync(
+                    () -> resolveAiPattern(pattern, originalText, normalizeText(originalText), userId), aiBatchExecutor));
+            }
+        } else {
+            // ETAPA 3: Sem OpenAI (ou sem tokens no limite de taxa), usar padrões hardcoded em paralelo
+            for (String key : pendingKeys) {
+                String originalText = originalByKey.get(key);
+                pendingFutures.put(key, CompletableFuture.supplyAsync(
+                    () -> processWithHardcodedPatterns(originalText, normalizeText(originalText), userId), aiBatchExecutor));
+            }
+        }
+        
+        for (Map.Entry<String, CompletableFuture<AiTransactionResponse>> entry : pendingFutures.entrySet()) {
+            AiTransactionResponse response = joinQuietly(entry.getValue());
+            responses.put(entry.getKey(), response != null ? response : AiTransactionResponse.needsInfo(
+                "Não foi possível interpretar esta linha", null, "Por favor, revise o texto e tente novamente."));
+        }
+        
+        // Montar resultado na ordem original, reaproveitando a resposta das linhas duplicadas
+        List<AiBatchTransactionResponse.LineResult> results = new ArrayList<>();
+        for (Map.Entry<String, List<Integer>> entry : lineNumbersByKey.entrySet()) {
+            AiTransactionResponse response = responses.get(entry.getKey());
+            boolean first = true;
+            for (Integer lineNumber : entry.getValue()) {
+                results.add(new AiBatchTransactionResponse.LineResult(
+                    lineNumber, lines.get(lineNumber).trim(), !first, response));
+                first = false;
+            }
+        }
+        results.sort(java.util.Comparator.comparingInt(AiBatchTransactionResponse.LineResult::getLineNumber));
+        
+        return new AiBatchTransactionResponse(
+            lines.size(),
+            lineNumbersByKey.size(),
+            learnedPatternHits,
+            aiProcessed,
+            System.currentTimeMillis() - start,
+            results
+        );
+    }
+    
+    /**
+     * Cobra do limite de taxa da IA os prompts extras do lote: o filtro já consumiu um token pela requisição
+     * (o primeiro prompt), e cada prompt adicional de até ai.batch.prompt-size linhas consome mais um.
+     * Sem tokens suficientes o lote segue sem a OpenAI, como quando ela está desabilitada.
+     */
+    private boolean acquireBatchPrompts(int pendingLines, Long userId) {
+        int prompts = (pendingLines + batchPromptSize - 1) / batchPromptSize;
+        if (prompts <= 1) {
+            return true;
+        }
+        RateLimitService.Decision decision = rateLimitService.tryAcquire(userId, RateLimitService.Bucket.AI, prompts - 1);
+        if (!decision.isAllowed()) {
+            System.out.println("Limite de taxa da IA atingido no lote - UserId: " + userId + ", prompts: " + prompts
+                + "; usando padrões locais");
+        }
+        return decision.isAllowed();
+    }
+    
+    /**
+     * Tenta resolver o texto apenas com padrões já aprendidos (sem OpenAI)
+     * @return Resposta ou null se não houver padrão similar
+     */
+    private AiTransactionResponse processWithLearnedPattern(String originalText, String normalizedText, Long userId) {
+        if (!useLearning) {
+            return null;
+        }
+        com.fin.model.AiLearningPattern learnedPattern = aiLearningService.findSimilarLearnedPattern(
+            originalText, normalizedText, userId);
+        if (learnedPattern == null) {
+            return null;
+        }
+        return createTransactionFromPattern(learnedPattern, originalText, normalizedText, userId);
+    }
+    
+    private AiTransactionResponse joinQuietly(CompletableFuture<AiTransactionResponse> future) {
+        try {
+            return future.join();
+        } catch (Exception e) {
+            System.err.println("Erro ao processar linha do lote: " + e.getMessage());
+            return null;
+        }
+    }
+    
     /**
      * Cria transação a partir de um padrão aprendido
      */
@@ -304,6 +479,13 @@ public class AiTransactionService {
         // Processar com OpenAI
         com.fin.model.AiLearningPattern pattern = aiLearningService.processTextWithAI(originalText, userId);
         
+        return resolveAiPattern(pattern, originalText, normalizedText, userId);
+    }
+    
+    /**
+     * Converte o padrão devolvido pela OpenAI em resposta, usando fallbacks se o processamento falhou
+     */
+    private AiTransactionResponse resolveAiPattern(com.fin.model.AiLearningPattern pattern, String originalText, String normalizedText, Long userId) {
         if (pattern == null || !pattern.getIsProcessed()) {
             System.out.println("DEBUG: OpenAI não processou ou falhou. Tentando fallback...");
             // Se falhou, tentar usar padrões aprendidos como fallback
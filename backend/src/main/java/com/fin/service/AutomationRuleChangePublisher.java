@@ -0,0 +1,58 @@
+package com.fin.service;
+
+import com.fin.dto.AutomationRuleChangeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+
+@Service
+public class AutomationRuleChangePublisher {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AutomationRuleChangePublisher.class);
+    
+    @Autowired
+    private KafkaTemplate<String, AutomationRuleChangeMessage> kafkaTemplate;
+    
+    @Value("${kafka.topic.automation-rules:automation-rule-changes}")
+    private String automationRulesTopic;
+    
+    /**
+     * Publica a alteração de uma regra após o commit da transação atual,
+     * para que o consumer nunca recompile as regras antes de a mudança estar visível no banco.
+     */
+    public void publishChange(Long userId, Long ruleId, String operation) {
+        AutomationRuleChangeMessage message = new AutomationRuleChangeMessage(userId, ruleId, operation, LocalDateTime.now());
+        
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    send(message);
+                }
+            });
+        } else {
+            send(message);
+        }
+    }
+    
+    private void send(AutomationRuleChangeMessage message) {
+        try {
+            kafkaTemplate.send(automationRulesTopic, message.getUserId().toString(), message)
+                .whenComplete((result, ex) -> {
+                    if (ex != null) {
+                        logger.error("Erro ao publicar alteração de regra para Kafka - UserId: {}", message.getUserId(), ex);
+                    }
+                });
+        } catch (Exception e) {
+            // A regra já foi salva; o TTL do cache no consumer cobre a perda do aviso
+            logger.error("Erro ao publicar alteração de regra para Kafka - UserId: {}", message.getUserId(), e);
+        }
+    }
+}
@@ -13,7 +13,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -33,6 +32,9 @@ public class AutomationRuleService {
     @Autowired
     private TransactionRepository transactionRepository;
     
+    @Autowired
+    private AutomationRuleChangePublisher automationRuleChangePublisher;
+    
     public List<AutomationRuleDto> getUserRules(Long userId) {
         return automationRuleRepository.findByUserIdOrderByPriorityDesc(userId).stream()
             .map(this::convertToDto)
@@ -67,6 +69,7 @@ public class AutomationRuleService {
         rule.setPriority(dto.getPriority() != null ? dto.getPriority() : 0);
         
         rule = automationRuleRepository.save(rule);
+        automationRuleChangePublisher.publishChange(userId, rule.getId(), "CREATE");
         return convertToDto(rule);
     }
     
@@ -89,6 +92,7 @@ public class AutomationRuleService {
         rule.setPriority(dto.getPriority());
         
         rule = automationRuleRepository.save(rule);
+        automationRuleChangePublisher.publishChange(userId, rule.getId(), "UPDATE");
         return convertToDto(rule);
     }
     
@@ -102,6 +106,7 @@ public class AutomationRuleService {
         }
         
         automationRuleRepository.delete(rule);
+        automationRuleChangePublisher.publishChange(userId, ruleId, "DELETE");
     }
     
     /**
@@ -123,39 +128,8 @@ public class AutomationRuleService {
     }
     
     private boolean matchesCondition(AutomationRule rule, Transaction transaction) {
-        switch (rule.getConditionType()) {
-            case "DESCRIPTION_CONTAINS":
-                String keyword = rule.getConditionValue().toLowerCase();
-                return transaction.getDescription() != null &&
-                       transaction.getDescription().toLowerCase().contains(keyword);
-            
-            case "AMOUNT_RANGE":
-                // Formato: "min:max" ou "min:" ou ":max"
-                String[] range = rule.getConditionValue().split(":");
-                BigDecimal amount = transaction.getAmount();
-                if (range.length == 2) {
-                    BigDecimal min = range[0].isEmpty() ? null : new BigDecimal(range[0]);
-                    BigDecimal max = range[1].isEmpty() ? null : new BigDecimal(range[1]);
-                    if (min != null && amount.compareTo(min) < 0) return false;
-                    if (max != null && amount.compareTo(max) > 0) return false;
-                    return true;
-                }
-                return false;
-            
-            case "MERCHANT":
-                // Verifica se a descrição contém o nome do estabelecimento
-                String merchant = rule.getConditionValue().toLowerCase();
-                return transaction.getDescription() != null &&
-                       transaction.getDescription().toLowerCase().contains(merchant);
-            
-            case "DATE_PATTERN":
-                // Por enquanto, apenas verifica se é do mesmo dia da semana
-                // Pode ser expandido para padrões mais complexos
-                return true; // Simplificado
-            
-            default:
-                return false;
-        }
+        return RuleConditionMatcher.compile(rule.getConditionType(), rule.getConditionValue())
+            .matches(transaction.getDescription(), transaction.getAmount());
     }
     
     private void executeAction(AutomationRule rule, Transaction transaction) {
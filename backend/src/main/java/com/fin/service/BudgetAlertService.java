@@ -0,0 +1,178 @@
+package com.fin.service;
+
+import com.fin.model.Budget;
+import com.fin.model.Notification;
+import com.fin.model.Transaction;
+import com.fin.repository.BudgetAlertRepository;
+import com.fin.repository.BudgetAlertRepository.PeriodBudget;
+import com.fin.repository.BudgetAlertRepository.SpendCounter;
+import com.fin.repository.BudgetSpendCounterRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Alertas de orçamento para o que não passa pelo transaction-consumer: despesas inseridas em lote pelo
+ * próprio backend (lançamentos das recorrências) e edições de orçamento. Mantém o mesmo contador
+ * (budget_spend_counters) com as mesmas regras ({@link BudgetThresholds}) do consumer, então cada limiar
+ * continua gerando uma única notificação.
+ */
+@Service
+public class BudgetAlertService {
+    
+    @Autowired
+    private BudgetAlertRepository budgetAlertRepository;
+    
+    @Autowired
+    private BudgetSpendCounterRepository budgetSpendCounterRepository;
+    
+    @Autowired
+    private NotificationService notificationService;
+    
+    @Value("${budget.alerts.resync-minutes:60}")
+    private long resyncMinutes;
+    
+    /**
+     * Soma as despesas ao contador de cada orçamento afetado. Deve ser chamado dentro da transação que
+     * inseriu as despesas, depois do insert; os orçamentos são bloqueados em ordem de id, como no consumer.
+     */
+    public void onExpensesInserted(List<Transaction> transactions) {
+        Map<Long, List<Transaction>> expensesByUser = new LinkedHashMap<>();
+        for (Transaction transaction : transactions) {
+            if (isExpense(transaction)) {
+                expensesByUser.computeIfAbsent(transaction.getUser().getId(), id -> new ArrayList<>()).add(transaction);
+            }
+        }
+        
+        Map<Long, PendingEvaluation> evaluations = new TreeMap<>();
+        expensesByUser.forEach((userId, expenses) -> {
+            LocalDate from = expenses.get(0).getTransactionDate();
+            LocalDate to = from;
+            for (Transaction expense : expenses) {
+                from = expense.getTransactionDate().isBefore(from) ? expense.getTransactionDate() : from;
+                to = expense.getTransactionDate().isAfter(to) ? expense.getTransactionDate() : to;
+            }
+            
+            for (PeriodBudget budget : budgetAlertRepository.findBudgetsInPeriod(userId, from, to)) {
+                BigDecimal amount = BigDecimal.ZERO;
+                for (Transaction expense : expenses) {
+                    if (affects(budget, expense)) {
+                        amount = amount.add(expense.getAmount());
+                    }
+                }
+                if (amount.signum() > 0) {
+                    evaluations.put(budget.getId(), new PendingEvaluation(userId, budget, amount));
+                }
+            }
+        });
+        
+        for (PendingEvaluation evaluation : evaluations.values()) {
+            evaluate(evaluation.userId, evaluation.budget, evaluation.amount);
+        }
+    }
+    
+    /**
+     * Recalcula o contador depois de uma edição (limite, porcentagem, período ou categoria). Limiares que
+     * deixaram de ser atingidos são rearmados; um limiar atingido por causa da edição gera o alerta na hora.
+     */
+    public void onBudgetUpdated(Budget budget) {
+        if (!Boolean.TRUE.equals(budget.getIsActive())) {
+            budgetSpendCounterRepository.deleteByBudgetId(budget.getId());
+            return;
+        }
+        
+        LocalDateTime now = LocalDateTime.now();
+        SpendCounter counter = budgetAlertRepository.lockCounter(budget.getId());
+        BigDecimal spent = budgetAlertRepository.sumSpent(budget.getId());
+        SpendCounter updated = new SpendCounter(spent,
+            counter != null && counter.isAlertNotified(),
+            counter != null && counter.isLimitNotified(),
+            now);
+        
+        PeriodBudget periodBudget = new PeriodBudget(budget.getId(), budget.getName(), budget.getLimitAmount(),
+            budget.getAlertPercentage(), budget.getCategory() != null ? budget.getCategory().getId() : null,
+            budget.getStartDate(), budget.getEndDate());
+        checkThresholds(budget.getUser().getId(), periodBudget, updated);
+        budgetAlertRepository.saveCounter(budget.getId(), updated, now);
+    }
+    
+    private void evaluate(Long userId, PeriodBudget budget, BigDecimal amount) {
+        LocalDateTime now = LocalDateTime.now();
+        SpendCounter counter = budgetAlertRepository.lockCounter(budget.getId());
+        
+        if (counter != null && counter.getSyncedAt().isAfter(now.minusMinutes(resyncMinutes))) {
+            counter.setSpent(counter.getSpent().add(amount));
+        } else {
+            // Contador inexistente ou antigo: recalcula o período (a soma já inclui estas despesas)
+            BudgetThresholds thresholds = new BudgetThresholds(budget.getLimitAmount(), budget.getAlertPercentage());
+            BigDecimal spent = budgetAlertRepository.sumSpent(budget.getId());
+            BigDecimal previous = spent.subtract(amount);
+            counter = new SpendCounter(spent,
+                thresholds.alertAlreadyNotified(previous, counter == null || counter.isAlertNotified()),
+                thresholds.limitAlreadyNotified(previous, counter == null || counter.isLimitNotified()),
+                now);
+        }
+        
+        checkThresholds(userId, budget, counter);
+        budgetAlertRepository.saveCounter(budget.getId(), counter, now);
+    }
+    
+    private void checkThresholds(Long userId, PeriodBudget budget, SpendCounter counter) {
+        BudgetThresholds thresholds = new BudgetThresholds(budget.getLimitAmount(), budget.getAlertPercentage());
+        BudgetThresholds.Decision decision = thresholds.evaluate(
+            counter.getSpent(), counter.isAlertNotified(), counter.isLimitNotified());
+        counter.setAlertNotified(decision.isAlertNotified());
+        counter.setLimitNotified(decision.isLimitNotified());
+        
+        BigDecimal spent = counter.getSpent();
+        BigDecimal limit = thresholds.getLimit();
+        if (decision.getAlert() == BudgetThresholds.Alert.LIMIT) {
+            notificationService.createNotification(userId, "Orçamento Excedido",
+                String.format("Orçamento '%s' foi excedido em R$ %.2f (R$ %.2f de R$ %.2f)",
+                    budget.getName(), spent.subtract(limit), spent, limit),
+                Notification.NotificationType.BUDGET_ALERT, null);
+        } else if (decision.getAlert() == BudgetThresholds.Alert.PERCENTAGE) {
+            notificationService.createNotification(userId, "Alerta de Orçamento",
+                String.format("Orçamento '%s' atingiu %d%% do limite (R$ %.2f de R$ %.2f)",
+                    budget.getName(), thresholds.getAlertPercentage(), spent, limit),
+                Notification.NotificationType.BUDGET_ALERT, null);
+        }
+    }
+    
+    private static boolean isExpense(Transaction transaction) {
+        return transaction.getType() == Transaction.TransactionType.EXPENSE
+                && transaction.getAmount() != null
+                && transaction.getAmount().signum() > 0
+                && transaction.getUser() != null;
+    }
+    
+    private static boolean affects(PeriodBudget budget, Transaction transaction) {
+        LocalDate date = transaction.getTransactionDate();
+        if (date.isBefore(budget.getStartDate()) || date.isAfter(budget.getEndDate())) {
+            return false;
+        }
+        return budget.getCategoryId() == null
+                || (transaction.getCategory() != null && budget.getCategoryId().equals(transaction.getCategory().getId()));
+    }
+    
+    private static class PendingEvaluation {
+        private final Long userId;
+        private final PeriodBudget budget;
+        private final BigDecimal amount;
+        
+        private PendingEvaluation(Long userId, PeriodBudget budget, BigDecimal amount) {
+            this.userId = userId;
+            this.budget = budget;
+            this.amount = amount;
+        }
+    }
+}
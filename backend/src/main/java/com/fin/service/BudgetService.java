@@ -7,6 +7,7 @@ import com.fin.model.Category;
 import com.fin.model.Transaction;
 import com.fin.model.User;
 import com.fin.repository.BudgetRepository;
+import com.fin.repository.BudgetSpendCounterRepository;
 import com.fin.repository.CategoryRepository;
 import com.fin.repository.TransactionRepository;
 import com.fin.repository.UserRepository;
@@ -17,7 +18,6 @@ import org.springframework.transaction.annotation.Transactional;
 
 import com.fin.dto.CashFlowForecastDto;
 import com.fin.dto.CashFlowDayDto;
-import com.fin.dto.TransactionForecastDto;
 import com.fin.dto.ScenarioDto;
 import com.fin.model.RecurringTransaction;
 import com.fin.repository.RecurringTransactionRepository;
@@ -31,6 +31,7 @@ import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -58,6 +59,21 @@ public class BudgetService {
     @Autowired
     private AccountRepository accountRepository;
     
+    @Autowired
+    private ScenarioSimulationService scenarioSimulationService;
+    
+    @Autowired
+    private BudgetSpendCalculator budgetSpendCalculator;
+    
+    @Autowired
+    private BudgetSpendCounterRepository budgetSpendCounterRepository;
+    
+    @Autowired
+    private BudgetAlertService budgetAlertService;
+    
+    @Autowired
+    private QuotaService quotaService;
+    
     public List<BudgetDto> getUserBudgets(Long userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("Usuário não encontrado"));
@@ -66,8 +82,10 @@ public class BudgetService {
             throw new RuntimeException("Assinatura expirada. Renove sua assinatura para continuar.");
         }
         
-        return budgetRepository.findByUser(user).stream()
-                .map(this::convertToDto)
+        List<Budget> budgets = budgetRepository.findByUser(user);
+        Map<Long, BigDecimal> spentByBudget = budgetSpendCalculator.calculateSpent(budgets);
+        return budgets.stream()
+                .map(budget -> convertToDto(budget, spentByBudget.get(budget.getId())))
                 .collect(Collectors.toList());
     }
     
@@ -107,6 +125,7 @@ public class BudgetService {
         }
         
         budget = budgetRepository.save(budget);
+        quotaService.recordCreated(userId, QuotaService.Resource.BUDGETS);
         return convertToDto(budget);
     }
     
@@ -135,6 +154,8 @@ public class BudgetService {
         }
         
         budget = budgetRepository.save(budget);
+        // Período, categoria ou limite podem ter mudado: o contador dos alertas é recalculado agora
+        budgetAlertService.onBudgetUpdated(budget);
         return convertToDto(budget);
     }
     
@@ -147,7 +168,9 @@ public class BudgetService {
             throw new RuntimeException("Acesso negado");
         }
         
+        budgetSpendCounterRepository.deleteByBudgetId(budget.getId());
         budgetRepository.delete(budget);
+        quotaService.recordDeleted(userId, QuotaService.Resource.BUDGETS);
     }
     
     public List<BudgetDto> getActiveBudgetsWithAlerts(Long userId) {
@@ -156,14 +179,19 @@ public class BudgetService {
         
         LocalDate today = LocalDate.now();
         List<Budget> activeBudgets = budgetRepository.findActiveBudgetsByUserAndDate(user, today);
+        Map<Long, BigDecimal> spentByBudget = budgetSpendCalculator.calculateSpent(activeBudgets);
         
         return activeBudgets.stream()
-                .map(this::convertToDto)
+                .map(budget -> convertToDto(budget, spentByBudget.get(budget.getId())))
                 .filter(budget -> budget.getAlertTriggered() != null && budget.getAlertTriggered())
                 .collect(Collectors.toList());
     }
     
     private BudgetDto convertToDto(Budget budget) {
+        return convertToDto(budget, budgetSpendCalculator.calculateSpent(budget));
+    }
+    
+    private BudgetDto convertToDto(Budget budget, BigDecimal currentSpent) {
         BudgetDto dto = new BudgetDto();
         dto.setId(budget.getId());
         dto.setName(budget.getName());
@@ -183,34 +211,6 @@ public class BudgetService {
             dto.setCategory(categoryDto);
         }
         
-        // Calcular gasto atual
-        BigDecimal currentSpent = BigDecimal.ZERO;
-        if (budget.getCategory() != null) {
-            List<Transaction> transactions = transactionRepository.findByUserIdAndTransactionDateBetween(
-                    budget.getUser().getId(),
-                    budget.getStartDate(),
-                    budget.getEndDate()
-            );
-            
-            currentSpent = transactions.stream()
-                    .filter(t -> t.getType() == Transaction.TransactionType.EXPENSE)
-                    .filter(t -> budget.getCategory().getId().equals(t.getCategory() != null ? t.getCategory().getId() : null))
-                    .map(Transaction::getAmount)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-        } else {
-            // Se não tem categoria, soma todas as despesas no período
-            List<Transaction> transactions = transactionRepository.findByUserIdAndTransactionDateBetween(
-                    budget.getUser().getId(),
-                    budget.getStartDate(),
-                    budget.getEndDate()
-            );
-            
-            currentSpent = transactions.stream()
-                    .filter(t -> t.getType() == Transaction.TransactionType.EXPENSE)
-                    .map(Transaction::getAmount)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-        }
-        
         dto.setCurrentSpent(currentSpent);
         
         // Calcular valores restantes
@@ -218,13 +218,7 @@ public class BudgetService {
         dto.setRemaining(remaining);
         
         // Calcular porcentagem usada
-        BigDecimal percentageUsed = BigDecimal.ZERO;
-        if (budget.getLimitAmount().compareTo(BigDecimal.ZERO) > 0) {
-            percentageUsed = currentSpent
-                    .divide(budget.getLimitAmount(), 4, RoundingMode.HALF_UP)
-                    .multiply(BigDecimal.valueOf(100))
-                    .setScale(2, RoundingMode.HALF_UP);
-        }
+        BigDecimal percentageUsed = BudgetSpendCalculator.percentageUsed(currentSpent, budget.getLimitAmount());
         dto.setPercentageUsed(percentageUsed);
         
         // Verificar se alerta deve ser disparado
@@ -258,94 +252,13 @@ public class BudgetService {
                 .map(account -> account.getBalance() != null ? account.getBalance() : BigDecimal.ZERO)
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
         }
-        BigDecimal currentBalance = startingBalance[0];
-        
-        // Gerar previsão diária
-        List<CashFlowDayDto> dailyForecast = new ArrayList<>();
-        BigDecimal totalIncome = BigDecimal.ZERO;
-        BigDecimal totalExpenses = BigDecimal.ZERO;
-        BigDecimal lowestBalance = currentBalance;
-        LocalDate lowestBalanceDate = startDate;
-        
-        LocalDate currentDate = startDate;
-        while (!currentDate.isAfter(endDate)) {
-            BigDecimal dayIncome = BigDecimal.ZERO;
-            BigDecimal dayExpenses = BigDecimal.ZERO;
-            List<TransactionForecastDto> dayTransactions = new ArrayList<>();
-            
-            // Transações existentes neste dia
-            for (Transaction t : existingTransactions) {
-                if (t.getTransactionDate().equals(currentDate)) {
-                    if (t.getType() == Transaction.TransactionType.INCOME) {
-                        dayIncome = dayIncome.add(t.getAmount());
-                    } else {
-                        dayExpenses = dayExpenses.add(t.getAmount());
-                    }
-                    
-                    TransactionForecastDto forecast = new TransactionForecastDto();
-                    forecast.setDescription(t.getDescription());
-                    forecast.setAmount(t.getAmount());
-                    forecast.setType(t.getType().name());
-                    forecast.setDate(currentDate);
-                    forecast.setCategoryName(t.getCategory() != null ? t.getCategory().getName() : null);
-                    forecast.setIsRecurring(false);
-                    dayTransactions.add(forecast);
-                }
-            }
-            
-            // Recorrências que devem ocorrer neste dia
-            for (RecurringTransaction rt : recurringTransactions) {
-                if (rt.getNextOccurrenceDate() != null && rt.getNextOccurrenceDate().equals(currentDate)) {
-                    BigDecimal amount = rt.getAmount();
-                    if (rt.getType() == RecurringTransaction.TransactionType.INCOME) {
-                        dayIncome = dayIncome.add(amount);
-                    } else {
-                        dayExpenses = dayExpenses.add(amount);
-                    }
-                    
-                    TransactionForecastDto forecast = new TransactionForecastDto();
-                    forecast.setDescription(rt.getDescription() + " (Recorrente)");
-                    forecast.setAmount(amount);
-                    forecast.setType(rt.getType().name());
-                    forecast.setDate(currentDate);
-                    forecast.setIsRecurring(true);
-                    dayTransactions.add(forecast);
-                }
-            }
-            
-            BigDecimal netFlow = dayIncome.subtract(dayExpenses);
-            currentBalance = currentBalance.add(netFlow);
-            totalIncome = totalIncome.add(dayIncome);
-            totalExpenses = totalExpenses.add(dayExpenses);
-            
-            if (currentBalance.compareTo(lowestBalance) < 0) {
-                lowestBalance = currentBalance;
-                lowestBalanceDate = currentDate;
-            }
-            
-            CashFlowDayDto dayDto = new CashFlowDayDto();
-            dayDto.setDate(currentDate);
-            dayDto.setIncome(dayIncome);
-            dayDto.setExpenses(dayExpenses);
-            dayDto.setNetFlow(netFlow);
-            dayDto.setBalance(currentBalance);
-            dayDto.setTransactions(dayTransactions);
-            dailyForecast.add(dayDto);
-            
-            currentDate = currentDate.plusDays(1);
-        }
         
-        CashFlowForecastDto forecast = new CashFlowForecastDto();
-        forecast.setStartDate(startDate);
-        forecast.setEndDate(endDate);
-        forecast.setDailyForecast(dailyForecast);
-        forecast.setTotalIncome(totalIncome);
-        forecast.setTotalExpenses(totalExpenses);
-        forecast.setNetFlow(totalIncome.subtract(totalExpenses));
-        forecast.setStartingBalance(startingBalance[0]);
-        forecast.setEndingBalance(currentBalance);
-        forecast.setLowestBalance(lowestBalance);
-        forecast.setLowestBalanceDate(lowestBalanceDate);
+        // Distribuir lançamentos e ocorrências pelos dias uma única vez e acumular os saldos em uma passada
+        CashFlowForecastEngine engine = new CashFlowForecastEngine(startDate, endDate);
+        existingTransactions.forEach(engine::addTransaction);
+        recurringTransactions.forEach(engine::addRecurrence);
+        
+        CashFlowForecastDto forecast = engine.build(startingBalance[0]);
         
         return forecast;
     }
@@ -356,9 +269,11 @@ public class BudgetService {
     public ScenarioDto simulateScenario(Long userId, String scenarioName, String description,
                                        LocalDate startDate, LocalDate endDate,
                                        BigDecimal incomeAdjustment, BigDecimal expenseAdjustment,
-                                       Long accountId) {
-        // Obter previsão base
-        CashFlowForecastDto baseForecast = getCashFlowForecast(userId, startDate, endDate, accountId);
+                                       Long accountId, Integer simulations) {
+        // Obter previsão base (em cache entre as simulações do mesmo período)
+        ScenarioSimulationService.BaseScenario base = scenarioSimulationService.getBase(
+            userId, startDate, endDate, accountId, () -> getCashFlowForecast(userId, startDate, endDate, accountId));
+        CashFlowForecastDto baseForecast = base.getForecast();
         
         // Aplicar ajustes
         List<CashFlowDayDto> adjustedForecast = baseForecast.getDailyForecast().stream()
@@ -437,6 +352,8 @@ public class BudgetService {
         scenario.setIncomeAdjustment(incomeAdjustment);
         scenario.setExpenseAdjustment(expenseAdjustment);
         scenario.setForecast(scenarioForecast);
+        scenario.setSimulation(scenarioSimulationService.simulate(base, incomeAdjustment, expenseAdjustment,
+            simulations, Objects.hash(userId, startDate, endDate, accountId)));
         
         return scenario;
     }
@@ -0,0 +1,63 @@
+package com.fin.service;
+
+import com.fin.dto.BudgetSpend;
+import com.fin.model.Budget;
+import com.fin.model.Transaction;
+import com.fin.repository.BudgetRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Cálculo do gasto atual de orçamentos, compartilhado por BudgetService, SharedBudgetService e o dashboard.
+ * Todos os orçamentos de uma listagem são avaliados em uma única consulta agrupada (sem carregar transações).
+ */
+@Service
+public class BudgetSpendCalculator {
+    
+    @Autowired
+    private BudgetRepository budgetRepository;
+    
+    /**
+     * @return gasto por id de orçamento; orçamentos sem despesas no período ficam com zero
+     */
+    public Map<Long, BigDecimal> calculateSpent(Collection<Budget> budgets) {
+        Map<Long, BigDecimal> spentByBudget = new HashMap<>();
+        if (budgets.isEmpty()) {
+            return spentByBudget;
+        }
+        
+        List<Long> budgetIds = budgets.stream()
+                .map(Budget::getId)
+                .distinct()
+                .collect(Collectors.toList());
+        
+        for (BudgetSpend row : budgetRepository.sumSpentByBudgetIds(budgetIds, Transaction.TransactionType.EXPENSE)) {
+            spentByBudget.put(row.getBudgetId(), row.getSpent() != null ? row.getSpent() : BigDecimal.ZERO);
+        }
+        budgetIds.forEach(id -> spentByBudget.putIfAbsent(id, BigDecimal.ZERO));
+        return spentByBudget;
+    }
+    
+    public BigDecimal calculateSpent(Budget budget) {
+        return calculateSpent(List.of(budget)).get(budget.getId());
+    }
+    
+    // Porcentagem do limite já gasta (0 quando o limite é zero)
+    public static BigDecimal percentageUsed(BigDecimal spent, BigDecimal limitAmount) {
+        if (limitAmount == null || limitAmount.compareTo(BigDecimal.ZERO) <= 0) {
+            return BigDecimal.ZERO;
+        }
+        return spent
+                .divide(limitAmount, 4, RoundingMode.HALF_UP)
+                .multiply(BigDecimal.valueOf(100))
+                .setScale(2, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,167 @@
+package com.fin.service;
+
+import com.fin.dto.CashFlowDayDto;
+import com.fin.dto.CashFlowForecastDto;
+import com.fin.dto.TransactionForecastDto;
+import com.fin.model.RecurringTransaction;
+import com.fin.model.Transaction;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Previsão de fluxo de caixa em tempo linear: cada lançamento é colocado uma vez no "balde" do seu dia
+ * (índice = dias desde o início), cada recorrência é expandida em todas as ocorrências do período
+ * e os saldos são acumulados em uma única passada, em centavos (long).
+ * Custo O(dias + lançamentos + ocorrências), o que permite horizontes de vários anos.
+ */
+public final class CashFlowForecastEngine {
+    
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+    private final int days;
+    private final long[] incomeCents;
+    private final long[] expenseCents;
+    private final List<List<TransactionForecastDto>> dayTransactions; // null nos dias sem lançamentos
+    
+    public CashFlowForecastEngine(LocalDate startDate, LocalDate endDate) {
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.days = endDate.isBefore(startDate) ? 0 : Math.toIntExact(ChronoUnit.DAYS.between(startDate, endDate) + 1);
+        this.incomeCents = new long[days];
+        this.expenseCents = new long[days];
+        this.dayTransactions = new ArrayList<>(Collections.nCopies(days, null));
+    }
+    
+    public void addTransaction(Transaction t) {
+        int day = indexOf(t.getTransactionDate());
+        if (day < 0) {
+            return;
+        }
+        
+        TransactionForecastDto forecast = new TransactionForecastDto();
+        forecast.setDescription(t.getDescription());
+        forecast.setAmount(t.getAmount());
+        forecast.setType(t.getType().name());
+        forecast.setDate(t.getTransactionDate());
+        forecast.setCategoryName(t.getCategory() != null ? t.getCategory().getName() : null);
+        forecast.setIsRecurring(false);
+        
+        add(day, t.getType() == Transaction.TransactionType.INCOME, t.getAmount(), forecast);
+    }
+    
+    /**
+     * Lança todas as ocorrências da recorrência no período, a partir do nextOccurrenceDate e até o endDate dela
+     */
+    public void addRecurrence(RecurringTransaction rt) {
+        if (days == 0 || rt.getNextOccurrenceDate() == null || rt.getRecurrenceType() == null) {
+            return;
+        }
+        
+        LocalDate until = rt.getEndDate() != null && rt.getEndDate().isBefore(endDate) ? rt.getEndDate() : endDate;
+        boolean income = rt.getType() == RecurringTransaction.TransactionType.INCOME;
+        String description = rt.getDescription() + " (Recorrente)";
+        
+        RecurrenceExpander occurrences = RecurrenceExpander.between(
+            rt.getRecurrenceType(), rt.getRecurrenceDay(), rt.getStartDate(), rt.getNextOccurrenceDate(), until);
+        while (occurrences.hasNext()) {
+            LocalDate date = occurrences.next();
+            int day = indexOf(date);
+            if (day < 0) {
+                continue; // Ocorrência anterior ao início da previsão
+            }
+            
+            TransactionForecastDto forecast = new TransactionForecastDto();
+            forecast.setDescription(description);
+            forecast.setAmount(rt.getAmount());
+            forecast.setType(rt.getType().name());
+            forecast.setDate(date);
+            forecast.setIsRecurring(true);
+            
+            add(day, income, rt.getAmount(), forecast);
+        }
+    }
+    
+    public CashFlowForecastDto build(BigDecimal startingBalance) {
+        long balance = toCents(startingBalance);
+        long totalIncome = 0;
+        long totalExpenses = 0;
+        long lowestBalance = balance;
+        LocalDate lowestBalanceDate = startDate;
+        
+        List<CashFlowDayDto> dailyForecast = new ArrayList<>(days);
+        for (int day = 0; day < days; day++) {
+            long income = incomeCents[day];
+            long expenses = expenseCents[day];
+            long netFlow = income - expenses;
+            balance += netFlow;
+            totalIncome += income;
+            totalExpenses += expenses;
+            
+            LocalDate date = startDate.plusDays(day);
+            if (balance < lowestBalance) {
+                lowestBalance = balance;
+                lowestBalanceDate = date;
+            }
+            
+            List<TransactionForecastDto> transactions = dayTransactions.get(day);
+            dailyForecast.add(new CashFlowDayDto(
+                date,
+                fromCents(income),
+                fromCents(expenses),
+                fromCents(netFlow),
+                fromCents(balance),
+                transactions != null ? transactions : new ArrayList<>()
+            ));
+        }
+        
+        CashFlowForecastDto forecast = new CashFlowForecastDto();
+        forecast.setStartDate(startDate);
+        forecast.setEndDate(endDate);
+        forecast.setDailyForecast(dailyForecast);
+        forecast.setTotalIncome(fromCents(totalIncome));
+        forecast.setTotalExpenses(fromCents(totalExpenses));
+        forecast.setNetFlow(fromCents(totalIncome - totalExpenses));
+        forecast.setStartingBalance(startingBalance);
+        forecast.setEndingBalance(fromCents(balance));
+        forecast.setLowestBalance(fromCents(lowestBalance));
+        forecast.setLowestBalanceDate(lowestBalanceDate);
+        return forecast;
+    }
+    
+    private void add(int day, boolean income, BigDecimal amount, TransactionForecastDto forecast) {
+        if (income) {
+            incomeCents[day] += toCents(amount);
+        } else {
+            expenseCents[day] += toCents(amount);
+        }
+        
+        List<TransactionForecastDto> transactions = dayTransactions.get(day);
+        if (transactions == null) {
+            transactions = new ArrayList<>(2);
+            dayTransactions.set(day, transactions);
+        }
+        transactions.add(forecast);
+    }
+    
+    // Índice do dia no período, ou -1 se a data estiver fora dele
+    private int indexOf(LocalDate date) {
+        if (date == null || date.isBefore(startDate) || date.isAfter(endDate)) {
+            return -1;
+        }
+        return (int) ChronoUnit.DAYS.between(startDate, date);
+    }
+    
+    static long toCents(BigDecimal amount) {
+        return amount == null ? 0L : amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+    
+    static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+}
@@ -29,6 +29,9 @@ public class CategoryService {
     @Autowired
     private PlanLimitsService planLimitsService;
     
+    @Autowired
+    private QuotaService quotaService;
+    
     @Cacheable(value = "categories", key = "#userId")
     public List<CategoryDto> getUserCategories(Long userId) {
         User user = userRepository.findById(userId)
@@ -68,6 +71,7 @@ public class CategoryService {
         category.setUser(user);
         
         category = categoryRepository.save(category);
+        quotaService.recordCreated(userId, QuotaService.Resource.CATEGORIES);
         return convertToDto(category);
     }
     
@@ -101,6 +105,7 @@ public class CategoryService {
         }
         
         categoryRepository.delete(category);
+        quotaService.recordDeleted(userId, QuotaService.Resource.CATEGORIES);
     }
     
     private CategoryDto convertToDto(Category category) {
@@ -1,13 +1,17 @@
 package com.fin.service;
 
 import com.fin.dto.ExecutiveDashboardDto;
+import com.fin.dto.SpendingAnomalyView;
 import com.fin.model.Account;
 import com.fin.model.Budget;
 import com.fin.model.Category;
 import com.fin.model.Goal;
+import com.fin.model.SpendingAnomaly;
 import com.fin.model.Transaction;
 import com.fin.repository.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
@@ -33,6 +37,15 @@ public class ExecutiveDashboardService {
     @Autowired
     private BudgetRepository budgetRepository;
     
+    @Autowired
+    private BudgetSpendCalculator budgetSpendCalculator;
+    
+    @Autowired
+    private SpendingAnomalyRepository spendingAnomalyRepository;
+    
+    @Value("${dashboard.anomalies.limit:20}")
+    private int anomaliesLimit;
+    
     public ExecutiveDashboardDto getExecutiveDashboard(Long userId) {
         LocalDate today = LocalDate.now();
         YearMonth currentMonth = YearMonth.from(today);
@@ -84,10 +97,11 @@ public class ExecutiveDashboardService {
         int completedGoals = (int) goals.stream().filter(Goal::getIsCompleted).count();
         
         List<Budget> budgets = budgetRepository.findByUserId(userId);
+        Map<Long, BigDecimal> spentByBudget = budgetSpendCalculator.calculateSpent(budgets);
         int budgetsAtRisk = (int) budgets.stream()
             .filter(b -> {
                 if (!b.getIsActive()) return false;
-                BigDecimal spent = getBudgetSpent(userId, b);
+                BigDecimal spent = spentByBudget.get(b.getId());
                 BigDecimal percentage = b.getLimitAmount().compareTo(BigDecimal.ZERO) > 0
                     ? spent.divide(b.getLimitAmount(), 4, RoundingMode.HALF_UP).multiply(BigDecimal.valueOf(100))
                     : BigDecimal.ZERO;
@@ -219,44 +233,40 @@ public class ExecutiveDashboardService {
     private List<ExecutiveDashboardDto.AnomalyDto> detectAnomalies(Long userId, YearMonth month) {
         List<ExecutiveDashboardDto.AnomalyDto> anomalies = new ArrayList<>();
         
-        // Calcular média de gastos por categoria nos últimos 3 meses
-        Map<Category, BigDecimal> avgSpending = new HashMap<>();
-        for (int i = 1; i <= 3; i++) {
-            YearMonth prevMonth = month.minusMonths(i);
-            Map<Category, BigDecimal> monthTotals = getCategoryTotals(userId, prevMonth);
-            monthTotals.forEach((cat, amount) -> {
-                avgSpending.merge(cat, amount, BigDecimal::add);
-            });
-        }
-        avgSpending.replaceAll((k, v) -> v.divide(BigDecimal.valueOf(3), 2, RoundingMode.HALF_UP));
-        
-        // Detectar gastos anômalos (50% acima da média)
-        Map<Category, BigDecimal> currentTotals = getCategoryTotals(userId, month);
-        currentTotals.forEach((cat, currentAmount) -> {
-            BigDecimal avg = avgSpending.getOrDefault(cat, BigDecimal.ZERO);
-            if (avg.compareTo(BigDecimal.ZERO) > 0) {
-                BigDecimal increase = currentAmount.subtract(avg)
-                    .divide(avg, 4, RoundingMode.HALF_UP)
-                    .multiply(BigDecimal.valueOf(100));
-                
-                if (increase.compareTo(BigDecimal.valueOf(50)) > 0) {
-                    String severity = increase.compareTo(BigDecimal.valueOf(100)) > 0 ? "HIGH" : "MEDIUM";
-                    anomalies.add(new ExecutiveDashboardDto.AnomalyDto(
-                        "HIGH_EXPENSE",
-                        String.format("Gasto em %s está %.0f%% acima da média", cat.getName(), increase),
-                        currentAmount,
-                        severity
-                    ));
-                }
+        // Anomalias de gasto já detectadas na ingestão pelo transaction-consumer (z-score sobre médias exponenciais)
+        int monthKey = month.getYear() * 100 + month.getMonthValue();
+        for (SpendingAnomalyView anomaly : spendingAnomalyRepository.findByUserAndMonth(
+                userId, monthKey, PageRequest.of(0, anomaliesLimit))) {
+            if (anomaly.getScope() == SpendingAnomaly.Scope.MONTH) {
+                BigDecimal increase = anomaly.getExpected().compareTo(BigDecimal.ZERO) > 0
+                    ? anomaly.getAmount().subtract(anomaly.getExpected())
+                        .divide(anomaly.getExpected(), 4, RoundingMode.HALF_UP)
+                        .multiply(BigDecimal.valueOf(100))
+                    : BigDecimal.valueOf(100);
+                anomalies.add(new ExecutiveDashboardDto.AnomalyDto(
+                    "HIGH_EXPENSE",
+                    String.format("Gasto em %s está %.0f%% acima da média", anomaly.getCategoryName(), increase),
+                    anomaly.getAmount(),
+                    anomaly.getSeverity()
+                ));
+            } else {
+                anomalies.add(new ExecutiveDashboardDto.AnomalyDto(
+                    "UNUSUAL_PATTERN",
+                    String.format("Despesa de R$ %.2f em %s fora do padrão (média R$ %.2f)",
+                        anomaly.getAmount(), anomaly.getCategoryName(), anomaly.getExpected()),
+                    anomaly.getAmount(),
+                    anomaly.getSeverity()
+                ));
             }
-        });
+        }
         
         // Detectar orçamentos excedidos
         List<Budget> budgets = budgetRepository.findByUserId(userId);
+        Map<Long, BigDecimal> spentByBudget = budgetSpendCalculator.calculateSpent(budgets);
         budgets.stream()
             .filter(Budget::getIsActive)
             .forEach(budget -> {
-                BigDecimal spent = getBudgetSpent(userId, budget);
+                BigDecimal spent = spentByBudget.get(budget.getId());
                 if (spent.compareTo(budget.getLimitAmount()) > 0) {
                     anomalies.add(new ExecutiveDashboardDto.AnomalyDto(
                         "BUDGET_EXCEEDED",
@@ -270,26 +280,5 @@ public class ExecutiveDashboardService {
         
         return anomalies;
     }
-    
-    private BigDecimal getBudgetSpent(Long userId, Budget budget) {
-        LocalDate startDate = budget.getStartDate();
-        LocalDate endDate = budget.getEndDate();
-        
-        return transactionRepository.findByUserId(userId).stream()
-            .filter(t -> t.getType() == Transaction.TransactionType.EXPENSE)
-            .filter(t -> Boolean.TRUE.equals(t.getIsPaid()))
-            .filter(t -> {
-                if (budget.getCategory() != null) {
-                    return budget.getCategory().equals(t.getCategory());
-                }
-                return true;
-            })
-            .filter(t -> {
-                LocalDate date = t.getDueDate() != null ? t.getDueDate() : t.getTransactionDate();
-                return date != null && !date.isBefore(startDate) && !date.isAfter(endDate);
-            })
-            .map(Transaction::getAmount)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-    }
 }
 
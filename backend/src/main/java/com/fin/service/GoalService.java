@@ -2,20 +2,26 @@ package com.fin.service;
 
 import com.fin.dto.CategoryDto;
 import com.fin.dto.GoalDto;
+import com.fin.dto.GoalOffTrackCandidate;
 import com.fin.model.Category;
 import com.fin.model.Goal;
 import com.fin.model.Notification;
 import com.fin.model.User;
 import com.fin.repository.CategoryRepository;
 import com.fin.repository.GoalRepository;
+import com.fin.repository.NotificationBatchRepository;
 import com.fin.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -37,6 +43,21 @@ public class GoalService {
     @Autowired
     private NotificationService notificationService;
     
+    @Autowired
+    private SchedulerCoordinator schedulerCoordinator;
+    
+    @Autowired
+    private NotificationBatchRepository notificationBatchRepository;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private QuotaService quotaService;
+    
+    @Value("${goals.off-track.chunk-size:500}")
+    private int offTrackChunkSize;
+    
     public List<GoalDto> getUserGoals(Long userId) {
         return goalRepository.findByUserId(userId).stream()
                 .map(this::convertToDto)
@@ -80,6 +101,7 @@ public class GoalService {
         goal.checkIfOffTrack();
         
         goal = goalRepository.save(goal);
+        quotaService.recordCreated(userId, QuotaService.Resource.GOALS);
         return convertToDto(goal);
     }
     
@@ -135,30 +157,72 @@ public class GoalService {
                 .orElseThrow(() -> new RuntimeException("Meta não encontrada"));
         
         goalRepository.delete(goal);
+        quotaService.recordDeleted(userId, QuotaService.Resource.GOALS);
     }
     
     /**
      * Verifica metas desviando e envia notificações (executa diariamente)
      */
     @Scheduled(cron = "0 0 9 * * *") // Executa todo dia às 9h
-    @Transactional
     public void checkGoalsOffTrack() {
-        List<Goal> allGoals = goalRepository.findAll();
+        schedulerCoordinator.runExclusive("goal-off-track", this::alertGoalsOffTrack);
+    }
+    
+    private void alertGoalsOffTrack() {
+        long start = System.currentTimeMillis();
         LocalDate today = LocalDate.now();
+        long afterId = 0L;
+        int scanned = 0;
+        int alerted = 0;
         
-        for (Goal goal : allGoals) {
-            if (goal.getIsCompleted() || goal.getTargetDate() == null) {
-                continue;
+        // Percorre apenas metas ativas com data alvo, em páginas por id; cada página tem sua própria transação
+        while (true) {
+            List<GoalOffTrackCandidate> chunk = goalRepository.findActiveOffTrackCandidates(
+                afterId, PageRequest.of(0, offTrackChunkSize));
+            if (chunk.isEmpty()) {
+                break;
+            }
+            afterId = chunk.get(chunk.size() - 1).getId();
+            scanned += chunk.size();
+            
+            try {
+                Integer chunkAlerts = transactionTemplate.execute(status -> processOffTrackChunk(chunk, today));
+                alerted += chunkAlerts != null ? chunkAlerts : 0;
+            } catch (Exception e) {
+                System.err.println("Erro ao verificar metas desviando (ids até " + afterId + "): " + e.getMessage());
             }
             
-            // Verificar se está desviando
-            boolean wasOffTrack = goal.getIsOffTrack();
-            goal.checkIfOffTrack();
+            if (chunk.size() < offTrackChunkSize) {
+                break;
+            }
+        }
+        
+        System.out.println("Metas verificadas: " + scanned + ", alertas de desvio criados: " + alerted + " em "
+            + (System.currentTimeMillis() - start) + "ms");
+    }
+    
+    private int processOffTrackChunk(List<GoalOffTrackCandidate> chunk, LocalDate today) {
+        List<Long> becameOffTrack = new ArrayList<>();
+        List<Long> backOnTrack = new ArrayList<>();
+        List<Long> alertedIds = new ArrayList<>();
+        List<NotificationBatchRepository.NewNotification> notifications = new ArrayList<>();
+        
+        for (GoalOffTrackCandidate goal : chunk) {
+            BigDecimal expected = Goal.calculateExpectedAmount(
+                goal.getTargetAmount(), goal.getTargetDate(), goal.getCreatedAt(), today);
+            BigDecimal current = goal.getCurrentAmount();
+            boolean wasOffTrack = Boolean.TRUE.equals(goal.getIsOffTrack());
+            boolean offTrack = Goal.isBelowThreshold(current, expected, goal.getAlertThreshold());
+            
+            // Só grava o indicador quando ele muda
+            if (offTrack && !wasOffTrack) {
+                becameOffTrack.add(goal.getId());
+            } else if (!offTrack && wasOffTrack) {
+                backOnTrack.add(goal.getId());
+            }
             
             // Se acabou de ficar desviando e não foi alertado hoje
-            if (goal.getIsOffTrack() && (!wasOffTrack || goal.getLastAlertDate() == null || !goal.getLastAlertDate().equals(today))) {
-                BigDecimal expected = goal.getExpectedAmount();
-                BigDecimal current = goal.getCurrentAmount();
+            if (offTrack && (!wasOffTrack || goal.getLastAlertDate() == null || !goal.getLastAlertDate().equals(today))) {
                 BigDecimal difference = expected.subtract(current);
                 
                 String message = String.format(
@@ -169,18 +233,30 @@ public class GoalService {
                     difference
                 );
                 
-                notificationService.createNotification(
-                    goal.getUser().getId(),
+                notifications.add(new NotificationBatchRepository.NewNotification(
+                    goal.getUserId(),
                     "Meta Desviando",
                     message,
                     Notification.NotificationType.GOAL_ALERT,
-                    null
-                );
-                
-                goal.setLastAlertDate(today);
-                goalRepository.save(goal);
+                    null,
+                    "GOAL_ALERT:" + goal.getId() + ":" + today
+                ));
+                alertedIds.add(goal.getId());
             }
         }
+        
+        if (!becameOffTrack.isEmpty()) {
+            goalRepository.bulkUpdateOffTrack(becameOffTrack, true);
+        }
+        if (!backOnTrack.isEmpty()) {
+            goalRepository.bulkUpdateOffTrack(backOnTrack, false);
+        }
+        if (!alertedIds.isEmpty()) {
+            goalRepository.bulkUpdateLastAlertDate(alertedIds, today);
+        }
+        List<NotificationBatchRepository.InsertedNotification> inserted = notificationBatchRepository.insertIgnoreAll(notifications);
+        notificationService.publishInserted(inserted);
+        return inserted.size();
     }
     
     private GoalDto convertToDto(Goal goal) {
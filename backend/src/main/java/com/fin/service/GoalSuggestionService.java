@@ -1,28 +1,19 @@
 package com.fin.service;
 
 import com.fin.dto.GoalSuggestionDto;
-import com.fin.model.Category;
-import com.fin.model.Transaction;
-import com.fin.repository.CategoryRepository;
-import com.fin.repository.TransactionRepository;
+import com.fin.dto.SpendingProfile;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDate;
-import java.time.YearMonth;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 public class GoalSuggestionService {
     
     @Autowired
-    private TransactionRepository transactionRepository;
-    
-    @Autowired
-    private CategoryRepository categoryRepository;
+    private SpendingProfileService spendingProfileService;
     
     /**
      * Gera sugestões inteligentes de metas baseadas no histórico do usuário
@@ -30,31 +21,29 @@ public class GoalSuggestionService {
     public List<GoalSuggestionDto> suggestGoals(Long userId) {
         List<GoalSuggestionDto> suggestions = new ArrayList<>();
         
-        // Analisar gastos por categoria nos últimos 6 meses
-        Map<Category, BigDecimal> categorySpending = analyzeCategorySpending(userId, 6);
+        // Médias mensais por categoria (últimos 6 meses) e totais do mês corrente, do perfil em cache
+        SpendingProfile profile = spendingProfileService.getProfile(userId);
         
-        // Sugerir metas de economia baseadas em categorias com maior gasto
-        categorySpending.entrySet().stream()
-            .sorted((a, b) -> b.getValue().compareTo(a.getValue()))
+        // Sugerir metas de economia baseadas em categorias com maior gasto (o perfil já vem ordenado)
+        profile.getCategoryAverages().stream()
             .limit(3)
-            .forEach(entry -> {
-                Category category = entry.getKey();
-                BigDecimal avgSpending = entry.getValue();
+            .forEach(category -> {
+                BigDecimal avgSpending = category.getMonthlyAverage();
                 
                 // Sugerir economizar 20% do gasto médio mensal
                 BigDecimal suggestedAmount = avgSpending.multiply(BigDecimal.valueOf(0.20))
                     .multiply(BigDecimal.valueOf(6)); // Meta de 6 meses
                 
                 GoalSuggestionDto suggestion = new GoalSuggestionDto();
-                suggestion.setName("Economizar em " + category.getName());
+                suggestion.setName("Economizar em " + category.getCategoryName());
                 suggestion.setDescription(
                     String.format("Baseado no seu histórico, você gasta em média R$ %.2f/mês com %s. " +
                         "Sugerimos uma meta de economizar R$ %.2f em 6 meses.",
-                        avgSpending, category.getName(), suggestedAmount)
+                        avgSpending, category.getCategoryName(), suggestedAmount)
                 );
                 suggestion.setSuggestedAmount(suggestedAmount);
                 suggestion.setSuggestedTargetDate(LocalDate.now().plusMonths(6));
-                suggestion.setSuggestedCategoryId(category.getId());
+                suggestion.setSuggestedCategoryId(category.getCategoryId());
                 suggestion.setReason("Gasto alto nesta categoria nos últimos meses");
                 suggestion.setConfidence(0.75);
                 
@@ -62,7 +51,7 @@ public class GoalSuggestionService {
             });
         
         // Sugerir meta de emergência (3 meses de despesas)
-        BigDecimal monthlyExpenses = calculateMonthlyExpenses(userId);
+        BigDecimal monthlyExpenses = profile.getCurrentMonthExpense();
         if (monthlyExpenses.compareTo(BigDecimal.ZERO) > 0) {
             BigDecimal emergencyFund = monthlyExpenses.multiply(BigDecimal.valueOf(3));
             
@@ -82,7 +71,7 @@ public class GoalSuggestionService {
         }
         
         // Sugerir meta baseada em padrão de receitas
-        BigDecimal monthlyIncome = calculateMonthlyIncome(userId);
+        BigDecimal monthlyIncome = profile.getCurrentMonthIncome();
         if (monthlyIncome.compareTo(BigDecimal.ZERO) > 0) {
             // Sugerir poupar 10% da renda mensal
             BigDecimal savingsGoal = monthlyIncome.multiply(BigDecimal.valueOf(0.10))
@@ -105,71 +94,6 @@ public class GoalSuggestionService {
         
         return suggestions;
     }
-    
-    private Map<Category, BigDecimal> analyzeCategorySpending(Long userId, int months) {
-        LocalDate startDate = LocalDate.now().minusMonths(months);
-        
-        List<Transaction> transactions = transactionRepository.findByUserId(userId).stream()
-            .filter(t -> t.getType() == Transaction.TransactionType.EXPENSE)
-            .filter(t -> Boolean.TRUE.equals(t.getIsPaid()))
-            .filter(t -> {
-                LocalDate date = t.getDueDate() != null ? t.getDueDate() : t.getTransactionDate();
-                return date != null && !date.isBefore(startDate);
-            })
-            .filter(t -> t.getCategory() != null)
-            .collect(Collectors.toList());
-        
-        Map<Category, BigDecimal> totalByCategory = transactions.stream()
-            .collect(Collectors.groupingBy(
-                Transaction::getCategory,
-                Collectors.reducing(
-                    BigDecimal.ZERO,
-                    Transaction::getAmount,
-                    BigDecimal::add
-                )
-            ));
-        
-        // Calcular média mensal
-        Map<Category, BigDecimal> avgByCategory = new HashMap<>();
-        totalByCategory.forEach((category, total) -> {
-            BigDecimal avg = total.divide(BigDecimal.valueOf(months), 2, RoundingMode.HALF_UP);
-            avgByCategory.put(category, avg);
-        });
-        
-        return avgByCategory;
-    }
-    
-    private BigDecimal calculateMonthlyExpenses(Long userId) {
-        YearMonth currentMonth = YearMonth.now();
-        LocalDate startDate = currentMonth.atDay(1);
-        LocalDate endDate = currentMonth.atEndOfMonth();
-        
-        return transactionRepository.findByUserId(userId).stream()
-            .filter(t -> t.getType() == Transaction.TransactionType.EXPENSE)
-            .filter(t -> Boolean.TRUE.equals(t.getIsPaid()))
-            .filter(t -> {
-                LocalDate date = t.getDueDate() != null ? t.getDueDate() : t.getTransactionDate();
-                return date != null && !date.isBefore(startDate) && !date.isAfter(endDate);
-            })
-            .map(Transaction::getAmount)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-    }
-    
-    private BigDecimal calculateMonthlyIncome(Long userId) {
-        YearMonth currentMonth = YearMonth.now();
-        LocalDate startDate = currentMonth.atDay(1);
-        LocalDate endDate = currentMonth.atEndOfMonth();
-        
-        return transactionRepository.findByUserId(userId).stream()
-            .filter(t -> t.getType() == Transaction.TransactionType.INCOME)
-            .filter(t -> Boolean.TRUE.equals(t.getIsPaid()))
-            .filter(t -> {
-                LocalDate date = t.getDueDate() != null ? t.getDueDate() : t.getTransactionDate();
-                return date != null && !date.isBefore(startDate) && !date.isAfter(endDate);
-            })
-            .map(Transaction::getAmount)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-    }
 }
 
 
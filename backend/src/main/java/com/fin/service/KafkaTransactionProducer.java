@@ -1,5 +1,6 @@
 package com.fin.service;
 
+import com.fin.dto.StatementImportBatchMessage;
 import com.fin.dto.TransactionDto;
 import com.fin.dto.TransactionKafkaMessage;
 import org.slf4j.Logger;
@@ -10,6 +11,8 @@ import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 @Service
@@ -20,9 +23,15 @@ public class KafkaTransactionProducer {
     @Autowired
     private KafkaTemplate<String, TransactionKafkaMessage> kafkaTemplate;
     
+    @Autowired
+    private KafkaTemplate<String, StatementImportBatchMessage> importKafkaTemplate;
+    
     @Value("${kafka.topic.transactions:transactions}")
     private String transactionsTopic;
     
+    @Value("${kafka.topic.statement-imports:statement-imports}")
+    private String statementImportsTopic;
+    
     /**
      * Envia uma transação para o tópico do Kafka
      * @param transactionDto - DTO da transação a ser enviada
@@ -59,5 +68,58 @@ public class KafkaTransactionProducer {
             throw new RuntimeException("Erro ao enviar transação para Kafka: " + e.getMessage(), e);
         }
     }
+    
+    /**
+     * Envia várias transações do mesmo usuário como um único lote.
+     * Todas usam a mesma chave (mesma partição, ordem preservada) e o produtor é descarregado
+     * uma vez ao final, para que os registros sigam juntos na mesma requisição ao broker.
+     * @return número de mensagens confirmadas pelo Kafka
+     */
+    public int sendTransactions(List<TransactionDto> transactionDtos, Long userId) {
+        String key = userId.toString();
+        List<CompletableFuture<SendResult<String, TransactionKafkaMessage>>> futures = new ArrayList<>();
+        
+        logger.info("Enviando lote de {} transações para Kafka - Tópico: {}, UserId: {}", 
+            transactionDtos.size(), transactionsTopic, userId);
+        
+        for (TransactionDto transactionDto : transactionDtos) {
+            TransactionKafkaMessage message = new TransactionKafkaMessage();
+            message.setTransaction(transactionDto);
+            message.setUserId(userId);
+            message.setOperation("CREATE");
+            futures.add(kafkaTemplate.send(transactionsTopic, key, message));
+        }
+        kafkaTemplate.flush();
+        
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        } catch (Exception e) {
+            logger.error("Erro ao enviar lote de transações para Kafka", e);
+            throw new RuntimeException("Erro ao enviar lote de transações para Kafka: " + e.getMessage(), e);
+        }
+        
+        logger.info("Lote de {} transações enviado com sucesso para Kafka", futures.size());
+        return futures.size();
+    }
+    
+    /**
+     * Envia um lote de importação de extrato e espera a confirmação do broker
+     * (a leitura do arquivo só avança depois que o lote anterior foi aceito).
+     */
+    public void sendImportBatch(StatementImportBatchMessage message) {
+        try {
+            SendResult<String, StatementImportBatchMessage> result = importKafkaTemplate
+                .send(statementImportsTopic, message.getUserId().toString(), message)
+                .get();
+            logger.info("Lote {} da importação {} enviado para Kafka - {} lançamentos, Offset: {}",
+                message.getBatchNumber(), message.getJobId(), message.getLines().size(),
+                result.getRecordMetadata().offset());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Envio do lote de importação interrompido", e);
+        } catch (Exception e) {
+            logger.error("Erro ao enviar lote de importação para Kafka", e);
+            throw new RuntimeException("Erro ao enviar lote de importação para Kafka: " + e.getMessage(), e);
+        }
+    }
 }
-
@@ -1,16 +1,54 @@
 package com.fin.service;
 
 import io.minio.*;
+import io.minio.errors.ErrorResponseException;
 import io.minio.http.Method;
+import io.minio.messages.DeleteError;
+import io.minio.messages.DeleteObject;
+import io.minio.messages.Expiration;
+import io.minio.messages.LifecycleConfiguration;
+import io.minio.messages.LifecycleRule;
+import io.minio.messages.RuleFilter;
+import io.minio.messages.Status;
+import okhttp3.OkHttpClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 
+import jakarta.annotation.PostConstruct;
 import java.io.InputStream;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Acesso ao MinIO com o MinioClient compartilhado (MinioConfig). Os buckets são verificados uma vez
+ * na subida; se o MinIO estiver fora do ar, a verificação é refeita no primeiro uso de cada bucket.
+ * Cada operação registra contagem, erros e latência, expostos em /api/admin/storage/stats.
+ */
 @Service
 public class MinioService {
     
+    // Uploads diretos ainda não confirmados; a regra de ciclo de vida do bucket de anexos os apaga
+    public static final String PENDING_PREFIX = "pending/";
+    
+    private static final String PENDING_RULE_ID = "expire-pending-uploads";
+    
     @Value("${minio.endpoint:http://localhost:9000}")
     private String minioEndpoint;
     
@@ -20,33 +58,127 @@ public class MinioService {
     @Value("${minio.secret-key:minioadmin123}")
     private String minioSecretKey;
     
+    // Endereço do MinIO visto pelo navegador, usado nas URLs pré-assinadas (vazio = o mesmo do endpoint)
+    @Value("${minio.public-url:}")
+    private String minioPublicUrl;
+    
+    @Value("${minio.region:us-east-1}")
+    private String minioRegion;
+    
+    @Value("${minio.bucket-name:fin-attachments}")
+    private String attachmentsBucketName;
+    
+    @Value("${minio.bucket.name:fin-receipts}")
+    private String receiptsBucketName;
+    
+    @Value("${minio.pending-expiration-days:1}")
+    private int pendingExpirationDays;
+    
+    @Autowired
     private MinioClient minioClient;
     
-    private MinioClient getMinioClient() {
-        if (minioClient == null) {
-            minioClient = MinioClient.builder()
-                    .endpoint(minioEndpoint)
-                    .credentials(minioAccessKey, minioSecretKey)
-                    .build();
+    @Autowired
+    @Qualifier("minioHttpClient")
+    private OkHttpClient minioHttpClient;
+    
+    @Autowired
+    @Qualifier("storageExecutor")
+    private Executor storageExecutor;
+    
+    private MinioClient presignClient;
+    
+    private String publicEndpoint;
+    
+    private final Set<String> verifiedBuckets = ConcurrentHashMap.newKeySet();
+    
+    private final Map<String, OperationStats> metrics = new ConcurrentHashMap<>();
+    
+    /**
+     * Cliente só para assinar URLs: a assinatura inclui o host, então precisa do endereço público.
+     * Com a região fixa o SDK assina localmente, sem consultar o servidor; usa o mesmo pool HTTP.
+     */
+    @PostConstruct
+    public void init() {
+        publicEndpoint = (minioPublicUrl == null || minioPublicUrl.isBlank() ? minioEndpoint : minioPublicUrl).replaceAll("/+$", "");
+        presignClient = MinioClient.builder()
+                .endpoint(publicEndpoint)
+                .credentials(minioAccessKey, minioSecretKey)
+                .region(minioRegion)
+                .httpClient(minioHttpClient)
+                .build();
+    }
+    
+    /**
+     * Verifica/cria os buckets conhecidos na subida da aplicação
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void verifyBuckets() {
+        for (String bucketName : List.of(attachmentsBucketName, receiptsBucketName)) {
+            try {
+                ensureBucketExists(bucketName);
+            } catch (RuntimeException e) {
+                System.err.println("MinIO indisponível na subida, bucket " + bucketName + " será verificado no primeiro uso: " + e.getMessage());
+            }
         }
-        return minioClient;
     }
     
     /**
-     * Garante que o bucket existe
+     * Garante que o bucket existe (uma ida ao MinIO por bucket durante a vida da instância)
      */
     private void ensureBucketExists(String bucketName) {
+        if (verifiedBuckets.contains(bucketName)) {
+            return;
+        }
         try {
-            MinioClient client = getMinioClient();
-            boolean found = client.bucketExists(BucketExistsArgs.builder().bucket(bucketName).build());
-            if (!found) {
-                client.makeBucket(MakeBucketArgs.builder().bucket(bucketName).build());
+            timed("bucketExists", () -> {
+                boolean found = minioClient.bucketExists(BucketExistsArgs.builder().bucket(bucketName).build());
+                if (!found) {
+                    minioClient.makeBucket(MakeBucketArgs.builder().bucket(bucketName).build());
+                }
+                return null;
+            });
+            if (bucketName.equals(attachmentsBucketName)) {
+                timed("setBucketLifecycle", () -> {
+                    ensurePendingExpiration(bucketName);
+                    return null;
+                });
             }
+            verifiedBuckets.add(bucketName);
         } catch (Exception e) {
             throw new RuntimeException("Erro ao verificar/criar bucket no MinIO: " + e.getMessage());
         }
     }
     
+    /**
+     * Regra que apaga os objetos de PENDING_PREFIX depois de pendingExpirationDays, preservando as demais regras do bucket
+     */
+    private void ensurePendingExpiration(String bucketName) throws Exception {
+        LifecycleConfiguration current = minioClient.getBucketLifecycle(
+            GetBucketLifecycleArgs.builder().bucket(bucketName).build());
+        List<LifecycleRule> rules = new ArrayList<>();
+        if (current != null) {
+            for (LifecycleRule rule : current.rules()) {
+                if (!PENDING_RULE_ID.equals(rule.id())) {
+                    rules.add(rule);
+                } else if (rule.expiration() != null && Integer.valueOf(pendingExpirationDays).equals(rule.expiration().days())) {
+                    return;
+                }
+            }
+        }
+        rules.add(new LifecycleRule(
+            Status.ENABLED,
+            null,
+            new Expiration((ZonedDateTime) null, pendingExpirationDays, null),
+            new RuleFilter(PENDING_PREFIX),
+            PENDING_RULE_ID,
+            null,
+            null,
+            null
+        ));
+        minioClient.setBucketLifecycle(
+            SetBucketLifecycleArgs.builder().bucket(bucketName).config(new LifecycleConfiguration(rules)).build());
+    }
+    
     /**
      * Faz upload de um arquivo para o MinIO
      */
@@ -54,17 +186,16 @@ public class MinioService {
         try {
             ensureBucketExists(bucketName);
             
-            MinioClient client = getMinioClient();
             String objectName = fileName;
             
-            client.putObject(
+            timed("putObject", () -> minioClient.putObject(
                 PutObjectArgs.builder()
                     .bucket(bucketName)
                     .object(objectName)
                     .stream(file.getInputStream(), file.getSize(), -1)
                     .contentType(file.getContentType())
                     .build()
-            );
+            ));
             
             return objectName;
         } catch (Exception e) {
@@ -76,53 +207,280 @@ public class MinioService {
      * Obtém URL pré-assinada para acessar o arquivo
      */
     public String getFileUrl(String bucketName, String objectName) {
+        return getFileUrl(bucketName, objectName, 60 * 60 * 24, null); // 24 horas
+    }
+    
+    /**
+     * Obtém URL pré-assinada de download; com fileName o navegador salva com o nome original
+     */
+    public String getFileUrl(String bucketName, String objectName, int expirySeconds, String fileName) {
         try {
-            MinioClient client = getMinioClient();
-            return client.getPresignedObjectUrl(
-                GetPresignedObjectUrlArgs.builder()
+            GetPresignedObjectUrlArgs.Builder args = GetPresignedObjectUrlArgs.builder()
                     .method(Method.GET)
                     .bucket(bucketName)
                     .object(objectName)
-                    .expiry(60 * 60 * 24) // 24 horas
-                    .build()
-            );
+                    .expiry(expirySeconds);
+            if (fileName != null) {
+                args.extraQueryParams(Map.of("response-content-disposition",
+                    "attachment; filename=\"" + fileName.replace("\"", "") + "\""));
+            }
+            return presignClient.getPresignedObjectUrl(args.build());
         } catch (Exception e) {
             throw new RuntimeException("Erro ao obter URL do arquivo: " + e.getMessage());
         }
     }
     
+    /**
+     * Campos do formulário pré-assinado (POST) para o cliente enviar o arquivo direto ao MinIO. A política fixa
+     * a chave e o tamanho máximo, que o MinIO confere antes de gravar (um PUT pré-assinado aceita qualquer tamanho).
+     */
+    public Map<String, String> getUploadForm(String bucketName, String objectName, long maxBytes, int expirySeconds) {
+        ensureBucketExists(bucketName);
+        try {
+            PostPolicy policy = new PostPolicy(bucketName, ZonedDateTime.now().plusSeconds(expirySeconds));
+            policy.addEqualsCondition("key", objectName);
+            policy.addStartsWithCondition("Content-Type", "");
+            policy.addContentLengthRangeCondition(1L, maxBytes);
+            
+            Map<String, String> formData = new LinkedHashMap<>();
+            formData.put("key", objectName);
+            formData.putAll(presignClient.getPresignedPostFormData(policy));
+            return formData;
+        } catch (Exception e) {
+            throw new RuntimeException("Erro ao gerar formulário de upload: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Endereço (público) para onde o navegador envia o formulário de upload do bucket
+     */
+    public String getUploadFormUrl(String bucketName) {
+        return publicEndpoint + "/" + bucketName;
+    }
+    
+    /**
+     * Copia o objeto dentro do bucket, sem trafegar pelo backend; false se a origem não existe
+     */
+    public boolean copyFile(String bucketName, String sourceObject, String targetObject) {
+        try {
+            timed("copyObject", () -> minioClient.copyObject(
+                CopyObjectArgs.builder()
+                    .bucket(bucketName)
+                    .object(targetObject)
+                    .source(CopySource.builder().bucket(bucketName).object(sourceObject).build())
+                    .build()
+            ));
+            return true;
+        } catch (ErrorResponseException e) {
+            if ("NoSuchKey".equals(e.errorResponse().code())) {
+                return false;
+            }
+            throw new RuntimeException("Erro ao copiar arquivo no MinIO: " + e.getMessage());
+        } catch (Exception e) {
+            throw new RuntimeException("Erro ao copiar arquivo no MinIO: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Metadados do objeto (tamanho, content-type); null se o objeto não existe
+     */
+    public StatObjectResponse statFile(String bucketName, String objectName) {
+        try {
+            return timed("statObject", () -> minioClient.statObject(
+                StatObjectArgs.builder()
+                    .bucket(bucketName)
+                    .object(objectName)
+                    .build()
+            ));
+        } catch (ErrorResponseException e) {
+            if ("NoSuchKey".equals(e.errorResponse().code())) {
+                return null;
+            }
+            throw new RuntimeException("Erro ao consultar arquivo no MinIO: " + e.getMessage());
+        } catch (Exception e) {
+            throw new RuntimeException("Erro ao consultar arquivo no MinIO: " + e.getMessage());
+        }
+    }
+    
     /**
      * Obtém o arquivo como InputStream
      */
     public InputStream getFile(String bucketName, String objectName) {
         try {
-            MinioClient client = getMinioClient();
-            return client.getObject(
+            return timed("getObject", () -> minioClient.getObject(
                 GetObjectArgs.builder()
                     .bucket(bucketName)
                     .object(objectName)
                     .build()
-            );
+            ));
         } catch (Exception e) {
             throw new RuntimeException("Erro ao obter arquivo do MinIO: " + e.getMessage());
         }
     }
     
     /**
-     * Deleta um arquivo do MinIO
+     * Obtém um trecho do arquivo (requisições com Range); length null = até o fim
      */
-    public void deleteFile(String bucketName, String objectName) {
+    public InputStream getFile(String bucketName, String objectName, long offset, Long length) {
         try {
-            MinioClient client = getMinioClient();
-            client.removeObject(
-                RemoveObjectArgs.builder()
+            return timed("getObject", () -> minioClient.getObject(
+                GetObjectArgs.builder()
                     .bucket(bucketName)
                     .object(objectName)
+                    .offset(offset)
+                    .length(length)
                     .build()
-            );
+            ));
+        } catch (Exception e) {
+            throw new RuntimeException("Erro ao obter arquivo do MinIO: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Deleta um arquivo do MinIO
+     */
+    public void deleteFile(String bucketName, String objectName) {
+        try {
+            timed("removeObject", () -> {
+                minioClient.removeObject(
+                    RemoveObjectArgs.builder()
+                        .bucket(bucketName)
+                        .object(objectName)
+                        .build()
+                );
+                return null;
+            });
         } catch (Exception e) {
             throw new RuntimeException("Erro ao deletar arquivo do MinIO: " + e.getMessage());
         }
     }
+    
+    /**
+     * Remove os arquivos no storageExecutor depois do commit da transação atual (sem transação, na hora).
+     * A requisição não espera o MinIO (exceto com a fila cheia); uma falha só deixa o objeto órfão e é registrada no log.
+     */
+    public void deleteFilesAfterCommit(String bucketName, List<String> objectNames) {
+        if (objectNames.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            deleteFilesAsync(bucketName, objectNames);
+            return;
+        }
+        
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                deleteFilesAsync(bucketName, objectNames);
+            }
+        });
+    }
+    
+    /**
+     * Remove os arquivos em segundo plano se a transação atual for desfeita (objetos gravados antes do commit)
+     */
+    public void deleteFilesAfterRollback(String bucketName, List<String> objectNames) {
+        if (objectNames.isEmpty() || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    deleteFilesAsync(bucketName, objectNames);
+                }
+            }
+        });
+    }
+    
+    /**
+     * Uma única tarefa remove todos os objetos (removeObjects envia até 1000 chaves por requisição).
+     * Com a fila cheia a remoção roda na thread chamadora, para que nenhum objeto fique órfão.
+     */
+    private void deleteFilesAsync(String bucketName, List<String> objectNames) {
+        List<String> names = List.copyOf(objectNames);
+        try {
+            storageExecutor.execute(() -> deleteFilesQuietly(bucketName, names));
+        } catch (RejectedExecutionException e) {
+            System.err.println("Fila do storageExecutor cheia, removendo " + names.size() + " arquivo(s) de " + bucketName + " na thread atual");
+            deleteFilesQuietly(bucketName, names);
+        }
+    }
+    
+    private void deleteFilesQuietly(String bucketName, List<String> objectNames) {
+        try {
+            deleteFiles(bucketName, objectNames);
+        } catch (RuntimeException e) {
+            System.err.println("Falha ao remover " + objectNames.size() + " arquivo(s) de " + bucketName + " do MinIO: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Remove vários arquivos do MinIO em lote; as chaves que o MinIO recusar são registradas no log
+     */
+    public void deleteFiles(String bucketName, List<String> objectNames) {
+        List<DeleteObject> objects = new ArrayList<>(objectNames.size());
+        for (String objectName : objectNames) {
+            objects.add(new DeleteObject(objectName));
+        }
+        try {
+            timed("removeObjects", () -> {
+                Iterable<Result<DeleteError>> results = minioClient.removeObjects(
+                    RemoveObjectsArgs.builder()
+                        .bucket(bucketName)
+                        .objects(objects)
+                        .build()
+                );
+                // A remoção é preguiçosa: só acontece ao percorrer o resultado
+                for (Result<DeleteError> result : results) {
+                    DeleteError error = result.get();
+                    System.err.println("Falha ao remover " + bucketName + "/" + error.objectName() + " do MinIO: " + error.message());
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            throw new RuntimeException("Erro ao deletar arquivos do MinIO: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Chamadas, erros e latência (média e máxima, em ms) por operação nesta instância
+     */
+    public Map<String, Map<String, Long>> getStats() {
+        Map<String, Map<String, Long>> stats = new TreeMap<>();
+        metrics.forEach((operation, counters) -> {
+            long calls = counters.calls.get();
+            Map<String, Long> values = new TreeMap<>();
+            values.put("calls", calls);
+            values.put("errors", counters.errors.get());
+            values.put("avgMillis", calls > 0 ? counters.totalNanos.get() / calls / 1_000_000 : 0);
+            values.put("maxMillis", counters.maxNanos.get() / 1_000_000);
+            stats.put(operation, values);
+        });
+        return stats;
+    }
+    
+    private <T> T timed(String operation, Callable<T> call) throws Exception {
+        OperationStats counters = metrics.computeIfAbsent(operation, key -> new OperationStats());
+        long start = System.nanoTime();
+        try {
+            return call.call();
+        } catch (Exception e) {
+            counters.errors.incrementAndGet();
+            throw e;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            counters.calls.incrementAndGet();
+            counters.totalNanos.addAndGet(elapsed);
+            counters.maxNanos.accumulateAndGet(elapsed, Math::max);
+        }
+    }
+    
+    private static class OperationStats {
+        private final AtomicLong calls = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+    }
 }
-
@@ -0,0 +1,96 @@
+package com.fin.service;
+
+import com.fin.repository.NotificationBatchRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Retenção de notificações: mantém pequena a tabela quente consultada pelo sino/paginação.
+ * Lidas antigas (e qualquer uma muito antiga) vão para notifications_archive em blocos por id,
+ * cada bloco em sua própria transação; o arquivo morto é expurgado depois de um prazo maior.
+ */
+@Service
+public class NotificationRetentionService {
+    
+    @Autowired
+    private NotificationBatchRepository notificationBatchRepository;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private SchedulerCoordinator schedulerCoordinator;
+    
+    @Value("${notifications.retention.read-days:90}")
+    private int readRetentionDays;
+    
+    @Value("${notifications.retention.max-days:365}")
+    private int maxRetentionDays;
+    
+    @Value("${notifications.retention.archive-days:730}")
+    private int archiveRetentionDays;
+    
+    @Value("${notifications.retention.chunk-size:1000}")
+    private int chunkSize;
+    
+    @Scheduled(cron = "${notifications.retention.cron:0 30 3 * * *}") // Madrugada, fora do horário dos lembretes
+    public void applyRetention() {
+        schedulerCoordinator.runExclusive("notification-retention", this::archiveAndPurge);
+    }
+    
+    private void archiveAndPurge() {
+        long start = System.currentTimeMillis();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime readBefore = now.minusDays(readRetentionDays);
+        LocalDateTime anyBefore = now.minusDays(maxRetentionDays);
+        
+        int archived = archiveOldNotifications(now, readBefore, anyBefore);
+        int purged = purgeArchive(now.minusDays(archiveRetentionDays));
+        
+        System.out.println("Retenção de notificações: " + archived + " arquivadas, " + purged
+            + " expurgadas do arquivo em " + (System.currentTimeMillis() - start) + "ms");
+    }
+    
+    private int archiveOldNotifications(LocalDateTime now, LocalDateTime readBefore, LocalDateTime anyBefore) {
+        // Nada antes do corte de lidas pode ser arquivado; ids crescem com created_at
+        Long maxId = notificationBatchRepository.findMaxArchivableId(readBefore);
+        if (maxId == null) {
+            return 0;
+        }
+        
+        long afterId = 0L;
+        int archived = 0;
+        while (true) {
+            List<Long> ids = notificationBatchRepository.findArchiveCandidateIds(
+                afterId, maxId, readBefore, anyBefore, chunkSize);
+            if (ids.isEmpty()) {
+                break;
+            }
+            afterId = ids.get(ids.size() - 1);
+            
+            Integer moved = transactionTemplate.execute(status -> notificationBatchRepository.moveToArchive(ids, now));
+            archived += moved != null ? moved : 0;
+            
+            if (ids.size() < chunkSize) {
+                break;
+            }
+        }
+        return archived;
+    }
+    
+    private int purgeArchive(LocalDateTime createdBefore) {
+        int purged = 0;
+        int deleted;
+        do {
+            deleted = notificationBatchRepository.purgeArchive(createdBefore, chunkSize);
+            purged += deleted;
+        } while (deleted == chunkSize);
+        return purged;
+    }
+}
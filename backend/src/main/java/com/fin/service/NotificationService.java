@@ -1,25 +1,35 @@
 package com.fin.service;
 
 import com.fin.dto.NotificationDto;
+import com.fin.dto.NotificationPushMessage;
 import com.fin.dto.PageResponse;
 import com.fin.model.Notification;
-import com.fin.model.Transaction;
 import com.fin.model.User;
+import com.fin.repository.NotificationBatchRepository;
 import com.fin.repository.NotificationRepository;
-import com.fin.repository.TransactionRepository;
 import com.fin.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 @Service
@@ -29,10 +39,22 @@ public class NotificationService {
     private NotificationRepository notificationRepository;
     
     @Autowired
-    private TransactionRepository transactionRepository;
+    private UserRepository userRepository;
     
     @Autowired
-    private UserRepository userRepository;
+    private SchedulerCoordinator schedulerCoordinator;
+    
+    @Autowired
+    private NotificationBatchRepository notificationBatchRepository;
+    
+    @Autowired
+    private NotificationUnreadCounter unreadCounter;
+    
+    @Autowired
+    private NotificationStreamService notificationStreamService;
+    
+    @Value("${notifications.bill-reminders.batch-size:500}")
+    private int billReminderBatchSize;
     
     public List<NotificationDto> getUserNotifications(Long userId) {
         return notificationRepository.findByUserIdOrderByCreatedAtDesc(userId).stream()
@@ -70,8 +92,13 @@ public class NotificationService {
         return PageResponse.of(content, page, size, notificationPage.getTotalElements());
     }
     
+    // Contagem servida pelo contador no Redis; o banco só é consultado quando a chave não existe
     public Long getUnreadCount(Long userId) {
-        return notificationRepository.countByUserIdAndIsReadFalse(userId);
+        return unreadCounter.get(userId, () -> notificationRepository.countByUserIdAndIsReadFalse(userId));
+    }
+    
+    public SseEmitter subscribe(Long userId) {
+        return notificationStreamService.subscribe(userId, getUnreadCount(userId));
     }
     
     @Transactional
@@ -83,10 +110,16 @@ public class NotificationService {
             throw new RuntimeException("Acesso negado");
         }
         
+        boolean wasUnread = !Boolean.TRUE.equals(notification.getIsRead());
+        
         notification.setIsRead(true);
         notification.setReadAt(java.time.LocalDateTime.now());
         notification = notificationRepository.save(notification);
         
+        if (wasUnread) {
+            afterCommit(() -> publishUnreadCount(userId, unreadCounter.adjust(userId, -1)));
+        }
+        
         return convertToDto(notification);
     }
     
@@ -99,6 +132,11 @@ public class NotificationService {
             n.setReadAt(now);
         });
         notificationRepository.saveAll(notifications);
+        
+        afterCommit(() -> {
+            unreadCounter.reset(userId);
+            publishUnreadCount(userId, 0L);
+        });
     }
     
     @Transactional
@@ -111,62 +149,82 @@ public class NotificationService {
         }
         
         notificationRepository.delete(notification);
+        
+        if (!Boolean.TRUE.equals(notification.getIsRead())) {
+            afterCommit(() -> publishUnreadCount(userId, unreadCounter.adjust(userId, -1)));
+        }
     }
     
     // Verificar contas a pagar e criar notificações
+    // Sem @Transactional: o cursor de leitura e os INSERTs em lote usam conexões separadas (cada lote é confirmado)
     @Scheduled(cron = "0 0 9 * * *") // Executa todo dia às 9h
-    @Transactional
     public void checkBillsToPay() {
+        schedulerCoordinator.runExclusive("bill-reminders", this::createBillReminders);
+    }
+    
+    private void createBillReminders() {
         try {
+            long start = System.currentTimeMillis();
             LocalDate today = LocalDate.now();
             LocalDate threeDaysFromNow = today.plusDays(3);
             
-            // OTIMIZAÇÃO CRÍTICA: Usar query específica ao invés de findAll()
-            // Buscar apenas transações de despesa não pagas com vencimento nos próximos 3 dias
-            List<Transaction> upcomingBills = transactionRepository.findUnpaidTransactionsByTypeAndDueDateRange(
-                Transaction.TransactionType.EXPENSE,
-                today,
-                threeDaysFromNow
-            );
+            // Formatação equivalente a "%.2f", criada uma vez por execução
+            DecimalFormat amountFormat = new DecimalFormat("0.00");
+            amountFormat.setRoundingMode(RoundingMode.HALF_UP);
             
-            for (Transaction bill : upcomingBills) {
-                // OTIMIZAÇÃO: Usar query otimizada ao invés de buscar todas as notificações
-                boolean alreadyNotified = notificationRepository.existsByTransactionIdAndDateAndType(
-                    bill.getId(),
-                    today,
-                    Notification.NotificationType.BILL_REMINDER
-                );
-                
-                if (!alreadyNotified) {
-                    long daysUntilDue = ChronoUnit.DAYS.between(today, bill.getDueDate());
-                    String message;
-                    if (daysUntilDue == 0) {
-                        message = String.format("A conta '%s' vence HOJE! Valor: R$ %.2f", 
-                                bill.getDescription(), bill.getAmount());
-                    } else if (daysUntilDue == 1) {
-                        message = String.format("A conta '%s' vence AMANHÃ! Valor: R$ %.2f", 
-                                bill.getDescription(), bill.getAmount());
-                    } else {
-                        message = String.format("A conta '%s' vence em %d dias. Valor: R$ %.2f", 
-                                bill.getDescription(), daysUntilDue, bill.getAmount());
-                    }
-                    
-                    Notification notification = new Notification();
-                    notification.setUser(bill.getUser());
-                    notification.setTitle("Lembrete de Conta a Pagar");
-                    notification.setMessage(message);
-                    notification.setType(Notification.NotificationType.BILL_REMINDER);
-                    notification.setRelatedTransactionId(bill.getId());
-                    
-                    notificationRepository.save(notification);
+            // Contas a pagar sem lembrete hoje, lidas por cursor (anti-join) e gravadas em lotes
+            List<NotificationBatchRepository.NewNotification> batch = new ArrayList<>(billReminderBatchSize);
+            AtomicInteger created = new AtomicInteger();
+            
+            notificationBatchRepository.forEachBillReminderCandidate(today, threeDaysFromNow, bill -> {
+                batch.add(buildBillReminder(bill, today, amountFormat));
+                if (batch.size() >= billReminderBatchSize) {
+                    created.addAndGet(insertAndPublish(batch));
+                    batch.clear();
                 }
-            }
+            });
+            created.addAndGet(insertAndPublish(batch));
+            
+            System.out.println("Lembretes de contas a pagar criados: " + created.get() + " em "
+                + (System.currentTimeMillis() - start) + "ms");
         } catch (Exception e) {
             System.err.println("Erro ao verificar contas a pagar: " + e.getMessage());
             e.printStackTrace();
         }
     }
     
+    private int insertAndPublish(List<NotificationBatchRepository.NewNotification> batch) {
+        List<NotificationBatchRepository.InsertedNotification> inserted = notificationBatchRepository.insertIgnoreAll(batch);
+        publishInserted(inserted);
+        return inserted.size();
+    }
+    
+    private NotificationBatchRepository.NewNotification buildBillReminder(
+            NotificationBatchRepository.BillReminderCandidate bill, LocalDate today, DecimalFormat amountFormat) {
+        long daysUntilDue = ChronoUnit.DAYS.between(today, bill.getDueDate());
+        String amount = bill.getAmount() != null ? amountFormat.format(bill.getAmount()) : "0.00";
+        
+        StringBuilder message = new StringBuilder(64 + bill.getDescription().length())
+            .append("A conta '").append(bill.getDescription()).append("' vence ");
+        if (daysUntilDue == 0) {
+            message.append("HOJE!");
+        } else if (daysUntilDue == 1) {
+            message.append("AMANHÃ!");
+        } else {
+            message.append("em ").append(daysUntilDue).append(" dias.");
+        }
+        message.append(" Valor: R$ ").append(amount);
+        
+        return new NotificationBatchRepository.NewNotification(
+            bill.getUserId(),
+            "Lembrete de Conta a Pagar",
+            message.toString(),
+            Notification.NotificationType.BILL_REMINDER,
+            bill.getTransactionId(),
+            "BILL_REMINDER:" + bill.getTransactionId() + ":" + today
+        );
+    }
+    
     // Método para criar notificação manualmente (pode ser chamado por outros serviços)
     @Transactional
     public NotificationDto createNotification(Long userId, String title, String message, 
@@ -182,7 +240,55 @@ public class NotificationService {
         notification.setRelatedTransactionId(relatedTransactionId);
         
         notification = notificationRepository.save(notification);
-        return convertToDto(notification);
+        NotificationDto dto = convertToDto(notification);
+        
+        afterCommit(() -> notificationStreamService.publish(new NotificationPushMessage(
+            userId, NotificationPushMessage.EVENT_NOTIFICATION, dto, unreadCounter.adjust(userId, 1))));
+        return dto;
+    }
+    
+    /**
+     * Avisa em tempo real as notificações gravadas em lote pelos jobs (apenas as que o INSERT IGNORE não descartou):
+     * descarta o contador dos usuários afetados e envia o conteúdo sem contagem.
+     */
+    public void publishInserted(List<NotificationBatchRepository.InsertedNotification> inserted) {
+        if (inserted.isEmpty()) {
+            return;
+        }
+        
+        List<NotificationBatchRepository.InsertedNotification> snapshot = new ArrayList<>(inserted);
+        afterCommit(() -> {
+            Set<Long> userIds = new HashSet<>();
+            for (NotificationBatchRepository.InsertedNotification row : snapshot) {
+                NotificationBatchRepository.NewNotification n = row.getNotification();
+                if (userIds.add(n.getUserId())) {
+                    unreadCounter.evict(n.getUserId());
+                }
+                NotificationDto dto = new NotificationDto(row.getId(), n.getTitle(), n.getMessage(), n.getType().name(),
+                    false, null, n.getRelatedTransactionId(), row.getCreatedAt());
+                notificationStreamService.publish(new NotificationPushMessage(
+                    n.getUserId(), NotificationPushMessage.EVENT_NOTIFICATION, dto, null));
+            }
+        });
+    }
+    
+    private void publishUnreadCount(Long userId, Long unreadCount) {
+        notificationStreamService.publish(new NotificationPushMessage(
+            userId, NotificationPushMessage.EVENT_UNREAD_COUNT, null, unreadCount));
+    }
+    
+    // Contador e eventos só refletem o que foi confirmado no banco
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
     }
     
     private NotificationDto convertToDto(Notification notification) {
@@ -0,0 +1,124 @@
+package com.fin.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fin.dto.NotificationPushMessage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Entrega de notificações em tempo real por SSE.
+ * Cada instância guarda apenas as conexões abertas nela; os eventos passam pelo canal Redis
+ * para chegar à instância onde o usuário está conectado. As conexões ociosas não prendem threads
+ * (requisição assíncrona do servlet), só o socket e o SseEmitter.
+ */
+@Service
+public class NotificationStreamService implements MessageListener {
+    
+    private final Map<Long, Set<SseEmitter>> emitters = new ConcurrentHashMap<>();
+    
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Value("${notifications.stream.channel:notifications:events}")
+    private String channel;
+    
+    @Value("${notifications.stream.timeout-ms:1800000}")
+    private long timeoutMs;
+    
+    public SseEmitter subscribe(Long userId, long unreadCount) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        emitters.compute(userId, (id, set) -> {
+            Set<SseEmitter> userEmitters = set != null ? set : ConcurrentHashMap.newKeySet();
+            userEmitters.add(emitter);
+            return userEmitters;
+        });
+        
+        emitter.onCompletion(() -> removeEmitter(userId, emitter));
+        emitter.onTimeout(() -> removeEmitter(userId, emitter));
+        emitter.onError(e -> removeEmitter(userId, emitter));
+        
+        // Estado inicial: o cliente não precisa consultar a contagem ao conectar
+        send(userId, emitter, new NotificationPushMessage(
+            userId, NotificationPushMessage.EVENT_UNREAD_COUNT, null, unreadCount));
+        return emitter;
+    }
+    
+    /**
+     * Publica o evento no canal Redis (todas as instâncias, inclusive esta, recebem em onMessage)
+     */
+    public void publish(NotificationPushMessage message) {
+        try {
+            redisTemplate.convertAndSend(channel, objectMapper.writeValueAsString(message));
+        } catch (Exception e) {
+            // Sem Redis, ao menos as conexões desta instância recebem o evento
+            System.err.println("Erro ao publicar notificação no Redis - UserId: " + message.getUserId() + ": " + e.getMessage());
+            deliverLocally(message);
+        }
+    }
+    
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            String body = new String(message.getBody(), StandardCharsets.UTF_8);
+            deliverLocally(objectMapper.readValue(body, NotificationPushMessage.class));
+        } catch (Exception e) {
+            System.err.println("Erro ao processar evento de notificação do Redis: " + e.getMessage());
+        }
+    }
+    
+    // Comentário periódico mantém as conexões vivas em proxies e detecta clientes que já desconectaram
+    @Scheduled(fixedDelayString = "${notifications.stream.heartbeat-ms:25000}")
+    public void sendHeartbeats() {
+        emitters.forEach((userId, userEmitters) -> {
+            for (SseEmitter emitter : userEmitters) {
+                try {
+                    emitter.send(SseEmitter.event().comment("ping"));
+                } catch (Exception e) {
+                    removeEmitter(userId, emitter);
+                }
+            }
+        });
+    }
+    
+    private void deliverLocally(NotificationPushMessage message) {
+        Set<SseEmitter> userEmitters = emitters.get(message.getUserId());
+        if (userEmitters == null) {
+            return; // Usuário não está conectado nesta instância
+        }
+        for (SseEmitter emitter : userEmitters) {
+            send(message.getUserId(), emitter, message);
+        }
+    }
+    
+    private void send(Long userId, SseEmitter emitter, NotificationPushMessage message) {
+        try {
+            emitter.send(SseEmitter.event()
+                .name(message.getEvent())
+                .data(message, MediaType.APPLICATION_JSON));
+        } catch (Exception e) {
+            removeEmitter(userId, emitter);
+        }
+    }
+    
+    private void removeEmitter(Long userId, SseEmitter emitter) {
+        emitters.computeIfPresent(userId, (id, set) -> {
+            set.remove(emitter);
+            return set.isEmpty() ? null : set;
+        });
+    }
+}
@@ -0,0 +1,97 @@
+package com.fin.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Contador de notificações não lidas por usuário no Redis.
+ * O valor é carregado do banco na primeira leitura e depois apenas ajustado (criação, leitura, exclusão);
+ * ajustes sobre uma chave ausente são ignorados, para nunca criar uma contagem parcial.
+ */
+@Service
+public class NotificationUnreadCounter {
+    
+    private static final String KEY_PREFIX = "notifications:unread:";
+    
+    // Soma o delta apenas se a chave existir (sem deixar negativo); devolve -1 quando não há contagem em cache
+    private static final DefaultRedisScript<Long> ADJUST_SCRIPT = new DefaultRedisScript<>(
+        "local v = redis.call('GET', KEYS[1]) " +
+        "if not v then return -1 end " +
+        "local n = tonumber(v) + tonumber(ARGV[1]) " +
+        "if n < 0 then n = 0 end " +
+        "redis.call('SET', KEYS[1], n, 'EX', ARGV[2]) " +
+        "return n",
+        Long.class);
+    
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+    
+    @Value("${notifications.unread-count.ttl-seconds:3600}")
+    private long ttlSeconds;
+    
+    public long get(Long userId, Supplier<Long> loader) {
+        String key = key(userId);
+        try {
+            String cached = redisTemplate.opsForValue().get(key);
+            if (cached != null) {
+                return Long.parseLong(cached);
+            }
+        } catch (Exception e) {
+            System.err.println("Erro ao ler contador de não lidas do Redis - UserId: " + userId + ": " + e.getMessage());
+            return loader.get();
+        }
+        
+        long count = loader.get();
+        try {
+            // NX: se outro nó já carregou o valor (e talvez o ajustou), mantém o dele
+            redisTemplate.opsForValue().setIfAbsent(key, String.valueOf(count), Duration.ofSeconds(ttlSeconds));
+        } catch (Exception e) {
+            System.err.println("Erro ao gravar contador de não lidas no Redis - UserId: " + userId + ": " + e.getMessage());
+        }
+        return count;
+    }
+    
+    /**
+     * @return nova contagem, ou null quando não há contagem em cache para o usuário
+     */
+    public Long adjust(Long userId, long delta) {
+        try {
+            Long result = redisTemplate.execute(ADJUST_SCRIPT, List.of(key(userId)),
+                String.valueOf(delta), String.valueOf(ttlSeconds));
+            return result == null || result < 0 ? null : result;
+        } catch (Exception e) {
+            System.err.println("Erro ao ajustar contador de não lidas no Redis - UserId: " + userId + ": " + e.getMessage());
+            evict(userId);
+            return null;
+        }
+    }
+    
+    public void reset(Long userId) {
+        try {
+            redisTemplate.opsForValue().set(key(userId), "0", Duration.ofSeconds(ttlSeconds));
+        } catch (Exception e) {
+            System.err.println("Erro ao zerar contador de não lidas no Redis - UserId: " + userId + ": " + e.getMessage());
+            evict(userId);
+        }
+    }
+    
+    // Descarta a contagem; a próxima leitura recarrega do banco
+    public void evict(Long userId) {
+        try {
+            redisTemplate.delete(key(userId));
+        } catch (Exception e) {
+            System.err.println("Erro ao descartar contador de não lidas no Redis - UserId: " + userId + ": " + e.getMessage());
+        }
+    }
+    
+    private String key(Long userId) {
+        return KEY_PREFIX + userId;
+    }
+}
@@ -1,7 +1,6 @@
 package com.fin.service;
 
 import com.fin.model.Subscription;
-import com.fin.repository.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -12,22 +11,7 @@ public class PlanLimitsService {
     private SubscriptionService subscriptionService;
     
     @Autowired
-    private TransactionRepository transactionRepository;
-    
-    @Autowired
-    private CategoryRepository categoryRepository;
-    
-    @Autowired
-    private AccountRepository accountRepository;
-    
-    @Autowired
-    private TransactionAttachmentRepository attachmentRepository;
-    
-    @Autowired
-    private GoalRepository goalRepository;
-    
-    @Autowired
-    private BudgetRepository budgetRepository;
+    private QuotaService quotaService;
     
     /**
      * Verifica limites do plano FREE
@@ -38,7 +22,16 @@ public class PlanLimitsService {
         }
         
         Subscription subscription = subscriptionService.getUserSubscriptionEntity(userId);
-        Subscription.SubscriptionPlan plan = subscription.getPlan();
+        return limitsFor(subscription.getPlan());
+    }
+    
+    /**
+     * Limites de cada plano (sem acesso ao banco)
+     */
+    public static PlanLimits limitsFor(Subscription.SubscriptionPlan plan) {
+        if (plan == null) {
+            return new PlanLimits(false, 0, 0, 0, 0, 0, 0, false, false, false);
+        }
         
         switch (plan) {
             case FREE:
@@ -99,81 +92,108 @@ public class PlanLimitsService {
     }
     
     /**
-     * Verifica se pode criar transação
+     * Taxa das chamadas à IA (criação por texto, lote e análise) por plano: capacidade do balde e recarga por minuto
      */
-    public boolean canCreateTransaction(Long userId) {
-        PlanLimits limits = getPlanLimits(userId);
-        if (!limits.isActive()) return false;
+    public static RateLimit aiRateLimitFor(Subscription.SubscriptionPlan plan) {
+        if (plan == null) {
+            return new RateLimit(3, 3);
+        }
         
-        if (limits.getMaxTransactions() == Integer.MAX_VALUE) return true;
+        switch (plan) {
+            case FREE:
+                return new RateLimit(5, 5);
+            case BASIC:
+                return new RateLimit(10, 10);
+            case PREMIUM:
+                return new RateLimit(30, 30);
+            case ENTERPRISE:
+                return new RateLimit(60, 60);
+            default:
+                return new RateLimit(3, 3);
+        }
+    }
+    
+    /**
+     * Taxa dos jobs de treino da IA por plano (cada job percorre todo o histórico na OpenAI)
+     */
+    public static RateLimit aiTrainingRateLimitFor(Subscription.SubscriptionPlan plan) {
+        if (plan == null) {
+            return new RateLimit(1, 1.0 / 60);
+        }
         
-        long transactionCount = transactionRepository.findByUserId(userId).size();
-        return transactionCount < limits.getMaxTransactions();
+        switch (plan) {
+            case PREMIUM:
+                return new RateLimit(2, 2.0 / 60);  // 2 por hora
+            case ENTERPRISE:
+                return new RateLimit(5, 5.0 / 60);  // 5 por hora
+            default:
+                return new RateLimit(1, 1.0 / 60);  // 1 por hora
+        }
+    }
+    
+    /**
+     * Verifica se pode criar transação
+     */
+    public boolean canCreateTransaction(Long userId) {
+        return quotaService.check(userId, QuotaService.Resource.TRANSACTIONS);
     }
     
     /**
      * Verifica se pode criar categoria
      */
     public boolean canCreateCategory(Long userId) {
-        PlanLimits limits = getPlanLimits(userId);
-        if (!limits.isActive()) return false;
-        
-        if (limits.getMaxCategories() == Integer.MAX_VALUE) return true;
-        
-        long categoryCount = categoryRepository.findByUserId(userId).size();
-        return categoryCount < limits.getMaxCategories();
+        return quotaService.check(userId, QuotaService.Resource.CATEGORIES);
     }
     
     /**
      * Verifica se pode criar conta
      */
     public boolean canCreateAccount(Long userId) {
-        PlanLimits limits = getPlanLimits(userId);
-        if (!limits.isActive()) return false;
-        
-        if (limits.getMaxAccounts() == Integer.MAX_VALUE) return true;
-        
-        long accountCount = accountRepository.findByUserIdAndIsActiveTrue(userId).size();
-        return accountCount < limits.getMaxAccounts();
+        return quotaService.check(userId, QuotaService.Resource.ACCOUNTS);
     }
     
     /**
      * Verifica se pode fazer upload de anexo
      */
     public boolean canUploadAttachment(Long userId) {
-        PlanLimits limits = getPlanLimits(userId);
-        if (!limits.isActive()) return false;
-        
-        if (limits.getMaxAttachments() == Integer.MAX_VALUE) return true;
-        
-        long attachmentCount = attachmentRepository.findByUserId(userId).size();
-        return attachmentCount < limits.getMaxAttachments();
+        return quotaService.check(userId, QuotaService.Resource.ATTACHMENTS);
     }
     
     /**
      * Verifica se pode criar meta
      */
     public boolean canCreateGoal(Long userId) {
-        PlanLimits limits = getPlanLimits(userId);
-        if (!limits.isActive()) return false;
-        
-        if (limits.getMaxGoals() == Integer.MAX_VALUE) return true;
-        
-        long goalCount = goalRepository.findByUserId(userId).size();
-        return goalCount < limits.getMaxGoals();
+        return quotaService.check(userId, QuotaService.Resource.GOALS);
     }
     
     /**
      * Verifica se pode criar orçamento
      */
     public boolean canCreateBudget(Long userId) {
-        PlanLimits limits = getPlanLimits(userId);
-        if (!limits.isActive()) return false;
+        return quotaService.check(userId, QuotaService.Resource.BUDGETS);
+    }
+    
+    /**
+     * Verifica se pode exportar transações (CSV/XLSX)
+     */
+    public boolean canExportData(Long userId) {
+        return limitsFor(quotaService.activePlan(userId)).canExportExcel();
+    }
+    
+    /**
+     * Balde de tokens: até {@code capacity} requisições seguidas, recarregando {@code refillPerMinute} por minuto
+     */
+    public static class RateLimit {
+        private int capacity;
+        private double refillPerMinute;
         
-        if (limits.getMaxBudgets() == Integer.MAX_VALUE) return true;
+        public RateLimit(int capacity, double refillPerMinute) {
+            this.capacity = capacity;
+            this.refillPerMinute = refillPerMinute;
+        }
         
-        long budgetCount = budgetRepository.findByUserId(userId).size();
-        return budgetCount < limits.getMaxBudgets();
+        public int getCapacity() { return capacity; }
+        public double getRefillPerMinute() { return refillPerMinute; }
     }
     
     /**
@@ -0,0 +1,221 @@
+package com.fin.service;
+
+import com.fin.model.Subscription;
+import com.fin.repository.QuotaUsageRepository;
+import com.fin.repository.SubscriptionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cotas do plano por usuário. Plano, validade da assinatura e a contagem de cada recurso ficam em um
+ * único hash no Redis, então {@link #check} custa uma leitura. Os contadores são ajustados após o commit
+ * das criações e exclusões; o hash expira e é recarregado com COUNT(*), o que corrige eventuais desvios.
+ */
+@Service
+public class QuotaService {
+    
+    public enum Resource {
+        TRANSACTIONS,
+        CATEGORIES,
+        ACCOUNTS,
+        ATTACHMENTS,
+        GOALS,
+        BUDGETS
+    }
+    
+    private static final String KEY_PREFIX = "quota:";
+    private static final String PLAN_FIELD = "plan";
+    private static final String ACTIVE_UNTIL_FIELD = "activeUntil";
+    private static final String NO_PLAN = "NONE";
+    
+    // Grava o snapshot só se não houver outro (outro nó pode tê-lo carregado e já ajustado)
+    private static final DefaultRedisScript<Long> LOAD_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('EXISTS', KEYS[1]) == 1 then return 0 end " +
+        "redis.call('HSET', KEYS[1], unpack(ARGV, 2)) " +
+        "redis.call('EXPIRE', KEYS[1], ARGV[1]) " +
+        "return 1",
+        Long.class);
+    
+    // Soma o delta apenas se o hash existir (sem deixar negativo); devolve -1 quando não há cota em cache
+    private static final DefaultRedisScript<Long> ADJUST_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('EXISTS', KEYS[1]) == 0 then return -1 end " +
+        "local n = redis.call('HINCRBY', KEYS[1], ARGV[1], ARGV[2]) " +
+        "if n < 0 then redis.call('HSET', KEYS[1], ARGV[1], 0) n = 0 end " +
+        "return n",
+        Long.class);
+    
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+    
+    @Autowired
+    private SubscriptionRepository subscriptionRepository;
+    
+    @Autowired
+    private QuotaUsageRepository quotaUsageRepository;
+    
+    @Value("${quota.ttl-seconds:3600}")
+    private long ttlSeconds;
+    
+    /**
+     * Verifica se o usuário ainda pode criar mais um recurso do tipo informado
+     */
+    public boolean check(Long userId, Resource resource) {
+        Map<String, String> values = read(userId, List.of(ACTIVE_UNTIL_FIELD, PLAN_FIELD, resource.name()));
+        
+        if (Long.parseLong(values.get(ACTIVE_UNTIL_FIELD)) <= System.currentTimeMillis()) {
+            return false;
+        }
+        
+        String plan = values.get(PLAN_FIELD);
+        if (NO_PLAN.equals(plan)) {
+            return false;
+        }
+        
+        int limit = limitOf(PlanLimitsService.limitsFor(Subscription.SubscriptionPlan.valueOf(plan)), resource);
+        if (limit == Integer.MAX_VALUE) {
+            return true;
+        }
+        return Long.parseLong(values.get(resource.name())) < limit;
+    }
+    
+    /**
+     * Quantidade atual do recurso, lida do mesmo hash das cotas
+     */
+    public long count(Long userId, Resource resource) {
+        return Long.parseLong(read(userId, List.of(resource.name())).get(resource.name()));
+    }
+    
+    /**
+     * Plano da assinatura ativa do usuário, lido do mesmo hash das cotas (null sem assinatura ou expirada)
+     */
+    public Subscription.SubscriptionPlan activePlan(Long userId) {
+        Map<String, String> values = read(userId, List.of(ACTIVE_UNTIL_FIELD, PLAN_FIELD));
+        
+        if (Long.parseLong(values.get(ACTIVE_UNTIL_FIELD)) <= System.currentTimeMillis()) {
+            return null;
+        }
+        
+        String plan = values.get(PLAN_FIELD);
+        return NO_PLAN.equals(plan) ? null : Subscription.SubscriptionPlan.valueOf(plan);
+    }
+    
+    public void recordCreated(Long userId, Resource resource) {
+        afterCommit(() -> adjust(userId, resource, 1));
+    }
+    
+    // Criações em lote (ex.: recorrências): um único ajuste com a quantidade inserida
+    public void recordCreated(Long userId, Resource resource, int count) {
+        if (count > 0) {
+            afterCommit(() -> adjust(userId, resource, count));
+        }
+    }
+    
+    public void recordDeleted(Long userId, Resource resource) {
+        afterCommit(() -> adjust(userId, resource, -1));
+    }
+    
+    // Descarta o hash (mudança de plano ou exclusões em cascata); a próxima verificação recarrega do banco
+    public void evict(Long userId) {
+        afterCommit(() -> {
+            try {
+                redisTemplate.delete(key(userId));
+            } catch (Exception e) {
+                System.err.println("Erro ao descartar cota no Redis - UserId: " + userId + ": " + e.getMessage());
+            }
+        });
+    }
+    
+    private Map<String, String> read(Long userId, List<Object> fields) {
+        try {
+            List<Object> cached = redisTemplate.opsForHash().multiGet(key(userId), fields);
+            if (cached != null && !cached.contains(null)) {
+                Map<String, String> values = new HashMap<>();
+                for (int i = 0; i < fields.size(); i++) {
+                    values.put((String) fields.get(i), (String) cached.get(i));
+                }
+                return values;
+            }
+        } catch (Exception e) {
+            System.err.println("Erro ao ler cota do Redis - UserId: " + userId + ": " + e.getMessage());
+            return load(userId);
+        }
+        
+        Map<String, String> values = load(userId);
+        try {
+            List<String> args = new ArrayList<>();
+            args.add(String.valueOf(ttlSeconds));
+            values.forEach((field, value) -> {
+                args.add(field);
+                args.add(value);
+            });
+            redisTemplate.execute(LOAD_SCRIPT, List.of(key(userId)), args.toArray());
+        } catch (Exception e) {
+            System.err.println("Erro ao gravar cota no Redis - UserId: " + userId + ": " + e.getMessage());
+        }
+        return values;
+    }
+    
+    private Map<String, String> load(Long userId) {
+        Map<String, String> values = new HashMap<>();
+        Subscription subscription = subscriptionRepository.findByUserId(userId).orElse(null);
+        values.put(PLAN_FIELD, subscription != null && subscription.getPlan() != null
+            ? subscription.getPlan().name() : NO_PLAN);
+        values.put(ACTIVE_UNTIL_FIELD, String.valueOf(subscription != null
+            ? SubscriptionService.calculateActiveUntil(subscription) : 0L));
+        quotaUsageRepository.countAll(userId).forEach((resource, count) ->
+            values.put(resource.name(), String.valueOf(count)));
+        return values;
+    }
+    
+    private void adjust(Long userId, Resource resource, long delta) {
+        try {
+            redisTemplate.execute(ADJUST_SCRIPT, List.of(key(userId)), resource.name(), String.valueOf(delta));
+        } catch (Exception e) {
+            System.err.println("Erro ao ajustar cota no Redis - UserId: " + userId + ": " + e.getMessage());
+            try {
+                redisTemplate.delete(key(userId));
+            } catch (Exception ignored) {
+                // O TTL remove o hash desatualizado
+            }
+        }
+    }
+    
+    private static int limitOf(PlanLimitsService.PlanLimits limits, Resource resource) {
+        switch (resource) {
+            case TRANSACTIONS: return limits.getMaxTransactions();
+            case CATEGORIES: return limits.getMaxCategories();
+            case ACCOUNTS: return limits.getMaxAccounts();
+            case ATTACHMENTS: return limits.getMaxAttachments();
+            case GOALS: return limits.getMaxGoals();
+            case BUDGETS: return limits.getMaxBudgets();
+            default: return 0;
+        }
+    }
+    
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+    
+    private String key(Long userId) {
+        return KEY_PREFIX + userId;
+    }
+}
@@ -0,0 +1,236 @@
+package com.fin.service;
+
+import com.fin.model.Subscription;
+import com.fin.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Limite de taxa por usuário com balde de tokens no Redis (compartilhado entre as instâncias).
+ * O caminho rápido fica em memória: o id e o plano do usuário são guardados por alguns segundos e,
+ * depois de uma recusa, as requisições seguintes são recusadas localmente até o balde ter token de novo,
+ * sem ir ao Redis. Se o Redis falhar a requisição é liberada (o limite não derruba a IA).
+ */
+@Service
+public class RateLimitService {
+    
+    public enum Bucket {
+        AI(PlanLimitsService::aiRateLimitFor),
+        AI_TRAINING(PlanLimitsService::aiTrainingRateLimitFor);
+        
+        private final Function<Subscription.SubscriptionPlan, PlanLimitsService.RateLimit> limits;
+        
+        Bucket(Function<Subscription.SubscriptionPlan, PlanLimitsService.RateLimit> limits) {
+            this.limits = limits;
+        }
+    }
+    
+    private static final String KEY_PREFIX = "ratelimit:";
+    private static final int MAX_LOCAL_ENTRIES = 10000;
+    
+    // Recarrega o balde pelo tempo decorrido (relógio do Redis, igual para todas as instâncias) e consome ARGV[3] tokens.
+    // Devolve {1, tokens restantes} ou {0, milissegundos até haver tokens suficientes}
+    private static final DefaultRedisScript<List> TOKEN_BUCKET_SCRIPT = new DefaultRedisScript<>(
+        "local capacity = tonumber(ARGV[1]) " +
+        "local perMs = tonumber(ARGV[2]) / 60000 " +
+        "local cost = tonumber(ARGV[3]) " +
+        "local t = redis.call('TIME') " +
+        "local now = t[1] * 1000 + math.floor(t[2] / 1000) " +
+        "local state = redis.call('HMGET', KEYS[1], 'tokens', 'ts') " +
+        "local tokens = tonumber(state[1]) or capacity " +
+        "local ts = tonumber(state[2]) or now " +
+        "tokens = math.min(capacity, tokens + math.max(0, now - ts) * perMs) " +
+        "local result " +
+        "if tokens >= cost then tokens = tokens - cost result = {1, math.floor(tokens)} " +
+        "else result = {0, math.ceil((cost - tokens) / perMs)} end " +
+        "redis.call('HSET', KEYS[1], 'tokens', tostring(tokens), 'ts', now) " +
+        "redis.call('PEXPIRE', KEYS[1], math.ceil(capacity / perMs) + 1000) " +
+        "return result",
+        List.class);
+    
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private QuotaService quotaService;
+    
+    @Value("${rate-limit.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${rate-limit.identity-ttl-seconds:60}")
+    private long identityTtlSeconds;
+    
+    private final Map<String, Identity> identities = new ConcurrentHashMap<>();
+    private final Map<String, Long> deniedUntil = new ConcurrentHashMap<>();
+    private final Map<Bucket, Metrics> metrics = new ConcurrentHashMap<>();
+    
+    /**
+     * Consome um token do balde do usuário. O resultado traz o tempo de espera quando a requisição é recusada
+     */
+    public Decision tryAcquire(String email, Bucket bucket) {
+        if (!enabled) {
+            return Decision.allowed(-1);
+        }
+        
+        long now = System.currentTimeMillis();
+        Identity identity = identities.get(email);
+        if (identity == null || identity.expiresAt <= now) {
+            identity = resolve(email, now);
+            if (identity == null) {
+                metrics.computeIfAbsent(bucket, b -> new Metrics()).allowed.incrementAndGet();
+                return Decision.allowed(-1);
+            }
+        }
+        return acquire(identity.userId, identity.plan, bucket, 1, now);
+    }
+    
+    /**
+     * Consome "tokens" de uma vez do balde do usuário, para operações que fazem várias chamadas à OpenAI
+     * (ex.: um lote dividido em vários prompts). Um custo maior que a capacidade do plano consome o balde cheio.
+     */
+    public Decision tryAcquire(Long userId, Bucket bucket, int tokens) {
+        if (!enabled || tokens <= 0) {
+            return Decision.allowed(-1);
+        }
+        
+        Subscription.SubscriptionPlan plan;
+        try {
+            plan = quotaService.activePlan(userId);
+        } catch (Exception e) {
+            System.err.println("Erro ao carregar plano para limite de taxa - UserId: " + userId + ": " + e.getMessage());
+            metrics.computeIfAbsent(bucket, b -> new Metrics()).allowed.incrementAndGet();
+            return Decision.allowed(-1);
+        }
+        return acquire(userId, plan, bucket, tokens, System.currentTimeMillis());
+    }
+    
+    private Decision acquire(Long userId, Subscription.SubscriptionPlan plan, Bucket bucket, int tokens, long now) {
+        Metrics counters = metrics.computeIfAbsent(bucket, b -> new Metrics());
+        String key = KEY_PREFIX + bucket.name().toLowerCase() + ":" + userId;
+        Long blockedUntil = deniedUntil.get(key);
+        if (blockedUntil != null) {
+            if (blockedUntil > now) {
+                counters.rejectedLocal.incrementAndGet();
+                return Decision.rejected(blockedUntil - now);
+            }
+            deniedUntil.remove(key, blockedUntil);
+        }
+        
+        PlanLimitsService.RateLimit limit = bucket.limits.apply(plan);
+        int cost = Math.min(tokens, limit.getCapacity());
+        try {
+            List<?> result = redisTemplate.execute(TOKEN_BUCKET_SCRIPT, List.of(key),
+                String.valueOf(limit.getCapacity()), String.valueOf(limit.getRefillPerMinute()), String.valueOf(cost));
+            long value = ((Number) result.get(1)).longValue();
+            if (((Number) result.get(0)).longValue() == 1) {
+                counters.allowed.incrementAndGet();
+                return Decision.allowed(value);
+            }
+            
+            // A espera de um custo maior que 1 não vale para as requisições de um token: só elas bloqueiam localmente
+            if (cost == 1) {
+                if (deniedUntil.size() >= MAX_LOCAL_ENTRIES) {
+                    deniedUntil.clear();
+                }
+                deniedUntil.put(key, now + value);
+            }
+            counters.rejected.incrementAndGet();
+            return Decision.rejected(value);
+        } catch (Exception e) {
+            counters.errors.incrementAndGet();
+            System.err.println("Erro ao consultar limite de taxa no Redis - Chave: " + key + ": " + e.getMessage());
+            return Decision.allowed(-1);
+        }
+    }
+    
+    /**
+     * Contadores desta instância desde a inicialização, por balde
+     */
+    public Map<String, Map<String, Long>> getStats() {
+        Map<String, Map<String, Long>> stats = new TreeMap<>();
+        metrics.forEach((bucket, counters) -> {
+            Map<String, Long> values = new TreeMap<>();
+            values.put("allowed", counters.allowed.get());
+            values.put("rejected", counters.rejected.get() + counters.rejectedLocal.get());
+            values.put("rejectedLocal", counters.rejectedLocal.get());
+            values.put("errors", counters.errors.get());
+            stats.put(bucket.name(), values);
+        });
+        return stats;
+    }
+    
+    private Identity resolve(String email, long now) {
+        try {
+            Long userId = userRepository.findByEmail(email).map(u -> u.getId()).orElse(null);
+            if (userId == null) {
+                return null;
+            }
+            Identity identity = new Identity(userId, quotaService.activePlan(userId), now + identityTtlSeconds * 1000);
+            if (identities.size() >= MAX_LOCAL_ENTRIES) {
+                identities.clear();
+            }
+            identities.put(email, identity);
+            return identity;
+        } catch (Exception e) {
+            System.err.println("Erro ao carregar plano para limite de taxa - Email: " + email + ": " + e.getMessage());
+            return null;
+        }
+    }
+    
+    private static class Identity {
+        private final Long userId;
+        private final Subscription.SubscriptionPlan plan;
+        private final long expiresAt;
+        
+        private Identity(Long userId, Subscription.SubscriptionPlan plan, long expiresAt) {
+            this.userId = userId;
+            this.plan = plan;
+            this.expiresAt = expiresAt;
+        }
+    }
+    
+    private static class Metrics {
+        private final AtomicLong allowed = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final AtomicLong rejectedLocal = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+    }
+    
+    public static class Decision {
+        private final boolean allowed;
+        private final long remaining;
+        private final long retryAfterMillis;
+        
+        private Decision(boolean allowed, long remaining, long retryAfterMillis) {
+            this.allowed = allowed;
+            this.remaining = remaining;
+            this.retryAfterMillis = retryAfterMillis;
+        }
+        
+        static Decision allowed(long remaining) {
+            return new Decision(true, remaining, 0);
+        }
+        
+        static Decision rejected(long retryAfterMillis) {
+            return new Decision(false, 0, retryAfterMillis);
+        }
+        
+        public boolean isAllowed() { return allowed; }
+        // Tokens restantes no balde (-1 quando o limite não foi consultado)
+        public long getRemaining() { return remaining; }
+        public long getRetryAfterMillis() { return retryAfterMillis; }
+    }
+}
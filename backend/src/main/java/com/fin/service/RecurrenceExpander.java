@@ -0,0 +1,106 @@
+package com.fin.service;
+
+import com.fin.model.RecurringTransaction.RecurrenceType;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Itera as ocorrências de uma recorrência a partir de uma primeira data (inclusive) até uma data limite (inclusive).
+ * Cada ocorrência é calculada pelo índice a partir da primeira (e não da anterior), então o dia do mês
+ * não "escorrega" após meses curtos (31/01 -> 28/02 -> 31/03). Não aloca listas: uma data por next().
+ * Sem recurrenceDay, o dia de referência vem da data de início: retomar a partir de uma data já ajustada ao
+ * fim do mês (28/02) continua gerando 31/03, igual à expansão feita de uma vez.
+ */
+public final class RecurrenceExpander implements Iterator<LocalDate> {
+    
+    private final RecurrenceType recurrenceType;
+    private final LocalDate first;
+    private final int anchorDayOfMonth;
+    private final LocalDate until;
+    private long index;
+    private LocalDate candidate;
+    
+    private RecurrenceExpander(RecurrenceType recurrenceType, Integer recurrenceDay, LocalDate startDate,
+                               LocalDate first, LocalDate until) {
+        this.recurrenceType = recurrenceType;
+        // Semanal com dia definido: alinhar a primeira ocorrência ao dia da semana (1 = segunda ... 7 = domingo)
+        if (recurrenceType == RecurrenceType.WEEKLY && recurrenceDay != null) {
+            first = first.with(TemporalAdjusters.nextOrSame(DayOfWeek.of(recurrenceDay)));
+        }
+        this.first = first;
+        if (recurrenceType == RecurrenceType.MONTHLY && recurrenceDay != null) {
+            this.anchorDayOfMonth = recurrenceDay;
+        } else if (startDate != null && isClampedFrom(first, startDate)) {
+            this.anchorDayOfMonth = startDate.getDayOfMonth();
+        } else {
+            this.anchorDayOfMonth = first.getDayOfMonth();
+        }
+        this.until = until;
+        this.index = 0;
+        this.candidate = occurrence(0);
+    }
+    
+    /**
+     * @param startDate data de início da recorrência, de onde vem o dia de referência (null = o dia de "first")
+     * @param first primeira ocorrência (inclusive), normalmente o nextOccurrenceDate da recorrência
+     * @param until última data possível (inclusive), normalmente min(hoje, endDate)
+     */
+    public static RecurrenceExpander between(RecurrenceType recurrenceType, Integer recurrenceDay,
+                                             LocalDate startDate, LocalDate first, LocalDate until) {
+        return new RecurrenceExpander(recurrenceType, recurrenceDay, startDate, first, until);
+    }
+    
+    /**
+     * "first" é o dia de início reduzido ao último dia de um mês mais curto (31 -> 30/28, 29/02 -> 28/02)
+     */
+    private static boolean isClampedFrom(LocalDate first, LocalDate startDate) {
+        return startDate.getDayOfMonth() > first.getDayOfMonth()
+            && first.getDayOfMonth() == first.lengthOfMonth()
+            && (first.getMonth() == startDate.getMonth() || startDate.getDayOfMonth() > 28);
+    }
+    
+    @Override
+    public boolean hasNext() {
+        return until != null && !candidate.isAfter(until);
+    }
+    
+    @Override
+    public LocalDate next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        LocalDate current = candidate;
+        candidate = occurrence(++index);
+        return current;
+    }
+    
+    /**
+     * Próxima ocorrência ainda não devolvida (após esgotar o iterador, é a primeira depois de "until")
+     */
+    public LocalDate peek() {
+        return candidate;
+    }
+    
+    private LocalDate occurrence(long n) {
+        switch (recurrenceType) {
+            case DAILY:
+                return first.plusDays(n);
+            case WEEKLY:
+                return first.plusWeeks(n);
+            case MONTHLY:
+                YearMonth month = YearMonth.from(first).plusMonths(n);
+                return month.atDay(Math.min(anchorDayOfMonth, month.lengthOfMonth()));
+            case YEARLY:
+                // 29/02 vira 28/02 em anos não bissextos e volta a 29/02 nos bissextos
+                YearMonth year = YearMonth.from(first).plusYears(n);
+                return year.atDay(Math.min(anchorDayOfMonth, year.lengthOfMonth()));
+            default:
+                throw new IllegalArgumentException("Tipo de recorrência não suportado: " + recurrenceType);
+        }
+    }
+}
@@ -4,13 +4,23 @@ import com.fin.dto.RecurringTransactionDto;
 import com.fin.model.*;
 import com.fin.repository.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.DayOfWeek;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 @Service
@@ -34,6 +44,43 @@ public class RecurringTransactionService {
     @Autowired
     private SubscriptionService subscriptionService;
     
+    @Autowired
+    private TransactionBatchRepository transactionBatchRepository;
+    
+    @Autowired
+    private BudgetAlertService budgetAlertService;
+    
+    @Autowired
+    private QuotaService quotaService;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    @Qualifier("recurringSchedulerExecutor")
+    private Executor recurringSchedulerExecutor;
+    
+    @Value("${recurring.scheduler.parallelism:4}")
+    private int schedulerParallelism;
+    
+    @Value("${recurring.scheduler.chunk-size:200}")
+    private int schedulerChunkSize;
+    
+    @Value("${recurring.scheduler.max-catch-up-occurrences:366}")
+    private int maxCatchUpOccurrences;
+    
+    @Value("${recurring.scheduler.partitions:8}")
+    private int schedulerPartitions;
+    
+    @Value("${recurring.scheduler.lock-at-most-for:PT2H}")
+    private Duration lockAtMostFor;
+    
+    @Value("${recurring.scheduler.lock-at-least-for:PT10M}")
+    private Duration lockAtLeastFor;
+    
+    @Autowired
+    private SchedulerCoordinator schedulerCoordinator;
+    
     /**
      * Lista todas as recorrências do usuário
      */
@@ -140,29 +187,122 @@ public class RecurringTransactionService {
     }
     
     /**
-     * Processa recorrências automaticamente (executado diariamente)
+     * Processa recorrências automaticamente (executado diariamente).
+     * Os usuários são divididos em partições distribuídas entre as réplicas pelo SchedulerCoordinator;
+     * dentro de cada partição, workers paralelos reivindicam blocos (SKIP LOCKED), cada um em sua própria transação.
      */
     @Scheduled(cron = "0 0 1 * * *") // Executa todo dia à 1h da manhã
-    @Transactional
     public void processRecurringTransactions() {
+        long start = System.currentTimeMillis();
         LocalDate today = LocalDate.now();
+        AtomicInteger created = new AtomicInteger();
         
-        // Buscar todos os usuários ativos
-        List<User> users = userRepository.findAll();
+        int partitionsRun = schedulerCoordinator.runPartitioned("recurring-transactions", schedulerPartitions,
+            lockAtMostFor, lockAtLeastFor, partition -> created.addAndGet(processPartition(today, partition)));
+        
+        System.out.println("Recorrências processadas: " + created.get() + " transações criadas em "
+            + partitionsRun + " partição(ões) em " + (System.currentTimeMillis() - start) + "ms");
+    }
+    
+    private int processPartition(LocalDate today, int partition) {
+        List<CompletableFuture<Integer>> workers = new ArrayList<>();
+        for (int i = 0; i < schedulerParallelism; i++) {
+            workers.add(CompletableFuture.supplyAsync(() -> runWorker(today, partition), recurringSchedulerExecutor));
+        }
+        return workers.stream().mapToInt(CompletableFuture::join).sum();
+    }
+    
+    /**
+     * Reivindica e processa blocos até não haver mais recorrências vencidas na partição
+     */
+    private int runWorker(LocalDate today, int partition) {
+        int created = 0;
+        long afterId = 0L;
         
-        for (User user : users) {
-            if (!subscriptionService.isSubscriptionActive(user.getId())) {
-                continue; // Pular usuários sem assinatura ativa
+        while (true) {
+            ChunkResult chunk;
+            try {
+                final long cursor = afterId;
+                chunk = transactionTemplate.execute(status -> processDueChunk(today, partition, cursor));
+            } catch (Exception e) {
+                // O bloco é revertido e fica para a próxima execução; segue a partir do próximo ID
+                System.err.println("Erro ao processar bloco de recorrências após ID " + afterId + ": " + e.getMessage());
+                chunk = skipChunk(today, partition, afterId);
             }
             
-            List<RecurringTransaction> toProcess = recurringRepository.findRecurringTransactionsToProcess(user.getId(), today);
+            if (chunk == null || chunk.lastId == null) {
+                return created;
+            }
+            created += chunk.created;
+            afterId = chunk.lastId;
+        }
+    }
+    
+    private ChunkResult processDueChunk(LocalDate today, int partition, long afterId) {
+        List<Long> ids = recurringRepository.claimDueRecurrenceIds(afterId, today, LocalDateTime.now(),
+            schedulerPartitions, partition, schedulerChunkSize);
+        if (ids.isEmpty()) {
+            return new ChunkResult(null, 0);
+        }
+        
+        List<RecurringTransaction> recurrences = recurringRepository.findAllByIdWithAssociations(ids);
+        List<Transaction> transactions = new ArrayList<>(recurrences.size());
+        
+        // Todas as transações do bloco (inclusive as de recuperação) vão em um único INSERT em lote
+        
+        for (RecurringTransaction recurring : recurrences) {
+            if (!shouldCreateTransaction(recurring, today)) {
+                continue;
+            }
             
-            for (RecurringTransaction recurring : toProcess) {
-                if (shouldCreateTransaction(recurring, today)) {
-                    createTransactionFromRecurring(recurring, today);
-                }
+            // Gera também as ocorrências perdidas (job parado, deploy...) desde a próxima ocorrência até hoje
+            LocalDate until = recurring.getEndDate() != null && recurring.getEndDate().isBefore(today)
+                ? recurring.getEndDate()
+                : today;
+            RecurrenceExpander occurrences = RecurrenceExpander.between(recurring.getRecurrenceType(),
+                recurring.getRecurrenceDay(), recurring.getStartDate(), recurring.getNextOccurrenceDate(), until);
+            
+            int generated = 0;
+            LocalDate lastOccurrence = null;
+            while (occurrences.hasNext() && generated < maxCatchUpOccurrences) {
+                lastOccurrence = occurrences.next();
+                transactions.add(buildTransactionFromRecurring(recurring, lastOccurrence));
+                generated++;
             }
+            if (generated == 0) {
+                continue;
+            }
+            
+            // Atualizar recorrência (gravada no commit do bloco)
+            recurring.setCreatedCount(recurring.getCreatedCount() + generated);
+            recurring.setLastCreatedDate(lastOccurrence);
+            recurring.setNextOccurrenceDate(occurrences.hasNext()
+                ? calculateNextOccurrenceFromToday(recurring, today) // Limite de recuperação atingido: retoma a partir de hoje
+                : occurrences.peek());
+        }
+        
+        int created = transactionBatchRepository.insertAll(transactions);
+        budgetAlertService.onExpensesInserted(transactions);
+        
+        // Contador de transações da cota, ajustado após o commit do bloco (um incremento por usuário)
+        Map<Long, Long> createdByUser = transactions.stream()
+            .collect(Collectors.groupingBy(t -> t.getUser().getId(), Collectors.counting()));
+        createdByUser.forEach((userId, count) ->
+            quotaService.recordCreated(userId, QuotaService.Resource.TRANSACTIONS, count.intValue()));
+        return new ChunkResult(ids.get(ids.size() - 1), created);
+    }
+    
+    /**
+     * Após uma falha, apenas descobre o fim do bloco para que o worker não fique preso nele
+     */
+    private ChunkResult skipChunk(LocalDate today, int partition, long afterId) {
+        List<Long> ids = transactionTemplate.execute(status ->
+            recurringRepository.claimDueRecurrenceIds(afterId, today, LocalDateTime.now(),
+                schedulerPartitions, partition, schedulerChunkSize));
+        if (ids == null || ids.isEmpty()) {
+            return null;
         }
+        return new ChunkResult(ids.get(ids.size() - 1), 0);
     }
     
     /**
@@ -185,10 +325,9 @@ public class RecurringTransactionService {
     }
     
     /**
-     * Cria uma transação a partir de uma recorrência
+     * Monta (sem salvar) a transação gerada a partir de uma recorrência
      */
-    @Transactional
-    private void createTransactionFromRecurring(RecurringTransaction recurring, LocalDate occurrenceDate) {
+    private Transaction buildTransactionFromRecurring(RecurringTransaction recurring, LocalDate occurrenceDate) {
         Transaction transaction = new Transaction();
         transaction.setDescription(recurring.getDescription());
         transaction.setAmount(recurring.getAmount());
@@ -200,14 +339,7 @@ public class RecurringTransactionService {
         transaction.setAccount(recurring.getAccount());
         transaction.setIsPaid(false);
         transaction.setIsInstallment(false);
-        
-        transactionRepository.save(transaction);
-        
-        // Atualizar recorrência
-        recurring.setCreatedCount(recurring.getCreatedCount() + 1);
-        recurring.setLastCreatedDate(occurrenceDate);
-        recurring.setNextOccurrenceDate(calculateNextOccurrence(recurring));
-        recurringRepository.save(recurring);
+        return transaction;
     }
     
     /**
@@ -331,5 +463,14 @@ public class RecurringTransactionService {
         
         return dto;
     }
+    
+    private static final class ChunkResult {
+        private final Long lastId; // Último ID reivindicado (null = não há mais recorrências vencidas)
+        private final int created;
+        
+        private ChunkResult(Long lastId, int created) {
+            this.lastId = lastId;
+            this.created = created;
+        }
+    }
 }
-
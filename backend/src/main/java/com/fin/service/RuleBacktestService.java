@@ -0,0 +1,261 @@
+package com.fin.service;
+
+import com.fin.dto.RuleBacktestCandidate;
+import com.fin.dto.RuleBacktestResultDto;
+import com.fin.model.AutomationRule;
+import com.fin.model.Category;
+import com.fin.repository.AutomationRuleRepository;
+import com.fin.repository.CategoryRepository;
+import com.fin.repository.TransactionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+
+/**
+ * Simulação (preview) e aplicação retroativa de uma regra de automação sobre o histórico do usuário.
+ * O histórico é lido por cursor em blocos, cada bloco é avaliado em paralelo e a aplicação
+ * é feita com UPDATEs em massa ({@code WHERE id IN (...)}) em vez de um save por transação.
+ */
+@Service
+public class RuleBacktestService {
+    
+    @Autowired
+    private AutomationRuleRepository automationRuleRepository;
+    
+    @Autowired
+    private TransactionRepository transactionRepository;
+    
+    @Autowired
+    private CategoryRepository categoryRepository;
+    
+    @Autowired
+    @Qualifier("ruleBacktestExecutor")
+    private Executor ruleBacktestExecutor;
+    
+    @Value("${automation.backtest.chunk-size:1000}")
+    private int chunkSize;
+    
+    @Value("${automation.backtest.update-chunk-size:500}")
+    private int updateChunkSize;
+    
+    @Value("${automation.backtest.sample-size:20}")
+    private int sampleSize;
+    
+    /**
+     * Simula a regra sobre todo o histórico, sem alterar nada
+     */
+    @Transactional(readOnly = true)
+    public RuleBacktestResultDto preview(Long ruleId, Long userId) {
+        long start = System.currentTimeMillis();
+        AutomationRule rule = getOwnedRule(ruleId, userId);
+        CompiledRule compiled = CompiledRule.compile(rule, resolveTargetCategory(rule, userId));
+        
+        ScanResult scan = scan(compiled, userId);
+        
+        RuleBacktestResultDto result = buildResult(rule, scan, false);
+        result.setElapsedMillis(System.currentTimeMillis() - start);
+        return result;
+    }
+    
+    /**
+     * Aplica a ação da regra a todas as transações históricas que atendem à condição
+     */
+    @Transactional
+    @CacheEvict(value = SpendingProfileService.SPENDING_PROFILE_CACHE, key = "#userId")
+    public RuleBacktestResultDto applyRetroactively(Long ruleId, Long userId) {
+        long start = System.currentTimeMillis();
+        AutomationRule rule = getOwnedRule(ruleId, userId);
+        Category targetCategory = resolveTargetCategory(rule, userId);
+        
+        if ("AUTO_CATEGORIZE".equals(rule.getActionType()) && targetCategory == null) {
+            throw new RuntimeException("Categoria da regra inválida ou não pertence ao usuário");
+        }
+        if (!"AUTO_CATEGORIZE".equals(rule.getActionType()) && !"AUTO_APPROVE".equals(rule.getActionType())) {
+            throw new RuntimeException("A ação " + rule.getActionType() + " não pode ser aplicada retroativamente");
+        }
+        
+        CompiledRule compiled = CompiledRule.compile(rule, targetCategory);
+        
+        // O cursor é totalmente consumido e fechado antes dos UPDATEs (o driver não permite
+        // outras instruções na conexão enquanto um resultado em streaming está aberto)
+        ScanResult scan = scan(compiled, userId);
+        
+        long updateStart = System.currentTimeMillis();
+        int updated = 0;
+        List<Long> ids = scan.idsToUpdate;
+        for (int i = 0; i < ids.size(); i += updateChunkSize) {
+            List<Long> chunk = ids.subList(i, Math.min(i + updateChunkSize, ids.size()));
+            if ("AUTO_CATEGORIZE".equals(rule.getActionType())) {
+                updated += transactionRepository.bulkUpdateCategory(userId, targetCategory, chunk);
+            } else {
+                updated += transactionRepository.bulkMarkAsPaid(userId, chunk);
+            }
+        }
+        
+        if (updated > 0) {
+            automationRuleRepository.addExecutions(rule.getId(), updated, LocalDateTime.now());
+        }
+        
+        RuleBacktestResultDto result = buildResult(rule, scan, true);
+        result.setUpdatedCount(updated);
+        result.setUpdateMillis(System.currentTimeMillis() - updateStart);
+        result.setElapsedMillis(System.currentTimeMillis() - start);
+        System.out.println("Regra " + rule.getId() + " aplicada retroativamente: " + updated + " transações alteradas");
+        return result;
+    }
+    
+    private ScanResult scan(CompiledRule compiled, Long userId) {
+        long scanStart = System.currentTimeMillis();
+        List<CompletableFuture<ChunkResult>> futures = new ArrayList<>();
+        long scanned = 0;
+        
+        try (Stream<RuleBacktestCandidate> stream = transactionRepository.streamRuleBacktestCandidates(userId)) {
+            List<RuleBacktestCandidate> chunk = new ArrayList<>(chunkSize);
+            for (RuleBacktestCandidate candidate : (Iterable<RuleBacktestCandidate>) stream::iterator) {
+                chunk.add(candidate);
+                scanned++;
+                if (chunk.size() >= chunkSize) {
+                    futures.add(evaluateAsync(compiled, chunk));
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                futures.add(evaluateAsync(compiled, chunk));
+            }
+        }
+        
+        // Junta os blocos na ordem de leitura, para que a amostra seja determinística
+        ScanResult result = new ScanResult();
+        result.scannedCount = scanned;
+        for (CompletableFuture<ChunkResult> future : futures) {
+            ChunkResult chunkResult = future.join();
+            result.matchedCount += chunkResult.matchedCount;
+            result.alreadyAppliedCount += chunkResult.alreadyAppliedCount;
+            for (RuleBacktestCandidate candidate : chunkResult.toUpdate) {
+                result.idsToUpdate.add(candidate.getId());
+                if (result.samples.size() < sampleSize) {
+                    result.samples.add(candidate);
+                }
+            }
+        }
+        result.scanMillis = System.currentTimeMillis() - scanStart;
+        return result;
+    }
+    
+    private CompletableFuture<ChunkResult> evaluateAsync(CompiledRule compiled, List<RuleBacktestCandidate> chunk) {
+        return CompletableFuture.supplyAsync(() -> {
+            ChunkResult result = new ChunkResult();
+            for (RuleBacktestCandidate candidate : chunk) {
+                if (!compiled.matches(candidate)) {
+                    continue;
+                }
+                result.matchedCount++;
+                if (compiled.isAlreadyApplied(candidate)) {
+                    result.alreadyAppliedCount++;
+                } else {
+                    result.toUpdate.add(candidate);
+                }
+            }
+            return result;
+        }, ruleBacktestExecutor);
+    }
+    
+    private AutomationRule getOwnedRule(Long ruleId, Long userId) {
+        AutomationRule rule = automationRuleRepository.findById(ruleId)
+            .orElseThrow(() -> new RuntimeException("Regra não encontrada"));
+        
+        if (!rule.getUser().getId().equals(userId)) {
+            throw new RuntimeException("Acesso negado");
+        }
+        if (!Boolean.TRUE.equals(rule.getIsActive())) {
+            throw new RuntimeException("Regra inativa. Ative a regra antes de simular ou aplicar.");
+        }
+        return rule;
+    }
+    
+    private Category resolveTargetCategory(AutomationRule rule, Long userId) {
+        if (!"AUTO_CATEGORIZE".equals(rule.getActionType()) || rule.getActionValue() == null) {
+            return null;
+        }
+        try {
+            Category category = categoryRepository.findById(Long.parseLong(rule.getActionValue().trim())).orElse(null);
+            return category != null && category.getUser().getId().equals(userId) ? category : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+    
+    private RuleBacktestResultDto buildResult(AutomationRule rule, ScanResult scan, boolean applied) {
+        RuleBacktestResultDto result = new RuleBacktestResultDto();
+        result.setRuleId(rule.getId());
+        result.setRuleName(rule.getName());
+        result.setActionType(rule.getActionType());
+        result.setApplied(applied);
+        result.setScannedCount(scan.scannedCount);
+        result.setMatchedCount(scan.matchedCount);
+        result.setAlreadyAppliedCount(scan.alreadyAppliedCount);
+        result.setScanMillis(scan.scanMillis);
+        result.setSampleMatches(scan.samples);
+        return result;
+    }
+    
+    /**
+     * Regra pré-processada uma única vez para o backtest. A condição é avaliada pelo
+     * {@link RuleConditionMatcher}, o mesmo usado na aplicação das regras.
+     */
+    private static final class CompiledRule {
+        private final RuleConditionMatcher condition;
+        private final String actionType;
+        private final Long targetCategoryId;
+        
+        private CompiledRule(RuleConditionMatcher condition, String actionType, Long targetCategoryId) {
+            this.condition = condition;
+            this.actionType = actionType;
+            this.targetCategoryId = targetCategoryId;
+        }
+        
+        static CompiledRule compile(AutomationRule rule, Category targetCategory) {
+            return new CompiledRule(RuleConditionMatcher.compile(rule.getConditionType(), rule.getConditionValue()),
+                rule.getActionType(), targetCategory != null ? targetCategory.getId() : null);
+        }
+        
+        boolean matches(RuleBacktestCandidate candidate) {
+            return condition.matches(candidate.getDescription(), candidate.getAmount());
+        }
+        
+        boolean isAlreadyApplied(RuleBacktestCandidate candidate) {
+            if ("AUTO_CATEGORIZE".equals(actionType)) {
+                return targetCategoryId == null || targetCategoryId.equals(candidate.getCategoryId());
+            }
+            if ("AUTO_APPROVE".equals(actionType)) {
+                return Boolean.TRUE.equals(candidate.getIsPaid());
+            }
+            return true; // Demais ações não alteram a transação
+        }
+    }
+    
+    private static final class ChunkResult {
+        private long matchedCount;
+        private long alreadyAppliedCount;
+        private final List<RuleBacktestCandidate> toUpdate = new ArrayList<>();
+    }
+    
+    private static final class ScanResult {
+        private long scannedCount;
+        private long matchedCount;
+        private long alreadyAppliedCount;
+        private long scanMillis;
+        private final List<Long> idsToUpdate = new ArrayList<>();
+        private final List<RuleBacktestCandidate> samples = new ArrayList<>();
+    }
+}
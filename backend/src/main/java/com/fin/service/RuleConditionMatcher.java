@@ -0,0 +1,75 @@
+package com.fin.service;
+
+import java.math.BigDecimal;
+
+/**
+ * Condição de uma regra de automação pré-processada (palavra-chave em minúsculas, limites já convertidos).
+ * Usada pela aplicação das regras no backend e pelo backtest, com a mesma semântica do CompiledRuleSet
+ * do transaction-consumer: DATE_PATTERN, tipos desconhecidos e valores inválidos nunca correspondem.
+ * A tabela src/test/resources/automation-rule-conditions.csv é verificada pelos testes dos dois módulos.
+ */
+public final class RuleConditionMatcher {
+    
+    private enum Kind {
+        KEYWORD,      // DESCRIPTION_CONTAINS ou MERCHANT
+        AMOUNT_RANGE,
+        NEVER
+    }
+    
+    private static final RuleConditionMatcher NEVER = new RuleConditionMatcher(Kind.NEVER, null, null, null);
+    
+    private final Kind kind;
+    private final String keyword;
+    private final BigDecimal minAmount;
+    private final BigDecimal maxAmount;
+    
+    private RuleConditionMatcher(Kind kind, String keyword, BigDecimal minAmount, BigDecimal maxAmount) {
+        this.kind = kind;
+        this.keyword = keyword;
+        this.minAmount = minAmount;
+        this.maxAmount = maxAmount;
+    }
+    
+    public static RuleConditionMatcher compile(String conditionType, String conditionValue) {
+        if (conditionType == null || conditionValue == null) {
+            return NEVER;
+        }
+        switch (conditionType) {
+            case "DESCRIPTION_CONTAINS":
+            case "MERCHANT":
+                return new RuleConditionMatcher(Kind.KEYWORD, conditionValue.toLowerCase(), null, null);
+            
+            case "AMOUNT_RANGE":
+                // Formato: "min:max" ou "min:" ou ":max"
+                String[] range = conditionValue.split(":", -1);
+                if (range.length != 2) {
+                    return NEVER;
+                }
+                try {
+                    BigDecimal min = range[0].isEmpty() ? null : new BigDecimal(range[0].trim());
+                    BigDecimal max = range[1].isEmpty() ? null : new BigDecimal(range[1].trim());
+                    return new RuleConditionMatcher(Kind.AMOUNT_RANGE, null, min, max);
+                } catch (NumberFormatException e) {
+                    return NEVER;
+                }
+            
+            default:
+                // DATE_PATTERN não tem avaliação definida: nunca corresponde
+                return NEVER;
+        }
+    }
+    
+    public boolean matches(String description, BigDecimal amount) {
+        switch (kind) {
+            case KEYWORD:
+                return description != null && description.toLowerCase().contains(keyword);
+            case AMOUNT_RANGE:
+                if (amount == null) return false;
+                if (minAmount != null && amount.compareTo(minAmount) < 0) return false;
+                if (maxAmount != null && amount.compareTo(maxAmount) > 0) return false;
+                return true;
+            default:
+                return false;
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package com.fin.service;
+
+import com.fin.dto.CashFlowDayDto;
+import com.fin.dto.CashFlowForecastDto;
+import com.fin.dto.CategoryMonthlySpend;
+import com.fin.dto.ScenarioSimulationDto;
+import com.fin.model.Transaction;
+import com.fin.repository.TransactionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
+
+/**
+ * Simulação de Monte Carlo dos cenários "e se".
+ * A previsão base (lançamentos e recorrências) fica em cache por alguns minutos, já convertida para arrays
+ * de centavos, então mover os sliders só refaz a simulação. Em cada simulação, o gasto mensal de cada categoria
+ * é sorteado de uma normal com média e desvio do histórico do usuário; o desvio em relação à média é somado
+ * às despesas previstas do mês, distribuído pelos dias.
+ */
+@Service
+public class ScenarioSimulationService {
+    
+    private static final int SIMULATIONS_PER_TASK = 250;
+    
+    private final Map<String, BaseScenario> baseCache = new ConcurrentHashMap<>();
+    
+    @Autowired
+    private TransactionRepository transactionRepository;
+    
+    @Autowired
+    @Qualifier("scenarioSimulationPool")
+    private ForkJoinPool scenarioSimulationPool;
+    
+    @Value("${budget.scenarios.simulations:2000}")
+    private int defaultSimulations;
+    
+    @Value("${budget.scenarios.max-simulations:20000}")
+    private int maxSimulations;
+    
+    @Value("${budget.scenarios.history-months:12}")
+    private int historyMonths;
+    
+    @Value("${budget.scenarios.band-points:120}")
+    private int bandPoints;
+    
+    @Value("${budget.scenarios.base-cache-ttl-seconds:120}")
+    private long baseCacheTtlSeconds;
+    
+    @Value("${budget.scenarios.base-cache-max-entries:1000}")
+    private int baseCacheMaxEntries;
+    
+    /**
+     * Previsão base do período (em cache), junto com a distribuição histórica de despesas por categoria
+     */
+    public BaseScenario getBase(Long userId, LocalDate startDate, LocalDate endDate, Long accountId,
+                                Supplier<CashFlowForecastDto> forecastLoader) {
+        String key = userId + ":" + startDate + ":" + endDate + ":" + accountId;
+        long now = System.currentTimeMillis();
+        long ttlMillis = baseCacheTtlSeconds * 1000;
+        
+        BaseScenario cached = baseCache.get(key);
+        if (cached != null && now - cached.loadedAtMillis < ttlMillis) {
+            return cached;
+        }
+        
+        BaseScenario base = buildBase(userId, forecastLoader.get(), now);
+        if (baseCache.size() >= baseCacheMaxEntries) {
+            baseCache.values().removeIf(b -> now - b.loadedAtMillis >= ttlMillis);
+            if (baseCache.size() >= baseCacheMaxEntries) {
+                baseCache.clear();
+            }
+        }
+        baseCache.put(key, base);
+        return base;
+    }
+    
+    /**
+     * @param seed mesma semente para o mesmo usuário/período: os sliders mudam só os ajustes,
+     *             não os sorteios, então as faixas variam de forma suave entre uma posição e outra
+     */
+    public ScenarioSimulationDto simulate(BaseScenario base, BigDecimal incomeAdjustment, BigDecimal expenseAdjustment,
+                                          Integer requestedSimulations, long seed) {
+        long start = System.currentTimeMillis();
+        int simulations = requestedSimulations == null
+            ? defaultSimulations
+            : Math.max(1, Math.min(requestedSimulations, maxSimulations));
+        
+        SimulationRun run = new SimulationRun(base,
+            1 + (incomeAdjustment != null ? incomeAdjustment.doubleValue() : 0),
+            1 + (expenseAdjustment != null ? expenseAdjustment.doubleValue() : 0),
+            bandDayIndexes(base.incomeCents.length), simulations, seed);
+        scenarioSimulationPool.invoke(new SimulationTask(run, 0, simulations));
+        
+        int negative = 0;
+        for (double lowest : run.lowest) {
+            if (lowest < 0) {
+                negative++;
+            }
+        }
+        
+        Arrays.sort(run.ending);
+        Arrays.sort(run.lowest);
+        List<ScenarioSimulationDto.BalanceBand> bands = new ArrayList<>(run.bandDays.length);
+        for (int band = 0; band < run.bandDays.length; band++) {
+            double[] balances = run.bandBalances[band];
+            Arrays.sort(balances);
+            bands.add(new ScenarioSimulationDto.BalanceBand(
+                base.startDate.plusDays(run.bandDays[band]),
+                percentile(balances, 0.10),
+                percentile(balances, 0.50),
+                percentile(balances, 0.90)));
+        }
+        
+        return new ScenarioSimulationDto(
+            simulations,
+            BigDecimal.valueOf(negative).divide(BigDecimal.valueOf(simulations), 4, RoundingMode.HALF_UP),
+            percentile(run.ending, 0.10),
+            percentile(run.ending, 0.50),
+            percentile(run.ending, 0.90),
+            percentile(run.lowest, 0.10),
+            percentile(run.lowest, 0.50),
+            percentile(run.lowest, 0.90),
+            bands,
+            System.currentTimeMillis() - start
+        );
+    }
+    
+    private BaseScenario buildBase(Long userId, CashFlowForecastDto forecast, long loadedAtMillis) {
+        List<CashFlowDayDto> days = forecast.getDailyForecast();
+        int n = days.size();
+        long[] incomeCents = new long[n];
+        long[] expenseCents = new long[n];
+        int[] dayMonth = new int[n];
+        
+        YearMonth firstMonth = YearMonth.from(forecast.getStartDate());
+        for (int i = 0; i < n; i++) {
+            CashFlowDayDto day = days.get(i);
+            incomeCents[i] = CashFlowForecastEngine.toCents(day.getIncome());
+            expenseCents[i] = CashFlowForecastEngine.toCents(day.getExpenses());
+            dayMonth[i] = (int) firstMonth.until(YearMonth.from(day.getDate()), ChronoUnit.MONTHS);
+        }
+        
+        // Peso de cada dia no desvio do mês (um mês cortado pelo período recebe só a fração correspondente)
+        int months = n == 0 ? 0 : dayMonth[n - 1] + 1;
+        double[] monthDayWeight = new double[months];
+        for (int m = 0; m < months; m++) {
+            monthDayWeight[m] = 1.0 / firstMonth.plusMonths(m).lengthOfMonth();
+        }
+        
+        // Distribuição histórica: média e desvio do gasto mensal por categoria (meses sem gasto contam como zero)
+        LocalDate historyEnd = LocalDate.now().withDayOfMonth(1).minusDays(1);
+        LocalDate historyStart = historyEnd.withDayOfMonth(1).minusMonths(historyMonths - 1L);
+        Map<Long, double[]> sums = new HashMap<>();
+        for (CategoryMonthlySpend row : transactionRepository.sumMonthlyByCategory(
+                userId, Transaction.TransactionType.EXPENSE, historyStart, historyEnd)) {
+            double cents = CashFlowForecastEngine.toCents(row.getTotal());
+            double[] s = sums.computeIfAbsent(row.getCategoryId(), id -> new double[2]);
+            s[0] += cents;
+            s[1] += cents * cents;
+        }
+        
+        double[] categoryMean = new double[sums.size()];
+        double[] categoryStd = new double[sums.size()];
+        int categories = 0;
+        for (double[] s : sums.values()) {
+            double mean = s[0] / historyMonths;
+            double std = Math.sqrt(Math.max(0, s[1] / historyMonths - mean * mean));
+            if (std > 0) {
+                categoryMean[categories] = mean;
+                categoryStd[categories] = std;
+                categories++;
+            }
+        }
+        
+        return new BaseScenario(forecast, forecast.getStartDate(),
+            CashFlowForecastEngine.toCents(forecast.getStartingBalance()), incomeCents, expenseCents, dayMonth,
+            monthDayWeight, Arrays.copyOf(categoryMean, categories), Arrays.copyOf(categoryStd, categories),
+            loadedAtMillis);
+    }
+    
+    // Até bandPoints dias igualmente espaçados, sempre incluindo o último
+    private int[] bandDayIndexes(int days) {
+        int points = Math.min(bandPoints, days);
+        int[] indexes = new int[points];
+        for (int i = 0; i < points; i++) {
+            indexes[i] = (int) Math.round((double) (i + 1) * days / points) - 1;
+        }
+        return indexes;
+    }
+    
+    private static BigDecimal percentile(double[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return BigDecimal.ZERO;
+        }
+        int index = Math.min(sorted.length - 1, Math.max(0, (int) Math.ceil(quantile * sorted.length) - 1));
+        return BigDecimal.valueOf(Math.round(sorted[index]), 2);
+    }
+    
+    public static final class BaseScenario {
+        private final CashFlowForecastDto forecast;
+        private final LocalDate startDate;
+        private final long startingCents;
+        private final long[] incomeCents;
+        private final long[] expenseCents;
+        private final int[] dayMonth; // Índice do mês (a partir do primeiro) de cada dia
+        private final double[] monthDayWeight;
+        private final double[] categoryMean; // Centavos por mês
+        private final double[] categoryStd;
+        private final long loadedAtMillis;
+        
+        private BaseScenario(CashFlowForecastDto forecast, LocalDate startDate, long startingCents, long[] incomeCents,
+                             long[] expenseCents, int[] dayMonth, double[] monthDayWeight, double[] categoryMean,
+                             double[] categoryStd, long loadedAtMillis) {
+            this.forecast = forecast;
+            this.startDate = startDate;
+            this.startingCents = startingCents;
+            this.incomeCents = incomeCents;
+            this.expenseCents = expenseCents;
+            this.dayMonth = dayMonth;
+            this.monthDayWeight = monthDayWeight;
+            this.categoryMean = categoryMean;
+            this.categoryStd = categoryStd;
+            this.loadedAtMillis = loadedAtMillis;
+        }
+        
+        // Compartilhada entre requisições: não deve ser alterada
+        public CashFlowForecastDto getForecast() {
+            return forecast;
+        }
+    }
+    
+    /**
+     * Entradas e saídas de uma execução; cada tarefa escreve apenas nas posições das suas simulações
+     */
+    private static final class SimulationRun {
+        private final BaseScenario base;
+        private final double incomeFactor;
+        private final double expenseFactor;
+        private final int[] bandDays;
+        private final long seed;
+        private final double[] ending;
+        private final double[] lowest;
+        private final double[][] bandBalances; // [ponto da faixa][simulação]
+        
+        private SimulationRun(BaseScenario base, double incomeFactor, double expenseFactor, int[] bandDays,
+                              int simulations, long seed) {
+            this.base = base;
+            this.incomeFactor = incomeFactor;
+            this.expenseFactor = expenseFactor;
+            this.bandDays = bandDays;
+            this.seed = seed;
+            this.ending = new double[simulations];
+            this.lowest = new double[simulations];
+            this.bandBalances = new double[bandDays.length][simulations];
+        }
+        
+        private void simulateRange(int from, int to) {
+            // Semente por bloco: o resultado não depende de quantas threads executaram
+            SplittableRandom random = new SplittableRandom(seed + from * 0x9E3779B97F4A7C15L);
+            double[] mean = base.categoryMean;
+            double[] std = base.categoryStd;
+            double[] monthDeviation = new double[base.monthDayWeight.length];
+            
+            for (int sim = from; sim < to; sim++) {
+                for (int m = 0; m < monthDeviation.length; m++) {
+                    double deviation = 0;
+                    for (int c = 0; c < mean.length; c++) {
+                        double spend = mean[c] + std[c] * random.nextGaussian();
+                        deviation += Math.max(0, spend) - mean[c];
+                    }
+                    monthDeviation[m] = deviation * expenseFactor * base.monthDayWeight[m];
+                }
+                
+                double balance = base.startingCents;
+                double low = balance;
+                int band = 0;
+                for (int d = 0; d < base.incomeCents.length; d++) {
+                    balance += base.incomeCents[d] * incomeFactor
+                        - base.expenseCents[d] * expenseFactor
+                        - monthDeviation[base.dayMonth[d]];
+                    if (balance < low) {
+                        low = balance;
+                    }
+                    if (band < bandDays.length && bandDays[band] == d) {
+                        bandBalances[band][sim] = balance;
+                        band++;
+                    }
+                }
+                ending[sim] = balance;
+                lowest[sim] = low;
+            }
+        }
+    }
+    
+    private static final class SimulationTask extends RecursiveAction {
+        private final SimulationRun run;
+        private final int from;
+        private final int to;
+        
+        private SimulationTask(SimulationRun run, int from, int to) {
+            this.run = run;
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected void compute() {
+            if (to - from <= SIMULATIONS_PER_TASK) {
+                run.simulateRange(from, to);
+                return;
+            }
+            int middle = from + Math.max(1, (to - from) / SIMULATIONS_PER_TASK / 2) * SIMULATIONS_PER_TASK;
+            invokeAll(new SimulationTask(run, from, middle), new SimulationTask(run, middle, to));
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package com.fin.service;
+
+import com.fin.dto.ScheduledJobStatusDto;
+import com.fin.model.ScheduledJobRun;
+import com.fin.repository.ScheduledJobRunRepository;
+import com.fin.repository.SchedulerLockRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+
+/**
+ * Coordena os jobs @Scheduled entre as réplicas do backend usando leases na tabela scheduler_locks.
+ * <ul>
+ *   <li>runExclusive: apenas uma instância executa cada disparo do job</li>
+ *   <li>runPartitioned: o trabalho é dividido em partições e cada instância executa as que conseguir reivindicar</li>
+ * </ul>
+ * O lease é renovado enquanto o job roda (lockAtMostFor cobre a queda da instância) e, ao terminar,
+ * fica retido até lockAtLeastFor para que réplicas com relógio levemente atrasado não repitam o disparo.
+ * O histórico em scheduled_job_runs é expurgado diariamente após scheduler.runs.retention-days.
+ */
+@Service
+public class SchedulerCoordinator {
+    
+    @Autowired
+    private SchedulerLockRepository lockRepository;
+    
+    @Autowired
+    private ScheduledJobRunRepository runRepository;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Value("${scheduler.lock-at-most-for:PT30M}")
+    private Duration defaultLockAtMostFor;
+    
+    @Value("${scheduler.lock-at-least-for:PT10M}")
+    private Duration defaultLockAtLeastFor;
+    
+    @Value("${scheduler.runs.retention-days:30}")
+    private int runRetentionDays;
+    
+    @Value("${scheduler.runs.purge-chunk-size:1000}")
+    private int runPurgeChunkSize;
+    
+    private TransactionTemplate requiresNew;
+    
+    private final String instanceId = resolveInstanceId();
+    
+    private final Map<String, JobMetrics> metrics = new ConcurrentHashMap<>();
+    
+    // Proteção contra sobreposição dentro da mesma instância
+    private final Map<String, AtomicBoolean> runningJobs = new ConcurrentHashMap<>();
+    
+    private final ScheduledExecutorService leaseRenewer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "scheduler-lease-renewer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    @PostConstruct
+    public void init() {
+        // Operações de lease e histórico são gravadas na hora, independente da transação do job
+        requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        leaseRenewer.shutdownNow();
+    }
+    
+    /**
+     * Executa o job se esta instância conseguir o lease, com as durações padrão (scheduler.lock-at-*)
+     * @return true se o job foi executado por esta instância
+     */
+    public boolean runExclusive(String jobName, Runnable task) {
+        return runExclusive(jobName, defaultLockAtMostFor, defaultLockAtLeastFor, task);
+    }
+    
+    /**
+     * Executa o job se esta instância conseguir o lease
+     * @return true se o job foi executado por esta instância
+     */
+    public boolean runExclusive(String jobName, Duration lockAtMostFor, Duration lockAtLeastFor, Runnable task) {
+        AtomicBoolean running = runningJobs.computeIfAbsent(jobName, k -> new AtomicBoolean());
+        if (!running.compareAndSet(false, true)) {
+            metricsFor(jobName).skippedOverrun.incrementAndGet();
+            System.out.println("Job " + jobName + " ignorado: execução anterior ainda em andamento nesta instância");
+            return false;
+        }
+        try {
+            return runWithLease(jobName, jobName, null, lockAtMostFor, lockAtLeastFor, task);
+        } finally {
+            running.set(false);
+        }
+    }
+    
+    /**
+     * Divide o job em partições (0..partitions-1) e executa as que esta instância conseguir reivindicar.
+     * Cada instância começa por uma partição aleatória para espalhar o trabalho entre as réplicas.
+     * A falha de uma partição fica registrada no histórico e não impede as demais.
+     * @return número de partições executadas com sucesso por esta instância
+     */
+    public int runPartitioned(String jobName, int partitions, Duration lockAtMostFor, Duration lockAtLeastFor,
+                              IntConsumer partitionTask) {
+        AtomicBoolean running = runningJobs.computeIfAbsent(jobName, k -> new AtomicBoolean());
+        if (!running.compareAndSet(false, true)) {
+            metricsFor(jobName).skippedOverrun.incrementAndGet();
+            System.out.println("Job " + jobName + " ignorado: execução anterior ainda em andamento nesta instância");
+            return 0;
+        }
+        try {
+            int executed = 0;
+            int offset = ThreadLocalRandom.current().nextInt(partitions);
+            for (int i = 0; i < partitions; i++) {
+                int partition = (offset + i) % partitions;
+                try {
+                    if (runWithLease(jobName, jobName + "#" + partition, partition, lockAtMostFor, lockAtLeastFor,
+                            () -> partitionTask.accept(partition))) {
+                        executed++;
+                    }
+                } catch (RuntimeException e) {
+                    System.err.println("Erro na partição " + partition + " do job " + jobName + ": " + e.getMessage());
+                }
+            }
+            return executed;
+        } finally {
+            running.set(false);
+        }
+    }
+    
+    @Scheduled(cron = "${scheduler.runs.purge-cron:0 15 4 * * *}") // Madrugada, depois dos jobs noturnos
+    public void purgeRunHistory() {
+        runExclusive("scheduled-job-runs-retention", () -> {
+            LocalDateTime before = LocalDateTime.now().minusDays(runRetentionDays);
+            int purged = 0;
+            int deleted;
+            do {
+                Integer chunk = requiresNew.execute(status -> runRepository.deleteStartedBefore(before, runPurgeChunkSize));
+                deleted = chunk != null ? chunk : 0;
+                purged += deleted;
+            } while (deleted == runPurgeChunkSize);
+            System.out.println("Histórico de jobs: " + purged + " execuções anteriores a " + before + " removidas");
+        });
+    }
+    
+    public List<ScheduledJobStatusDto> getJobStatuses() {
+        List<ScheduledJobStatusDto> statuses = new ArrayList<>();
+        for (Map.Entry<String, JobMetrics> entry : new TreeMap<>(metrics).entrySet()) {
+            JobMetrics m = entry.getValue();
+            long runs = m.runs.get();
+            ScheduledJobStatusDto dto = new ScheduledJobStatusDto();
+            dto.setJobName(entry.getKey());
+            dto.setRuns(runs);
+            dto.setFailures(m.failures.get());
+            dto.setSkippedLockHeld(m.skippedLockHeld.get());
+            dto.setSkippedOverrun(m.skippedOverrun.get());
+            dto.setLastDurationMillis(m.lastDurationMillis);
+            dto.setAverageDurationMillis(runs > 0 ? m.totalDurationMillis.get() / runs : null);
+            dto.setLastRunAt(m.lastRunAt);
+            dto.setLastStatus(m.lastStatus);
+            dto.setRecentRuns(runRepository.findByJobNameOrderByStartedAtDesc(entry.getKey(), PageRequest.of(0, 20)));
+            statuses.add(dto);
+        }
+        return statuses;
+    }
+    
+    public String getInstanceId() {
+        return instanceId;
+    }
+    
+    private boolean runWithLease(String jobName, String lockName, Integer partition,
+                                 Duration lockAtMostFor, Duration lockAtLeastFor, Runnable task) {
+        JobMetrics jobMetrics = metricsFor(jobName);
+        
+        if (!tryAcquire(lockName, lockAtMostFor)) {
+            jobMetrics.skippedLockHeld.incrementAndGet();
+            return false;
+        }
+        
+        LocalDateTime startedAt = LocalDateTime.now();
+        long start = System.currentTimeMillis();
+        ScheduledJobRun run = startRun(jobName, partition, startedAt);
+        
+        // Renovar o lease enquanto o job roda, para que execuções longas não o percam
+        long renewEveryMillis = Math.max(1000, lockAtMostFor.toMillis() / 3);
+        ScheduledFuture<?> renewal = leaseRenewer.scheduleAtFixedRate(
+            () -> renewLease(lockName, lockAtMostFor), renewEveryMillis, renewEveryMillis, TimeUnit.MILLISECONDS);
+        
+        String error = null;
+        try {
+            task.run();
+            return true;
+        } catch (RuntimeException e) {
+            error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            renewal.cancel(false);
+            long duration = System.currentTimeMillis() - start;
+            
+            // Reter o lease por pelo menos lockAtLeastFor desde o início
+            LocalDateTime releaseAt = startedAt.plus(lockAtLeastFor);
+            releaseLease(lockName, releaseAt.isAfter(LocalDateTime.now()) ? releaseAt : LocalDateTime.now());
+            finishRun(run, duration, error);
+            
+            jobMetrics.runs.incrementAndGet();
+            jobMetrics.totalDurationMillis.addAndGet(duration);
+            jobMetrics.lastDurationMillis = duration;
+            jobMetrics.lastRunAt = startedAt;
+            jobMetrics.lastStatus = error == null ? ScheduledJobRun.RunStatus.SUCCEEDED.name() : ScheduledJobRun.RunStatus.FAILED.name();
+            if (error != null) {
+                jobMetrics.failures.incrementAndGet();
+            }
+        }
+    }
+    
+    private boolean tryAcquire(String lockName, Duration lockAtMostFor) {
+        try {
+            Integer acquired = requiresNew.execute(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                lockRepository.insertIfAbsent(lockName, now);
+                return lockRepository.tryAcquire(lockName, instanceId, now, now.plus(lockAtMostFor));
+            });
+            return acquired != null && acquired == 1;
+        } catch (Exception e) {
+            System.err.println("Erro ao adquirir lease " + lockName + ": " + e.getMessage());
+            return false;
+        }
+    }
+    
+    private void renewLease(String lockName, Duration lockAtMostFor) {
+        try {
+            requiresNew.executeWithoutResult(status ->
+                lockRepository.updateLease(lockName, instanceId, LocalDateTime.now().plus(lockAtMostFor)));
+        } catch (Exception e) {
+            System.err.println("Erro ao renovar lease " + lockName + ": " + e.getMessage());
+        }
+    }
+    
+    private void releaseLease(String lockName, LocalDateTime until) {
+        try {
+            requiresNew.executeWithoutResult(status -> lockRepository.updateLease(lockName, instanceId, until));
+        } catch (Exception e) {
+            // Se falhar, o lease expira sozinho em lockAtMostFor
+            System.err.println("Erro ao liberar lease " + lockName + ": " + e.getMessage());
+        }
+    }
+    
+    private ScheduledJobRun startRun(String jobName, Integer partition, LocalDateTime startedAt) {
+        ScheduledJobRun run = new ScheduledJobRun();
+        run.setJobName(jobName);
+        run.setPartitionIndex(partition);
+        run.setInstanceId(instanceId);
+        run.setStatus(ScheduledJobRun.RunStatus.RUNNING);
+        run.setStartedAt(startedAt);
+        try {
+            return requiresNew.execute(status -> runRepository.save(run));
+        } catch (Exception e) {
+            System.err.println("Erro ao registrar execução do job " + jobName + ": " + e.getMessage());
+            return run;
+        }
+    }
+    
+    private void finishRun(ScheduledJobRun run, long durationMillis, String error) {
+        run.setFinishedAt(LocalDateTime.now());
+        run.setDurationMillis(durationMillis);
+        run.setStatus(error == null ? ScheduledJobRun.RunStatus.SUCCEEDED : ScheduledJobRun.RunStatus.FAILED);
+        run.setErrorMessage(error);
+        if (run.getId() == null) {
+            return;
+        }
+        try {
+            requiresNew.executeWithoutResult(status -> runRepository.save(run));
+        } catch (Exception e) {
+            System.err.println("Erro ao registrar fim do job " + run.getJobName() + ": " + e.getMessage());
+        }
+    }
+    
+    private JobMetrics metricsFor(String jobName) {
+        return metrics.computeIfAbsent(jobName, k -> new JobMetrics());
+    }
+    
+    private static String resolveInstanceId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+    
+    private static final class JobMetrics {
+        private final AtomicLong runs = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong skippedLockHeld = new AtomicLong();
+        private final AtomicLong skippedOverrun = new AtomicLong();
+        private final AtomicLong totalDurationMillis = new AtomicLong();
+        private volatile Long lastDurationMillis;
+        private volatile LocalDateTime lastRunAt;
+        private volatile String lastStatus;
+    }
+}
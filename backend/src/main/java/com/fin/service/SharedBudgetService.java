@@ -11,7 +11,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -29,6 +31,9 @@ public class SharedBudgetService {
     @Autowired
     private PlanLimitsService planLimitsService;
     
+    @Autowired
+    private BudgetSpendCalculator budgetSpendCalculator;
+    
     /**
      * Compartilha um orçamento com outro usuário
      */
@@ -61,7 +66,7 @@ public class SharedBudgetService {
         sharedBudget.setPermission(SharedBudget.PermissionType.valueOf(permission));
         
         sharedBudget = sharedBudgetRepository.save(sharedBudget);
-        return convertToDto(sharedBudget);
+        return convertToDto(sharedBudget, budgetSpendCalculator.calculateSpent(List.of(sharedBudget.getBudget())));
     }
     
     /**
@@ -69,9 +74,7 @@ public class SharedBudgetService {
      */
     public List<SharedBudgetDto> getSharedBudgetsWithMe(Long userId) {
         List<SharedBudget> shared = sharedBudgetRepository.findBySharedUserId(userId);
-        return shared.stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return convertAll(shared);
     }
     
     /**
@@ -79,9 +82,7 @@ public class SharedBudgetService {
      */
     public List<SharedBudgetDto> getBudgetsIShared(Long userId) {
         List<SharedBudget> shared = sharedBudgetRepository.findByOwnerId(userId);
-        return shared.stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return convertAll(shared);
     }
     
     /**
@@ -113,7 +114,16 @@ public class SharedBudgetService {
         return sharedBudgetRepository.existsByBudgetIdAndSharedUserId(budgetId, userId);
     }
     
-    private SharedBudgetDto convertToDto(SharedBudget sharedBudget) {
+    // Gasto de todos os orçamentos da lista em uma única consulta
+    private List<SharedBudgetDto> convertAll(List<SharedBudget> shared) {
+        Map<Long, BigDecimal> spentByBudget = budgetSpendCalculator.calculateSpent(
+                shared.stream().map(SharedBudget::getBudget).collect(Collectors.toList()));
+        return shared.stream()
+                .map(sharedBudget -> convertToDto(sharedBudget, spentByBudget))
+                .collect(Collectors.toList());
+    }
+    
+    private SharedBudgetDto convertToDto(SharedBudget sharedBudget, Map<Long, BigDecimal> spentByBudget) {
         SharedBudgetDto dto = new SharedBudgetDto();
         dto.setId(sharedBudget.getId());
         dto.setBudgetId(sharedBudget.getBudget().getId());
@@ -131,6 +141,11 @@ public class SharedBudgetService {
         budgetDto.setLimitAmount(sharedBudget.getBudget().getLimitAmount());
         budgetDto.setStartDate(sharedBudget.getBudget().getStartDate());
         budgetDto.setEndDate(sharedBudget.getBudget().getEndDate());
+        
+        BigDecimal spent = spentByBudget.getOrDefault(sharedBudget.getBudget().getId(), BigDecimal.ZERO);
+        budgetDto.setCurrentSpent(spent);
+        budgetDto.setRemaining(sharedBudget.getBudget().getLimitAmount().subtract(spent));
+        budgetDto.setPercentageUsed(BudgetSpendCalculator.percentageUsed(spent, sharedBudget.getBudget().getLimitAmount()));
         dto.setBudget(budgetDto);
         
         return dto;
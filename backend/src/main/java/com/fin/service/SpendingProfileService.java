@@ -0,0 +1,91 @@
+package com.fin.service;
+
+import com.fin.dto.SpendingProfile;
+import com.fin.dto.SpendingProfileRow;
+import com.fin.model.Transaction;
+import com.fin.repository.TransactionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Perfil de gastos por usuário compartilhado pelas sugestões de metas, análise financeira e detecção de anomalias.
+ * O perfil vem de uma única consulta agrupada e fica em cache até a próxima alteração de transações do usuário
+ * (evict no backend e no transaction-consumer) ou até a virada do mês.
+ */
+@Service
+public class SpendingProfileService {
+    
+    public static final String SPENDING_PROFILE_CACHE = "spending-profile";
+    
+    @Autowired
+    private TransactionRepository transactionRepository;
+    
+    @Autowired
+    private CacheManager cacheManager;
+    
+    @Value("${spending-profile.months:6}")
+    private int profileMonths;
+    
+    public SpendingProfile getProfile(Long userId) {
+        YearMonth currentMonth = YearMonth.now();
+        Cache cache = cacheManager.getCache(SPENDING_PROFILE_CACHE);
+        
+        SpendingProfile cached = cache != null ? cache.get(userId, SpendingProfile.class) : null;
+        if (cached != null && currentMonth.toString().equals(cached.getMonth())) {
+            return cached;
+        }
+        
+        SpendingProfile profile = computeProfile(userId, currentMonth);
+        if (cache != null) {
+            cache.put(userId, profile);
+        }
+        return profile;
+    }
+    
+    public void evict(Long userId) {
+        Cache cache = cacheManager.getCache(SPENDING_PROFILE_CACHE);
+        if (cache != null) {
+            cache.evict(userId);
+        }
+    }
+    
+    private SpendingProfile computeProfile(Long userId, YearMonth currentMonth) {
+        LocalDate since = LocalDate.now().minusMonths(profileMonths);
+        List<SpendingProfileRow> rows = transactionRepository.aggregateSpendingProfile(
+            userId, since, currentMonth.atDay(1), currentMonth.atEndOfMonth());
+        
+        List<SpendingProfile.CategoryAverage> categoryAverages = new ArrayList<>();
+        BigDecimal currentMonthIncome = BigDecimal.ZERO;
+        BigDecimal currentMonthExpense = BigDecimal.ZERO;
+        
+        for (SpendingProfileRow row : rows) {
+            BigDecimal monthTotal = row.getCurrentMonthTotal() != null ? row.getCurrentMonthTotal() : BigDecimal.ZERO;
+            if (row.getType() == Transaction.TransactionType.INCOME) {
+                currentMonthIncome = currentMonthIncome.add(monthTotal);
+                continue;
+            }
+            
+            currentMonthExpense = currentMonthExpense.add(monthTotal);
+            if (row.getCategoryId() != null && row.getWindowTotal() != null) {
+                BigDecimal average = row.getWindowTotal().divide(BigDecimal.valueOf(profileMonths), 2, RoundingMode.HALF_UP);
+                categoryAverages.add(new SpendingProfile.CategoryAverage(row.getCategoryId(), row.getCategoryName(), average));
+            }
+        }
+        
+        categoryAverages.sort(Comparator.comparing(SpendingProfile.CategoryAverage::getMonthlyAverage).reversed());
+        
+        return new SpendingProfile(currentMonth.toString(), profileMonths, categoryAverages,
+            currentMonthIncome, currentMonthExpense);
+    }
+}
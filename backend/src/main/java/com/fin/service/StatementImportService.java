@@ -0,0 +1,402 @@
+package com.fin.service;
+
+import com.fin.dto.StatementImportBatchMessage;
+import com.fin.dto.StatementImportJobDto;
+import com.fin.dto.StatementLine;
+import com.fin.model.StatementImportJob;
+import com.fin.repository.StatementImportJobRepository;
+import com.fin.repository.TransactionFingerprintRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
+
+/**
+ * Importação de extratos bancários (OFX/CSV). O upload vai para um arquivo temporário e é lido em streaming
+ * por uma thread do statementImportExecutor; a cada lote de lançamentos, os que já existem (mesma data,
+ * valor e descrição normalizada) são descartados e o restante é publicado no tópico de importação, onde
+ * o transaction-consumer grava o lote de uma vez e aplica as regras de automação.
+ */
+@Service
+public class StatementImportService {
+    
+    private static final Set<StatementImportJob.JobStatus> READING_STATUSES =
+        EnumSet.of(StatementImportJob.JobStatus.PENDING, StatementImportJob.JobStatus.PARSING);
+    
+    private static final Set<StatementImportJob.JobStatus> WRITING_STATUSES =
+        EnumSet.of(StatementImportJob.JobStatus.PROCESSING);
+    
+    private static final int MAX_DESCRIPTION_LENGTH = 255;
+    private static final String DEFAULT_DESCRIPTION = "Lançamento importado";
+    
+    @Autowired
+    private StatementImportJobRepository jobRepository;
+    
+    @Autowired
+    private TransactionFingerprintRepository fingerprintRepository;
+    
+    @Autowired
+    private StatementParser statementParser;
+    
+    @Autowired
+    private KafkaTransactionProducer kafkaTransactionProducer;
+    
+    @Autowired
+    private SubscriptionService subscriptionService;
+    
+    @Autowired
+    private PlanLimitsService planLimitsService;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    @Qualifier("statementImportExecutor")
+    private Executor statementImportExecutor;
+    
+    @Value("${import.batch-size:500}")
+    private int batchSize;
+    
+    @Value("${import.stale-minutes:30}")
+    private long staleMinutes;
+    
+    @Value("${import.recent-limit:10}")
+    private int recentLimit;
+    
+    private TransactionTemplate transactionTemplate;
+    
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+    
+    /**
+     * Recebe o arquivo e agenda a leitura; o progresso é acompanhado por {@link #getJob}
+     */
+    public StatementImportJobDto startImport(Long userId, MultipartFile file) {
+        // Mesmas validações da criação de transações: o consumer grava os lotes sem verificar o plano
+        if (!subscriptionService.isSubscriptionActive(userId)) {
+            throw new RuntimeException("Assinatura expirada. Renove sua assinatura para continuar.");
+        }
+        
+        if (!planLimitsService.canCreateTransaction(userId)) {
+            throw new RuntimeException("Limite de transações atingido para seu plano. Faça upgrade para criar mais transações.");
+        }
+        
+        if (file == null || file.isEmpty()) {
+            throw new RuntimeException("Arquivo de extrato vazio");
+        }
+        StatementImportJob.Format format = detectFormat(file.getOriginalFilename());
+        
+        Path tempFile;
+        try {
+            tempFile = Files.createTempFile("statement-import-", "." + format.name().toLowerCase(Locale.ROOT));
+            file.transferTo(tempFile);
+        } catch (IOException e) {
+            throw new RuntimeException("Erro ao receber o arquivo de extrato: " + e.getMessage());
+        }
+        
+        StatementImportJob job = new StatementImportJob();
+        job.setUserId(userId);
+        job.setFileName(file.getOriginalFilename());
+        job.setFormat(format);
+        job.setUpdatedAt(LocalDateTime.now());
+        job = jobRepository.save(job);
+        
+        Long jobId = job.getId();
+        try {
+            statementImportExecutor.execute(() -> run(jobId, userId, format, tempFile));
+        } catch (RejectedExecutionException e) {
+            deleteQuietly(tempFile);
+            jobRepository.delete(job);
+            throw new RuntimeException("Muitas importações em andamento. Tente novamente em alguns instantes.");
+        }
+        
+        System.out.println("Importação de extrato agendada - JobId: " + jobId + ", UserId: " + userId
+            + ", Arquivo: " + file.getOriginalFilename() + " (" + file.getSize() + " bytes)");
+        return toDto(job);
+    }
+    
+    public StatementImportJobDto getJob(Long userId, Long jobId) {
+        failStaleJobs(userId);
+        StatementImportJob job = jobRepository.findByIdAndUserId(jobId, userId)
+                .orElseThrow(() -> new RuntimeException("Importação não localizada"));
+        return toDto(job);
+    }
+    
+    public List<StatementImportJobDto> getRecentJobs(Long userId) {
+        failStaleJobs(userId);
+        return jobRepository.findByUserIdOrderByCreatedAtDesc(userId, PageRequest.of(0, recentLimit)).stream()
+                .map(this::toDto)
+                .collect(Collectors.toList());
+    }
+    
+    private void run(Long jobId, Long userId, StatementImportJob.Format format, Path file) {
+        long start = System.currentTimeMillis();
+        ImportRun run = new ImportRun(jobId, userId);
+        try {
+            Integer started = transactionTemplate.execute(status -> jobRepository.markParsing(jobId, LocalDateTime.now()));
+            if (started == null || started == 0) {
+                // A fila demorou mais que staleMinutes e o job já foi marcado como falho
+                System.err.println("Importação de extrato não está mais pendente - JobId: " + jobId);
+                return;
+            }
+            
+            try (InputStream in = Files.newInputStream(file)) {
+                if (format == StatementImportJob.Format.OFX) {
+                    statementParser.parseOfx(in, run);
+                } else {
+                    statementParser.parseCsv(in, run);
+                }
+            }
+            run.flush();
+            
+            transactionTemplate.executeWithoutResult(status ->
+                jobRepository.finishParsing(jobId, run.batchNumber, LocalDateTime.now()));
+            
+            System.out.println("Leitura do extrato concluída - JobId: " + jobId + ", Lançamentos: " + run.totalLines
+                + ", Publicados: " + run.publishedCount + ", Duplicados: " + run.duplicateCount
+                + ", Inválidos: " + run.invalidCount + ", Lotes: " + run.batchNumber
+                + ", Tempo: " + (System.currentTimeMillis() - start) + "ms");
+        } catch (Exception e) {
+            System.err.println("Erro na importação de extrato - JobId: " + jobId + ": " + e.getMessage());
+            e.printStackTrace();
+            String message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            transactionTemplate.executeWithoutResult(status ->
+                jobRepository.markFailed(jobId, message, LocalDateTime.now()));
+        } finally {
+            deleteQuietly(file);
+        }
+    }
+    
+    /**
+     * Estado de uma importação em andamento. Guarda só o lote corrente e, para a deduplicação, a contagem
+     * de impressões digitais das transações já existentes no intervalo de datas coberto até agora
+     * (o intervalo só cresce, então cada dia é lido do banco uma única vez).
+     */
+    private class ImportRun implements StatementParser.LineHandler {
+        private final Long jobId;
+        private final Long userId;
+        private final MessageDigest digest;
+        private final List<StatementLine> pending = new ArrayList<>();
+        private final Map<Long, Integer> existing = new HashMap<>();
+        private LocalDate loadedFrom;
+        private LocalDate loadedTo;
+        
+        private long totalLines;
+        private long invalidCount;
+        private long duplicateCount;
+        private long publishedCount;
+        private int batchNumber;
+        
+        private ImportRun(Long jobId, Long userId) {
+            this.jobId = jobId;
+            this.userId = userId;
+            try {
+                this.digest = MessageDigest.getInstance("SHA-1");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        
+        @Override
+        public void onLine(StatementLine line) {
+            totalLines++;
+            if (line.getAmount().signum() == 0) {
+                invalidCount++;
+                return;
+            }
+            pending.add(line);
+            if (pending.size() >= batchSize) {
+                flush();
+            }
+        }
+        
+        @Override
+        public void onInvalid(long lineNumber) {
+            totalLines++;
+            invalidCount++;
+        }
+        
+        private void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            
+            LocalDate from = pending.get(0).getDate();
+            LocalDate to = from;
+            for (StatementLine line : pending) {
+                if (line.getDate().isBefore(from)) {
+                    from = line.getDate();
+                }
+                if (line.getDate().isAfter(to)) {
+                    to = line.getDate();
+                }
+            }
+            ensureLoaded(from, to);
+            
+            List<StatementImportBatchMessage.Line> lines = new ArrayList<>(pending.size());
+            for (StatementLine line : pending) {
+                String description = truncate(line.getDescription());
+                long fingerprint = fingerprint(line.getDate(), line.getAmount(), description);
+                Integer remaining = existing.get(fingerprint);
+                if (remaining != null) {
+                    // Cada transação existente absorve um único lançamento do arquivo
+                    if (remaining > 1) {
+                        existing.put(fingerprint, remaining - 1);
+                    } else {
+                        existing.remove(fingerprint);
+                    }
+                    duplicateCount++;
+                    continue;
+                }
+                lines.add(new StatementImportBatchMessage.Line(
+                    line.getDate(),
+                    description,
+                    line.getAmount().abs(),
+                    line.getAmount().signum() < 0 ? "EXPENSE" : "INCOME"
+                ));
+            }
+            pending.clear();
+            
+            if (!lines.isEmpty()) {
+                batchNumber++;
+                kafkaTransactionProducer.sendImportBatch(new StatementImportBatchMessage(jobId, userId, batchNumber, lines));
+                publishedCount += lines.size();
+            }
+            
+            transactionTemplate.executeWithoutResult(status -> jobRepository.updateParseProgress(
+                jobId, totalLines, invalidCount, duplicateCount, publishedCount, batchNumber, LocalDateTime.now()));
+        }
+        
+        private void ensureLoaded(LocalDate from, LocalDate to) {
+            if (loadedFrom == null) {
+                load(from, to);
+                loadedFrom = from;
+                loadedTo = to;
+                return;
+            }
+            if (from.isBefore(loadedFrom)) {
+                load(from, loadedFrom.minusDays(1));
+                loadedFrom = from;
+            }
+            if (to.isAfter(loadedTo)) {
+                load(loadedTo.plusDays(1), to);
+                loadedTo = to;
+            }
+        }
+        
+        private void load(LocalDate from, LocalDate to) {
+            fingerprintRepository.streamByPeriod(userId, from, to, jobId, rs -> {
+                BigDecimal amount = rs.getBigDecimal(3);
+                BigDecimal signed = "EXPENSE".equals(rs.getString(2)) ? amount.negate() : amount;
+                existing.merge(fingerprint(rs.getDate(1).toLocalDate(), signed, rs.getString(4)), 1, Integer::sum);
+            });
+        }
+        
+        // 64 bits do SHA-1 de data|valor com sinal|descrição normalizada
+        private long fingerprint(LocalDate date, BigDecimal signedAmount, String description) {
+            String key = date + "|" + signedAmount.setScale(2, RoundingMode.HALF_UP).toPlainString()
+                + "|" + StatementParser.normalize(description);
+            return ByteBuffer.wrap(digest.digest(key.getBytes(StandardCharsets.UTF_8))).getLong();
+        }
+    }
+    
+    private void failStaleJobs(Long userId) {
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> jobRepository.failStale(
+            userId, READING_STATUSES, now.minusMinutes(staleMinutes),
+            "Leitura do arquivo interrompida. Envie o extrato novamente.", now));
+        // O consumer atualiza updated_at a cada lote gravado: sem progresso nesse tempo, um lote foi descartado
+        transactionTemplate.executeWithoutResult(status -> jobRepository.failStale(
+            userId, WRITING_STATUSES, now.minusMinutes(staleMinutes),
+            "Gravação do extrato interrompida. Confira as transações importadas e envie o extrato novamente.", now));
+    }
+    
+    private StatementImportJob.Format detectFormat(String fileName) {
+        String name = fileName != null ? fileName.toLowerCase(Locale.ROOT) : "";
+        if (name.endsWith(".ofx") || name.endsWith(".qfx")) {
+            return StatementImportJob.Format.OFX;
+        }
+        if (name.endsWith(".csv") || name.endsWith(".txt")) {
+            return StatementImportJob.Format.CSV;
+        }
+        throw new RuntimeException("Formato de extrato não suportado. Envie um arquivo OFX ou CSV.");
+    }
+    
+    private String truncate(String description) {
+        if (description == null || description.isBlank()) {
+            return DEFAULT_DESCRIPTION;
+        }
+        String trimmed = description.trim();
+        return trimmed.length() > MAX_DESCRIPTION_LENGTH ? trimmed.substring(0, MAX_DESCRIPTION_LENGTH) : trimmed;
+    }
+    
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            System.err.println("Erro ao remover arquivo temporário de importação " + file + ": " + e.getMessage());
+        }
+    }
+    
+    private StatementImportJobDto toDto(StatementImportJob job) {
+        Double progress = null;
+        if (job.getStatus() == StatementImportJob.JobStatus.COMPLETED) {
+            progress = 100.0;
+        } else {
+            Integer denominator = job.getTotalBatches() != null ? job.getTotalBatches() : job.getPublishedBatches();
+            if (denominator != null && denominator > 0) {
+                progress = Math.min(100.0, job.getProcessedBatches() * 100.0 / denominator);
+            }
+        }
+        
+        return new StatementImportJobDto(
+            job.getId(),
+            job.getFileName(),
+            job.getFormat().name(),
+            job.getStatus().name(),
+            job.getTotalLines(),
+            job.getInvalidCount(),
+            job.getDuplicateCount(),
+            job.getPublishedCount(),
+            job.getImportedCount(),
+            job.getPublishedBatches(),
+            job.getProcessedBatches(),
+            job.getTotalBatches(),
+            progress,
+            job.getErrorMessage(),
+            job.getStartedAt(),
+            job.getFinishedAt(),
+            job.getCreatedAt()
+        );
+    }
+}
@@ -0,0 +1,378 @@
+package com.fin.service;
+
+import com.fin.dto.StatementLine;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Leitura de extratos bancários em streaming: cada lançamento é entregue ao handler assim que é lido,
+ * sem carregar o arquivo. OFX 1.x (SGML, tags sem fechamento, às vezes tudo em uma linha) e 2.x (XML)
+ * passam pelo mesmo tokenizador; o CSV aceita ';', ',' ou tab e reconhece as colunas pelo cabeçalho.
+ */
+@Component
+public class StatementParser {
+    
+    public interface LineHandler {
+        void onLine(StatementLine line);
+        
+        // Lançamento sem data ou valor legível (numeração a partir de 1, na ordem do arquivo)
+        void onInvalid(long lineNumber);
+    }
+    
+    private static final Charset WINDOWS_1252 = Charset.forName("windows-1252");
+    private static final int SNIFF_BYTES = 4096;
+    private static final int MAX_VALUE_LENGTH = 1000; // Protege contra arquivos malformados sem '<'
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final BigDecimal MAX_AMOUNT = new BigDecimal("100000000"); // Limite de DECIMAL(10,2)
+    
+    private static final DateTimeFormatter[] DATE_FORMATS = {
+        DateTimeFormatter.ofPattern("dd/MM/yyyy"),
+        DateTimeFormatter.ofPattern("yyyy-MM-dd"),
+        DateTimeFormatter.ofPattern("dd-MM-yyyy"),
+        DateTimeFormatter.ofPattern("dd.MM.yyyy"),
+        DateTimeFormatter.ofPattern("dd/MM/yy"),
+        DateTimeFormatter.BASIC_ISO_DATE
+    };
+    
+    // TRNTYPEs de saída que alguns bancos enviam com valor positivo
+    private static final List<String> OFX_DEBIT_TYPES = List.of(
+        "DEBIT", "PAYMENT", "CHECK", "ATM", "POS", "FEE", "SRVCHG", "DIRECTDEBIT");
+    
+    public void parseOfx(InputStream input, LineHandler handler) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(input);
+        Reader reader = new BufferedReader(new InputStreamReader(in, detectCharset(in)));
+        
+        Map<String, String> record = null; // Campos do <STMTTRN> corrente
+        String currentTag = null;
+        StringBuilder text = new StringBuilder();
+        StringBuilder tag = new StringBuilder();
+        long count = 0;
+        
+        int c;
+        while ((c = reader.read()) != -1) {
+            if (c != '<') {
+                if (record != null && currentTag != null && text.length() < MAX_VALUE_LENGTH) {
+                    text.append((char) c);
+                }
+                continue;
+            }
+            
+            if (record != null && currentTag != null) {
+                String value = unescapeOfx(text.toString().trim());
+                if (!value.isEmpty()) {
+                    record.put(currentTag, value);
+                }
+            }
+            text.setLength(0);
+            
+            tag.setLength(0);
+            while ((c = reader.read()) != -1 && c != '>') {
+                if (tag.length() < 64) {
+                    tag.append((char) c);
+                }
+            }
+            String name = tag.toString().trim().toUpperCase(Locale.ROOT);
+            
+            if (name.equals("STMTTRN")) {
+                record = new HashMap<>();
+                currentTag = null;
+            } else if (name.equals("/STMTTRN")) {
+                if (record != null) {
+                    emitOfx(record, ++count, handler);
+                }
+                record = null;
+                currentTag = null;
+            } else {
+                currentTag = name.startsWith("/") ? null : name;
+            }
+        }
+    }
+    
+    public void parseCsv(InputStream input, LineHandler handler) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(input);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, detectCharset(in)));
+        
+        String first = reader.readLine();
+        while (first != null && first.isBlank()) {
+            first = reader.readLine();
+        }
+        if (first == null) {
+            return;
+        }
+        if (first.startsWith("\uFEFF")) {
+            first = first.substring(1);
+        }
+        
+        char delimiter = detectDelimiter(first);
+        List<String> header = splitCsv(first, delimiter);
+        int dateColumn = -1;
+        int descriptionColumn = -1;
+        int amountColumn = -1;
+        int typeColumn = -1;
+        for (int i = 0; i < header.size(); i++) {
+            String name = normalize(header.get(i));
+            if (dateColumn < 0 && (name.contains("data") || name.contains("date"))) {
+                dateColumn = i;
+            } else if (amountColumn < 0 && (name.contains("valor") || name.contains("amount") || name.contains("value"))) {
+                amountColumn = i;
+            } else if (typeColumn < 0 && (name.equals("tipo") || name.equals("type") || name.equals("d c") || name.equals("natureza"))) {
+                typeColumn = i;
+            } else if (descriptionColumn < 0 && (name.contains("descri") || name.contains("histor") || name.contains("memo")
+                    || name.contains("lancamento") || name.contains("estabelecimento") || name.contains("titul")
+                    || name.contains("title"))) {
+                descriptionColumn = i;
+            }
+        }
+        
+        long lineNumber = 0;
+        if (dateColumn < 0 || amountColumn < 0 || descriptionColumn < 0) {
+            // Sem cabeçalho reconhecível: data, descrição, valor; a primeira linha já é um lançamento
+            dateColumn = 0;
+            descriptionColumn = 1;
+            amountColumn = 2;
+            typeColumn = -1;
+            emitCsv(splitCsv(first, delimiter), ++lineNumber, dateColumn, descriptionColumn, amountColumn, typeColumn, handler);
+        }
+        
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            emitCsv(splitCsv(line, delimiter), ++lineNumber, dateColumn, descriptionColumn, amountColumn, typeColumn, handler);
+        }
+    }
+    
+    /**
+     * Descrição normalizada usada na impressão digital da deduplicação: sem acentos, minúscula, só letras e dígitos
+     */
+    public static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        String plain = DIACRITICS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD)).replaceAll("");
+        StringBuilder sb = new StringBuilder(plain.length());
+        boolean space = false;
+        for (int i = 0; i < plain.length(); i++) {
+            char ch = Character.toLowerCase(plain.charAt(i));
+            if ((ch >= 'a' && ch <= 'z') || (ch >= '0' && ch <= '9')) {
+                if (space && sb.length() > 0) {
+                    sb.append(' ');
+                }
+                sb.append(ch);
+                space = false;
+            } else {
+                space = true;
+            }
+        }
+        return sb.toString();
+    }
+    
+    /**
+     * Valor em formato brasileiro (1.234,56) ou internacional (1,234.56), com sinal, parênteses ou '-' no final.
+     * Um único separador entre um grupo de 1 a 3 dígitos e exatamente três dígitos é de milhar (1.234 e 1,234 = 1234).
+     * Valores que não cabem na coluna amount (DECIMAL(10,2)) ou com mais de 2 casas são inválidos (null).
+     */
+    static BigDecimal parseAmount(String raw) {
+        if (raw == null) {
+            return null;
+        }
+        String s = raw.replace("R$", "").replace("\u00A0", "").replace(" ", "").trim();
+        boolean negative = false;
+        if (s.startsWith("(") && s.endsWith(")") && s.length() > 2) {
+            negative = true;
+            s = s.substring(1, s.length() - 1);
+        }
+        if (s.endsWith("-") && s.length() > 1) {
+            negative = !negative;
+            s = s.substring(0, s.length() - 1);
+        }
+        
+        int lastComma = s.lastIndexOf(',');
+        int lastDot = s.lastIndexOf('.');
+        if (lastComma >= 0 && lastDot >= 0) {
+            // Os dois separadores: o último é o decimal
+            s = lastComma > lastDot ? s.replace(".", "").replace(',', '.') : s.replace(",", "");
+        } else if (lastComma >= 0 || lastDot >= 0) {
+            char separator = lastComma >= 0 ? ',' : '.';
+            int last = Math.max(lastComma, lastDot);
+            String leading = s.substring(0, s.indexOf(separator)).replaceFirst("^[+-]", "");
+            boolean thousands = s.indexOf(separator) != last
+                || (s.length() - last - 1 == 3 && leading.length() <= 3 && !leading.isEmpty() && !leading.startsWith("0"));
+            s = thousands ? s.replace(String.valueOf(separator), "") : s.replace(separator, '.');
+        }
+        
+        BigDecimal value;
+        try {
+            value = new BigDecimal(s);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (value.stripTrailingZeros().scale() > 2 || value.abs().compareTo(MAX_AMOUNT) >= 0) {
+            return null;
+        }
+        value = value.setScale(2, RoundingMode.UNNECESSARY);
+        return negative ? value.negate() : value;
+    }
+    
+    static LocalDate parseDate(String raw) {
+        if (raw == null) {
+            return null;
+        }
+        String s = raw.trim();
+        int cut = s.indexOf(' ');
+        if (cut < 0) {
+            cut = s.indexOf('T');
+        }
+        if (cut > 0) {
+            s = s.substring(0, cut);
+        }
+        for (DateTimeFormatter format : DATE_FORMATS) {
+            try {
+                return LocalDate.parse(s, format);
+            } catch (DateTimeParseException ignored) {
+                // Tenta o próximo formato
+            }
+        }
+        return null;
+    }
+    
+    private void emitOfx(Map<String, String> record, long lineNumber, LineHandler handler) {
+        String posted = record.get("DTPOSTED");
+        LocalDate date = posted != null && posted.length() >= 8 ? parseDate(posted.substring(0, 8)) : null;
+        BigDecimal amount = parseAmount(record.get("TRNAMT"));
+        if (date == null || amount == null) {
+            handler.onInvalid(lineNumber);
+            return;
+        }
+        if (amount.signum() > 0 && OFX_DEBIT_TYPES.contains(record.get("TRNTYPE"))) {
+            amount = amount.negate();
+        }
+        
+        String description = record.get("MEMO");
+        if (description == null || description.isBlank()) {
+            description = record.get("NAME");
+        }
+        handler.onLine(new StatementLine(date, amount, description));
+    }
+    
+    private void emitCsv(List<String> fields, long lineNumber, int dateColumn, int descriptionColumn,
+                         int amountColumn, int typeColumn, LineHandler handler) {
+        LocalDate date = dateColumn < fields.size() ? parseDate(fields.get(dateColumn)) : null;
+        BigDecimal amount = amountColumn < fields.size() ? parseAmount(fields.get(amountColumn)) : null;
+        if (date == null || amount == null) {
+            handler.onInvalid(lineNumber);
+            return;
+        }
+        
+        if (typeColumn >= 0 && typeColumn < fields.size()) {
+            String type = normalize(fields.get(typeColumn));
+            boolean debit = type.equals("d") || type.startsWith("deb") || type.startsWith("saida") || type.equals("expense");
+            boolean credit = type.equals("c") || type.startsWith("cred") || type.startsWith("entrada") || type.equals("income");
+            if (debit) {
+                amount = amount.abs().negate();
+            } else if (credit) {
+                amount = amount.abs();
+            }
+        }
+        
+        String description = descriptionColumn < fields.size() ? fields.get(descriptionColumn).trim() : null;
+        handler.onLine(new StatementLine(date, amount, description));
+    }
+    
+    private static List<String> splitCsv(String line, char delimiter) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char ch = line.charAt(i);
+            if (quoted) {
+                if (ch == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(ch);
+                }
+            } else if (ch == '"') {
+                quoted = true;
+            } else if (ch == delimiter) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(ch);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+    
+    private static char detectDelimiter(String header) {
+        int semicolons = 0;
+        int commas = 0;
+        int tabs = 0;
+        for (int i = 0; i < header.length(); i++) {
+            char ch = header.charAt(i);
+            if (ch == ';') semicolons++;
+            else if (ch == ',') commas++;
+            else if (ch == '\t') tabs++;
+        }
+        if (tabs > semicolons && tabs > commas) {
+            return '\t';
+        }
+        return commas > semicolons ? ',' : ';';
+    }
+    
+    // Olha só o início do arquivo: cabeçalho do OFX 1.x (CHARSET:1252) ou, na falta dele, se os bytes são UTF-8 válido
+    private static Charset detectCharset(BufferedInputStream in) throws IOException {
+        in.mark(SNIFF_BYTES);
+        byte[] head = in.readNBytes(SNIFF_BYTES);
+        in.reset();
+        
+        String ascii = new String(head, StandardCharsets.ISO_8859_1).toUpperCase(Locale.ROOT);
+        if (ascii.contains("CHARSET:1252") || ascii.contains("ENCODING=\"WINDOWS-1252\"")) {
+            return WINDOWS_1252;
+        }
+        
+        // Sem endOfInput, um caractere multibyte cortado no fim do bloco não conta como erro
+        CoderResult result = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT)
+            .decode(ByteBuffer.wrap(head), CharBuffer.allocate(head.length), head.length < SNIFF_BYTES);
+        return result.isError() ? WINDOWS_1252 : StandardCharsets.UTF_8;
+    }
+    
+    private static String unescapeOfx(String value) {
+        if (value.indexOf('&') < 0) {
+            return value;
+        }
+        return value.replace("&lt;", "<").replace("&gt;", ">").replace("&quot;", "\"").replace("&amp;", "&");
+    }
+}
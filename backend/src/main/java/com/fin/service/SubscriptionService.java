@@ -6,22 +6,36 @@ import com.fin.model.User;
 import com.fin.repository.SubscriptionRepository;
 import com.fin.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.List;
+import java.time.ZoneId;
 
 @Service
 public class SubscriptionService {
     
+    public static final String SUBSCRIPTION_STATUS_CACHE = "subscription-status";
+    
     @Autowired
     private SubscriptionRepository subscriptionRepository;
     
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private SchedulerCoordinator schedulerCoordinator;
+    
+    @Autowired
+    private CacheManager cacheManager;
+    
+    @Autowired
+    private QuotaService quotaService;
+    
     public Subscription getUserSubscriptionEntity(Long userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("Usuário não encontrado"));
@@ -36,6 +50,7 @@ public class SubscriptionService {
     }
     
     @Transactional
+    @CacheEvict(value = SUBSCRIPTION_STATUS_CACHE, key = "#userId")
     public SubscriptionDto updateSubscription(Long userId, Subscription.SubscriptionPlan plan) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("Usuário não encontrado"));
@@ -53,42 +68,55 @@ public class SubscriptionService {
         subscription.setEndDate(LocalDateTime.now().plusDays(plan.getDays()));
         
         subscription = subscriptionRepository.save(subscription);
+        quotaService.evict(userId); // Limites do plano mudaram
         return convertToDto(subscription);
     }
     
     @Scheduled(cron = "0 0 0 * * ?") // Executa diariamente à meia-noite
     @Transactional
     public void checkExpiredSubscriptions() {
-        List<Subscription> subscriptions = subscriptionRepository.findAll();
-        LocalDateTime now = LocalDateTime.now();
-        
-        for (Subscription subscription : subscriptions) {
-            if (subscription.getEndDate() != null && 
-                subscription.getEndDate().isBefore(now) && 
-                subscription.getIsActive()) {
-                subscription.setIsActive(false);
-                subscriptionRepository.save(subscription);
-            }
-        }
+        schedulerCoordinator.runExclusive("subscription-expiry", this::expireSubscriptions);
+    }
+    
+    private void expireSubscriptions() {
+        int expired = subscriptionRepository.expireEndedBefore(LocalDateTime.now());
+        System.out.println("Assinaturas expiradas: " + expired);
     }
     
+    /**
+     * Leitura pura (não grava no banco). O cache guarda o instante até o qual a assinatura está ativa,
+     * então o vencimento é percebido sem depender do job da meia-noite nem de evicção.
+     */
     public boolean isSubscriptionActive(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("Usuário não encontrado"));
+        return getActiveUntil(userId) > System.currentTimeMillis();
+    }
+    
+    private long getActiveUntil(Long userId) {
+        Cache cache = cacheManager.getCache(SUBSCRIPTION_STATUS_CACHE);
+        Cache.ValueWrapper cached = cache != null ? cache.get(userId) : null;
+        if (cached != null && cached.get() instanceof Number) {
+            return ((Number) cached.get()).longValue();
+        }
         
-        Subscription subscription = subscriptionRepository.findByUser(user).orElse(null);
+        long activeUntil = subscriptionRepository.findByUserId(userId)
+                .map(SubscriptionService::calculateActiveUntil)
+                .orElse(0L);
         
-        if (subscription == null || !subscription.getIsActive()) {
-            return false;
+        if (cache != null) {
+            cache.put(userId, activeUntil);
         }
-        
-        if (subscription.getEndDate() != null && subscription.getEndDate().isBefore(LocalDateTime.now())) {
-            subscription.setIsActive(false);
-            subscriptionRepository.save(subscription);
-            return false;
+        return activeUntil;
+    }
+    
+    // 0 = inativa; Long.MAX_VALUE = ativa sem data de término
+    static long calculateActiveUntil(Subscription subscription) {
+        if (!Boolean.TRUE.equals(subscription.getIsActive())) {
+            return 0L;
         }
-        
-        return true;
+        if (subscription.getEndDate() == null) {
+            return Long.MAX_VALUE;
+        }
+        return subscription.getEndDate().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
     }
     
     private SubscriptionDto convertToDto(Subscription subscription) {
@@ -1,5 +1,8 @@
 package com.fin.service;
 
+import com.fin.dto.AttachmentUploadConfirmRequest;
+import com.fin.dto.AttachmentUploadRequest;
+import com.fin.dto.AttachmentUploadUrlDto;
 import com.fin.dto.TransactionAttachmentDto;
 import com.fin.model.Transaction;
 import com.fin.model.TransactionAttachment;
@@ -7,37 +10,37 @@ import com.fin.model.User;
 import com.fin.repository.TransactionAttachmentRepository;
 import com.fin.repository.TransactionRepository;
 import com.fin.repository.UserRepository;
-import io.minio.BucketExistsArgs;
-import io.minio.MakeBucketArgs;
-import io.minio.MinioClient;
-import io.minio.PutObjectArgs;
-import io.minio.GetObjectArgs;
-import io.minio.RemoveObjectArgs;
+import io.minio.StatObjectResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.InputStream;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Service
 public class TransactionAttachmentService {
     
-    @Value("${minio.endpoint:http://localhost:9000}")
-    private String minioEndpoint;
+    @Value("${minio.bucket-name:fin-attachments}")
+    private String bucketName;
     
-    @Value("${minio.access-key:minioadmin}")
-    private String minioAccessKey;
+    @Value("${spring.servlet.multipart.max-file-size:10MB}")
+    private DataSize maxFileSize;
     
-    @Value("${minio.secret-key:minioadmin123}")
-    private String minioSecretKey;
+    @Value("${attachments.upload-url-expiry-seconds:900}")
+    private int uploadUrlExpirySeconds;
     
-    @Value("${minio.bucket-name:fin-attachments}")
-    private String bucketName;
+    @Value("${attachments.download-url-expiry-seconds:300}")
+    private int downloadUrlExpirySeconds;
+    
+    @Autowired
+    private MinioService minioService;
     
     @Autowired
     private TransactionAttachmentRepository attachmentRepository;
@@ -51,27 +54,8 @@ public class TransactionAttachmentService {
     @Autowired
     private SubscriptionService subscriptionService;
     
-    private MinioClient minioClient;
-    
-    private MinioClient getMinioClient() {
-        if (minioClient == null) {
-            minioClient = MinioClient.builder()
-                    .endpoint(minioEndpoint)
-                    .credentials(minioAccessKey, minioSecretKey)
-                    .build();
-            
-            // Criar bucket se não existir
-            try {
-                boolean found = minioClient.bucketExists(BucketExistsArgs.builder().bucket(bucketName).build());
-                if (!found) {
-                    minioClient.makeBucket(MakeBucketArgs.builder().bucket(bucketName).build());
-                }
-            } catch (Exception e) {
-                throw new RuntimeException("Erro ao configurar MinIO: " + e.getMessage());
-            }
-        }
-        return minioClient;
-    }
+    @Autowired
+    private QuotaService quotaService;
     
     /**
      * Faz upload de um anexo para uma transação
@@ -79,43 +63,16 @@ public class TransactionAttachmentService {
     @Transactional
     public TransactionAttachmentDto uploadAttachment(Long transactionId, MultipartFile file, String description, Long userId) {
         // Verificar se o usuário tem assinatura ativa
-        if (!subscriptionService.isSubscriptionActive(userId)) {
-            throw new RuntimeException("Assinatura expirada. Renove sua assinatura para continuar.");
-        }
-        
-        // Verificar se a transação pertence ao usuário
-        Transaction transaction = transactionRepository.findById(transactionId)
-                .orElseThrow(() -> new RuntimeException("Transação não encontrada"));
-        
-        if (!transaction.getUser().getId().equals(userId)) {
-            throw new RuntimeException("Acesso negado");
-        }
+        requireActiveSubscription(userId);
         
+        Transaction transaction = loadOwnedTransaction(transactionId, userId);
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("Usuário não encontrado"));
         
-        // Gerar nome único para o arquivo
-        String originalFileName = file.getOriginalFilename();
-        String fileExtension = originalFileName != null && originalFileName.contains(".") 
-            ? originalFileName.substring(originalFileName.lastIndexOf(".")) 
-            : "";
-        String uniqueFileName = UUID.randomUUID().toString() + fileExtension;
-        
         // Salvar arquivo no MinIO
-        String objectName = "transactions/" + transactionId + "/" + uniqueFileName;
-        try {
-            MinioClient client = getMinioClient();
-            client.putObject(
-                PutObjectArgs.builder()
-                    .bucket(bucketName)
-                    .object(objectName)
-                    .stream(file.getInputStream(), file.getSize(), -1)
-                    .contentType(file.getContentType())
-                    .build()
-            );
-        } catch (Exception e) {
-            throw new RuntimeException("Erro ao fazer upload para MinIO: " + e.getMessage());
-        }
+        String originalFileName = file.getOriginalFilename();
+        String objectName = newObjectName(transactionId, originalFileName);
+        minioService.uploadFile(bucketName, objectName, file);
         
         // Criar registro no banco
         TransactionAttachment attachment = new TransactionAttachment();
@@ -128,20 +85,91 @@ public class TransactionAttachmentService {
         attachment.setDescription(description);
         
         attachment = attachmentRepository.save(attachment);
+        quotaService.recordCreated(userId, QuotaService.Resource.ATTACHMENTS);
         
         return convertToDto(attachment);
     }
     
     /**
-     * Lista anexos de uma transação
+     * Gera o formulário pré-assinado para o cliente enviar o anexo direto ao MinIO, sem passar pelo backend.
+     * O arquivo fica em PENDING_PREFIX (apagado pela regra de ciclo de vida do bucket) e o anexo só passa a
+     * existir depois de {@link #confirmUpload}, que o copia para o nome definitivo.
      */
-    public List<TransactionAttachmentDto> getTransactionAttachments(Long transactionId, Long userId) {
-        Transaction transaction = transactionRepository.findById(transactionId)
-                .orElseThrow(() -> new RuntimeException("Transação não encontrada"));
+    public AttachmentUploadUrlDto createUploadUrl(Long transactionId, AttachmentUploadRequest request, Long userId) {
+        // Verificar se o usuário tem assinatura ativa
+        requireActiveSubscription(userId);
         
-        if (!transaction.getUser().getId().equals(userId)) {
-            throw new RuntimeException("Acesso negado");
+        loadOwnedTransaction(transactionId, userId);
+        
+        if (request.getFileSize() != null && request.getFileSize() > maxFileSize.toBytes()) {
+            throw new RuntimeException("Arquivo excede o tamanho máximo de " + maxFileSize.toMegabytes() + "MB");
+        }
+        
+        String objectName = MinioService.PENDING_PREFIX + newObjectName(transactionId, request.getFileName());
+        Map<String, String> formData = minioService.getUploadForm(bucketName, objectName, maxFileSize.toBytes(), uploadUrlExpirySeconds);
+        return new AttachmentUploadUrlDto(objectName, minioService.getUploadFormUrl(bucketName), formData, uploadUrlExpirySeconds);
+    }
+    
+    /**
+     * Registra o anexo enviado pelo formulário pré-assinado. O objeto pendente é copiado para um nome que nenhuma
+     * política de upload cobre, então um novo envio com o mesmo formulário não altera o anexo confirmado.
+     * Tamanho e tipo vêm da cópia gravada no MinIO, não do que o cliente declarou.
+     */
+    @Transactional
+    public TransactionAttachmentDto confirmUpload(Long transactionId, AttachmentUploadConfirmRequest request, Long userId) {
+        // Verificar se o usuário tem assinatura ativa
+        requireActiveSubscription(userId);
+        
+        Transaction transaction = loadOwnedTransaction(transactionId, userId);
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("Usuário não encontrado"));
+        
+        // O objeto precisa ser um dos gerados para esta transação
+        String pendingPrefix = MinioService.PENDING_PREFIX + objectPrefix(transactionId);
+        String pendingName = request.getObjectName();
+        if (pendingName == null || !pendingName.startsWith(pendingPrefix)
+                || pendingName.indexOf('/', pendingPrefix.length()) >= 0) {
+            throw new RuntimeException("Upload inválido para esta transação");
         }
+        String objectName = pendingName.substring(MinioService.PENDING_PREFIX.length());
+        if (attachmentRepository.existsByFilePath(objectName)) {
+            throw new RuntimeException("Upload já confirmado");
+        }
+        
+        if (!minioService.copyFile(bucketName, pendingName, objectName)) {
+            throw new RuntimeException("Arquivo não enviado ao armazenamento");
+        }
+        minioService.deleteFilesAfterRollback(bucketName, List.of(objectName));
+        
+        StatObjectResponse stat = minioService.statFile(bucketName, objectName);
+        if (stat == null) {
+            throw new RuntimeException("Arquivo não enviado ao armazenamento");
+        }
+        if (stat.size() > maxFileSize.toBytes()) {
+            throw new RuntimeException("Arquivo excede o tamanho máximo de " + maxFileSize.toMegabytes() + "MB");
+        }
+        
+        TransactionAttachment attachment = new TransactionAttachment();
+        attachment.setTransaction(transaction);
+        attachment.setUser(user);
+        attachment.setFileName(request.getFileName() != null ? request.getFileName() : objectName.substring(objectName.lastIndexOf('/') + 1));
+        attachment.setFilePath(objectName);
+        attachment.setFileType(stat.contentType() != null ? stat.contentType() : "application/octet-stream");
+        attachment.setFileSize(stat.size());
+        attachment.setDescription(request.getDescription());
+        
+        attachment = attachmentRepository.save(attachment);
+        quotaService.recordCreated(userId, QuotaService.Resource.ATTACHMENTS);
+        minioService.deleteFilesAfterCommit(bucketName, List.of(pendingName));
+        
+        return convertToDto(attachment);
+    }
+    
+    /**
+     * Lista anexos de uma transação
+     */
+    public List<TransactionAttachmentDto> getTransactionAttachments(Long transactionId, Long userId) {
+        loadOwnedTransaction(transactionId, userId);
         
         List<TransactionAttachment> attachments = attachmentRepository.findByTransactionId(transactionId);
         return attachments.stream()
@@ -153,12 +181,7 @@ public class TransactionAttachmentService {
      * Obtém um anexo específico
      */
     public TransactionAttachmentDto getAttachment(Long attachmentId, Long userId) {
-        TransactionAttachment attachment = attachmentRepository.findById(attachmentId)
-                .orElseThrow(() -> new RuntimeException("Anexo não encontrado"));
-        
-        if (!attachment.getUser().getId().equals(userId)) {
-            throw new RuntimeException("Acesso negado");
-        }
+        TransactionAttachment attachment = loadOwnedAttachment(attachmentId, userId);
         
         return convertToDto(attachment);
     }
@@ -168,52 +191,98 @@ public class TransactionAttachmentService {
      */
     @Transactional
     public void deleteAttachment(Long attachmentId, Long userId) {
-        TransactionAttachment attachment = attachmentRepository.findById(attachmentId)
-                .orElseThrow(() -> new RuntimeException("Anexo não encontrado"));
+        TransactionAttachment attachment = loadOwnedAttachment(attachmentId, userId);
         
-        if (!attachment.getUser().getId().equals(userId)) {
-            throw new RuntimeException("Acesso negado");
+        // Deletar registro; o arquivo sai do MinIO em segundo plano, depois do commit
+        attachmentRepository.delete(attachment);
+        quotaService.recordDeleted(userId, QuotaService.Resource.ATTACHMENTS);
+        minioService.deleteFilesAfterCommit(bucketName, List.of(attachment.getFilePath()));
+    }
+    
+    /**
+     * Remove os anexos de uma transação que vai ser excluída (chamar dentro da transação da exclusão)
+     */
+    public void deleteTransactionAttachments(Long transactionId) {
+        List<String> filePaths = attachmentRepository.findFilePathsByTransactionId(transactionId);
+        if (!filePaths.isEmpty()) {
+            attachmentRepository.deleteAllByTransactionId(transactionId);
+            minioService.deleteFilesAfterCommit(bucketName, filePaths);
         }
-        
-        // Deletar arquivo do MinIO
-        try {
-            MinioClient client = getMinioClient();
-            client.removeObject(
-                RemoveObjectArgs.builder()
-                    .bucket(bucketName)
-                    .object(attachment.getFilePath())
-                    .build()
-            );
-        } catch (Exception e) {
-            throw new RuntimeException("Erro ao deletar arquivo do MinIO: " + e.getMessage());
+    }
+    
+    /**
+     * Remove todos os anexos de um usuário que vai ser excluído (chamar dentro da transação da exclusão)
+     */
+    public void deleteUserAttachments(Long userId) {
+        List<String> filePaths = attachmentRepository.findFilePathsByUserId(userId);
+        if (!filePaths.isEmpty()) {
+            attachmentRepository.deleteAllByUserId(userId);
+            minioService.deleteFilesAfterCommit(bucketName, filePaths);
         }
-        
-        // Deletar registro
-        attachmentRepository.delete(attachment);
     }
     
     /**
      * Obtém o arquivo do MinIO
      */
     public InputStream getAttachmentFile(Long attachmentId, Long userId) {
+        TransactionAttachment attachment = loadOwnedAttachment(attachmentId, userId);
+        return minioService.getFile(bucketName, attachment.getFilePath());
+    }
+    
+    /**
+     * Obtém um trecho do arquivo do MinIO (download com Range); length null = até o fim
+     */
+    public InputStream getAttachmentFile(Long attachmentId, Long userId, long offset, Long length) {
+        TransactionAttachment attachment = loadOwnedAttachment(attachmentId, userId);
+        return minioService.getFile(bucketName, attachment.getFilePath(), offset, length);
+    }
+    
+    /**
+     * URL pré-assinada de curta duração para o cliente baixar o anexo direto do MinIO
+     */
+    public String getDownloadUrl(Long attachmentId, Long userId) {
+        TransactionAttachment attachment = loadOwnedAttachment(attachmentId, userId);
+        return minioService.getFileUrl(bucketName, attachment.getFilePath(), downloadUrlExpirySeconds, attachment.getFileName());
+    }
+    
+    private void requireActiveSubscription(Long userId) {
+        if (!subscriptionService.isSubscriptionActive(userId)) {
+            throw new RuntimeException("Assinatura expirada. Renove sua assinatura para continuar.");
+        }
+    }
+    
+    private Transaction loadOwnedTransaction(Long transactionId, Long userId) {
+        Transaction transaction = transactionRepository.findById(transactionId)
+                .orElseThrow(() -> new RuntimeException("Transação não encontrada"));
+        
+        if (!transaction.getUser().getId().equals(userId)) {
+            throw new RuntimeException("Acesso negado");
+        }
+        return transaction;
+    }
+    
+    private TransactionAttachment loadOwnedAttachment(Long attachmentId, Long userId) {
         TransactionAttachment attachment = attachmentRepository.findById(attachmentId)
                 .orElseThrow(() -> new RuntimeException("Anexo não encontrado"));
         
         if (!attachment.getUser().getId().equals(userId)) {
             throw new RuntimeException("Acesso negado");
         }
-        
-        try {
-            MinioClient client = getMinioClient();
-            return client.getObject(
-                GetObjectArgs.builder()
-                    .bucket(bucketName)
-                    .object(attachment.getFilePath())
-                    .build()
-            );
-        } catch (Exception e) {
-            throw new RuntimeException("Erro ao obter arquivo do MinIO: " + e.getMessage());
-        }
+        return attachment;
+    }
+    
+    private String objectPrefix(Long transactionId) {
+        return "transactions/" + transactionId + "/";
+    }
+    
+    /**
+     * Nome único do objeto no MinIO, preservando a extensão do arquivo original
+     */
+    private String newObjectName(Long transactionId, String originalFileName) {
+        String fileExtension = originalFileName != null && originalFileName.contains(".") 
+            ? originalFileName.substring(originalFileName.lastIndexOf(".")).replaceAll("[^a-zA-Z0-9.]", "")
+            : "";
+        return objectPrefix(transactionId) + UUID.randomUUID().toString() + fileExtension;
     }
     
     private TransactionAttachmentDto convertToDto(TransactionAttachment attachment) {
@@ -0,0 +1,284 @@
+package com.fin.service;
+
+import com.fin.repository.TransactionExportRepository;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.concurrent.Semaphore;
+
+import static com.fin.repository.TransactionExportRepository.*;
+
+/**
+ * Exportação das transações em CSV ou XLSX escrita direto no OutputStream da resposta.
+ * As linhas vêm do banco em streaming e vão para a saída uma a uma; no XLSX o SXSSF mantém só
+ * uma janela de linhas na memória e despeja o resto em arquivo temporário. O heap usado não depende
+ * do número de transações. Cada exportação segura uma conexão do pool enquanto dura, por isso
+ * o número de exportações simultâneas por instância é limitado.
+ */
+@Service
+public class TransactionExportService {
+    
+    public enum Format {
+        CSV,
+        XLSX
+    }
+    
+    private static final String[] HEADERS = {
+        "Data", "Descrição", "Tipo", "Valor", "Categoria", "Conta", "Pago", "Vencimento", "Data pagamento", "Parcela"
+    };
+    
+    // Limite de linhas de uma planilha do Excel (contando o cabeçalho)
+    private static final int MAX_SHEET_ROWS = 1_048_576;
+    
+    @Autowired
+    private TransactionExportRepository transactionExportRepository;
+    
+    @Autowired
+    private PlanLimitsService planLimitsService;
+    
+    @Value("${export.max-concurrent:4}")
+    private int maxConcurrent;
+    
+    @Value("${export.xlsx.window-size:100}")
+    private int xlsxWindowSize;
+    
+    private Semaphore permits;
+    
+    @PostConstruct
+    public void init() {
+        permits = new Semaphore(maxConcurrent);
+    }
+    
+    /**
+     * Valida o plano e reserva uma vaga de exportação; chamar antes de começar a escrever a resposta
+     */
+    public void acquire(Long userId) {
+        if (!planLimitsService.canExportData(userId)) {
+            throw new RuntimeException("Exportação de transações disponível a partir do plano Básico.");
+        }
+        if (!permits.tryAcquire()) {
+            throw new RuntimeException("Muitas exportações em andamento. Tente novamente em alguns instantes.");
+        }
+    }
+    
+    /**
+     * Devolve a vaga reservada em {@link #acquire}; chamar em um finally logo após o acquire
+     */
+    public void release() {
+        permits.release();
+    }
+    
+    /**
+     * Escreve a exportação (a vaga é reservada e liberada por quem chama: {@link #acquire} / {@link #release})
+     */
+    public void export(Long userId, Format format, LocalDate startDate, LocalDate endDate, Long categoryId,
+                       OutputStream out) throws IOException {
+        long start = System.currentTimeMillis();
+        try {
+            long rows = format == Format.XLSX
+                ? writeXlsx(userId, startDate, endDate, categoryId, out)
+                : writeCsv(userId, startDate, endDate, categoryId, out);
+            
+            long elapsed = Math.max(1, System.currentTimeMillis() - start);
+            System.out.println("Exportação " + format + " concluída - UserId: " + userId + ", Linhas: " + rows
+                + ", Tempo: " + elapsed + "ms, Linhas/s: " + (rows * 1000 / elapsed));
+        } catch (UncheckedIOException e) {
+            // Cliente desconectou no meio do download
+            System.err.println("Exportação interrompida - UserId: " + userId + ": " + e.getCause().getMessage());
+            throw e.getCause();
+        }
+    }
+    
+    private long writeCsv(Long userId, LocalDate startDate, LocalDate endDate, Long categoryId,
+                          OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 16 * 1024);
+        // BOM para o Excel reconhecer UTF-8; separador ';' porque a vírgula é o separador decimal no pt-BR
+        writer.write('\uFEFF');
+        writer.write(String.join(";", HEADERS));
+        writer.write("\r\n");
+        
+        long[] count = {0};
+        transactionExportRepository.streamByUser(userId, startDate, endDate, categoryId, rs -> {
+            try {
+                writer.write(formatDate(rs.getDate(COL_DATE)));
+                writer.write(';');
+                writer.write(escapeCsv(rs.getString(COL_DESCRIPTION)));
+                writer.write(';');
+                writer.write(formatType(rs.getString(COL_TYPE)));
+                writer.write(';');
+                BigDecimal amount = rs.getBigDecimal(COL_AMOUNT);
+                writer.write(amount != null ? amount.toPlainString().replace('.', ',') : "");
+                writer.write(';');
+                writer.write(escapeCsv(rs.getString(COL_CATEGORY)));
+                writer.write(';');
+                writer.write(escapeCsv(rs.getString(COL_ACCOUNT)));
+                writer.write(';');
+                writer.write(formatPaid(rs));
+                writer.write(';');
+                writer.write(formatDate(rs.getDate(COL_DUE_DATE)));
+                writer.write(';');
+                writer.write(formatDate(rs.getDate(COL_PAID_DATE)));
+                writer.write(';');
+                writer.write(formatInstallment(rs));
+                writer.write("\r\n");
+                count[0]++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        writer.flush();
+        return count[0];
+    }
+    
+    private long writeXlsx(Long userId, LocalDate startDate, LocalDate endDate, Long categoryId,
+                           OutputStream out) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(xlsxWindowSize);
+        workbook.setCompressTempFiles(true);
+        try {
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("dd/mm/yyyy"));
+            CellStyle amountStyle = workbook.createCellStyle();
+            amountStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("#,##0.00"));
+            // O valor da célula fica intacto; o prefixo de texto só impede que o Excel a trate como fórmula ao editar
+            CellStyle textStyle = workbook.createCellStyle();
+            textStyle.setQuotePrefixed(true);
+            
+            Sheet[] sheet = {newSheet(workbook, 1)};
+            int[] rowIndex = {1};
+            long[] count = {0};
+            
+            transactionExportRepository.streamByUser(userId, startDate, endDate, categoryId, rs -> {
+                if (rowIndex[0] >= MAX_SHEET_ROWS) {
+                    sheet[0] = newSheet(workbook, workbook.getNumberOfSheets() + 1);
+                    rowIndex[0] = 1;
+                }
+                Row row = sheet[0].createRow(rowIndex[0]++);
+                setDate(row, 0, rs.getDate(COL_DATE), dateStyle);
+                setText(row, 1, rs.getString(COL_DESCRIPTION), textStyle);
+                row.createCell(2).setCellValue(formatType(rs.getString(COL_TYPE)));
+                BigDecimal amount = rs.getBigDecimal(COL_AMOUNT);
+                if (amount != null) {
+                    row.createCell(3).setCellValue(amount.doubleValue());
+                    row.getCell(3).setCellStyle(amountStyle);
+                }
+                setText(row, 4, rs.getString(COL_CATEGORY), textStyle);
+                setText(row, 5, rs.getString(COL_ACCOUNT), textStyle);
+                row.createCell(6).setCellValue(formatPaid(rs));
+                setDate(row, 7, rs.getDate(COL_DUE_DATE), dateStyle);
+                setDate(row, 8, rs.getDate(COL_PAID_DATE), dateStyle);
+                row.createCell(9).setCellValue(formatInstallment(rs));
+                count[0]++;
+            });
+            
+            workbook.write(out);
+            out.flush();
+            return count[0];
+        } finally {
+            // Remove os arquivos temporários do SXSSF
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+    
+    private Sheet newSheet(SXSSFWorkbook workbook, int number) {
+        Sheet sheet = workbook.createSheet(number == 1 ? "Transações" : "Transações " + number);
+        Row header = sheet.createRow(0);
+        for (int i = 0; i < HEADERS.length; i++) {
+            header.createCell(i).setCellValue(HEADERS[i]);
+        }
+        return sheet;
+    }
+    
+    private void setText(Row row, int column, String value, CellStyle quotedStyle) {
+        String text = nullToEmpty(value);
+        row.createCell(column).setCellValue(text);
+        if (looksLikeFormula(text)) {
+            row.getCell(column).setCellStyle(quotedStyle);
+        }
+    }
+    
+    private void setDate(Row row, int column, Date date, CellStyle style) {
+        if (date != null) {
+            row.createCell(column).setCellValue(date.toLocalDate());
+            row.getCell(column).setCellStyle(style);
+        }
+    }
+    
+    private String formatDate(Date date) {
+        return date != null ? date.toLocalDate().toString() : "";
+    }
+    
+    private String formatType(String type) {
+        if ("INCOME".equals(type)) {
+            return "Receita";
+        }
+        return "EXPENSE".equals(type) ? "Despesa" : nullToEmpty(type);
+    }
+    
+    private String formatPaid(ResultSet rs) throws SQLException {
+        boolean paid = rs.getBoolean(COL_PAID);
+        if (rs.wasNull()) {
+            return "";
+        }
+        return paid ? "Sim" : "Não";
+    }
+    
+    private String formatInstallment(ResultSet rs) throws SQLException {
+        int number = rs.getInt(COL_INSTALLMENT);
+        if (rs.wasNull()) {
+            return "";
+        }
+        int total = rs.getInt(COL_TOTAL_INSTALLMENTS);
+        return rs.wasNull() ? String.valueOf(number) : number + "/" + total;
+    }
+    
+    static String escapeCsv(String value) {
+        if (value == null) {
+            return "";
+        }
+        value = neutralizeFormula(value);
+        if (value.indexOf(';') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+    
+    /**
+     * No CSV, texto livre que começa com =, +, -, @, tab ou CR seria interpretado como fórmula pelo
+     * Excel/LibreOffice (injeção de fórmulas via descrição da transação); o apóstrofo inicial força o valor como texto.
+     * No XLSX as células de texto nunca são avaliadas e recebem um estilo com prefixo de texto.
+     */
+    static String neutralizeFormula(String value) {
+        return looksLikeFormula(value) ? "'" + value : value;
+    }
+    
+    static boolean looksLikeFormula(String value) {
+        if (value.isEmpty()) {
+            return false;
+        }
+        char first = value.charAt(0);
+        return first == '=' || first == '+' || first == '-' || first == '@' || first == '\t' || first == '\r';
+    }
+    
+    private String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+}
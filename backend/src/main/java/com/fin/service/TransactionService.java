@@ -13,6 +13,7 @@ import com.fin.repository.InstallmentRepository;
 import com.fin.repository.TransactionRepository;
 import com.fin.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -56,6 +57,12 @@ public class TransactionService {
     @Autowired
     private KafkaTransactionProducer kafkaTransactionProducer;
     
+    @Autowired
+    private QuotaService quotaService;
+    
+    @Autowired
+    private TransactionAttachmentService transactionAttachmentService;
+    
     public List<TransactionDto> getUserTransactions(Long userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("Usuário não encontrado"));
@@ -149,6 +156,7 @@ public class TransactionService {
     }
     
     @Transactional
+    @CacheEvict(value = SpendingProfileService.SPENDING_PROFILE_CACHE, key = "#userId")
     public TransactionDto createBalanceUpdateTransaction(BigDecimal targetBalance, String description, Long userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("Usuário não encontrado"));
@@ -196,6 +204,7 @@ public class TransactionService {
         transaction.setPaidDate(LocalDate.now());
         
         transaction = transactionRepository.save(transaction);
+        quotaService.recordCreated(userId, QuotaService.Resource.TRANSACTIONS);
         
         System.out.println(String.format("Ajuste de saldo criado: Saldo atual: R$ %.2f, Saldo desejado: R$ %.2f, Diferença: R$ %.2f (%s)",
             currentBalance, targetBalance, difference.abs(), 
@@ -224,6 +233,56 @@ public class TransactionService {
             throw new RuntimeException("Assinatura expirada. Renove sua assinatura para continuar.");
         }
         
+        LocalDate effectiveDate = prepareForPersistence(dto);
+        
+        System.out.println("=== ENVIANDO TRANSAÇÃO PARA KAFKA ===");
+        System.out.println("Total de parcelas informado: " + dto.getTotalInstallments());
+        System.out.println("Valor: " + dto.getAmount());
+        System.out.println("Data de vencimento (dueDate): " + dto.getDueDate());
+        System.out.println("Data da transação (transactionDate): " + dto.getTransactionDate());
+        System.out.println("Effective date calculada: " + effectiveDate);
+        System.out.println("UserId: " + userId);
+        
+        // Enviar para Kafka - o consumer vai persistir no banco
+        // Para transações parceladas, o consumer vai criar todas as parcelas
+        kafkaTransactionProducer.sendTransaction(dto, userId);
+        
+        // Retornar o DTO imediatamente (sem ID ainda, será gerado pelo consumer)
+        // O frontend pode fazer polling ou usar WebSocket para atualizar quando a transação for persistida
+        // Por enquanto, retornamos o DTO como está
+        System.out.println(">>> Transação enviada para Kafka com sucesso");
+        return dto;
+    }
+    
+    /**
+     * Cria várias transações confirmadas (ex: lote da IA) enviando todas ao Kafka de uma vez.
+     * Usuário e assinatura são validados uma única vez para o lote inteiro.
+     */
+    public List<TransactionDto> createTransactionsBatch(List<TransactionDto> dtos, Long userId) {
+        userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("Usuário não encontrado"));
+        
+        if (!subscriptionService.isSubscriptionActive(userId)) {
+            throw new RuntimeException("Assinatura expirada. Renove sua assinatura para continuar.");
+        }
+        
+        if (dtos == null || dtos.isEmpty()) {
+            return new ArrayList<>();
+        }
+        
+        for (TransactionDto dto : dtos) {
+            prepareForPersistence(dto);
+        }
+        
+        kafkaTransactionProducer.sendTransactions(dtos, userId);
+        return dtos;
+    }
+    
+    /**
+     * Normaliza datas, status de pagamento e flags de parcelamento antes de enviar ao Kafka
+     * @return data efetiva (vencimento) da transação
+     */
+    private LocalDate prepareForPersistence(TransactionDto dto) {
         // Usar dueDate como data principal (vencimento), se não existir, usar transactionDate
         LocalDate effectiveDate = dto.getDueDate() != null ? dto.getDueDate() : 
                                   (dto.getTransactionDate() != null ? dto.getTransactionDate() : LocalDate.now());
@@ -243,23 +302,7 @@ public class TransactionService {
             dto.setTotalInstallments(1);
         }
         
-        System.out.println("=== ENVIANDO TRANSAÇÃO PARA KAFKA ===");
-        System.out.println("Total de parcelas informado: " + dto.getTotalInstallments());
-        System.out.println("Valor: " + dto.getAmount());
-        System.out.println("Data de vencimento (dueDate): " + dto.getDueDate());
-        System.out.println("Data da transação (transactionDate): " + dto.getTransactionDate());
-        System.out.println("Effective date calculada: " + effectiveDate);
-        System.out.println("UserId: " + userId);
-        
-        // Enviar para Kafka - o consumer vai persistir no banco
-        // Para transações parceladas, o consumer vai criar todas as parcelas
-        kafkaTransactionProducer.sendTransaction(dto, userId);
-        
-        // Retornar o DTO imediatamente (sem ID ainda, será gerado pelo consumer)
-        // O frontend pode fazer polling ou usar WebSocket para atualizar quando a transação for persistida
-        // Por enquanto, retornamos o DTO como está
-        System.out.println(">>> Transação enviada para Kafka com sucesso");
-        return dto;
+        return effectiveDate;
     }
     
     @Transactional
@@ -372,6 +415,7 @@ public class TransactionService {
     }
     
     @Transactional
+    @CacheEvict(value = SpendingProfileService.SPENDING_PROFILE_CACHE, key = "#userId")
     public TransactionDto updateTransaction(Long id, TransactionDto dto, Long userId) {
         Transaction transaction = transactionRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Transação não encontrada"));
@@ -449,6 +493,7 @@ public class TransactionService {
     }
     
     @Transactional
+    @CacheEvict(value = SpendingProfileService.SPENDING_PROFILE_CACHE, key = "#userId")
     public void deleteTransaction(Long id, Long userId) {
         Transaction transaction = transactionRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Transação não encontrada"));
@@ -457,7 +502,10 @@ public class TransactionService {
             throw new RuntimeException("Acesso negado");
         }
         
+        transactionAttachmentService.deleteTransactionAttachments(id); // Arquivos removidos do MinIO após o commit
         transactionRepository.delete(transaction);
+        // Registros dependentes podem ser removidos junto: as contagens são recarregadas do banco
+        quotaService.evict(userId);
     }
     
     public BigDecimal getBalance(Long userId, LocalDate startDate, LocalDate endDate) {
@@ -519,6 +567,7 @@ public class TransactionService {
     }
     
     @Transactional
+    @CacheEvict(value = SpendingProfileService.SPENDING_PROFILE_CACHE, key = "#userId")
     public TransactionDto markAsPaid(Long id, Long userId) {
         Transaction transaction = transactionRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Transação não encontrada"));
@@ -560,6 +609,7 @@ public class TransactionService {
     }
     
     @Transactional
+    @CacheEvict(value = SpendingProfileService.SPENDING_PROFILE_CACHE, key = "#userId")
     public TransactionDto markAsUnpaid(Long id, Long userId) {
         Transaction transaction = transactionRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Transação não encontrada"));
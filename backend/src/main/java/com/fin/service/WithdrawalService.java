@@ -46,6 +46,9 @@ public class WithdrawalService {
     @Autowired
     private CategoryRepository categoryRepository;
     
+    @Autowired
+    private QuotaService quotaService;
+    
     @Value("${minio.bucket.name:fin-receipts}")
     private String receiptsBucketName;
     
@@ -254,6 +257,7 @@ public class WithdrawalService {
             category.setType(com.fin.model.TransactionType.INCOME);
             category.setUser(user);
             category = categoryRepository.save(category);
+            quotaService.recordCreated(user.getId(), QuotaService.Resource.CATEGORIES);
         }
         
         // Criar transação de receita
@@ -270,6 +274,7 @@ public class WithdrawalService {
         transaction.setPaidDate(LocalDate.now());
         
         transactionRepository.save(transaction);
+        quotaService.recordCreated(user.getId(), QuotaService.Resource.TRANSACTIONS);
     }
     
     /**
@@ -0,0 +1,130 @@
+package com.fin.service;
+
+import com.fin.dto.BudgetDto;
+import com.fin.dto.BudgetSpend;
+import com.fin.model.Budget;
+import com.fin.model.Transaction;
+import com.fin.model.User;
+import com.fin.repository.BudgetRepository;
+import com.fin.repository.TransactionRepository;
+import com.fin.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * As listagens de orçamentos fazem uma única consulta de gasto, independente de quantos orçamentos existam,
+ * e nunca carregam transações.
+ */
+@ExtendWith(MockitoExtension.class)
+class BudgetServiceQueryCountTest {
+    
+    private static final Long USER_ID = 7L;
+    private static final int BUDGETS = 30;
+    
+    @Mock
+    private BudgetRepository budgetRepository;
+    
+    @Mock
+    private UserRepository userRepository;
+    
+    @Mock
+    private TransactionRepository transactionRepository;
+    
+    @Mock
+    private SubscriptionService subscriptionService;
+    
+    @InjectMocks
+    private BudgetService budgetService;
+    
+    private User user;
+    private List<Budget> budgets;
+    
+    @BeforeEach
+    void setUp() {
+        BudgetSpendCalculator calculator = new BudgetSpendCalculator();
+        ReflectionTestUtils.setField(calculator, "budgetRepository", budgetRepository);
+        ReflectionTestUtils.setField(budgetService, "budgetSpendCalculator", calculator);
+        
+        user = new User();
+        user.setId(USER_ID);
+        when(userRepository.findById(USER_ID)).thenReturn(Optional.of(user));
+        
+        budgets = new ArrayList<>();
+        for (long id = 1; id <= BUDGETS; id++) {
+            Budget budget = new Budget();
+            budget.setId(id);
+            budget.setName("Orçamento " + id);
+            budget.setLimitAmount(new BigDecimal("100.00"));
+            budget.setStartDate(LocalDate.now().withDayOfMonth(1));
+            budget.setEndDate(LocalDate.now().withDayOfMonth(1).plusMonths(1).minusDays(1));
+            budget.setAlertPercentage(80);
+            budget.setIsActive(true);
+            budget.setUser(user);
+            budgets.add(budget);
+        }
+        
+        // Só os orçamentos pares têm despesas; o 2 passou do alerta
+        List<BudgetSpend> rows = new ArrayList<>();
+        for (long id = 2; id <= BUDGETS; id += 2) {
+            rows.add(new BudgetSpend(id, id == 2 ? new BigDecimal("90.00") : new BigDecimal("10.00")));
+        }
+        when(budgetRepository.sumSpentByBudgetIds(anyCollection(), eq(Transaction.TransactionType.EXPENSE)))
+                .thenAnswer(invocation -> {
+                    Collection<Long> ids = invocation.getArgument(0);
+                    assertEquals(BUDGETS, ids.size());
+                    return rows;
+                });
+    }
+    
+    @Test
+    void getUserBudgetsIssuesOneSpendQuery() {
+        when(subscriptionService.isSubscriptionActive(USER_ID)).thenReturn(true);
+        when(budgetRepository.findByUser(user)).thenReturn(budgets);
+        
+        List<BudgetDto> result = budgetService.getUserBudgets(USER_ID);
+        
+        assertEquals(BUDGETS, result.size());
+        assertEquals(BigDecimal.ZERO, result.get(0).getCurrentSpent());
+        assertEquals(new BigDecimal("90.00"), result.get(1).getCurrentSpent());
+        verify(budgetRepository, times(1)).findByUser(user);
+        verify(budgetRepository, times(1)).sumSpentByBudgetIds(anyCollection(), any());
+        verifyNoMoreInteractions(budgetRepository);
+        verifyNoInteractions(transactionRepository);
+    }
+    
+    @Test
+    void getActiveBudgetsWithAlertsIssuesOneSpendQuery() {
+        when(budgetRepository.findActiveBudgetsByUserAndDate(eq(user), any())).thenReturn(budgets);
+        
+        List<BudgetDto> result = budgetService.getActiveBudgetsWithAlerts(USER_ID);
+        
+        assertEquals(1, result.size());
+        assertEquals(2L, result.get(0).getId());
+        verify(budgetRepository, times(1)).findActiveBudgetsByUserAndDate(eq(user), any());
+        verify(budgetRepository, times(1)).sumSpentByBudgetIds(anyCollection(), any());
+        verifyNoMoreInteractions(budgetRepository);
+        verifyNoInteractions(transactionRepository);
+    }
+}
@@ -0,0 +1,40 @@
+package com.fin.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvFileSource;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BudgetThresholdsTest {
+    
+    // Mesma tabela do BudgetThresholdsTest do transaction-consumer: os dois módulos atualizam o mesmo contador
+    @ParameterizedTest(name = "{0} ({1}%) gasto {2} [{3}/{4}] -> {5}")
+    @CsvFileSource(resources = "/budget-alert-thresholds.csv", delimiter = '|', nullValues = "<null>")
+    void decidesLikeTheConformanceTable(BigDecimal limit, Integer alertPercentage, BigDecimal spent,
+                                        boolean alertNotified, boolean limitNotified, BudgetThresholds.Alert alert,
+                                        boolean alertNotifiedAfter, boolean limitNotifiedAfter) {
+        BudgetThresholds.Decision decision = new BudgetThresholds(limit, alertPercentage)
+                .evaluate(spent, alertNotified, limitNotified);
+        
+        assertEquals(alert, decision.getAlert());
+        assertEquals(alertNotifiedAfter, decision.isAlertNotified());
+        assertEquals(limitNotifiedAfter, decision.isLimitNotified());
+    }
+    
+    @Test
+    void recalculatedCounterKeepsOnlyThresholdsCrossedBefore() {
+        BudgetThresholds thresholds = new BudgetThresholds(new BigDecimal("1000.00"), 80);
+        
+        assertTrue(thresholds.alertAlreadyNotified(new BigDecimal("800.00"), true));
+        assertFalse(thresholds.alertAlreadyNotified(new BigDecimal("799.99"), true));
+        assertFalse(thresholds.alertAlreadyNotified(new BigDecimal("900.00"), false));
+        assertTrue(thresholds.limitAlreadyNotified(new BigDecimal("1000.01"), true));
+        assertFalse(thresholds.limitAlreadyNotified(new BigDecimal("1000.00"), true));
+        assertFalse(thresholds.limitAlreadyNotified(new BigDecimal("1200.00"), false));
+    }
+}
@@ -0,0 +1,252 @@
+package com.fin.service;
+
+import com.fin.dto.CashFlowDayDto;
+import com.fin.dto.CashFlowForecastDto;
+import com.fin.model.RecurringTransaction;
+import com.fin.model.Transaction;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CashFlowForecastEngineTest {
+    
+    private static final LocalDate START = LocalDate.of(2025, 1, 1);
+    
+    @Test
+    void accumulatesDailyBalancesAndLowestPoint() {
+        CashFlowForecastEngine engine = new CashFlowForecastEngine(START, START.plusDays(4));
+        engine.addTransaction(transaction(START, Transaction.TransactionType.EXPENSE, "150.00"));
+        engine.addTransaction(transaction(START.plusDays(2), Transaction.TransactionType.INCOME, "80.10"));
+        engine.addTransaction(transaction(START.plusDays(2), Transaction.TransactionType.EXPENSE, "0.10"));
+        engine.addTransaction(transaction(START.plusDays(10), Transaction.TransactionType.EXPENSE, "999")); // Fora do período
+        
+        CashFlowForecastDto forecast = engine.build(new BigDecimal("100.00"));
+        
+        assertEquals(5, forecast.getDailyForecast().size());
+        assertEquals(new BigDecimal("-50.00"), forecast.getDailyForecast().get(0).getBalance());
+        assertEquals(new BigDecimal("80.00"), forecast.getDailyForecast().get(2).getNetFlow());
+        assertEquals(new BigDecimal("30.00"), forecast.getEndingBalance());
+        assertEquals(new BigDecimal("-50.00"), forecast.getLowestBalance());
+        assertEquals(START, forecast.getLowestBalanceDate());
+        assertEquals(new BigDecimal("80.10"), forecast.getTotalIncome());
+        assertEquals(new BigDecimal("150.10"), forecast.getTotalExpenses());
+    }
+    
+    @Test
+    void expandsEveryRecurrenceOccurrenceInRange() {
+        CashFlowForecastEngine engine = new CashFlowForecastEngine(START, LocalDate.of(2025, 12, 31));
+        RecurringTransaction rent = recurrence(RecurringTransaction.RecurrenceType.MONTHLY,
+            RecurringTransaction.TransactionType.EXPENSE, "1000.00", LocalDate.of(2024, 10, 31), LocalDate.of(2025, 1, 31));
+        rent.setEndDate(LocalDate.of(2025, 6, 30));
+        engine.addRecurrence(rent);
+        
+        CashFlowForecastDto forecast = engine.build(BigDecimal.ZERO);
+        
+        List<LocalDate> dates = new ArrayList<>();
+        for (CashFlowDayDto day : forecast.getDailyForecast()) {
+            if (day.getExpenses().signum() > 0) {
+                dates.add(day.getDate());
+            }
+        }
+        assertEquals(List.of(
+            LocalDate.of(2025, 1, 31),
+            LocalDate.of(2025, 2, 28),
+            LocalDate.of(2025, 3, 31),
+            LocalDate.of(2025, 4, 30),
+            LocalDate.of(2025, 5, 31),
+            LocalDate.of(2025, 6, 30)), dates);
+        assertEquals(new BigDecimal("6000.00"), forecast.getTotalExpenses());
+    }
+    
+    /**
+     * Horizontes de 1 e 5 anos: o motor linear precisa dar o mesmo resultado que o cálculo dia a dia
+     * (O(dias x lançamentos)), que decide cada ocorrência sem usar o RecurrenceExpander
+     */
+    @ParameterizedTest(name = "{0} dias")
+    @ValueSource(ints = {365, 1825})
+    void matchesDayByDayReference(int days) {
+        LocalDate end = START.plusDays(days - 1L);
+        List<Transaction> transactions = randomTransactions(days, 5_000);
+        List<RecurringTransaction> recurrences = randomRecurrences(200);
+        
+        CashFlowForecastDto expected = dayByDay(START, end, transactions, recurrences, new BigDecimal("2500.00"));
+        CashFlowForecastDto forecast = forecast(START, end, transactions, recurrences);
+        
+        assertEquals(expected.getEndingBalance(), forecast.getEndingBalance());
+        assertEquals(expected.getLowestBalance(), forecast.getLowestBalance());
+        assertEquals(expected.getLowestBalanceDate(), forecast.getLowestBalanceDate());
+        assertEquals(expected.getTotalIncome(), forecast.getTotalIncome());
+        assertEquals(expected.getTotalExpenses(), forecast.getTotalExpenses());
+        for (int day = 0; day < days; day++) {
+            assertEquals(expected.getDailyForecast().get(day).getBalance(), forecast.getDailyForecast().get(day).getBalance());
+        }
+    }
+    
+    /**
+     * Tempo médio de uma previsão nos horizontes de 1 e 5 anos.
+     * Só informa o resultado, sem limite de tempo; roda com mvn test -Pbenchmark.
+     */
+    @Tag("benchmark")
+    @ParameterizedTest(name = "{0} dias")
+    @ValueSource(ints = {365, 1825})
+    void benchmarkForecast(int days) {
+        LocalDate end = START.plusDays(days - 1L);
+        List<Transaction> transactions = randomTransactions(days, 5_000);
+        List<RecurringTransaction> recurrences = randomRecurrences(200);
+        
+        for (int warmup = 0; warmup < 5; warmup++) {
+            forecast(START, end, transactions, recurrences);
+        }
+        int runs = 20;
+        long started = System.nanoTime();
+        CashFlowForecastDto forecast = null;
+        for (int run = 0; run < runs; run++) {
+            forecast = forecast(START, end, transactions, recurrences);
+        }
+        long avgMicros = (System.nanoTime() - started) / runs / 1_000;
+        System.out.println("CashFlowForecastEngine " + days + " dias, " + transactions.size() + " lançamentos, "
+            + recurrences.size() + " recorrências: " + avgMicros + " µs por previsão");
+        assertEquals(days, forecast.getDailyForecast().size());
+    }
+    
+    private static CashFlowForecastDto forecast(LocalDate start, LocalDate end, List<Transaction> transactions,
+                                                List<RecurringTransaction> recurrences) {
+        CashFlowForecastEngine engine = new CashFlowForecastEngine(start, end);
+        transactions.forEach(engine::addTransaction);
+        recurrences.forEach(engine::addRecurrence);
+        return engine.build(new BigDecimal("2500.00"));
+    }
+    
+    // Referência direta: para cada dia percorre todos os lançamentos e todas as recorrências
+    private static CashFlowForecastDto dayByDay(LocalDate start, LocalDate end, List<Transaction> transactions,
+                                                List<RecurringTransaction> recurrences, BigDecimal startingBalance) {
+        BigDecimal balance = startingBalance;
+        BigDecimal lowest = startingBalance;
+        LocalDate lowestDate = start;
+        BigDecimal totalIncome = BigDecimal.ZERO.setScale(2);
+        BigDecimal totalExpenses = BigDecimal.ZERO.setScale(2);
+        List<CashFlowDayDto> daily = new ArrayList<>();
+        for (LocalDate date = start; !date.isAfter(end); date = date.plusDays(1)) {
+            BigDecimal income = BigDecimal.ZERO.setScale(2);
+            BigDecimal expenses = BigDecimal.ZERO.setScale(2);
+            for (Transaction t : transactions) {
+                if (t.getTransactionDate().equals(date)) {
+                    if (t.getType() == Transaction.TransactionType.INCOME) {
+                        income = income.add(t.getAmount());
+                    } else {
+                        expenses = expenses.add(t.getAmount());
+                    }
+                }
+            }
+            for (RecurringTransaction rt : recurrences) {
+                if (occursOn(rt, date)) {
+                    if (rt.getType() == RecurringTransaction.TransactionType.INCOME) {
+                        income = income.add(rt.getAmount());
+                    } else {
+                        expenses = expenses.add(rt.getAmount());
+                    }
+                }
+            }
+            balance = balance.add(income).subtract(expenses);
+            totalIncome = totalIncome.add(income);
+            totalExpenses = totalExpenses.add(expenses);
+            if (balance.compareTo(lowest) < 0) {
+                lowest = balance;
+                lowestDate = date;
+            }
+            daily.add(new CashFlowDayDto(date, income, expenses, income.subtract(expenses), balance, new ArrayList<>()));
+        }
+        
+        CashFlowForecastDto forecast = new CashFlowForecastDto();
+        forecast.setDailyForecast(daily);
+        forecast.setEndingBalance(balance);
+        forecast.setLowestBalance(lowest);
+        forecast.setLowestBalanceDate(lowestDate);
+        forecast.setTotalIncome(totalIncome);
+        forecast.setTotalExpenses(totalExpenses);
+        return forecast;
+    }
+    
+    // Verificação ingênua de um dia, independente do RecurrenceExpander
+    private static boolean occursOn(RecurringTransaction rt, LocalDate date) {
+        LocalDate first = rt.getNextOccurrenceDate();
+        if (date.isBefore(first) || (rt.getEndDate() != null && date.isAfter(rt.getEndDate()))) {
+            return false;
+        }
+        Integer recurrenceDay = rt.getRecurrenceDay();
+        switch (rt.getRecurrenceType()) {
+            case DAILY:
+                return true;
+            case WEEKLY:
+                return date.getDayOfWeek().getValue() == (recurrenceDay != null ? recurrenceDay : first.getDayOfWeek().getValue());
+            case MONTHLY:
+                int anchor = recurrenceDay != null ? recurrenceDay : rt.getStartDate().getDayOfMonth();
+                return date.getDayOfMonth() == Math.min(anchor, date.lengthOfMonth());
+            case YEARLY:
+                return date.getMonth() == rt.getStartDate().getMonth()
+                    && date.getDayOfMonth() == Math.min(rt.getStartDate().getDayOfMonth(), date.lengthOfMonth());
+            default:
+                throw new IllegalArgumentException(rt.getRecurrenceType().name());
+        }
+    }
+    
+    private static List<Transaction> randomTransactions(int days, int count) {
+        Random random = new Random(42);
+        List<Transaction> transactions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Transaction.TransactionType type = random.nextInt(4) == 0
+                ? Transaction.TransactionType.INCOME
+                : Transaction.TransactionType.EXPENSE;
+            transactions.add(transaction(START.plusDays(random.nextInt(days)), type,
+                BigDecimal.valueOf(1 + random.nextInt(50_000), 2).toPlainString()));
+        }
+        return transactions;
+    }
+    
+    private static List<RecurringTransaction> randomRecurrences(int count) {
+        Random random = new Random(7);
+        RecurringTransaction.RecurrenceType[] types = RecurringTransaction.RecurrenceType.values();
+        List<RecurringTransaction> recurrences = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            RecurringTransaction.RecurrenceType type = types[random.nextInt(types.length)];
+            RecurringTransaction.TransactionType kind = random.nextBoolean()
+                ? RecurringTransaction.TransactionType.INCOME
+                : RecurringTransaction.TransactionType.EXPENSE;
+            LocalDate first = START.plusDays(random.nextInt(60));
+            recurrences.add(recurrence(type, kind, BigDecimal.valueOf(100 + random.nextInt(100_000), 2).toPlainString(),
+                first, first));
+        }
+        return recurrences;
+    }
+    
+    private static Transaction transaction(LocalDate date, Transaction.TransactionType type, String amount) {
+        Transaction t = new Transaction();
+        t.setDescription("Lançamento");
+        t.setTransactionDate(date);
+        t.setType(type);
+        t.setAmount(new BigDecimal(amount));
+        return t;
+    }
+    
+    private static RecurringTransaction recurrence(RecurringTransaction.RecurrenceType recurrenceType,
+                                                   RecurringTransaction.TransactionType type, String amount,
+                                                   LocalDate startDate, LocalDate nextOccurrenceDate) {
+        RecurringTransaction rt = new RecurringTransaction();
+        rt.setDescription("Recorrente");
+        rt.setRecurrenceType(recurrenceType);
+        rt.setType(type);
+        rt.setAmount(new BigDecimal(amount));
+        rt.setStartDate(startDate);
+        rt.setNextOccurrenceDate(nextOccurrenceDate);
+        return rt;
+    }
+}
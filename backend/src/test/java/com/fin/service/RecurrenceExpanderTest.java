@@ -0,0 +1,283 @@
+package com.fin.service;
+
+import com.fin.model.RecurringTransaction.RecurrenceType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RecurrenceExpanderTest {
+    
+    private static List<LocalDate> expand(RecurrenceType type, Integer recurrenceDay, LocalDate startDate,
+                                          LocalDate first, LocalDate until) {
+        List<LocalDate> dates = new ArrayList<>();
+        RecurrenceExpander occurrences = RecurrenceExpander.between(type, recurrenceDay, startDate, first, until);
+        occurrences.forEachRemaining(dates::add);
+        return dates;
+    }
+    
+    @Test
+    void monthlyClampsToMonthEndWithoutDrifting() {
+        LocalDate start = LocalDate.of(2023, 1, 31);
+        
+        List<LocalDate> dates = expand(RecurrenceType.MONTHLY, null, start, start, LocalDate.of(2023, 6, 30));
+        
+        assertEquals(List.of(
+            LocalDate.of(2023, 1, 31),
+            LocalDate.of(2023, 2, 28),
+            LocalDate.of(2023, 3, 31),
+            LocalDate.of(2023, 4, 30),
+            LocalDate.of(2023, 5, 31),
+            LocalDate.of(2023, 6, 30)), dates);
+    }
+    
+    @Test
+    void monthlyWithRecurrenceDayClampsInShortMonths() {
+        List<LocalDate> dates = expand(RecurrenceType.MONTHLY, 30, LocalDate.of(2024, 1, 10),
+            LocalDate.of(2024, 1, 30), LocalDate.of(2024, 3, 31));
+        
+        assertEquals(List.of(
+            LocalDate.of(2024, 1, 30),
+            LocalDate.of(2024, 2, 29),
+            LocalDate.of(2024, 3, 30)), dates);
+    }
+    
+    @Test
+    void monthlyResumedFromClampedDateKeepsOriginalDay() {
+        // nextOccurrenceDate gravado como 28/02 depois de uma execução que começou em 31/01
+        List<LocalDate> dates = expand(RecurrenceType.MONTHLY, null, LocalDate.of(2023, 1, 31),
+            LocalDate.of(2023, 2, 28), LocalDate.of(2023, 4, 30));
+        
+        assertEquals(List.of(
+            LocalDate.of(2023, 2, 28),
+            LocalDate.of(2023, 3, 31),
+            LocalDate.of(2023, 4, 30)), dates);
+    }
+    
+    @Test
+    void monthlyResumedFromLaterDayUsesThatDay() {
+        // Próxima ocorrência num dia diferente do início (não é um ajuste de fim de mês): vale a data gravada
+        List<LocalDate> dates = expand(RecurrenceType.MONTHLY, null, LocalDate.of(2023, 1, 5),
+            LocalDate.of(2023, 2, 10), LocalDate.of(2023, 4, 30));
+        
+        assertEquals(List.of(
+            LocalDate.of(2023, 2, 10),
+            LocalDate.of(2023, 3, 10),
+            LocalDate.of(2023, 4, 10)), dates);
+    }
+    
+    @Test
+    void yearlyOnLeapDayFallsBackAndReturns() {
+        LocalDate start = LocalDate.of(2024, 2, 29);
+        
+        List<LocalDate> dates = expand(RecurrenceType.YEARLY, null, start, start, LocalDate.of(2028, 12, 31));
+        
+        assertEquals(List.of(
+            LocalDate.of(2024, 2, 29),
+            LocalDate.of(2025, 2, 28),
+            LocalDate.of(2026, 2, 28),
+            LocalDate.of(2027, 2, 28),
+            LocalDate.of(2028, 2, 29)), dates);
+    }
+    
+    @Test
+    void yearlyResumedFromClampedLeapDay() {
+        List<LocalDate> dates = expand(RecurrenceType.YEARLY, null, LocalDate.of(2024, 2, 29),
+            LocalDate.of(2027, 2, 28), LocalDate.of(2028, 12, 31));
+        
+        assertEquals(List.of(LocalDate.of(2027, 2, 28), LocalDate.of(2028, 2, 29)), dates);
+    }
+    
+    @Test
+    void dailyIgnoresDaylightSavingTransitions() {
+        // LocalDate não tem fuso: as trocas de horário (BR 2018, EUA/Europa em março) não pulam nem repetem dias
+        LocalDate first = LocalDate.of(2018, 10, 30);
+        LocalDate until = LocalDate.of(2019, 4, 5);
+        
+        List<LocalDate> dates = expand(RecurrenceType.DAILY, null, first, first, until);
+        
+        assertEquals(ChronoUnit.DAYS.between(first, until) + 1, dates.size());
+        for (int i = 1; i < dates.size(); i++) {
+            assertEquals(1, ChronoUnit.DAYS.between(dates.get(i - 1), dates.get(i)));
+        }
+    }
+    
+    @Test
+    void weeklyAlignsToRecurrenceDay() {
+        // 01/01/2025 é quarta-feira; recurrenceDay 1 = segunda
+        List<LocalDate> dates = expand(RecurrenceType.WEEKLY, 1, LocalDate.of(2025, 1, 1),
+            LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 20));
+        
+        assertEquals(List.of(
+            LocalDate.of(2025, 1, 6),
+            LocalDate.of(2025, 1, 13),
+            LocalDate.of(2025, 1, 20)), dates);
+    }
+    
+    @Test
+    void emptyWhenFirstIsAfterUntil() {
+        RecurrenceExpander occurrences = RecurrenceExpander.between(RecurrenceType.MONTHLY, null,
+            LocalDate.of(2025, 3, 1), LocalDate.of(2025, 3, 1), LocalDate.of(2025, 2, 1));
+        
+        assertFalse(occurrences.hasNext());
+        assertEquals(LocalDate.of(2025, 3, 1), occurrences.peek());
+    }
+    
+    /**
+     * Expandir de uma vez tem que dar o mesmo que avançar um período por vez, retomando de peek()
+     * como faz o job de recorrências (uma ocorrência por execução).
+     */
+    @ParameterizedTest
+    @EnumSource(RecurrenceType.class)
+    void expansionMatchesSteppingOnePeriodAtATime(RecurrenceType type) {
+        LocalDate until = LocalDate.of(2032, 12, 31);
+        for (LocalDate start : List.of(LocalDate.of(2024, 1, 31), LocalDate.of(2024, 2, 29),
+                LocalDate.of(2023, 8, 30), LocalDate.of(2023, 3, 15))) {
+            for (Integer recurrenceDay : recurrenceDays(type)) {
+                List<LocalDate> expanded = expand(type, recurrenceDay, start, start, until);
+                
+                List<LocalDate> stepped = new ArrayList<>();
+                LocalDate next = start;
+                while (true) {
+                    RecurrenceExpander step = RecurrenceExpander.between(type, recurrenceDay, start, next, until);
+                    if (!step.hasNext()) {
+                        break;
+                    }
+                    stepped.add(step.next());
+                    next = step.peek();
+                }
+                
+                assertEquals(expanded, stepped, type + " início " + start + " dia " + recurrenceDay);
+            }
+        }
+    }
+    
+    /**
+     * Casos gerados (semente fixa) como o job os vê: recorrência com início e dia de referência aleatórios
+     * (com peso para 29-31 e 29/02), já executada até uma data qualquer (lastCreated, retomando de peek()),
+     * processada num "hoje" aleatório e com endDate opcional. As ocorrências têm que ser estritamente
+     * crescentes, estar em (lastCreated, min(hoje, endDate)], cair no dia de referência ajustado ao tamanho
+     * do mês e ser exatamente as datas que a verificação ingênua, dia a dia, aceita.
+     */
+    @ParameterizedTest
+    @EnumSource(RecurrenceType.class)
+    void generatedSchedulesSatisfyInvariants(RecurrenceType type) {
+        Random random = new Random(20240229L + type.ordinal());
+        for (int i = 0; i < 2_000; i++) {
+            Integer recurrenceDay = randomRecurrenceDay(random, type);
+            LocalDate startDate = randomDate(random);
+            if (type == RecurrenceType.MONTHLY && recurrenceDay != null) {
+                // A primeira ocorrência de uma recorrência com dia definido já cai nesse dia
+                startDate = startDate.withDayOfMonth(Math.min(recurrenceDay, startDate.lengthOfMonth()));
+            }
+            LocalDate firstOccurrence = type == RecurrenceType.WEEKLY && recurrenceDay != null
+                ? startDate.with(TemporalAdjusters.nextOrSame(DayOfWeek.of(recurrenceDay)))
+                : startDate;
+            
+            // Execuções anteriores até "executedUntil": lastCreated é a última gerada, next o peek() gravado
+            LocalDate executedUntil = startDate.plusDays(random.nextInt(4 * 366) - 30);
+            RecurrenceExpander previous = RecurrenceExpander.between(type, recurrenceDay, startDate, startDate, executedUntil);
+            LocalDate lastCreated = null;
+            while (previous.hasNext()) {
+                lastCreated = previous.next();
+            }
+            LocalDate next = previous.peek();
+            
+            LocalDate today = executedUntil.plusDays(random.nextInt(3 * 366));
+            LocalDate endDate = random.nextInt(3) == 0 ? today.minusDays(random.nextInt(400) - 100) : null;
+            LocalDate until = endDate != null && endDate.isBefore(today) ? endDate : today;
+            
+            String context = type + " dia " + recurrenceDay + " início " + startDate + " lastCreated " + lastCreated
+                + " next " + next + " hoje " + today + " fim " + endDate;
+            List<LocalDate> dates = expand(type, recurrenceDay, startDate, next, until);
+            
+            LocalDate lower = lastCreated != null ? lastCreated : firstOccurrence.minusDays(1);
+            for (int k = 0; k < dates.size(); k++) {
+                LocalDate date = dates.get(k);
+                assertTrue(k == 0 || date.isAfter(dates.get(k - 1)), "não crescente: " + context);
+                assertTrue(date.isAfter(lower) && !date.isAfter(until), date + " fora do intervalo: " + context);
+                assertTrue(onSchedule(type, recurrenceDay, startDate, firstOccurrence, date), date + " fora do dia: " + context);
+            }
+            
+            List<LocalDate> naive = new ArrayList<>();
+            for (LocalDate day = lower.plusDays(1); !day.isAfter(until); day = day.plusDays(1)) {
+                if (onSchedule(type, recurrenceDay, startDate, firstOccurrence, day)) {
+                    naive.add(day);
+                }
+            }
+            assertEquals(naive, dates, context);
+        }
+    }
+    
+    // Verificação ingênua de um dia, independente do RecurrenceExpander
+    private static boolean onSchedule(RecurrenceType type, Integer recurrenceDay, LocalDate startDate,
+                                      LocalDate firstOccurrence, LocalDate day) {
+        if (day.isBefore(firstOccurrence)) {
+            return false;
+        }
+        switch (type) {
+            case DAILY:
+                return true;
+            case WEEKLY:
+                return day.getDayOfWeek() == firstOccurrence.getDayOfWeek();
+            case MONTHLY:
+                int anchor = recurrenceDay != null ? recurrenceDay : startDate.getDayOfMonth();
+                return day.getDayOfMonth() == Math.min(anchor, day.lengthOfMonth());
+            case YEARLY:
+                return day.getMonth() == startDate.getMonth()
+                    && day.getDayOfMonth() == Math.min(startDate.getDayOfMonth(), day.lengthOfMonth());
+            default:
+                throw new IllegalArgumentException(type.name());
+        }
+    }
+    
+    private static Integer randomRecurrenceDay(Random random, RecurrenceType type) {
+        if (random.nextBoolean()) {
+            return null;
+        }
+        if (type == RecurrenceType.MONTHLY) {
+            return random.nextBoolean() ? 29 + random.nextInt(3) : 1 + random.nextInt(31);
+        }
+        if (type == RecurrenceType.WEEKLY) {
+            return 1 + random.nextInt(7);
+        }
+        return null;
+    }
+    
+    private static LocalDate randomDate(Random random) {
+        int year = 2020 + random.nextInt(10);
+        switch (random.nextInt(4)) {
+            case 0:
+                // 29/02 em ano bissexto
+                return LocalDate.of(2020 + 4 * random.nextInt(3), 2, 29);
+            case 1:
+                // Fim de mês (29, 30 ou 31, quando existir)
+                LocalDate month = LocalDate.of(year, 1 + random.nextInt(12), 1);
+                return month.withDayOfMonth(Math.max(1, month.lengthOfMonth() - random.nextInt(3)));
+            default:
+                return LocalDate.of(year, 1, 1).plusDays(random.nextInt(365));
+        }
+    }
+    
+    private static List<Integer> recurrenceDays(RecurrenceType type) {
+        List<Integer> days = new ArrayList<>();
+        days.add(null);
+        if (type == RecurrenceType.MONTHLY) {
+            days.addAll(List.of(1, 15, 29, 30, 31));
+        } else if (type == RecurrenceType.WEEKLY) {
+            days.addAll(List.of(1, 4, 7));
+        }
+        return days;
+    }
+}
@@ -0,0 +1,19 @@
+package com.fin.service;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvFileSource;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RuleConditionMatcherTest {
+    
+    @ParameterizedTest(name = "{0} [{1}] x \"{2}\" / {3} -> {4}")
+    @CsvFileSource(resources = "/automation-rule-conditions.csv", delimiter = '|', nullValues = "<null>")
+    void matchesConformanceTable(String conditionType, String conditionValue, String description,
+                                 BigDecimal amount, boolean expected) {
+        RuleConditionMatcher matcher = RuleConditionMatcher.compile(conditionType, conditionValue);
+        assertEquals(expected, matcher.matches(description, amount));
+    }
+}
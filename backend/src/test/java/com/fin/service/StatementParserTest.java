@@ -0,0 +1,117 @@
+package com.fin.service;
+
+import com.fin.dto.StatementLine;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class StatementParserTest {
+    
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+        "1.234          | 1234.00",
+        "1,234          | 1234.00",
+        "1.234,56       | 1234.56",
+        "1,234.56       | 1234.56",
+        "1.234.567      | 1234567.00",
+        "1,234,567.89   | 1234567.89",
+        "12,5           | 12.50",
+        "12.5           | 12.50",
+        "-45,90         | -45.90",
+        "45,90-         | -45.90",
+        "(45,90)        | -45.90",
+        "R$ 1.000,00    | 1000.00",
+        "99999999.99    | 99999999.99",
+        "-99999999.99   | -99999999.99",
+        "10.000,00      | 10000.00"
+    })
+    void parsesBrazilianAndInternationalAmounts(String raw, String expected) {
+        assertEquals(new BigDecimal(expected), StatementParser.parseAmount(raw));
+    }
+    
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "100000000",
+        "-100000000,00",
+        "123456789012",
+        "1,2345",
+        "0.001",
+        "abc",
+        ""
+    })
+    void rejectsAmountsThatDoNotFitTheColumn(String raw) {
+        assertNull(StatementParser.parseAmount(raw));
+    }
+    
+    @ParameterizedTest
+    @CsvSource({
+        "31/01/2024, 2024-01-31",
+        "31/01/2024 10:15, 2024-01-31",
+        "2024-01-31, 2024-01-31",
+        "2024-01-31T10:15:00, 2024-01-31",
+        "20240131, 2024-01-31"
+    })
+    void parsesCommonDateFormats(String raw, LocalDate expected) {
+        assertEquals(expected, StatementParser.parseDate(raw));
+    }
+    
+    @Test
+    void csvLineWithAccountNumberInAmountColumnIsInvalid() throws IOException {
+        String csv = "Data;Descrição;Valor\n"
+            + "05/03/2024;Mercado;-1.234,56\n"
+            + "06/03/2024;Conta 12345678901;12345678901\n"
+            + "07/03/2024;Salário;5.000,00\n";
+        Collector collector = new Collector();
+        
+        new StatementParser().parseCsv(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), collector);
+        
+        assertEquals(2, collector.lines.size());
+        assertEquals(new BigDecimal("-1234.56"), collector.lines.get(0).getAmount());
+        assertEquals(new BigDecimal("5000.00"), collector.lines.get(1).getAmount());
+        assertEquals(List.of(2L), collector.invalid);
+    }
+    
+    @Test
+    void ofxDebitTypesAreNegative() throws IOException {
+        String ofx = "OFXHEADER:100\n<OFX><BANKTRANLIST>"
+            + "<STMTTRN><TRNTYPE>DEBIT<DTPOSTED>20240305120000<TRNAMT>89.90<MEMO>Farmácia</STMTTRN>"
+            + "<STMTTRN><TRNTYPE>CREDIT<DTPOSTED>20240306<TRNAMT>1500.00<NAME>Pix recebido</STMTTRN>"
+            + "</BANKTRANLIST></OFX>";
+        Collector collector = new Collector();
+        
+        new StatementParser().parseOfx(new ByteArrayInputStream(ofx.getBytes(StandardCharsets.UTF_8)), collector);
+        
+        assertEquals(2, collector.lines.size());
+        assertEquals(new BigDecimal("-89.90"), collector.lines.get(0).getAmount());
+        assertEquals(LocalDate.of(2024, 3, 5), collector.lines.get(0).getDate());
+        assertEquals(new BigDecimal("1500.00"), collector.lines.get(1).getAmount());
+        assertEquals("Pix recebido", collector.lines.get(1).getDescription());
+    }
+    
+    private static class Collector implements StatementParser.LineHandler {
+        private final List<StatementLine> lines = new ArrayList<>();
+        private final List<Long> invalid = new ArrayList<>();
+        
+        @Override
+        public void onLine(StatementLine line) {
+            lines.add(line);
+        }
+        
+        @Override
+        public void onInvalid(long lineNumber) {
+            invalid.add(lineNumber);
+        }
+    }
+}
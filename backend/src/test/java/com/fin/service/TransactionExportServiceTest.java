@@ -0,0 +1,224 @@
+package com.fin.service;
+
+import com.fin.repository.TransactionExportRepository;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class TransactionExportServiceTest {
+    
+    private static final Long USER_ID = 3L;
+    
+    private TransactionExportRepository repository;
+    
+    private TransactionExportService service;
+    
+    @BeforeEach
+    void setUp() {
+        repository = mock(TransactionExportRepository.class);
+        service = new TransactionExportService();
+        ReflectionTestUtils.setField(service, "transactionExportRepository", repository);
+        ReflectionTestUtils.setField(service, "xlsxWindowSize", 100);
+    }
+    
+    @Test
+    void neutralizesFormulaPrefixes() {
+        assertEquals("'=HYPERLINK(\"http://x\")", TransactionExportService.neutralizeFormula("=HYPERLINK(\"http://x\")"));
+        assertEquals("'+55 11 9999", TransactionExportService.neutralizeFormula("+55 11 9999"));
+        assertEquals("'-2+3", TransactionExportService.neutralizeFormula("-2+3"));
+        assertEquals("'@SUM(A1)", TransactionExportService.neutralizeFormula("@SUM(A1)"));
+        assertEquals("'\tcmd", TransactionExportService.neutralizeFormula("\tcmd"));
+        assertEquals("'\rcmd", TransactionExportService.neutralizeFormula("\rcmd"));
+        assertEquals("Mercado = 50", TransactionExportService.neutralizeFormula("Mercado = 50"));
+        assertEquals("", TransactionExportService.neutralizeFormula(""));
+    }
+    
+    @Test
+    void escapesCsvAfterNeutralizing() {
+        assertEquals("", TransactionExportService.escapeCsv(null));
+        assertEquals("Padaria", TransactionExportService.escapeCsv("Padaria"));
+        assertEquals("'=1+1", TransactionExportService.escapeCsv("=1+1"));
+        assertEquals("\"'=A1;B1\"", TransactionExportService.escapeCsv("=A1;B1"));
+        assertEquals("\"Loja \"\"X\"\"\"", TransactionExportService.escapeCsv("Loja \"X\""));
+        assertEquals("\"'\rx\"", TransactionExportService.escapeCsv("\rx"));
+    }
+    
+    @Test
+    void csvNeutralizesFormulasInTextColumns() throws Exception {
+        stubRows(List.<Object[]>of(
+            row("=HYPERLINK(\"http://x\")", "-Pix recebido", "@Conta")
+        ));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        
+        service.export(USER_ID, TransactionExportService.Format.CSV, null, null, null, out);
+        
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals("2025-03-05;\"'=HYPERLINK(\"\"http://x\"\")\";Despesa;12,50;'-Pix recebido;'@Conta;Sim;2025-03-05;2025-03-05;1/3",
+            lines[1]);
+    }
+    
+    @Test
+    void xlsxKeepsTextAsIsAndQuotePrefixesFormulaLikeCells() throws Exception {
+        stubRows(List.of(
+            row("=1+1", "-Pix recebido", "Conta corrente"),
+            row("Padaria", "Alimentação", "@Carteira")
+        ));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        
+        service.export(USER_ID, TransactionExportService.Format.XLSX, null, null, null, out);
+        
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            Row first = workbook.getSheetAt(0).getRow(1);
+            assertText(first.getCell(1), "=1+1", true);
+            assertText(first.getCell(4), "-Pix recebido", true);
+            assertText(first.getCell(5), "Conta corrente", false);
+            
+            Row second = workbook.getSheetAt(0).getRow(2);
+            assertText(second.getCell(1), "Padaria", false);
+            assertText(second.getCell(5), "@Carteira", true);
+        }
+    }
+    
+    private static class CountingOutputStream extends OutputStream {
+        private long bytes;
+        
+        @Override
+        public void write(int b) {
+            bytes++;
+        }
+        
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+        }
+    }
+    
+    private static void assertText(Cell cell, String expected, boolean quotePrefixed) {
+        assertEquals(expected, cell.getStringCellValue());
+        if (quotePrefixed) {
+            assertTrue(cell.getCellStyle().getQuotePrefixed());
+        } else {
+            assertFalse(cell.getCellStyle().getQuotePrefixed());
+        }
+    }
+    
+    /**
+     * Vazão da exportação (linhas/s) sem banco: as linhas vêm de memória e a saída é descartada.
+     * Só informa o resultado, sem limite de tempo; roda com mvn test -Pbenchmark.
+     */
+    @Tag("benchmark")
+    @ParameterizedTest(name = "{0}")
+    @EnumSource(TransactionExportService.Format.class)
+    void benchmarkRowsPerSecond(TransactionExportService.Format format) throws Exception {
+        int total = format == TransactionExportService.Format.XLSX ? 100_000 : 500_000;
+        stubRows(List.of(
+            row("Supermercado Extra", "Alimentação", "Conta corrente"),
+            row("-Pix recebido", "Transferências", "Nubank"),
+            row("Aluguel \"apto\"; março", null, "Itaú")
+        ), total);
+        
+        for (int warmup = 0; warmup < 2; warmup++) {
+            service.export(USER_ID, format, null, null, null, OutputStream.nullOutputStream());
+        }
+        CountingOutputStream out = new CountingOutputStream();
+        long started = System.nanoTime();
+        service.export(USER_ID, format, null, null, null, out);
+        long elapsedMillis = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+        
+        System.out.println("Exportação " + format + ": " + total + " linhas em " + elapsedMillis + "ms, "
+            + (total * 1000L / elapsedMillis) + " linhas/s, " + out.bytes / 1024 + " KB");
+        assertTrue(out.bytes > 0);
+    }
+    
+    private void stubRows(List<Object[]> rows) {
+        stubRows(rows, rows.size());
+    }
+    
+    private void stubRows(List<Object[]> rows, int total) {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(4);
+            FakeRows fake = new FakeRows(rows, total);
+            ResultSet rs = fake.resultSet();
+            while (fake.next()) {
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(repository).streamByUser(eq(USER_ID), any(), any(), any(), any());
+    }
+    
+    // Colunas na ordem de TransactionExportRepository.COL_*
+    static Object[] row(String description, String category, String account) {
+        Date date = Date.valueOf(LocalDate.of(2025, 3, 5));
+        return new Object[] {
+            date, description, "EXPENSE", new BigDecimal("12.50"), category, account, true, date, date, 1, 3
+        };
+    }
+    
+    /**
+     * ResultSet mínimo sobre linhas em memória (repetidas até total), com os getters usados pela exportação
+     */
+    static class FakeRows {
+        private final List<Object[]> rows;
+        private final int total;
+        private int current = -1;
+        private boolean lastNull;
+        
+        FakeRows(List<Object[]> rows, int total) {
+            this.rows = rows;
+            this.total = total;
+        }
+        
+        boolean next() {
+            return ++current < total;
+        }
+        
+        ResultSet resultSet() {
+            return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[] {ResultSet.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("wasNull")) {
+                        return lastNull;
+                    }
+                    if (args == null || args.length != 1 || !(args[0] instanceof Integer)) {
+                        throw new SQLException("Não suportado: " + method.getName());
+                    }
+                    Object value = rows.get(current % rows.size())[(Integer) args[0] - 1];
+                    lastNull = value == null;
+                    switch (method.getName()) {
+                        case "getBoolean":
+                            return value != null && (Boolean) value;
+                        case "getInt":
+                            return value != null ? (Integer) value : 0;
+                        default:
+                            return value;
+                    }
+                });
+        }
+    }
+}
@@ -1,5 +1,6 @@
 import React, { useState, useEffect } from 'react';
 import api from '../services/api';
+import { openNotificationStream } from '../services/notificationStream';
 import { toast } from 'react-toastify';
 import { format } from 'date-fns';
 import { ptBR } from 'date-fns/locale';
@@ -13,9 +14,16 @@ const NotificationBell = () => {
 
   useEffect(() => {
     loadNotifications();
-    // Atualizar notificações a cada 30 segundos
-    const interval = setInterval(loadNotifications, 30000);
-    return () => clearInterval(interval);
+    // Atualizações em tempo real pelo canal SSE (substitui o polling)
+    const closeStream = openNotificationStream((event, data) => {
+      if (data.unreadCount !== null && data.unreadCount !== undefined) {
+        setUnreadCount(data.unreadCount);
+      }
+      if (event === 'notification') {
+        loadNotifications();
+      }
+    });
+    return () => closeStream();
   }, []);
 
   const loadNotifications = async () => {
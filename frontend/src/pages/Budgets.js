@@ -428,6 +428,22 @@ const Budgets = () => {
                     </span>
                   </div>
                 </div>
+                {scenario.simulation && (
+                  <div className="forecast-summary">
+                    <div className="forecast-item">
+                      <span className="forecast-label">Saldo Final (P10 / P50 / P90):</span>
+                      <span className="forecast-value">
+                        {formatCurrency(scenario.simulation.endingBalanceP10)} / {formatCurrency(scenario.simulation.endingBalanceP50)} / {formatCurrency(scenario.simulation.endingBalanceP90)}
+                      </span>
+                    </div>
+                    <div className="forecast-item">
+                      <span className="forecast-label">Chance de Saldo Negativo:</span>
+                      <span className={`forecast-value ${scenario.simulation.probabilityNegative > 0 ? 'negative' : 'positive'}`}>
+                        {(scenario.simulation.probabilityNegative * 100).toFixed(1)}%
+                      </span>
+                    </div>
+                  </div>
+                )}
                 <div className="modal-actions">
                   <button className="btn-secondary" onClick={() => { setShowScenarioModal(false); setScenario(null); }}>
                     Fechar
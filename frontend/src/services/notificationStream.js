@@ -0,0 +1,89 @@
+// Conexão SSE com /notifications/stream usando fetch (o EventSource nativo não envia o header Authorization)
+const baseURL = process.env.REACT_APP_API_URL || 'http://localhost:8080/api';
+
+export const openNotificationStream = (onEvent) => {
+  let controller = null;
+  let retryTimeout = null;
+  let closed = false;
+
+  const scheduleReconnect = () => {
+    if (!closed) {
+      retryTimeout = setTimeout(connect, 5000);
+    }
+  };
+
+  const dispatch = (block) => {
+    let event = 'message';
+    const dataLines = [];
+    block.split('\n').forEach((line) => {
+      if (line.startsWith('event:')) {
+        event = line.slice(6).trim();
+      } else if (line.startsWith('data:')) {
+        dataLines.push(line.slice(5).trim());
+      }
+    });
+    if (dataLines.length === 0) {
+      return; // Comentários (heartbeat)
+    }
+    try {
+      onEvent(event, JSON.parse(dataLines.join('\n')));
+    } catch (error) {
+      // Evento inválido - ignorar
+    }
+  };
+
+  const connect = async () => {
+    const token = localStorage.getItem('token');
+    if (!token) {
+      return;
+    }
+
+    controller = new AbortController();
+    try {
+      const response = await fetch(`${baseURL}/notifications/stream`, {
+        headers: {
+          Authorization: `Bearer ${token}`,
+          Accept: 'text/event-stream',
+        },
+        signal: controller.signal,
+      });
+      if (!response.ok || !response.body) {
+        scheduleReconnect();
+        return;
+      }
+
+      const reader = response.body.getReader();
+      const decoder = new TextDecoder();
+      let buffer = '';
+      while (true) {
+        const { value, done } = await reader.read();
+        if (done) {
+          break;
+        }
+        buffer += decoder.decode(value, { stream: true }).replace(/\r/g, '');
+        let separator = buffer.indexOf('\n\n');
+        while (separator >= 0) {
+          dispatch(buffer.slice(0, separator));
+          buffer = buffer.slice(separator + 2);
+          separator = buffer.indexOf('\n\n');
+        }
+      }
+      // O servidor encerra a conexão no timeout; reconectar
+      scheduleReconnect();
+    } catch (error) {
+      if (!closed) {
+        scheduleReconnect();
+      }
+    }
+  };
+
+  connect();
+
+  return () => {
+    closed = true;
+    clearTimeout(retryTimeout);
+    if (controller) {
+      controller.abort();
+    }
+  };
+};
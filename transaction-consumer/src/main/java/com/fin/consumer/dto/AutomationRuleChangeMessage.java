@@ -0,0 +1,17 @@
+package com.fin.consumer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AutomationRuleChangeMessage {
+    private Long userId;
+    private Long ruleId;
+    private String operation; // CREATE, UPDATE, DELETE
+    private LocalDateTime timestamp;
+}
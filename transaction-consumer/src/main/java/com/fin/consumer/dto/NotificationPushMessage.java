@@ -0,0 +1,37 @@
+package com.fin.consumer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento publicado no canal Redis de notificações do backend (mesmo formato de com.fin.dto.NotificationPushMessage),
+ * que o entrega por SSE aos clientes conectados
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationPushMessage {
+    public static final String EVENT_NOTIFICATION = "notification";
+    
+    private Long userId;
+    private String event;
+    private NotificationPayload notification;
+    private Long unreadCount; // null: o cliente consulta a contagem no backend
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class NotificationPayload {
+        private Long id;
+        private String title;
+        private String message;
+        private String type;
+        private Boolean isRead;
+        private LocalDateTime readAt;
+        private Long relatedTransactionId;
+        private LocalDateTime createdAt;
+    }
+}
@@ -0,0 +1,39 @@
+package com.fin.consumer.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Gasto acumulado de um orçamento, mantido incrementalmente pelo transaction-consumer
+ * para avaliar os alertas de limite na ingestão (sem recalcular o período inteiro a cada despesa).
+ */
+@Entity
+@Table(name = "budget_spend_counters")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BudgetSpendCounter {
+    @Id
+    @Column(name = "budget_id")
+    private Long budgetId;
+    
+    @Column(nullable = false, precision = 15, scale = 2)
+    private BigDecimal spent = BigDecimal.ZERO;
+    
+    @Column(name = "alert_notified", nullable = false)
+    private Boolean alertNotified = false; // Alerta de porcentagem já enviado
+    
+    @Column(name = "limit_notified", nullable = false)
+    private Boolean limitNotified = false; // Alerta de limite excedido já enviado
+    
+    @Column(name = "synced_at", nullable = false)
+    private LocalDateTime syncedAt; // Última recontagem completa a partir das transações
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
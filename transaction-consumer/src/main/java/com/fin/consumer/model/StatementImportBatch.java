@@ -0,0 +1,37 @@
+package com.fin.consumer.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lote de importação de extrato já gravado pelo transaction-consumer. A chave única (job, lote) é inserida
+ * na mesma transação das transações do lote, o que torna a reentrega da mensagem do Kafka inofensiva.
+ */
+@Entity
+@Table(name = "statement_import_batches", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_statement_import_batch", columnNames = {"job_id", "batch_number"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatementImportBatch {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "job_id", nullable = false)
+    private Long jobId;
+    
+    @Column(name = "batch_number", nullable = false)
+    private Integer batchNumber;
+    
+    @Column(name = "inserted_count", nullable = false)
+    private Integer insertedCount;
+    
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+}
@@ -66,6 +66,9 @@ public class Transaction {
     @Column(name = "paid_date")
     private LocalDate paidDate;
     
+    @Column(name = "import_job_id")
+    private Long importJobId; // Importação de extrato que criou a transação (null quando criada manualmente)
+    
     @OneToMany(mappedBy = "transaction", cascade = CascadeType.ALL, orphanRemoval = true)
     @JsonIgnore
     private List<Installment> installments;
@@ -0,0 +1,172 @@
+package com.fin.consumer.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Acesso JDBC usado na avaliação dos alertas de orçamento durante a ingestão:
+ * orçamentos afetados por uma despesa, contador incremental de gasto e gravação da notificação.
+ */
+@Repository
+public class BudgetAlertRepository {
+    
+    // Orçamentos ativos do usuário cujo período contém a data e cuja categoria casa (sem categoria = todas)
+    private static final String MATCHING_BUDGETS_SQL =
+        "SELECT id, name, limit_amount, alert_percentage FROM budgets " +
+        "WHERE user_id = ? AND is_active = true AND start_date <= ? AND end_date >= ? " +
+        "AND (category_id IS NULL OR category_id = ?) ORDER BY id";
+    
+    // Orçamentos ativos que se sobrepõem ao período de um lote importado (ordem por id: mesma ordem de lock acima)
+    private static final String BUDGETS_IN_PERIOD_SQL =
+        "SELECT id, name, limit_amount, alert_percentage, category_id, start_date, end_date FROM budgets " +
+        "WHERE user_id = ? AND is_active = true AND start_date <= ? AND end_date >= ? ORDER BY id";
+    
+    // Mesma regra de gasto do backend (BudgetRepository.sumSpentByBudgetIds)
+    private static final String SUM_SPENT_SQL =
+        "SELECT COALESCE(SUM(t.amount), 0) FROM budgets b " +
+        "JOIN transactions t ON t.user_id = b.user_id AND t.type = 'EXPENSE' " +
+        "AND t.transaction_date BETWEEN b.start_date AND b.end_date " +
+        "AND (b.category_id IS NULL OR t.category_id = b.category_id) " +
+        "WHERE b.id = ?";
+    
+    // Contador ainda nunca recalculado: criado antes do lock para que o FOR UPDATE sempre encontre a linha
+    // (FOR UPDATE sem linha faz gap lock, e dois gap locks seguidos de INSERT no mesmo intervalo travam em deadlock)
+    private static final String CREATE_COUNTER_SQL =
+        "INSERT IGNORE INTO budget_spend_counters (budget_id, spent, alert_notified, limit_notified, synced_at, updated_at) " +
+        "VALUES (?, 0, false, false, ?, ?)";
+    
+    // Bloqueia a linha do contador até o fim da transação: despesas concorrentes do mesmo orçamento são serializadas
+    private static final String LOCK_COUNTER_SQL =
+        "SELECT spent, alert_notified, limit_notified, synced_at FROM budget_spend_counters " +
+        "WHERE budget_id = ? FOR UPDATE";
+    
+    private static final String UPSERT_COUNTER_SQL =
+        "INSERT INTO budget_spend_counters (budget_id, spent, alert_notified, limit_notified, synced_at, updated_at) " +
+        "VALUES (?, ?, ?, ?, ?, ?) " +
+        "ON DUPLICATE KEY UPDATE spent = VALUES(spent), alert_notified = VALUES(alert_notified), " +
+        "limit_notified = VALUES(limit_notified), synced_at = VALUES(synced_at), updated_at = VALUES(updated_at)";
+    
+    // synced_at de um contador criado só para o lock (sem gasto calculado nem histórico de alertas)
+    private static final LocalDateTime NEVER_SYNCED = LocalDateTime.of(1970, 1, 1, 0, 0);
+    
+    private static final String INSERT_NOTIFICATION_SQL =
+        "INSERT INTO notifications (user_id, title, message, type, is_read, related_transaction_id, created_at) " +
+        "VALUES (?, ?, ?, ?, false, ?, ?)";
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    public List<MatchingBudget> findMatchingBudgets(Long userId, Long categoryId, LocalDate date) {
+        return jdbcTemplate.query(MATCHING_BUDGETS_SQL,
+            (rs, rowNum) -> new MatchingBudget(
+                rs.getLong("id"),
+                rs.getString("name"),
+                rs.getBigDecimal("limit_amount"),
+                rs.getInt("alert_percentage")),
+            userId, date, date, categoryId);
+    }
+    
+    public List<PeriodBudget> findBudgetsInPeriod(Long userId, LocalDate from, LocalDate to) {
+        return jdbcTemplate.query(BUDGETS_IN_PERIOD_SQL,
+            (rs, rowNum) -> new PeriodBudget(
+                new MatchingBudget(
+                    rs.getLong("id"),
+                    rs.getString("name"),
+                    rs.getBigDecimal("limit_amount"),
+                    rs.getInt("alert_percentage")),
+                rs.getObject("category_id", Long.class),
+                rs.getDate("start_date").toLocalDate(),
+                rs.getDate("end_date").toLocalDate()),
+            userId, to, from);
+    }
+    
+    public BigDecimal sumSpent(Long budgetId) {
+        return jdbcTemplate.queryForObject(SUM_SPENT_SQL, BigDecimal.class, budgetId);
+    }
+    
+    /**
+     * Cria (se preciso) e bloqueia o contador do orçamento até o fim da transação.
+     * @return o contador, ou null se ele nunca foi recalculado
+     */
+    public SpendCounter lockCounter(Long budgetId) {
+        jdbcTemplate.update(CREATE_COUNTER_SQL, budgetId, Timestamp.valueOf(NEVER_SYNCED), Timestamp.valueOf(LocalDateTime.now()));
+        List<SpendCounter> counters = jdbcTemplate.query(LOCK_COUNTER_SQL,
+            (rs, rowNum) -> new SpendCounter(
+                rs.getBigDecimal("spent"),
+                rs.getBoolean("alert_notified"),
+                rs.getBoolean("limit_notified"),
+                rs.getTimestamp("synced_at").toLocalDateTime()),
+            budgetId);
+        if (counters.isEmpty() || !counters.get(0).getSyncedAt().isAfter(NEVER_SYNCED)) {
+            return null;
+        }
+        return counters.get(0);
+    }
+    
+    public void saveCounter(Long budgetId, SpendCounter counter, LocalDateTime now) {
+        jdbcTemplate.update(UPSERT_COUNTER_SQL,
+            budgetId,
+            counter.getSpent(),
+            counter.isAlertNotified(),
+            counter.isLimitNotified(),
+            Timestamp.valueOf(counter.getSyncedAt()),
+            Timestamp.valueOf(now));
+    }
+    
+    public Long insertNotification(Long userId, String title, String message, String type,
+                                   Long relatedTransactionId, LocalDateTime createdAt) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(INSERT_NOTIFICATION_SQL, Statement.RETURN_GENERATED_KEYS);
+            ps.setLong(1, userId);
+            ps.setString(2, title);
+            ps.setString(3, message);
+            ps.setString(4, type);
+            ps.setObject(5, relatedTransactionId);
+            ps.setTimestamp(6, Timestamp.valueOf(createdAt));
+            return ps;
+        }, keyHolder);
+        Number key = keyHolder.getKey();
+        return key != null ? key.longValue() : null;
+    }
+    
+    @Data
+    @AllArgsConstructor
+    public static class MatchingBudget {
+        private Long id;
+        private String name;
+        private BigDecimal limitAmount;
+        private Integer alertPercentage;
+    }
+    
+    @Data
+    @AllArgsConstructor
+    public static class PeriodBudget {
+        private MatchingBudget budget;
+        private Long categoryId; // null = todas as categorias
+        private LocalDate startDate;
+        private LocalDate endDate;
+    }
+    
+    @Data
+    @AllArgsConstructor
+    public static class SpendCounter {
+        private BigDecimal spent;
+        private boolean alertNotified;
+        private boolean limitNotified;
+        private LocalDateTime syncedAt;
+    }
+}
@@ -0,0 +1,131 @@
+package com.fin.consumer.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Acesso JDBC do detector de anomalias: estado por usuário e categoria e gravação das anomalias.
+ */
+@Repository
+public class SpendingAnomalyRepository {
+    
+    // Estado ainda não aquecido (tx_count = -1): criado antes do lock para que o FOR UPDATE sempre encontre a linha
+    // (FOR UPDATE sem linha faz gap lock, e dois gap locks seguidos de INSERT no mesmo intervalo travam em deadlock)
+    private static final String CREATE_STATS_SQL =
+        "INSERT IGNORE INTO spending_anomaly_stats (user_id, category_id, tx_count, tx_mean, tx_variance, month_key, " +
+        "month_total, months_observed, monthly_mean, monthly_variance, updated_at) VALUES (?, ?, -1, 0, 0, 0, 0, 0, 0, 0, ?)";
+    
+    // Bloqueia o estado até o fim da transação: despesas concorrentes da mesma categoria são serializadas
+    private static final String LOCK_STATS_SQL =
+        "SELECT tx_count, tx_mean, tx_variance, month_key, month_total, months_observed, monthly_mean, monthly_variance " +
+        "FROM spending_anomaly_stats WHERE user_id = ? AND category_id = ? FOR UPDATE";
+    
+    private static final String UPSERT_STATS_SQL =
+        "INSERT INTO spending_anomaly_stats (user_id, category_id, tx_count, tx_mean, tx_variance, month_key, month_total, " +
+        "months_observed, monthly_mean, monthly_variance, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+        "ON DUPLICATE KEY UPDATE tx_count = VALUES(tx_count), tx_mean = VALUES(tx_mean), tx_variance = VALUES(tx_variance), " +
+        "month_key = VALUES(month_key), month_total = VALUES(month_total), months_observed = VALUES(months_observed), " +
+        "monthly_mean = VALUES(monthly_mean), monthly_variance = VALUES(monthly_variance), updated_at = VALUES(updated_at)";
+    
+    // Histórico usado para aquecer o estado na primeira despesa da categoria (exclui a despesa atual).
+    // O limite fica com as despesas mais recentes; a ordem cronológica é restaurada em memória
+    private static final String HISTORY_SQL =
+        "SELECT amount, COALESCE(due_date, transaction_date) AS effective_date FROM transactions " +
+        "WHERE user_id = ? AND category_id = ? AND type = 'EXPENSE' AND id <> ? " +
+        "AND COALESCE(due_date, transaction_date) >= ? AND COALESCE(due_date, transaction_date) < ? " +
+        "AND NOT (is_installment = true AND parent_transaction_id IS NULL) " +
+        "ORDER BY effective_date DESC, id DESC LIMIT ?";
+    
+    // Anomalias mensais têm dedup_key: a linha do mês é atualizada enquanto o total cresce
+    private static final String UPSERT_ANOMALY_SQL =
+        "INSERT INTO spending_anomalies (user_id, category_id, scope, transaction_id, month_key, amount, expected, " +
+        "z_score, severity, dedup_key, detected_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+        "ON DUPLICATE KEY UPDATE transaction_id = VALUES(transaction_id), amount = VALUES(amount), " +
+        "expected = VALUES(expected), z_score = VALUES(z_score), severity = VALUES(severity), detected_at = VALUES(detected_at)";
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    /**
+     * Cria (se preciso) e bloqueia o estado da categoria até o fim da transação.
+     * @return o estado, ou null se ele ainda não foi aquecido
+     */
+    public AnomalyStats lockStats(Long userId, Long categoryId) {
+        jdbcTemplate.update(CREATE_STATS_SQL, userId, categoryId, Timestamp.valueOf(LocalDateTime.now()));
+        List<AnomalyStats> stats = jdbcTemplate.query(LOCK_STATS_SQL,
+            (rs, rowNum) -> new AnomalyStats(
+                rs.getLong("tx_count"),
+                rs.getDouble("tx_mean"),
+                rs.getDouble("tx_variance"),
+                rs.getInt("month_key"),
+                rs.getBigDecimal("month_total"),
+                rs.getInt("months_observed"),
+                rs.getDouble("monthly_mean"),
+                rs.getDouble("monthly_variance")),
+            userId, categoryId);
+        return stats.isEmpty() || stats.get(0).getTxCount() < 0 ? null : stats.get(0);
+    }
+    
+    public void saveStats(Long userId, Long categoryId, AnomalyStats stats, LocalDateTime now) {
+        jdbcTemplate.update(UPSERT_STATS_SQL,
+            userId, categoryId,
+            stats.getTxCount(), stats.getTxMean(), stats.getTxVariance(),
+            stats.getMonthKey(), stats.getMonthTotal(), stats.getMonthsObserved(),
+            stats.getMonthlyMean(), stats.getMonthlyVariance(),
+            Timestamp.valueOf(now));
+    }
+    
+    /**
+     * @return as "limit" despesas mais recentes do período, em ordem cronológica
+     */
+    public List<HistoricalExpense> findHistory(Long userId, Long categoryId, Long excludeTransactionId,
+                                               LocalDate from, LocalDate until, int limit) {
+        List<HistoricalExpense> history = jdbcTemplate.query(HISTORY_SQL,
+            (rs, rowNum) -> new HistoricalExpense(
+                rs.getBigDecimal("amount"),
+                rs.getDate("effective_date").toLocalDate()),
+            userId, categoryId, excludeTransactionId, from, until, limit);
+        Collections.reverse(history);
+        return history;
+    }
+    
+    public void saveAnomaly(Long userId, Long categoryId, String scope, Long transactionId, int monthKey,
+                            BigDecimal amount, BigDecimal expected, double zScore, String severity,
+                            String dedupKey, LocalDateTime detectedAt) {
+        jdbcTemplate.update(UPSERT_ANOMALY_SQL,
+            userId, categoryId, scope, transactionId, monthKey, amount, expected,
+            zScore, severity, dedupKey, Timestamp.valueOf(detectedAt));
+    }
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class AnomalyStats {
+        private long txCount;
+        private double txMean;
+        private double txVariance;
+        private int monthKey; // yyyyMM
+        private BigDecimal monthTotal;
+        private int monthsObserved;
+        private double monthlyMean;
+        private double monthlyVariance;
+    }
+    
+    @Data
+    @AllArgsConstructor
+    public static class HistoricalExpense {
+        private BigDecimal amount;
+        private LocalDate date;
+    }
+}
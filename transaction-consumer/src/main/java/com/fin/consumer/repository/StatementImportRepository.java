@@ -0,0 +1,92 @@
+package com.fin.consumer.repository;
+
+import com.fin.consumer.model.Transaction;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Acesso JDBC da importação de extratos: reserva do lote, insert em lote das transações
+ * e progresso do job. Tudo roda na transação do lote, exceto markFailed (depois do rollback).
+ */
+@Repository
+public class StatementImportRepository {
+    
+    // Chave única (job, lote): se a linha já existe o lote foi gravado numa entrega anterior
+    private static final String CLAIM_BATCH_SQL =
+        "INSERT IGNORE INTO statement_import_batches (job_id, batch_number, inserted_count, processed_at) " +
+        "VALUES (?, ?, ?, ?)";
+    
+    private static final String INSERT_TRANSACTION_SQL =
+        "INSERT INTO transactions (description, amount, type, transaction_date, due_date, paid_date, user_id, " +
+        "category_id, is_paid, is_installment, total_installments, import_job_id, created_at, updated_at) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, true, false, 1, ?, ?, ?)";
+    
+    // O MySQL avalia o SET da esquerda para a direita: status e finished_at usam o processed_batches antigo
+    private static final String RECORD_BATCH_SQL =
+        "UPDATE statement_import_jobs SET " +
+        "status = CASE WHEN status = 'PROCESSING' AND total_batches IS NOT NULL " +
+        "AND processed_batches + 1 >= total_batches THEN 'COMPLETED' ELSE status END, " +
+        "finished_at = CASE WHEN status = 'COMPLETED' AND finished_at IS NULL THEN ? ELSE finished_at END, " +
+        "processed_batches = processed_batches + 1, " +
+        "imported_count = imported_count + ?, " +
+        "updated_at = ? " +
+        "WHERE id = ?";
+    
+    // Não sobrescreve um job já concluído ou marcado como falho
+    private static final String MARK_FAILED_SQL =
+        "UPDATE statement_import_jobs SET status = 'FAILED', error_message = ?, finished_at = ?, updated_at = ? " +
+        "WHERE id = ? AND status IN ('PENDING', 'PARSING', 'PROCESSING')";
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    /**
+     * Reserva o lote para esta transação; false quando ele já foi gravado (mensagem reentregue)
+     */
+    public boolean claimBatch(Long jobId, Integer batchNumber, int count, LocalDateTime now) {
+        return jdbcTemplate.update(CLAIM_BATCH_SQL, jobId, batchNumber, count, Timestamp.valueOf(now)) > 0;
+    }
+    
+    /**
+     * Grava as transações com um único batchUpdate (com rewriteBatchedStatements vira um INSERT multi-linha).
+     * As entidades não recebem o ID gerado.
+     */
+    public void insertTransactions(Long jobId, Long userId, List<Transaction> transactions, LocalDateTime now) {
+        Timestamp timestamp = Timestamp.valueOf(now);
+        jdbcTemplate.batchUpdate(INSERT_TRANSACTION_SQL, transactions, transactions.size(), (ps, transaction) -> {
+            Date date = Date.valueOf(transaction.getTransactionDate());
+            ps.setString(1, transaction.getDescription());
+            ps.setBigDecimal(2, transaction.getAmount());
+            ps.setString(3, transaction.getType().name());
+            ps.setDate(4, date);
+            ps.setDate(5, date);
+            ps.setDate(6, date);
+            ps.setLong(7, userId);
+            if (transaction.getCategory() != null) {
+                ps.setLong(8, transaction.getCategory().getId());
+            } else {
+                ps.setNull(8, Types.BIGINT);
+            }
+            ps.setLong(9, jobId);
+            ps.setTimestamp(10, timestamp);
+            ps.setTimestamp(11, timestamp);
+        });
+    }
+    
+    public void recordBatchProcessed(Long jobId, int inserted, LocalDateTime now) {
+        Timestamp timestamp = Timestamp.valueOf(now);
+        jdbcTemplate.update(RECORD_BATCH_SQL, timestamp, inserted, timestamp, jobId);
+    }
+    
+    public void markFailed(Long jobId, String errorMessage, LocalDateTime now) {
+        Timestamp timestamp = Timestamp.valueOf(now);
+        jdbcTemplate.update(MARK_FAILED_SQL, errorMessage, timestamp, timestamp, jobId);
+    }
+}
@@ -0,0 +1,75 @@
+package com.fin.consumer.rules;
+
+import com.fin.consumer.model.AutomationRule;
+import com.fin.consumer.repository.AutomationRuleRepository;
+import com.fin.consumer.repository.CategoryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache por usuário das regras de automação compiladas.
+ * É invalidado pelas mensagens do tópico de alterações de regras publicadas pelo backend;
+ * o TTL é apenas uma rede de segurança caso alguma mensagem se perca.
+ */
+@Component
+public class AutomationRuleCache {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AutomationRuleCache.class);
+    
+    @Autowired
+    private AutomationRuleRepository automationRuleRepository;
+    
+    @Autowired
+    private CategoryRepository categoryRepository;
+    
+    @Value("${automation.rules.cache-ttl-seconds:600}")
+    private long cacheTtlSeconds;
+    
+    private final Map<Long, CompiledRuleSet> ruleSets = new ConcurrentHashMap<>();
+    
+    // Versão por usuário: evita guardar uma compilação iniciada antes de uma invalidação
+    private final Map<Long, AtomicLong> versions = new ConcurrentHashMap<>();
+    
+    public CompiledRuleSet getRuleSet(Long userId) {
+        CompiledRuleSet cached = ruleSets.get(userId);
+        if (cached != null && !isExpired(cached)) {
+            return cached;
+        }
+        
+        AtomicLong version = versions.computeIfAbsent(userId, id -> new AtomicLong());
+        long versionBeforeLoad = version.get();
+        
+        List<AutomationRule> rules = automationRuleRepository.findByUserIdAndIsActiveTrueOrderByPriorityDesc(userId);
+        CompiledRuleSet compiled = CompiledRuleSet.compile(rules,
+            rules.isEmpty() ? new HashSet<>() : new HashSet<>(categoryRepository.findIdsByUserId(userId)));
+        
+        if (version.get() == versionBeforeLoad) {
+            ruleSets.put(userId, compiled);
+        }
+        logger.debug("Regras de automação compiladas para o usuário {}: {} regra(s)", userId, compiled.getRules().size());
+        return compiled;
+    }
+    
+    public void invalidate(Long userId) {
+        versions.computeIfAbsent(userId, id -> new AtomicLong()).incrementAndGet();
+        ruleSets.remove(userId);
+    }
+    
+    public void invalidateAll() {
+        versions.values().forEach(AtomicLong::incrementAndGet);
+        ruleSets.clear();
+    }
+    
+    private boolean isExpired(CompiledRuleSet ruleSet) {
+        return System.currentTimeMillis() - ruleSet.getCompiledAtMillis() > cacheTtlSeconds * 1000;
+    }
+}
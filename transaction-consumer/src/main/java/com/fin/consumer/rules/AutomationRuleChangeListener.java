@@ -0,0 +1,42 @@
+package com.fin.consumer.rules;
+
+import com.fin.consumer.dto.AutomationRuleChangeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.PartitionOffset;
+import org.springframework.kafka.annotation.TopicPartition;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Component;
+
+/**
+ * Escuta o tópico compactado de alterações de regras e invalida o cache do usuário.
+ * As partições são atribuídas manualmente (sem entrar em consumer group): toda instância recebe todas as
+ * invalidações, nenhum grupo fica órfão no broker e nenhum offset é commitado - cada início relê o tópico
+ * compactado desde o offset 0, o que só invalida entradas de um cache ainda vazio.
+ */
+@Component
+public class AutomationRuleChangeListener {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AutomationRuleChangeListener.class);
+    
+    @Autowired
+    private AutomationRuleCache automationRuleCache;
+    
+    @KafkaListener(
+        topicPartitions = @TopicPartition(
+            topic = "${kafka.topic.automation-rules:automation-rule-changes}",
+            partitions = "${kafka.automation-rules.partitions:0}",
+            partitionOffsets = @PartitionOffset(partition = "*", initialOffset = "0")
+        ),
+        properties = "enable.auto.commit=false"
+    )
+    public void onRuleChange(@Payload AutomationRuleChangeMessage message) {
+        if (message != null && message.getUserId() != null) {
+            automationRuleCache.invalidate(message.getUserId());
+            logger.info("Cache de regras invalidado para o usuário {} ({} da regra {})",
+                message.getUserId(), message.getOperation(), message.getRuleId());
+        }
+    }
+}
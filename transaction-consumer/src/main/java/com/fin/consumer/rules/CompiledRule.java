@@ -0,0 +1,51 @@
+package com.fin.consumer.rules;
+
+import java.math.BigDecimal;
+
+/**
+ * Regra de automação pré-processada: palavra-chave em minúsculas, limites de valor já convertidos
+ * e categoria de destino já validada. Imutável, pode ser compartilhada entre threads.
+ */
+public final class CompiledRule {
+    
+    public enum Condition {
+        KEYWORD,      // DESCRIPTION_CONTAINS ou MERCHANT
+        AMOUNT_RANGE,
+        NEVER         // Tipo desconhecido ou valor de condição inválido
+    }
+    
+    private final Long ruleId;
+    private final String name;
+    private final Condition condition;
+    private final int keywordIndex; // Índice no KeywordMatcher do usuário (-1 se não for KEYWORD)
+    private final BigDecimal minAmount;
+    private final BigDecimal maxAmount;
+    private final String actionType;
+    private final Long categoryId; // Para AUTO_CATEGORIZE: categoria validada (null se inválida)
+    
+    CompiledRule(Long ruleId, String name, Condition condition, int keywordIndex,
+                 BigDecimal minAmount, BigDecimal maxAmount, String actionType, Long categoryId) {
+        this.ruleId = ruleId;
+        this.name = name;
+        this.condition = condition;
+        this.keywordIndex = keywordIndex;
+        this.minAmount = minAmount;
+        this.maxAmount = maxAmount;
+        this.actionType = actionType;
+        this.categoryId = categoryId;
+    }
+    
+    boolean matchesAmount(BigDecimal amount) {
+        if (amount == null) return false;
+        if (minAmount != null && amount.compareTo(minAmount) < 0) return false;
+        if (maxAmount != null && amount.compareTo(maxAmount) > 0) return false;
+        return true;
+    }
+    
+    public Long getRuleId() { return ruleId; }
+    public String getName() { return name; }
+    public Condition getCondition() { return condition; }
+    public int getKeywordIndex() { return keywordIndex; }
+    public String getActionType() { return actionType; }
+    public Long getCategoryId() { return categoryId; }
+}
@@ -0,0 +1,140 @@
+package com.fin.consumer.rules;
+
+import com.fin.consumer.model.AutomationRule;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Conjunto de regras ativas de um usuário, compilado uma única vez.
+ * A avaliação de uma transação faz uma só conversão para minúsculas e uma só varredura
+ * da descrição, e devolve a primeira regra (por prioridade) que corresponder.
+ */
+public final class CompiledRuleSet {
+    
+    private final List<CompiledRule> rules;
+    private final KeywordMatcher keywordMatcher;
+    private final boolean hasKeywordRules;
+    private final long compiledAtMillis;
+    
+    private CompiledRuleSet(List<CompiledRule> rules, KeywordMatcher keywordMatcher, boolean hasKeywordRules) {
+        this.rules = Collections.unmodifiableList(rules);
+        this.keywordMatcher = keywordMatcher;
+        this.hasKeywordRules = hasKeywordRules;
+        this.compiledAtMillis = System.currentTimeMillis();
+    }
+    
+    /**
+     * @param activeRules regras ativas já ordenadas por prioridade (maior primeiro)
+     * @param ownedCategoryIds categorias que pertencem ao usuário (para validar AUTO_CATEGORIZE)
+     */
+    public static CompiledRuleSet compile(List<AutomationRule> activeRules, Set<Long> ownedCategoryIds) {
+        List<CompiledRule> compiled = new ArrayList<>(activeRules.size());
+        List<String> keywords = new ArrayList<>();
+        Map<String, Integer> keywordIndexes = new HashMap<>();
+        
+        for (AutomationRule rule : activeRules) {
+            CompiledRule.Condition condition = CompiledRule.Condition.NEVER;
+            int keywordIndex = -1;
+            BigDecimal min = null;
+            BigDecimal max = null;
+            String value = rule.getConditionValue();
+            
+            if (value != null && rule.getConditionType() != null) {
+                switch (rule.getConditionType()) {
+                    case "DESCRIPTION_CONTAINS":
+                    case "MERCHANT":
+                        String keyword = value.toLowerCase();
+                        keywordIndex = keywordIndexes.computeIfAbsent(keyword, k -> {
+                            keywords.add(k);
+                            return keywords.size() - 1;
+                        });
+                        condition = CompiledRule.Condition.KEYWORD;
+                        break;
+                    
+                    case "AMOUNT_RANGE":
+                        // Formato: "min:max" ou "min:" ou ":max"
+                        String[] range = value.split(":", -1);
+                        if (range.length == 2) {
+                            try {
+                                min = range[0].isEmpty() ? null : new BigDecimal(range[0].trim());
+                                max = range[1].isEmpty() ? null : new BigDecimal(range[1].trim());
+                                condition = CompiledRule.Condition.AMOUNT_RANGE;
+                            } catch (NumberFormatException e) {
+                                condition = CompiledRule.Condition.NEVER;
+                            }
+                        }
+                        break;
+                    
+                    default:
+                        break;
+                }
+            }
+            
+            Long categoryId = null;
+            if ("AUTO_CATEGORIZE".equals(rule.getActionType()) && rule.getActionValue() != null) {
+                try {
+                    Long parsed = Long.parseLong(rule.getActionValue().trim());
+                    categoryId = ownedCategoryIds.contains(parsed) ? parsed : null;
+                } catch (NumberFormatException e) {
+                    categoryId = null;
+                }
+            }
+            
+            compiled.add(new CompiledRule(rule.getId(), rule.getName(), condition, keywordIndex,
+                min, max, rule.getActionType(), categoryId));
+        }
+        
+        return new CompiledRuleSet(compiled, KeywordMatcher.compile(keywords), !keywords.isEmpty());
+    }
+    
+    /**
+     * @return a primeira regra que corresponde à transação, ou null
+     */
+    public CompiledRule findFirstMatch(String description, BigDecimal amount) {
+        if (rules.isEmpty()) {
+            return null;
+        }
+        
+        BitSet keywordHits = null;
+        if (hasKeywordRules && description != null) {
+            keywordHits = keywordMatcher.match(description.toLowerCase());
+        }
+        
+        for (CompiledRule rule : rules) {
+            switch (rule.getCondition()) {
+                case KEYWORD:
+                    if (keywordHits != null && keywordHits.get(rule.getKeywordIndex())) {
+                        return rule;
+                    }
+                    break;
+                case AMOUNT_RANGE:
+                    if (rule.matchesAmount(amount)) {
+                        return rule;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        return null;
+    }
+    
+    public boolean isEmpty() {
+        return rules.isEmpty();
+    }
+    
+    public List<CompiledRule> getRules() {
+        return rules;
+    }
+    
+    public long getCompiledAtMillis() {
+        return compiledAtMillis;
+    }
+}
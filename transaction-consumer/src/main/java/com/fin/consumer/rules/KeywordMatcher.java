@@ -0,0 +1,114 @@
+package com.fin.consumer.rules;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Autômato Aho-Corasick imutável com todas as palavras-chave de um usuário.
+ * Uma única varredura da descrição informa quais palavras-chave aparecem nela,
+ * independente de quantas regras DESCRIPTION_CONTAINS/MERCHANT o usuário tenha.
+ */
+public final class KeywordMatcher {
+    
+    private static final KeywordMatcher EMPTY = new KeywordMatcher(new ArrayList<>(), 0);
+    
+    private final List<Map<Character, Integer>> transitions;
+    private final int[] failure;
+    private final int[][] outputs; // Índices das palavras-chave que terminam em cada estado (incluindo sufixos)
+    private final int keywordCount;
+    
+    private KeywordMatcher(List<String> keywords, int keywordCount) {
+        this.keywordCount = keywordCount;
+        this.transitions = new ArrayList<>();
+        this.transitions.add(new HashMap<>());
+        List<List<Integer>> out = new ArrayList<>();
+        out.add(new ArrayList<>());
+        
+        // Montar a trie
+        for (int k = 0; k < keywords.size(); k++) {
+            String keyword = keywords.get(k);
+            int state = 0;
+            for (int i = 0; i < keyword.length(); i++) {
+                char c = keyword.charAt(i);
+                Integer next = transitions.get(state).get(c);
+                if (next == null) {
+                    next = transitions.size();
+                    transitions.get(state).put(c, next);
+                    transitions.add(new HashMap<>());
+                    out.add(new ArrayList<>());
+                }
+                state = next;
+            }
+            out.get(state).add(k);
+        }
+        
+        // Links de falha em largura (BFS)
+        this.failure = new int[transitions.size()];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int child : transitions.get(0).values()) {
+            failure[child] = 0;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (Map.Entry<Character, Integer> edge : transitions.get(state).entrySet()) {
+                char c = edge.getKey();
+                int child = edge.getValue();
+                int f = failure[state];
+                while (f != 0 && !transitions.get(f).containsKey(c)) {
+                    f = failure[f];
+                }
+                Integer target = transitions.get(f).get(c);
+                failure[child] = target != null && target != child ? target : 0;
+                out.get(child).addAll(out.get(failure[child]));
+                queue.add(child);
+            }
+        }
+        
+        this.outputs = new int[out.size()][];
+        for (int s = 0; s < out.size(); s++) {
+            this.outputs[s] = out.get(s).stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+    
+    /**
+     * @param keywords palavras-chave já em minúsculas; a posição na lista é o índice devolvido em {@link #match}
+     */
+    public static KeywordMatcher compile(List<String> keywords) {
+        if (keywords.isEmpty()) {
+            return EMPTY;
+        }
+        return new KeywordMatcher(keywords, keywords.size());
+    }
+    
+    /**
+     * @param text texto já em minúsculas
+     * @return conjunto com os índices das palavras-chave encontradas no texto
+     */
+    public BitSet match(String text) {
+        BitSet found = new BitSet(keywordCount);
+        if (keywordCount == 0 || text == null) {
+            return found;
+        }
+        for (int k : outputs[0]) {
+            found.set(k); // Palavra-chave vazia corresponde a qualquer texto
+        }
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            Integer next;
+            while ((next = transitions.get(state).get(c)) == null && state != 0) {
+                state = failure[state];
+            }
+            state = next != null ? next : 0;
+            for (int k : outputs[state]) {
+                found.set(k);
+            }
+        }
+        return found;
+    }
+}
@@ -0,0 +1,67 @@
+package com.fin.consumer.rules;
+
+import com.fin.consumer.repository.AutomationRuleRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Acumula em memória as execuções das regras de automação e grava periodicamente
+ * um único incremento por regra, em vez de um UPDATE na linha da regra a cada transação.
+ */
+@Component
+public class RuleExecutionStats {
+    
+    private static final Logger logger = LoggerFactory.getLogger(RuleExecutionStats.class);
+    
+    @Autowired
+    private AutomationRuleRepository automationRuleRepository;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    // LongAdder distribui os incrementos concorrentes entre células (contador listrado)
+    private final Map<Long, LongAdder> pendingCounts = new ConcurrentHashMap<>();
+    private final Map<Long, LocalDateTime> lastExecutions = new ConcurrentHashMap<>();
+    
+    public void record(Long ruleId) {
+        pendingCounts.computeIfAbsent(ruleId, id -> new LongAdder()).increment();
+        lastExecutions.merge(ruleId, LocalDateTime.now(), (a, b) -> a.isAfter(b) ? a : b);
+    }
+    
+    @Scheduled(fixedDelayString = "${automation.rules.stats-flush-interval-ms:5000}")
+    public void flush() {
+        for (Map.Entry<Long, LongAdder> entry : pendingCounts.entrySet()) {
+            Long ruleId = entry.getKey();
+            // sumThenReset zera cada célula atomicamente: incrementos concorrentes entram neste flush ou no próximo
+            long delta = entry.getValue().sumThenReset();
+            if (delta == 0) {
+                continue;
+            }
+            LocalDateTime lastExecution = lastExecutions.getOrDefault(ruleId, LocalDateTime.now());
+            
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                    automationRuleRepository.addExecutions(ruleId, delta, lastExecution));
+            } catch (Exception e) {
+                // Devolver o delta para tentar novamente no próximo ciclo
+                entry.getValue().add(delta);
+                logger.warn("Erro ao gravar estatísticas da regra {}: {}", ruleId, e.getMessage());
+            }
+        }
+    }
+    
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
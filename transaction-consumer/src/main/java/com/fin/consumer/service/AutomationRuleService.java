@@ -1,19 +1,17 @@
 package com.fin.consumer.service;
 
-import com.fin.consumer.model.AutomationRule;
 import com.fin.consumer.model.Category;
 import com.fin.consumer.model.Transaction;
-import com.fin.consumer.repository.AutomationRuleRepository;
 import com.fin.consumer.repository.CategoryRepository;
-import com.fin.consumer.repository.TransactionRepository;
+import com.fin.consumer.rules.AutomationRuleCache;
+import com.fin.consumer.rules.CompiledRule;
+import com.fin.consumer.rules.CompiledRuleSet;
+import com.fin.consumer.rules.RuleExecutionStats;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
-import java.time.LocalDateTime;
 import java.util.List;
 
 @Service
@@ -22,31 +20,42 @@ public class AutomationRuleService {
     private static final Logger logger = LoggerFactory.getLogger(AutomationRuleService.class);
     
     @Autowired
-    private AutomationRuleRepository automationRuleRepository;
+    private CategoryRepository categoryRepository;
     
     @Autowired
-    private CategoryRepository categoryRepository;
+    private AutomationRuleCache automationRuleCache;
     
     @Autowired
-    private TransactionRepository transactionRepository;
+    private RuleExecutionStats ruleExecutionStats;
     
     /**
-     * Aplica regras de automação a uma transação
+     * Aplica regras de automação a uma transação ainda não persistida.
+     * Só altera a entidade em memória: quem chama grava a transação uma única vez.
+     * Apenas a primeira regra que corresponder é executada.
      */
-    @Transactional
     public void applyRulesToTransaction(Long userId, Transaction transaction) {
+        applyRulesToTransactions(userId, List.of(transaction));
+    }
+    
+    /**
+     * Mesmo que {@link #applyRulesToTransaction}, para várias transações do mesmo usuário (ex.: parcelas).
+     */
+    public void applyRulesToTransactions(Long userId, List<Transaction> transactions) {
         try {
-            List<AutomationRule> rules = automationRuleRepository.findByUserIdAndIsActiveTrueOrderByPriorityDesc(userId);
+            CompiledRuleSet ruleSet = automationRuleCache.getRuleSet(userId);
+            if (ruleSet.isEmpty()) {
+                return;
+            }
             
-            for (AutomationRule rule : rules) {
-                if (matchesCondition(rule, transaction)) {
-                    executeAction(rule, transaction);
-                    rule.setExecutionCount(rule.getExecutionCount() + 1);
-                    rule.setLastExecution(LocalDateTime.now());
-                    automationRuleRepository.save(rule);
-                    logger.info("Regra de automação '{}' aplicada à transação {}", rule.getName(), transaction.getId());
-                    break; // Apenas a primeira regra que corresponder é executada
+            for (Transaction transaction : transactions) {
+                CompiledRule rule = ruleSet.findFirstMatch(transaction.getDescription(), transaction.getAmount());
+                if (rule == null) {
+                    continue;
                 }
+                
+                executeAction(rule, transaction);
+                ruleExecutionStats.record(rule.getRuleId());
+                logger.info("Regra de automação '{}' aplicada à transação '{}'", rule.getName(), transaction.getDescription());
             }
         } catch (Exception e) {
             logger.error("Erro ao aplicar regras de automação: {}", e.getMessage());
@@ -54,55 +63,27 @@ public class AutomationRuleService {
         }
     }
     
-    private boolean matchesCondition(AutomationRule rule, Transaction transaction) {
-        switch (rule.getConditionType()) {
-            case "DESCRIPTION_CONTAINS":
-                String keyword = rule.getConditionValue().toLowerCase();
-                return transaction.getDescription() != null &&
-                       transaction.getDescription().toLowerCase().contains(keyword);
-            
-            case "AMOUNT_RANGE":
-                String[] range = rule.getConditionValue().split(":");
-                BigDecimal amount = transaction.getAmount();
-                if (range.length == 2) {
-                    BigDecimal min = range[0].isEmpty() ? null : new BigDecimal(range[0]);
-                    BigDecimal max = range[1].isEmpty() ? null : new BigDecimal(range[1]);
-                    if (min != null && amount.compareTo(min) < 0) return false;
-                    if (max != null && amount.compareTo(max) > 0) return false;
-                    return true;
-                }
-                return false;
-            
-            case "MERCHANT":
-                String merchant = rule.getConditionValue().toLowerCase();
-                return transaction.getDescription() != null &&
-                       transaction.getDescription().toLowerCase().contains(merchant);
-            
-            default:
-                return false;
+    private void executeAction(CompiledRule rule, Transaction transaction) {
+        if (rule.getActionType() == null) {
+            return;
         }
-    }
-    
-    private void executeAction(AutomationRule rule, Transaction transaction) {
         switch (rule.getActionType()) {
             case "AUTO_CATEGORIZE":
-                try {
-                    Long categoryId = Long.parseLong(rule.getActionValue());
-                    Category category = categoryRepository.findById(categoryId).orElse(null);
-                    if (category != null && category.getUser().getId().equals(transaction.getUser().getId())) {
-                        transaction.setCategory(category);
-                        transactionRepository.save(transaction);
-                        logger.info("Categoria '{}' aplicada automaticamente à transação {}", category.getName(), transaction.getId());
-                    }
-                } catch (NumberFormatException e) {
-                    logger.warn("ID de categoria inválido na regra: {}", rule.getActionValue());
+                // A posse da categoria já foi validada na compilação; aqui só confirmamos que ainda existe
+                Category category = rule.getCategoryId() != null
+                    ? categoryRepository.findById(rule.getCategoryId()).orElse(null)
+                    : null;
+                if (category != null) {
+                    transaction.setCategory(category);
+                    logger.info("Categoria {} aplicada automaticamente", rule.getCategoryId());
+                } else {
+                    logger.warn("Categoria inválida na regra {}", rule.getRuleId());
                 }
                 break;
             
             case "AUTO_APPROVE":
                 transaction.setIsPaid(true);
-                transactionRepository.save(transaction);
-                logger.info("Transação {} marcada como paga automaticamente", transaction.getId());
+                logger.info("Transação marcada como paga automaticamente");
                 break;
         }
     }
@@ -0,0 +1,167 @@
+package com.fin.consumer.service;
+
+import com.fin.consumer.dto.NotificationPushMessage;
+import com.fin.consumer.model.Transaction;
+import com.fin.consumer.repository.BudgetAlertRepository;
+import com.fin.consumer.repository.BudgetAlertRepository.MatchingBudget;
+import com.fin.consumer.repository.BudgetAlertRepository.PeriodBudget;
+import com.fin.consumer.repository.BudgetAlertRepository.SpendCounter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Avalia os alertas de orçamento no caminho de ingestão: cada despesa gravada incrementa o contador
+ * de gasto dos orçamentos que ela afeta, e o cruzamento da porcentagem de alerta ou do limite gera
+ * uma única notificação (as flags do contador são gravadas na mesma transação da despesa).
+ */
+@Service
+public class BudgetAlertService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(BudgetAlertService.class);
+    
+    private static final String NOTIFICATION_TYPE = "BUDGET_ALERT";
+    
+    @Autowired
+    private BudgetAlertRepository budgetAlertRepository;
+    
+    @Autowired
+    private NotificationPublisher notificationPublisher;
+    
+    // Contadores mais antigos que isso são recalculados a partir das transações
+    // (corrige desvios de edições e exclusões feitas pelo backend)
+    @Value("${budget.alerts.resync-minutes:60}")
+    private long resyncMinutes;
+    
+    /**
+     * Deve ser chamado dentro da transação que gravou a despesa, depois do insert.
+     */
+    public void onExpensePersisted(Long userId, Transaction transaction) {
+        if (transaction.getType() != Transaction.TransactionType.EXPENSE
+                || transaction.getAmount() == null
+                || transaction.getAmount().signum() <= 0) {
+            return;
+        }
+        
+        Long categoryId = transaction.getCategory() != null ? transaction.getCategory().getId() : null;
+        List<MatchingBudget> budgets = budgetAlertRepository.findMatchingBudgets(
+            userId, categoryId, transaction.getTransactionDate());
+        
+        for (MatchingBudget budget : budgets) {
+            evaluate(userId, budget, transaction.getAmount(), transaction.getId());
+        }
+    }
+    
+    /**
+     * Versão em lote para a importação de extratos: soma as despesas do lote por orçamento e avalia
+     * cada orçamento uma única vez. Deve ser chamado dentro da transação que gravou o lote, depois dos inserts.
+     */
+    public void onExpensesImported(Long userId, List<Transaction> transactions) {
+        LocalDate from = null;
+        LocalDate to = null;
+        for (Transaction transaction : transactions) {
+            if (!isExpense(transaction)) {
+                continue;
+            }
+            LocalDate date = transaction.getTransactionDate();
+            if (from == null || date.isBefore(from)) {
+                from = date;
+            }
+            if (to == null || date.isAfter(to)) {
+                to = date;
+            }
+        }
+        if (from == null) {
+            return;
+        }
+        
+        for (PeriodBudget periodBudget : budgetAlertRepository.findBudgetsInPeriod(userId, from, to)) {
+            BigDecimal amount = BigDecimal.ZERO;
+            for (Transaction transaction : transactions) {
+                if (isExpense(transaction) && affects(periodBudget, transaction)) {
+                    amount = amount.add(transaction.getAmount());
+                }
+            }
+            if (amount.signum() > 0) {
+                // As transações do lote não têm ID (insert em lote): a notificação fica sem transação relacionada
+                evaluate(userId, periodBudget.getBudget(), amount, null);
+            }
+        }
+    }
+    
+    private boolean isExpense(Transaction transaction) {
+        return transaction.getType() == Transaction.TransactionType.EXPENSE
+                && transaction.getAmount() != null
+                && transaction.getAmount().signum() > 0;
+    }
+    
+    private boolean affects(PeriodBudget budget, Transaction transaction) {
+        LocalDate date = transaction.getTransactionDate();
+        if (date.isBefore(budget.getStartDate()) || date.isAfter(budget.getEndDate())) {
+            return false;
+        }
+        return budget.getCategoryId() == null
+                || (transaction.getCategory() != null && budget.getCategoryId().equals(transaction.getCategory().getId()));
+    }
+    
+    private void evaluate(Long userId, MatchingBudget budget, BigDecimal amount, Long transactionId) {
+        LocalDateTime now = LocalDateTime.now();
+        BudgetThresholds thresholds = new BudgetThresholds(budget.getLimitAmount(), budget.getAlertPercentage());
+        
+        SpendCounter counter = budgetAlertRepository.lockCounter(budget.getId());
+        
+        if (counter != null && counter.getSyncedAt().isAfter(now.minusMinutes(resyncMinutes))) {
+            // Caminho comum: apenas soma a despesa ao contador
+            counter.setSpent(counter.getSpent().add(amount));
+        } else {
+            // Contador inexistente ou antigo: recalcula o período (a soma já inclui esta despesa).
+            // Limiares já cruzados antes desta despesa não geram alerta novo
+            BigDecimal spent = budgetAlertRepository.sumSpent(budget.getId());
+            BigDecimal previous = spent.subtract(amount);
+            counter = new SpendCounter(spent,
+                thresholds.alertAlreadyNotified(previous, counter == null || counter.isAlertNotified()),
+                thresholds.limitAlreadyNotified(previous, counter == null || counter.isLimitNotified()),
+                now);
+        }
+        
+        // Mesmas regras do backend: limiares que o gasto deixou de atingir são rearmados
+        BudgetThresholds.Decision decision = thresholds.evaluate(
+            counter.getSpent(), counter.isAlertNotified(), counter.isLimitNotified());
+        counter.setAlertNotified(decision.isAlertNotified());
+        counter.setLimitNotified(decision.isLimitNotified());
+        
+        BigDecimal spent = counter.getSpent();
+        BigDecimal limit = thresholds.getLimit();
+        if (decision.getAlert() == BudgetThresholds.Alert.LIMIT) {
+            notify(userId, transactionId, "Orçamento Excedido",
+                String.format("Orçamento '%s' foi excedido em R$ %.2f (R$ %.2f de R$ %.2f)",
+                    budget.getName(), spent.subtract(limit), spent, limit));
+        } else if (decision.getAlert() == BudgetThresholds.Alert.PERCENTAGE) {
+            notify(userId, transactionId, "Alerta de Orçamento",
+                String.format("Orçamento '%s' atingiu %d%% do limite (R$ %.2f de R$ %.2f)",
+                    budget.getName(), thresholds.getAlertPercentage(), spent, limit));
+        }
+        
+        budgetAlertRepository.saveCounter(budget.getId(), counter, now);
+    }
+    
+    private void notify(Long userId, Long transactionId, String title, String message) {
+        LocalDateTime createdAt = LocalDateTime.now();
+        Long notificationId = budgetAlertRepository.insertNotification(
+            userId, title, message, NOTIFICATION_TYPE, transactionId, createdAt);
+        
+        logger.info("Alerta de orçamento gerado para o usuário {}: {}", userId, message);
+        
+        NotificationPushMessage.NotificationPayload payload = new NotificationPushMessage.NotificationPayload(
+            notificationId, title, message, NOTIFICATION_TYPE, false, null, transactionId, createdAt);
+        notificationPublisher.publishAfterCommit(new NotificationPushMessage(
+            userId, NotificationPushMessage.EVENT_NOTIFICATION, payload, null));
+    }
+}
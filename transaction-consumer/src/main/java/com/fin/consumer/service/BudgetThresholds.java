@@ -0,0 +1,82 @@
+package com.fin.consumer.service;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Limiares de alerta de um orçamento (porcentagem e limite). A mesma classe existe no backend e no
+ * transaction-consumer, que mantêm o mesmo contador; a tabela budget-alert-thresholds.csv confere que
+ * as duas decidem igual.
+ */
+public final class BudgetThresholds {
+    
+    public enum Alert {
+        NONE,
+        PERCENTAGE,
+        LIMIT
+    }
+    
+    private final BigDecimal limit;
+    private final int alertPercentage;
+    private final BigDecimal alertThreshold;
+    
+    public BudgetThresholds(BigDecimal limit, Integer alertPercentage) {
+        this.limit = limit;
+        this.alertPercentage = alertPercentage != null ? alertPercentage : 80;
+        this.alertThreshold = limit.multiply(BigDecimal.valueOf(this.alertPercentage))
+                .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
+    }
+    
+    public BigDecimal getLimit() {
+        return limit;
+    }
+    
+    public int getAlertPercentage() {
+        return alertPercentage;
+    }
+    
+    /**
+     * Contador recalculado: um limiar já cruzado antes do valor novo continua notificado
+     * (sem contador anterior, assume-se que o alerta já foi enviado)
+     */
+    public boolean alertAlreadyNotified(BigDecimal previous, boolean notified) {
+        return notified && previous.compareTo(alertThreshold) >= 0;
+    }
+    
+    public boolean limitAlreadyNotified(BigDecimal previous, boolean notified) {
+        return notified && previous.compareTo(limit) > 0;
+    }
+    
+    /**
+     * Rearma os limiares que o gasto deixou de atingir (limite aumentado, despesa excluída) e decide
+     * qual alerta enviar; exceder o limite também cobre o alerta de porcentagem
+     */
+    public Decision evaluate(BigDecimal spent, boolean alertNotified, boolean limitNotified) {
+        if (spent.compareTo(alertThreshold) < 0) {
+            alertNotified = false;
+        }
+        if (spent.compareTo(limit) <= 0) {
+            limitNotified = false;
+        }
+        
+        if (!limitNotified && spent.compareTo(limit) > 0) {
+            return new Decision(Alert.LIMIT, true, true);
+        }
+        if (!alertNotified && spent.compareTo(alertThreshold) >= 0) {
+            return new Decision(Alert.PERCENTAGE, true, limitNotified);
+        }
+        return new Decision(Alert.NONE, alertNotified, limitNotified);
+    }
+    
+    @Data
+    @AllArgsConstructor(access = AccessLevel.PRIVATE)
+    public static class Decision {
+        private Alert alert;
+        private boolean alertNotified;
+        private boolean limitNotified;
+    }
+}
@@ -0,0 +1,81 @@
+package com.fin.consumer.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fin.consumer.dto.NotificationPushMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Entrega em tempo real das notificações gravadas pelo consumer: após o commit invalida o contador
+ * de não lidas do usuário e publica o evento no canal Redis que o backend repassa por SSE.
+ */
+@Service
+public class NotificationPublisher {
+    
+    private static final Logger logger = LoggerFactory.getLogger(NotificationPublisher.class);
+    
+    // Mesma chave do contador de não lidas mantido pelo backend (NotificationUnreadCounter)
+    private static final String UNREAD_KEY_PREFIX = "notifications:unread:";
+    
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Value("${notifications.stream.channel:notifications:events}")
+    private String channel;
+    
+    public void publishAfterCommit(NotificationPushMessage message) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(List.of(message));
+            return;
+        }
+        
+        // Agrupa as mensagens da transação para uma única sincronização
+        List<NotificationPushMessage> pending = pendingMessages();
+        pending.add(message);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private List<NotificationPushMessage> pendingMessages() {
+        Object existing = TransactionSynchronizationManager.getResource(this);
+        if (existing != null) {
+            return (List<NotificationPushMessage>) existing;
+        }
+        
+        List<NotificationPushMessage> pending = new ArrayList<>();
+        TransactionSynchronizationManager.bindResource(this, pending);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(NotificationPublisher.this);
+                if (status == STATUS_COMMITTED) {
+                    publish(pending);
+                }
+            }
+        });
+        return pending;
+    }
+    
+    private void publish(List<NotificationPushMessage> messages) {
+        for (NotificationPushMessage message : messages) {
+            try {
+                redisTemplate.delete(UNREAD_KEY_PREFIX + message.getUserId());
+                redisTemplate.convertAndSend(channel, objectMapper.writeValueAsString(message));
+            } catch (Exception e) {
+                // A notificação já está gravada; o cliente a verá na próxima consulta
+                logger.warn("Falha ao publicar notificação do usuário {}: {}", message.getUserId(), e.getMessage());
+            }
+        }
+    }
+}
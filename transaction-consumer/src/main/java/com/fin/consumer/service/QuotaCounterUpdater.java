@@ -0,0 +1,56 @@
+package com.fin.consumer.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+/**
+ * Mantém o contador de transações da cota do usuário (hash "quota:<userId>" do QuotaService do backend)
+ * quando o consumer grava transações. Sem hash em cache nada é feito: o backend recarrega com COUNT(*).
+ */
+@Service
+public class QuotaCounterUpdater {
+    
+    private static final Logger logger = LoggerFactory.getLogger(QuotaCounterUpdater.class);
+    
+    private static final String KEY_PREFIX = "quota:";
+    private static final String TRANSACTIONS_FIELD = "TRANSACTIONS";
+    
+    // Mesmo ajuste condicional do backend: só incrementa se o hash existir
+    private static final DefaultRedisScript<Long> ADJUST_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('EXISTS', KEYS[1]) == 0 then return -1 end " +
+        "return redis.call('HINCRBY', KEYS[1], ARGV[1], ARGV[2])",
+        Long.class);
+    
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+    
+    public void addTransactionsAfterCommit(Long userId, int count) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            add(userId, count);
+            return;
+        }
+        
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                add(userId, count);
+            }
+        });
+    }
+    
+    private void add(Long userId, int count) {
+        try {
+            redisTemplate.execute(ADJUST_SCRIPT, List.of(KEY_PREFIX + userId), TRANSACTIONS_FIELD, String.valueOf(count));
+        } catch (Exception e) {
+            logger.warn("Falha ao atualizar a cota de transações do usuário {}: {}", userId, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.fin.consumer.service;
+
+import com.fin.consumer.model.Transaction;
+import com.fin.consumer.repository.SpendingAnomalyRepository;
+import com.fin.consumer.repository.SpendingAnomalyRepository.AnomalyStats;
+import com.fin.consumer.repository.SpendingAnomalyRepository.HistoricalExpense;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Detector de anomalias de gasto incremental: para cada usuário e categoria mantém média e variância
+ * com peso exponencial do valor das despesas e do total mensal, e marca como anomalia o que ficar
+ * acima do limiar de z-score. O estado é atualizado na mesma transação que grava a despesa, então o
+ * dashboard só lê as anomalias já gravadas.
+ */
+@Service
+public class SpendingAnomalyService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(SpendingAnomalyService.class);
+    
+    // Meses sem despesa entre dois lançamentos entram como zero na média mensal, até este limite
+    private static final int MAX_GAP_MONTHS = 12;
+    
+    @Autowired
+    private SpendingAnomalyRepository spendingAnomalyRepository;
+    
+    @Value("${anomaly.transaction-alpha:0.1}")
+    private double transactionAlpha;
+    
+    @Value("${anomaly.monthly-alpha:0.3}")
+    private double monthlyAlpha;
+    
+    @Value("${anomaly.z-threshold:3.0}")
+    private double zThreshold;
+    
+    // Desvio mínimo relativo à média: evita z-scores enormes em categorias de valor quase constante
+    @Value("${anomaly.min-relative-std:0.1}")
+    private double minRelativeStd;
+    
+    @Value("${anomaly.min-transactions:5}")
+    private int minTransactions;
+    
+    @Value("${anomaly.min-months:3}")
+    private int minMonths;
+    
+    @Value("${anomaly.warm-up-months:6}")
+    private int warmUpMonths;
+    
+    @Value("${anomaly.warm-up-limit:1000}")
+    private int warmUpLimit;
+    
+    /**
+     * Deve ser chamado dentro da transação que gravou a despesa, depois do insert.
+     */
+    public void onExpensePersisted(Long userId, Transaction transaction) {
+        if (transaction.getType() != Transaction.TransactionType.EXPENSE
+                || transaction.getCategory() == null
+                || transaction.getAmount() == null
+                || transaction.getAmount().signum() <= 0) {
+            return;
+        }
+        
+        LocalDate date = transaction.getDueDate() != null ? transaction.getDueDate() : transaction.getTransactionDate();
+        YearMonth currentMonth = YearMonth.now();
+        // Parcelas futuras e lançamentos retroativos não alteram o estado em tempo real
+        if (date == null || !YearMonth.from(date).equals(currentMonth)) {
+            return;
+        }
+        
+        Long categoryId = transaction.getCategory().getId();
+        AnomalyStats stats = spendingAnomalyRepository.lockStats(userId, categoryId);
+        if (stats == null) {
+            stats = warmUp(userId, categoryId, transaction.getId(), currentMonth);
+        }
+        
+        LocalDateTime now = LocalDateTime.now();
+        int monthKey = monthKey(currentMonth);
+        BigDecimal amount = transaction.getAmount();
+        
+        // Despesa atípica: comparada com o estado anterior a ela
+        if (stats.getTxCount() >= minTransactions) {
+            double z = zScore(amount.doubleValue(), stats.getTxMean(), stats.getTxVariance());
+            if (z >= zThreshold) {
+                spendingAnomalyRepository.saveAnomaly(userId, categoryId, "TRANSACTION", transaction.getId(), monthKey,
+                    amount, toAmount(stats.getTxMean()), z, severity(z), null, now);
+                logger.info("Despesa atípica: usuário {}, categoria {}, transação {}, z={}",
+                    userId, categoryId, transaction.getId(), String.format("%.2f", z));
+            }
+        }
+        
+        observeTransaction(stats, amount.doubleValue());
+        observeMonth(stats, monthKey, amount);
+        
+        // Total do mês corrente acima do normal (a linha do mês é atualizada enquanto o total cresce)
+        if (stats.getMonthsObserved() >= minMonths) {
+            double z = zScore(stats.getMonthTotal().doubleValue(), stats.getMonthlyMean(), stats.getMonthlyVariance());
+            if (z >= zThreshold) {
+                spendingAnomalyRepository.saveAnomaly(userId, categoryId, "MONTH", transaction.getId(), monthKey,
+                    stats.getMonthTotal(), toAmount(stats.getMonthlyMean()), z, severity(z),
+                    userId + ":MONTH:" + categoryId + ":" + monthKey, now);
+            }
+        }
+        
+        spendingAnomalyRepository.saveStats(userId, categoryId, stats, now);
+    }
+    
+    /**
+     * Primeira despesa da categoria desde a implantação: reconstrói o estado a partir do histórico recente
+     */
+    private AnomalyStats warmUp(Long userId, Long categoryId, Long transactionId, YearMonth currentMonth) {
+        AnomalyStats stats = new AnomalyStats(0, 0.0, 0.0, 0, BigDecimal.ZERO, 0, 0.0, 0.0);
+        
+        LocalDate from = currentMonth.minusMonths(warmUpMonths).atDay(1);
+        LocalDate until = currentMonth.plusMonths(1).atDay(1);
+        for (HistoricalExpense expense : spendingAnomalyRepository.findHistory(
+                userId, categoryId, transactionId, from, until, warmUpLimit)) {
+            observeTransaction(stats, expense.getAmount().doubleValue());
+            observeMonth(stats, monthKey(YearMonth.from(expense.getDate())), expense.getAmount());
+        }
+        return stats;
+    }
+    
+    private void observeTransaction(AnomalyStats stats, double x) {
+        if (stats.getTxCount() == 0) {
+            stats.setTxMean(x);
+            stats.setTxVariance(0.0);
+        } else {
+            double[] updated = ewma(stats.getTxMean(), stats.getTxVariance(), x, transactionAlpha);
+            stats.setTxMean(updated[0]);
+            stats.setTxVariance(updated[1]);
+        }
+        stats.setTxCount(stats.getTxCount() + 1);
+    }
+    
+    private void observeMonth(AnomalyStats stats, int monthKey, BigDecimal amount) {
+        if (stats.getMonthKey() == 0) {
+            stats.setMonthKey(monthKey);
+            stats.setMonthTotal(amount);
+            return;
+        }
+        
+        if (monthKey == stats.getMonthKey()) {
+            stats.setMonthTotal(stats.getMonthTotal().add(amount));
+            return;
+        }
+        
+        if (monthKey < stats.getMonthKey()) {
+            return; // Mês já fechado: entra apenas na estatística por transação
+        }
+        
+        // Virada de mês: fecha o mês acumulado e os meses sem despesa no intervalo
+        long gap = ChronoUnit.MONTHS.between(toYearMonth(stats.getMonthKey()), toYearMonth(monthKey)) - 1;
+        closeMonth(stats, stats.getMonthTotal().doubleValue());
+        for (long i = 0; i < Math.min(gap, MAX_GAP_MONTHS); i++) {
+            closeMonth(stats, 0.0);
+        }
+        stats.setMonthKey(monthKey);
+        stats.setMonthTotal(amount);
+    }
+    
+    private void closeMonth(AnomalyStats stats, double total) {
+        if (stats.getMonthsObserved() == 0) {
+            stats.setMonthlyMean(total);
+            stats.setMonthlyVariance(0.0);
+        } else {
+            double[] updated = ewma(stats.getMonthlyMean(), stats.getMonthlyVariance(), total, monthlyAlpha);
+            stats.setMonthlyMean(updated[0]);
+            stats.setMonthlyVariance(updated[1]);
+        }
+        stats.setMonthsObserved(stats.getMonthsObserved() + 1);
+    }
+    
+    // Atualização incremental da média e variância com peso exponencial: {média, variância}
+    private static double[] ewma(double mean, double variance, double x, double alpha) {
+        double diff = x - mean;
+        double increment = alpha * diff;
+        return new double[] { mean + increment, (1 - alpha) * (variance + diff * increment) };
+    }
+    
+    private double zScore(double x, double mean, double variance) {
+        double std = Math.max(Math.sqrt(variance), minRelativeStd * Math.abs(mean));
+        return std > 0 ? (x - mean) / std : 0.0;
+    }
+    
+    private String severity(double z) {
+        return z >= zThreshold * 1.5 ? "HIGH" : "MEDIUM";
+    }
+    
+    private static BigDecimal toAmount(double value) {
+        return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP);
+    }
+    
+    private static int monthKey(YearMonth month) {
+        return month.getYear() * 100 + month.getMonthValue();
+    }
+    
+    private static YearMonth toYearMonth(int monthKey) {
+        return YearMonth.of(monthKey / 100, monthKey % 100);
+    }
+}
@@ -0,0 +1,48 @@
+package com.fin.consumer.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Descarta o perfil de gastos do usuário mantido em cache pelo backend quando o consumer grava
+ * novas transações, para que as sugestões e análises reflitam a transação recém-criada.
+ */
+@Service
+public class SpendingProfileInvalidator {
+    
+    private static final Logger logger = LoggerFactory.getLogger(SpendingProfileInvalidator.class);
+    
+    // Chave do cache "spending-profile" do backend (prefixo padrão do RedisCacheManager: "<cache>::<chave>")
+    private static final String KEY_PREFIX = "spending-profile::";
+    
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+    
+    public void evictAfterCommit(Long userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(userId);
+            return;
+        }
+        
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict(userId);
+            }
+        });
+    }
+    
+    private void evict(Long userId) {
+        try {
+            redisTemplate.delete(KEY_PREFIX + userId);
+        } catch (Exception e) {
+            // O TTL do cache no backend limita o tempo em que o perfil fica desatualizado
+            logger.warn("Falha ao invalidar o perfil de gastos do usuário {}: {}", userId, e.getMessage());
+        }
+    }
+}
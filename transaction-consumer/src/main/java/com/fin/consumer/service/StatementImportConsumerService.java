@@ -0,0 +1,130 @@
+package com.fin.consumer.service;
+
+import com.fin.consumer.dto.StatementImportBatchMessage;
+import com.fin.consumer.model.Transaction;
+import com.fin.consumer.model.User;
+import com.fin.consumer.repository.StatementImportRepository;
+import com.fin.consumer.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Grava os lotes de extratos importados publicados pelo backend. Cada lote é uma transação (confirmada no Kafka após o commit):
+ * reserva do lote, regras de automação aplicadas ao lote inteiro, insert em lote, progresso do job
+ * e alertas de orçamento agregados. A detecção de anomalias não roda aqui: o extrato é histórico
+ * e distorceria as estatísticas de gasto recente.
+ */
+@Service
+public class StatementImportConsumerService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(StatementImportConsumerService.class);
+    
+    @Autowired
+    private StatementImportRepository statementImportRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private AutomationRuleService automationRuleService;
+    
+    @Autowired
+    private BudgetAlertService budgetAlertService;
+    
+    @Autowired
+    private SpendingProfileInvalidator spendingProfileInvalidator;
+    
+    @Autowired
+    private QuotaCounterUpdater quotaCounterUpdater;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    /**
+     * Erros que se repetiriam em toda reentrega (valor fora da coluna, tipo inválido) não são reprocessados:
+     * o lote é desfeito, a importação é marcada como falha e a mensagem é confirmada.
+     */
+    @KafkaListener(topics = "${kafka.topic.statement-imports:statement-imports}", groupId = "${spring.kafka.consumer.group-id}")
+    public void consumeBatch(
+            @Payload StatementImportBatchMessage message,
+            @Header(KafkaHeaders.RECEIVED_PARTITION) int partition,
+            @Header(KafkaHeaders.OFFSET) long offset,
+            Acknowledgment acknowledgment) {
+        
+        try {
+            transactionTemplate.executeWithoutResult(status -> writeBatch(message, partition, offset));
+            acknowledgment.acknowledge();
+            
+        } catch (NonTransientDataAccessException | IllegalArgumentException e) {
+            logger.error("Lote {} da importação {} rejeitado - Offset: {}", message.getBatchNumber(), message.getJobId(), offset, e);
+            String cause = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            transactionTemplate.executeWithoutResult(status -> statementImportRepository.markFailed(
+                message.getJobId(), "Lote " + message.getBatchNumber() + " do extrato rejeitado: " + cause, LocalDateTime.now()));
+            acknowledgment.acknowledge();
+            
+        } catch (Exception e) {
+            logger.error("Erro ao gravar lote de importação - Offset: {}", offset, e);
+            // Sem acknowledge: o lote é reprocessado e a reserva desfeita pelo rollback
+            throw new RuntimeException("Erro ao gravar lote de importação: " + e.getMessage(), e);
+        }
+    }
+    
+    private void writeBatch(StatementImportBatchMessage message, int partition, long offset) {
+        Long userId = message.getUserId();
+        Long jobId = message.getJobId();
+        List<StatementImportBatchMessage.Line> lines = message.getLines() != null ? message.getLines() : List.of();
+        LocalDateTime now = LocalDateTime.now();
+        long start = System.currentTimeMillis();
+        
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("Usuário não encontrado: " + userId));
+        
+        if (!statementImportRepository.claimBatch(jobId, message.getBatchNumber(), lines.size(), now)) {
+            logger.info("Lote {} da importação {} já gravado - Offset: {}", message.getBatchNumber(), jobId, offset);
+            return;
+        }
+        
+        List<Transaction> transactions = new ArrayList<>(lines.size());
+        for (StatementImportBatchMessage.Line line : lines) {
+            Transaction transaction = new Transaction();
+            transaction.setDescription(line.getDescription());
+            transaction.setAmount(line.getAmount());
+            transaction.setType(Transaction.TransactionType.valueOf(line.getType()));
+            transaction.setUser(user);
+            transaction.setTransactionDate(line.getTransactionDate());
+            transaction.setDueDate(line.getTransactionDate());
+            transaction.setPaidDate(line.getTransactionDate());
+            transaction.setIsPaid(true);
+            transaction.setImportJobId(jobId);
+            transactions.add(transaction);
+        }
+        
+        // Regras compiladas uma vez e aplicadas em memória ao lote inteiro, antes do insert
+        automationRuleService.applyRulesToTransactions(userId, transactions);
+        
+        if (!transactions.isEmpty()) {
+            statementImportRepository.insertTransactions(jobId, userId, transactions, now);
+            budgetAlertService.onExpensesImported(userId, transactions);
+            quotaCounterUpdater.addTransactionsAfterCommit(userId, transactions.size());
+            spendingProfileInvalidator.evictAfterCommit(userId);
+        }
+        statementImportRepository.recordBatchProcessed(jobId, transactions.size(), now);
+        
+        logger.info("Lote {} da importação {} gravado - Partition: {}, Offset: {}, Transações: {}, Tempo: {}ms",
+            message.getBatchNumber(), jobId, partition, offset, transactions.size(), System.currentTimeMillis() - start);
+    }
+}
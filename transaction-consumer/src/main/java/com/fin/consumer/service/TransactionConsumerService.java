@@ -45,6 +45,18 @@ public class TransactionConsumerService {
     @Autowired
     private AutomationRuleService automationRuleService;
     
+    @Autowired
+    private BudgetAlertService budgetAlertService;
+    
+    @Autowired
+    private SpendingProfileInvalidator spendingProfileInvalidator;
+    
+    @Autowired
+    private SpendingAnomalyService spendingAnomalyService;
+    
+    @Autowired
+    private QuotaCounterUpdater quotaCounterUpdater;
+    
     @KafkaListener(topics = "${kafka.topic.transactions:transactions}", groupId = "${spring.kafka.consumer.group-id}")
     @Transactional
     public void consumeTransaction(
@@ -103,39 +115,30 @@ public class TransactionConsumerService {
                 Transaction savedParent = transactionRepository.save(transaction);
                 transactionRepository.flush();
                 
-                // Criar parcelas
+                // Criar parcelas (as regras de automação são aplicadas antes de gravar)
                 createInstallments(savedParent, dto.getAmount(), dto.getTotalInstallments(), dto.getDueDate());
                 
-                // Aplicar regras de automação nas parcelas criadas
-                try {
-                    List<Transaction> createdInstallments = transactionRepository.findByParentTransactionId(savedParent.getId());
-                    for (Transaction installment : createdInstallments) {
-                        automationRuleService.applyRulesToTransaction(userId, installment);
-                    }
-                } catch (Exception e) {
-                    logger.warn("Erro ao aplicar regras de automação nas parcelas: {}", e.getMessage());
-                }
+                quotaCounterUpdater.addTransactionsAfterCommit(userId, dto.getTotalInstallments() + 1); // Pai + parcelas
                 
                 logger.info("Transação parcelada criada: ID={}, Total de parcelas: {}", 
                     savedParent.getId(), dto.getTotalInstallments());
             } else {
                 transaction.setIsInstallment(false);
                 transaction.setTotalInstallments(1);
-                transaction = transactionRepository.save(transaction);
                 
-                // Aplicar regras de automação
-                try {
-                    automationRuleService.applyRulesToTransaction(userId, transaction);
-                    // Recarregar a transação caso tenha sido modificada pelas regras
-                    transaction = transactionRepository.findById(transaction.getId()).orElse(transaction);
-                } catch (Exception e) {
-                    logger.warn("Erro ao aplicar regras de automação: {}", e.getMessage());
-                }
+                // Aplicar regras de automação antes do insert, para gravar a transação uma única vez
+                automationRuleService.applyRulesToTransaction(userId, transaction);
+                transaction = transactionRepository.save(transaction);
+                budgetAlertService.onExpensePersisted(userId, transaction);
+                spendingAnomalyService.onExpensePersisted(userId, transaction);
+                quotaCounterUpdater.addTransactionsAfterCommit(userId, 1);
                 
                 logger.info("Transação criada: ID={}, Description: {}", 
                     transaction.getId(), transaction.getDescription());
             }
             
+            spendingProfileInvalidator.evictAfterCommit(userId);
+            
             // Confirmar processamento da mensagem
             acknowledgment.acknowledge();
             logger.info("Mensagem processada com sucesso - Offset: {}", offset);
@@ -179,10 +182,14 @@ public class TransactionConsumerService {
             installmentTransactions.add(installmentTransaction);
         }
         
+        // Aplicar regras de automação antes de gravar, para que cada parcela seja escrita uma única vez
+        automationRuleService.applyRulesToTransactions(parentTransaction.getUser().getId(), installmentTransactions);
+        
         // Salvar todas as parcelas
-        for (Transaction installmentTransaction : installmentTransactions) {
-            Transaction saved = transactionRepository.save(installmentTransaction);
-            transactionRepository.flush();
+        for (Transaction saved : transactionRepository.saveAll(installmentTransactions)) {
+            // Alertas de orçamento e anomalias são avaliados por parcela, pela data de cada uma
+            budgetAlertService.onExpensePersisted(parentTransaction.getUser().getId(), saved);
+            spendingAnomalyService.onExpensePersisted(parentTransaction.getUser().getId(), saved);
             
             // Criar registro na tabela installments
             Installment installment = new Installment();
@@ -0,0 +1,30 @@
+package com.fin.consumer.rules;
+
+import com.fin.consumer.model.AutomationRule;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvFileSource;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CompiledRuleSetTest {
+    
+    // Cópia idêntica da tabela do RuleConditionMatcherTest do backend: as duas avaliações precisam concordar
+    @ParameterizedTest(name = "{0} [{1}] x \"{2}\" / {3} -> {4}")
+    @CsvFileSource(resources = "/automation-rule-conditions.csv", delimiter = '|', nullValues = "<null>")
+    void matchesBackendConformanceTable(String conditionType, String conditionValue, String description,
+                                        BigDecimal amount, boolean expected) {
+        AutomationRule rule = new AutomationRule();
+        rule.setId(1L);
+        rule.setName("regra");
+        rule.setConditionType(conditionType);
+        rule.setConditionValue(conditionValue);
+        rule.setActionType("ADD_TAG");
+        
+        CompiledRuleSet ruleSet = CompiledRuleSet.compile(List.of(rule), Set.of());
+        assertEquals(expected, ruleSet.findFirstMatch(description, amount) != null);
+    }
+}